@@ -0,0 +1,103 @@
+/**
+ * Copyright (C) 2013 - 2021 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.algorithm;
+
+/**
+ * Functions that reduce the samples of a property within a sampling window to the single value
+ * stored in the measurement.
+ */
+public enum Aggregation {
+
+    /**
+     * The value at the middle of the window, computed by the {@link Interpolation} of the
+     * property.
+     */
+    INTERPOLATED {
+        @Override
+        public double aggregate(Samples samples, int channel, long target,
+                                Interpolation interpolation, SampleStatistics statistics) {
+            return interpolation.interpolate(samples, channel, target);
+        }
+    },
+    FIRST {
+        @Override
+        public double aggregate(Samples samples, int channel, long target,
+                                Interpolation interpolation, SampleStatistics statistics) {
+            return statistics.of(samples, channel).getFirst();
+        }
+    },
+    LAST {
+        @Override
+        public double aggregate(Samples samples, int channel, long target,
+                                Interpolation interpolation, SampleStatistics statistics) {
+            return statistics.of(samples, channel).getLast();
+        }
+    },
+    MIN {
+        @Override
+        public double aggregate(Samples samples, int channel, long target,
+                                Interpolation interpolation, SampleStatistics statistics) {
+            return statistics.of(samples, channel).getMin();
+        }
+    },
+    MAX {
+        @Override
+        public double aggregate(Samples samples, int channel, long target,
+                                Interpolation interpolation, SampleStatistics statistics) {
+            return statistics.of(samples, channel).getMax();
+        }
+    },
+    MEAN {
+        @Override
+        public double aggregate(Samples samples, int channel, long target,
+                                Interpolation interpolation, SampleStatistics statistics) {
+            return statistics.of(samples, channel).getMean();
+        }
+    },
+    TIME_WEIGHTED_MEAN {
+        @Override
+        public double aggregate(Samples samples, int channel, long target,
+                                Interpolation interpolation, SampleStatistics statistics) {
+            return statistics.of(samples, channel).getTimeWeightedMean();
+        }
+    },
+    /**
+     * The integral over the time covered by the samples in value times seconds.
+     */
+    INTEGRAL {
+        @Override
+        public double aggregate(Samples samples, int channel, long target,
+                                Interpolation interpolation, SampleStatistics statistics) {
+            return statistics.of(samples, channel).getIntegral();
+        }
+    };
+
+    /**
+     * Reduces the samples to a single value.
+     *
+     * @param samples       the samples of the window.
+     * @param channel       the value channel of the samples.
+     * @param target        the middle of the window.
+     * @param interpolation the interpolation of the property.
+     * @param statistics    reused to compute the statistics of the samples.
+     * @return the value or NaN if there are no samples.
+     */
+    public abstract double aggregate(Samples samples, int channel, long target,
+                                     Interpolation interpolation, SampleStatistics statistics);
+}
@@ -0,0 +1,210 @@
+/**
+ * Copyright (C) 2013 - 2021 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.algorithm;
+
+/**
+ * Strategies to compute the value of {@link Samples} at a given time. The samples are sorted
+ * by their timestamp once, the surrounding samples are then found by a binary search or, for
+ * ascending target times, by a {@link Cursor}. Targets before the first or after the last
+ * sample take the value of the first or last sample.
+ */
+public enum Interpolation {
+
+    /**
+     * Linear interpolation between the two surrounding samples.
+     */
+    LINEAR {
+        @Override
+        double interpolate(Samples samples, int channel, int index, long target) {
+            if (index < 0) {
+                return samples.getValue(channel, 0);
+            }
+            if (index >= samples.size() - 1) {
+                return samples.getValue(channel, samples.size() - 1);
+            }
+            return linear(samples.getValue(channel, index), samples.getValue(channel, index + 1),
+                    target, samples.getTimestamp(index), samples.getTimestamp(index + 1));
+        }
+    },
+
+    /**
+     * The value of the sample closest in time, the earlier one on a tie.
+     */
+    NEAREST {
+        @Override
+        double interpolate(Samples samples, int channel, int index, long target) {
+            if (index < 0) {
+                return samples.getValue(channel, 0);
+            }
+            if (index < samples.size() - 1
+                    && samples.getTimestamp(index + 1) - target < target - samples.getTimestamp(index)) {
+                index++;
+            }
+            return samples.getValue(channel, index);
+        }
+    },
+
+    /**
+     * The value of the latest sample at or before the target.
+     */
+    HOLD_LAST {
+        @Override
+        double interpolate(Samples samples, int channel, int index, long target) {
+            return samples.getValue(channel, Math.max(0, index));
+        }
+    },
+
+    /**
+     * Cubic Hermite interpolation with Catmull-Rom tangents, which are adapted to unevenly
+     * spaced samples. Falls back to a linear interpolation for less than three samples.
+     */
+    CUBIC {
+        @Override
+        double interpolate(Samples samples, int channel, int index, long target) {
+            int last = samples.size() - 1;
+            if (last < 2 || index < 0 || index >= last) {
+                return LINEAR.interpolate(samples, channel, index, target);
+            }
+
+            long t0 = samples.getTimestamp(index);
+            long t1 = samples.getTimestamp(index + 1);
+            double v0 = samples.getValue(channel, index);
+            double v1 = samples.getValue(channel, index + 1);
+            double m0 = tangent(samples, channel, index, last);
+            double m1 = tangent(samples, channel, index + 1, last);
+
+            double h = t1 - t0;
+            double u = (target - t0) / h;
+            double u2 = u * u;
+            double u3 = u2 * u;
+            return (2 * u3 - 3 * u2 + 1) * v0 + (u3 - 2 * u2 + u) * h * m0
+                    + (-2 * u3 + 3 * u2) * v1 + (u3 - u2) * h * m1;
+        }
+
+        private double tangent(Samples samples, int channel, int index, int last) {
+            int before = Math.max(0, index - 1);
+            int after = Math.min(last, index + 1);
+            return (samples.getValue(channel, after) - samples.getValue(channel, before))
+                    / (samples.getTimestamp(after) - samples.getTimestamp(before));
+        }
+    };
+
+    /**
+     * Computes the value at the target time.
+     *
+     * @param samples the samples, they are sorted if necessary.
+     * @param channel the value channel of the samples.
+     * @param target  the target time.
+     * @return the value or NaN if there are no samples.
+     */
+    public double interpolate(Samples samples, int channel, long target) {
+        if (samples.isEmpty()) {
+            return Double.NaN;
+        }
+        samples.sort();
+        return interpolate(samples, channel, floorIndex(samples, target), target);
+    }
+
+    /**
+     * @param index the index of the last sample at or before the target, -1 if there is none.
+     */
+    abstract double interpolate(Samples samples, int channel, int index, long target);
+
+    /**
+     * Binary search for the last sample at or before the target.
+     *
+     * @param samples the sorted samples.
+     * @param target  the target time.
+     * @return the index of the sample or -1 if all samples are later.
+     */
+    public static int floorIndex(Samples samples, long target) {
+        int low = 0;
+        int high = samples.size() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (samples.getTimestamp(mid) <= target) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return high;
+    }
+
+    /**
+     * Linear interpolation between two values.
+     *
+     * @param start          the start value
+     * @param end            the end value
+     * @param target         the target timestamp used for interpolation
+     * @param startTimestamp the timestamp of the start
+     * @param endTimestamp   the timestamp of the end
+     * @return the interpolated value
+     */
+    public static double linear(double start, double end, long target, long startTimestamp,
+                                long endTimestamp) {
+        if (endTimestamp == startTimestamp) {
+            return end;
+        }
+        double duration = endTimestamp - startTimestamp;
+        return start * ((endTimestamp - target) / duration) + end * ((target - startTimestamp) / duration);
+    }
+
+    /**
+     * Interpolates sorted samples at ascending target times, the position of the previous target
+     * is kept so that each sample is visited once. Descending targets fall back to a binary
+     * search.
+     */
+    public static final class Cursor {
+        private final Samples samples;
+        private int index = -1;
+
+        /**
+         * Constructor.
+         *
+         * @param samples the samples, they are sorted if necessary.
+         */
+        public Cursor(Samples samples) {
+            this.samples = samples;
+            samples.sort();
+        }
+
+        public double interpolate(Interpolation interpolation, int channel, long target) {
+            if (samples.isEmpty()) {
+                return Double.NaN;
+            }
+            if (index >= 0 && samples.getTimestamp(index) > target) {
+                index = floorIndex(samples, target);
+            } else {
+                while (index + 1 < samples.size() && samples.getTimestamp(index + 1) <= target) {
+                    index++;
+                }
+            }
+            return interpolation.interpolate(samples, channel, index, target);
+        }
+
+        /**
+         * Starts again at the first sample, e.g. after the samples have been refilled.
+         */
+        public void reset() {
+            index = -1;
+            samples.sort();
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/**
+ * Copyright (C) 2013 - 2021 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.algorithm;
+
+import org.envirocar.core.entity.Measurement;
+
+import java.util.Arrays;
+
+/**
+ * Registry of the {@link Aggregation} and {@link Interpolation} per property that a
+ * {@link MeasurementProvider} applies to the samples of a window. The registry is not thread
+ * safe, a provider that is reconfigured while sampling changes a {@link #copy()} and publishes
+ * it as a whole.
+ */
+public final class PropertyAggregations {
+    private static final Measurement.PropertyKey[] KEYS = Measurement.PropertyKey.values();
+
+    private final Aggregation[] aggregations = new Aggregation[KEYS.length];
+    private final Interpolation[] interpolations = new Interpolation[KEYS.length];
+
+    /**
+     * Creates a registry that interpolates all properties linearly.
+     */
+    public PropertyAggregations() {
+        Arrays.fill(aggregations, Aggregation.INTERPOLATED);
+        Arrays.fill(interpolations, Interpolation.LINEAR);
+    }
+
+    /**
+     * @return the registry used by default: all properties are interpolated linearly to the
+     * middle of the window, except the fuel system status code which keeps its first value.
+     */
+    public static PropertyAggregations defaults() {
+        return new PropertyAggregations()
+                .set(Measurement.PropertyKey.FUEL_SYSTEM_STATUS_CODE, Aggregation.FIRST);
+    }
+
+    /**
+     * @return a copy of this registry that can be changed independently.
+     */
+    public PropertyAggregations copy() {
+        PropertyAggregations result = new PropertyAggregations();
+        System.arraycopy(aggregations, 0, result.aggregations, 0, KEYS.length);
+        System.arraycopy(interpolations, 0, result.interpolations, 0, KEYS.length);
+        return result;
+    }
+
+    public PropertyAggregations set(Measurement.PropertyKey key, Aggregation aggregation) {
+        aggregations[key.ordinal()] = aggregation;
+        return this;
+    }
+
+    public PropertyAggregations set(Measurement.PropertyKey key, Interpolation interpolation) {
+        interpolations[key.ordinal()] = interpolation;
+        return this;
+    }
+
+    public Aggregation getAggregation(Measurement.PropertyKey key) {
+        return aggregations[key.ordinal()];
+    }
+
+    public Interpolation getInterpolation(Measurement.PropertyKey key) {
+        return interpolations[key.ordinal()];
+    }
+
+    /**
+     * Reduces the samples of a property to the value stored in the measurement.
+     *
+     * @param key        the key of the property.
+     * @param samples    the samples of the window.
+     * @param target     the middle of the window.
+     * @param statistics reused to compute the statistics of the samples.
+     * @return the value or NaN if there are no samples.
+     */
+    public double aggregate(Measurement.PropertyKey key, Samples samples, long target,
+                            SampleStatistics statistics) {
+        int ordinal = key.ordinal();
+        return aggregations[ordinal].aggregate(samples, 0, target, interpolations[ordinal], statistics);
+    }
+}
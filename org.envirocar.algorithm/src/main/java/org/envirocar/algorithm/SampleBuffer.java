@@ -0,0 +1,127 @@
+/**
+ * Copyright (C) 2013 - 2021 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.algorithm;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Lock-free buffer for timestamped samples that are written by event threads and collected by
+ * a sampler once per window. Samples are written into the active of two ring segments, the
+ * sampler swaps the segments atomically and copies the retired one. Writers never block, they
+ * retry on the new segment if a swap happened while they were claiming a slot. If more samples
+ * than the capacity arrive within a window the oldest ones are overwritten.
+ */
+public final class SampleBuffer {
+
+    private final int channels;
+    private final int capacity;
+    private final AtomicReference<Segment> active;
+    // only accessed by the sampler
+    private Segment spare;
+
+    /**
+     * Constructor.
+     *
+     * @param channels the number of values per sample.
+     * @param capacity the maximum number of samples per window.
+     */
+    public SampleBuffer(int channels, int capacity) {
+        this.channels = channels;
+        this.capacity = capacity;
+        this.active = new AtomicReference<>(new Segment(channels, capacity));
+        this.spare = new Segment(channels, capacity);
+    }
+
+    /**
+     * Adds a sample with a single value, further channels are set to NaN.
+     */
+    public void add(long timestamp, double value) {
+        add(timestamp, value, Double.NaN);
+    }
+
+    /**
+     * Adds a sample with up to two values, values of channels beyond the buffer's are ignored.
+     */
+    public void add(long timestamp, double first, double second) {
+        while (true) {
+            Segment segment = active.get();
+            segment.writers.incrementAndGet();
+            try {
+                if (segment != active.get()) {
+                    // swapped in the meantime, the sampler may already be reading this segment
+                    continue;
+                }
+                int slot = segment.claimed.getAndIncrement() % capacity;
+                segment.timestamps[slot] = timestamp;
+                segment.values[0][slot] = first;
+                if (channels > 1) {
+                    segment.values[1][slot] = second;
+                }
+                return;
+            } finally {
+                segment.writers.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Moves all samples received since the last call into the given instance, oldest first. Must
+     * only be called by a single sampler thread.
+     *
+     * @param target the instance to fill, it is cleared first.
+     * @return the target.
+     */
+    public Samples drain(Samples target) {
+        Segment retired = active.getAndSet(spare);
+        // wait for writers that claimed a slot before the swap, they only copy a few values
+        while (retired.writers.get() != 0) {
+            Thread.yield();
+        }
+
+        target.clear();
+        int claimed = retired.claimed.get();
+        int start = claimed > capacity ? claimed % capacity : 0;
+        int count = Math.min(claimed, capacity);
+        for (int i = 0; i < count; i++) {
+            int slot = (start + i) % capacity;
+            target.add(retired.timestamps[slot], retired.values, slot);
+        }
+
+        retired.claimed.set(0);
+        spare = retired;
+        return target;
+    }
+
+    public int getChannels() {
+        return channels;
+    }
+
+    private static final class Segment {
+        final long[] timestamps;
+        final double[][] values;
+        final AtomicInteger claimed = new AtomicInteger();
+        final AtomicInteger writers = new AtomicInteger();
+
+        Segment(int channels, int capacity) {
+            this.timestamps = new long[capacity];
+            this.values = new double[channels][capacity];
+        }
+    }
+}
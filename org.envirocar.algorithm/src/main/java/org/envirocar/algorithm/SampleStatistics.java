@@ -0,0 +1,150 @@
+/**
+ * Copyright (C) 2013 - 2021 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.algorithm;
+
+/**
+ * Aggregates of samples that are computed in a single pass: count, first, last, minimum,
+ * maximum, mean, the integral over time and the time-weighted mean. NaN values are skipped.
+ * An instance is reused for all properties of a window.
+ */
+public final class SampleStatistics {
+
+    private int count;
+    private double first;
+    private double last;
+    private long firstTimestamp;
+    private long lastTimestamp;
+    private double min;
+    private double max;
+    private double sum;
+    // trapezoidal integral in value times milliseconds
+    private double integral;
+
+    public SampleStatistics() {
+        reset();
+    }
+
+    public void reset() {
+        count = 0;
+        first = Double.NaN;
+        last = Double.NaN;
+        min = Double.POSITIVE_INFINITY;
+        max = Double.NEGATIVE_INFINITY;
+        sum = 0;
+        integral = 0;
+    }
+
+    /**
+     * Adds a sample, the samples have to be passed in ascending order of their timestamps.
+     *
+     * @param timestamp the timestamp in milliseconds.
+     * @param value     the value.
+     */
+    public void accept(long timestamp, double value) {
+        if (Double.isNaN(value)) {
+            return;
+        }
+        if (count == 0) {
+            first = value;
+            firstTimestamp = timestamp;
+        } else {
+            integral += (last + value) / 2 * (timestamp - lastTimestamp);
+        }
+        last = value;
+        lastTimestamp = timestamp;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+        sum += value;
+        count++;
+    }
+
+    /**
+     * Resets the statistics and adds one channel of the given samples, which are sorted first.
+     *
+     * @param samples the samples.
+     * @param channel the value channel.
+     * @return this instance.
+     */
+    public SampleStatistics of(Samples samples, int channel) {
+        reset();
+        samples.sort();
+        for (int i = 0; i < samples.size(); i++) {
+            accept(samples.getTimestamp(i), samples.getValue(channel, i));
+        }
+        return this;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * @return the earliest value or NaN if there is none.
+     */
+    public double getFirst() {
+        return first;
+    }
+
+    /**
+     * @return the latest value or NaN if there is none.
+     */
+    public double getLast() {
+        return last;
+    }
+
+    /**
+     * @return the smallest value or NaN if there is none.
+     */
+    public double getMin() {
+        return count > 0 ? min : Double.NaN;
+    }
+
+    /**
+     * @return the largest value or NaN if there is none.
+     */
+    public double getMax() {
+        return count > 0 ? max : Double.NaN;
+    }
+
+    /**
+     * @return the arithmetic mean or NaN if there are no values.
+     */
+    public double getMean() {
+        return count > 0 ? sum / count : Double.NaN;
+    }
+
+    /**
+     * @return the integral over the time between the first and the last value in value times
+     * seconds, e.g. grams for a mass flow in g/s. 0 for a single value.
+     */
+    public double getIntegral() {
+        return count > 0 ? integral / 1000 : Double.NaN;
+    }
+
+    /**
+     * @return the mean weighted by the time each value was valid, the arithmetic mean if all
+     * values share the same timestamp.
+     */
+    public double getTimeWeightedMean() {
+        if (count > 0 && lastTimestamp > firstTimestamp) {
+            return integral / (lastTimestamp - firstTimestamp);
+        }
+        return getMean();
+    }
+}
@@ -0,0 +1,182 @@
+/**
+ * Copyright (C) 2013 - 2021 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.algorithm;
+
+import java.util.Arrays;
+
+/**
+ * Timestamped samples of one or more values, e.g. the values of a property or the latitudes and
+ * longitudes of positions, kept in primitive arrays in the order they have been received. An
+ * instance is filled by {@link SampleBuffer#drain(Samples)} and reused for the next window.
+ */
+public final class Samples {
+
+    private final int channels;
+    private long[] timestamps;
+    private final double[][] values;
+    private int size;
+    private long minTimestamp;
+    private long maxTimestamp;
+    private boolean sorted;
+
+    /**
+     * Constructor.
+     *
+     * @param channels the number of values per sample.
+     * @param capacity the initial capacity.
+     */
+    public Samples(int channels, int capacity) {
+        this.channels = channels;
+        this.timestamps = new long[capacity];
+        this.values = new double[channels][capacity];
+        clear();
+    }
+
+    /**
+     * @return the number of samples.
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public long getTimestamp(int index) {
+        return timestamps[index];
+    }
+
+    /**
+     * @return the first value of the sample at the given index.
+     */
+    public double getValue(int index) {
+        return values[0][index];
+    }
+
+    public double getValue(int channel, int index) {
+        return values[channel][index];
+    }
+
+    /**
+     * @return the smallest timestamp of all samples, only defined if there are samples.
+     */
+    public long getMinTimestamp() {
+        return minTimestamp;
+    }
+
+    /**
+     * @return the largest timestamp of all samples, only defined if there are samples.
+     */
+    public long getMaxTimestamp() {
+        return maxTimestamp;
+    }
+
+    public int getChannels() {
+        return channels;
+    }
+
+    /**
+     * @return true if the timestamps are in ascending order.
+     */
+    public boolean isSorted() {
+        return sorted;
+    }
+
+    /**
+     * Sorts the samples by their timestamp, keeping the order of samples with equal timestamps.
+     * Samples usually arrive almost in order, an insertion sort is linear for these.
+     */
+    public void sort() {
+        if (sorted) {
+            return;
+        }
+        for (int i = 1; i < size; i++) {
+            long timestamp = timestamps[i];
+            int j = i - 1;
+            while (j >= 0 && timestamps[j] > timestamp) {
+                j--;
+            }
+            int target = j + 1;
+            if (target == i) {
+                continue;
+            }
+            System.arraycopy(timestamps, target, timestamps, target + 1, i - target);
+            timestamps[target] = timestamp;
+            for (int channel = 0; channel < channels; channel++) {
+                double[] channelValues = values[channel];
+                double value = channelValues[i];
+                System.arraycopy(channelValues, target, channelValues, target + 1, i - target);
+                channelValues[target] = value;
+            }
+        }
+        sorted = true;
+    }
+
+    public void clear() {
+        size = 0;
+        sorted = true;
+        minTimestamp = Long.MAX_VALUE;
+        maxTimestamp = Long.MIN_VALUE;
+    }
+
+    /**
+     * Appends a sample with a single value.
+     *
+     * @param timestamp the timestamp of the sample.
+     * @param value     the value of the first channel, further channels are set to NaN.
+     */
+    public void add(long timestamp, double value) {
+        ensureCapacity();
+        timestamps[size] = timestamp;
+        values[0][size] = value;
+        for (int channel = 1; channel < channels; channel++) {
+            values[channel][size] = Double.NaN;
+        }
+        sorted &= size == 0 || timestamp >= timestamps[size - 1];
+        size++;
+        minTimestamp = Math.min(minTimestamp, timestamp);
+        maxTimestamp = Math.max(maxTimestamp, timestamp);
+    }
+
+    /**
+     * Appends the sample stored at the given index of per channel value arrays.
+     */
+    void add(long timestamp, double[][] source, int sourceIndex) {
+        ensureCapacity();
+        timestamps[size] = timestamp;
+        for (int channel = 0; channel < channels; channel++) {
+            values[channel][size] = source[channel][sourceIndex];
+        }
+        sorted &= size == 0 || timestamp >= timestamps[size - 1];
+        size++;
+        minTimestamp = Math.min(minTimestamp, timestamp);
+        maxTimestamp = Math.max(maxTimestamp, timestamp);
+    }
+
+    private void ensureCapacity() {
+        if (size == timestamps.length) {
+            int capacity = Math.max(8, size * 2);
+            timestamps = Arrays.copyOf(timestamps, capacity);
+            for (int channel = 0; channel < channels; channel++) {
+                values[channel] = Arrays.copyOf(values[channel], capacity);
+            }
+        }
+    }
+}
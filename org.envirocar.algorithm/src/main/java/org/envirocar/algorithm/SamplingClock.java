@@ -0,0 +1,124 @@
+/**
+ * Copyright (C) 2013 - 2021 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.algorithm;
+
+import android.os.SystemClock;
+
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.Observable;
+import io.reactivex.Scheduler;
+
+/**
+ * Fixed-rate clock for the sampling windows of a {@link MeasurementProvider}. The ticks are
+ * aligned to multiples of the period since the subscription on a monotonic time source, so
+ * processing times and scheduling delays do not accumulate. Windows that passed without a tick,
+ * e.g. while the device was busy, are reported by the next tick.
+ */
+public final class SamplingClock {
+
+    /**
+     * Monotonic source of time in nanoseconds.
+     */
+    public interface TimeSource {
+        long nanoTime();
+    }
+
+    /**
+     * Time since boot including deep sleep, not affected by changes of the wall clock.
+     */
+    public static final TimeSource ELAPSED_REALTIME = SystemClock::elapsedRealtimeNanos;
+
+    /**
+     * A tick at the end of a sampling window.
+     */
+    public static final class Tick {
+        private final long window;
+        private final long missedWindows;
+
+        Tick(long window, long missedWindows) {
+            this.window = window;
+            this.missedWindows = missedWindows;
+        }
+
+        /**
+         * @return the number of the window that has ended, starting with 1.
+         */
+        public long getWindow() {
+            return window;
+        }
+
+        /**
+         * @return the number of windows that ended since the previous tick without a tick of
+         * their own, the samples of these windows are part of this window.
+         */
+        public long getMissedWindows() {
+            return missedWindows;
+        }
+    }
+
+    private SamplingClock() {
+        // no instances
+    }
+
+    /**
+     * Returns an observable emitting a tick at the end of every window.
+     *
+     * @param period     the length of a window.
+     * @param unit       the unit of the period.
+     * @param scheduler  the scheduler the ticks are emitted on.
+     * @param timeSource the clock the windows are aligned to.
+     * @return the ticks.
+     */
+    public static Observable<Tick> ticks(long period, TimeUnit unit, Scheduler scheduler,
+                                         TimeSource timeSource) {
+        final long periodNanos = unit.toNanos(period);
+        if (periodNanos <= 0) {
+            throw new IllegalArgumentException("The period has to be positive");
+        }
+
+        return Observable.create(emitter -> {
+            Scheduler.Worker worker = scheduler.createWorker();
+            emitter.setDisposable(worker);
+
+            final long origin = timeSource.nanoTime();
+            worker.schedule(new Runnable() {
+                private long window;
+
+                @Override
+                public void run() {
+                    if (emitter.isDisposed()) {
+                        return;
+                    }
+
+                    long now = timeSource.nanoTime();
+                    long ended = (now - origin) / periodNanos;
+                    if (ended > window) {
+                        emitter.onNext(new Tick(ended, ended - window - 1));
+                        window = ended;
+                    }
+
+                    // the next boundary is computed from the origin, so delays do not add up
+                    long delay = origin + (window + 1) * periodNanos - timeSource.nanoTime();
+                    worker.schedule(this, Math.max(0, delay), TimeUnit.NANOSECONDS);
+                }
+            }, periodNanos, TimeUnit.NANOSECONDS);
+        });
+    }
+}
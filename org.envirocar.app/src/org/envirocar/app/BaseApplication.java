@@ -39,6 +39,8 @@ import org.envirocar.app.handler.userstatistics.UserStatisticsProcessor;
 import org.envirocar.app.notifications.AutomaticUploadNotificationHandler;
 import org.envirocar.app.notifications.NotificationHandler;
 import org.envirocar.app.rxutils.RxBroadcastReceiver;
+import org.envirocar.app.services.TrackRetentionService;
+import org.envirocar.app.services.TrackSummaryRebuildService;
 import org.envirocar.core.injection.InjectApplicationScope;
 import org.envirocar.core.logging.ACRASenderFactory;
 import org.envirocar.core.logging.Logger;
@@ -150,6 +152,14 @@ public class BaseApplication extends Application {
                         .doOnError(LOG::error)
                         .subscribe());
 
+        // periodic retention and compaction of the track database
+        TrackRetentionService.schedule(this);
+
+        // the summaries created by the database migration lack the property averages
+        if (!ApplicationSettings.isTrackSummariesRebuilt(this)) {
+            TrackSummaryRebuildService.schedule(this);
+        }
+
         LOG.info("BaseApplication started: " + this.hashCode());
     }
 
@@ -30,6 +30,8 @@ import org.envirocar.app.injection.modules.MainActivityModule;
 import org.envirocar.app.injection.modules.RecordingScreenModule;
 import org.envirocar.app.recording.RecordingComponent;
 import org.envirocar.app.recording.RecordingModule;
+import org.envirocar.app.services.TrackRetentionService;
+import org.envirocar.app.services.TrackSummaryRebuildService;
 import org.envirocar.app.services.TrackUploadService;
 import org.envirocar.app.services.autoconnect.AutoRecordingComponent;
 import org.envirocar.app.services.autoconnect.AutoRecordingModule;
@@ -127,6 +129,8 @@ public interface BaseApplicationComponent {
     void inject(EnviroCarDataService enviroCarDataService);
     void inject(EnviroCarVehicleDB enviroCarVehicleDB);
     void inject(TrackchunkUploadService trackchunkUploadService);
+    void inject(TrackRetentionService trackRetentionService);
+    void inject(TrackSummaryRebuildService trackSummaryRebuildService);
 
     // interactors
     void inject(GetUserStatistic getUserStatistic);
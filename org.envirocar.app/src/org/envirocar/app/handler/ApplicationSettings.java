@@ -30,6 +30,7 @@ import com.google.common.base.Preconditions;
 
 import org.envirocar.app.R;
 import org.envirocar.app.recording.RecordingType;
+import org.envirocar.core.util.RetentionPolicy;
 
 import io.reactivex.Observable;
 
@@ -55,6 +56,10 @@ public class ApplicationSettings {
     public static final int DEFAULT_SAMPLING_RATE = 5;
     public static final String DEFAULT_CAMPAIGN_PROFILE = "DEFAULT_COMANND_PROFILE";
     public static final boolean DEFAULT_TRACK_CHUNK_UPLOAD= false;
+    // retention of uploaded tracks, disabled by default
+    public static final int DEFAULT_RETENTION_KEEP_DAYS = 0;
+    public static final long DEFAULT_RETENTION_MAX_DB_SIZE = 0;
+    public static final boolean DEFAULT_RETENTION_SUMMARY_ONLY = false;
 
 //    // General Settings
 //    public static final String PREF_AUTOMATIC_UPLOAD_OF_TRACKS = "pref_automatic_upload_tracks";
@@ -207,6 +212,30 @@ public class ApplicationSettings {
                         DEFAULT_PREF_ENABLE_GPS_BASED_TRACK_RECORDING);
     }
 
+    public static RetentionPolicy getRetentionPolicy(Context context) {
+        SharedPreferences preferences = getSharedPreferences(context);
+        return new RetentionPolicy(
+                preferences.getInt(s(context, R.string.prefkey_retention_keep_days), DEFAULT_RETENTION_KEEP_DAYS),
+                preferences.getLong(s(context, R.string.prefkey_retention_max_db_size), DEFAULT_RETENTION_MAX_DB_SIZE),
+                preferences.getBoolean(s(context, R.string.prefkey_retention_summary_only), DEFAULT_RETENTION_SUMMARY_ONLY));
+    }
+
+    private static final String PREF_TRACK_SUMMARIES_REBUILT = "pref_track_summaries_rebuilt";
+
+    /**
+     * @return true if the track summaries have been recomputed from the measurements, which is
+     * required once for the summaries created by the database migration.
+     */
+    public static boolean isTrackSummariesRebuilt(Context context) {
+        return getSharedPreferences(context).getBoolean(PREF_TRACK_SUMMARIES_REBUILT, false);
+    }
+
+    public static void setTrackSummariesRebuilt(Context context) {
+        getSharedPreferences(context).edit()
+                .putBoolean(PREF_TRACK_SUMMARIES_REBUILT, true)
+                .apply();
+    }
+
     public static final String PREF_RECORDING_TYPE = "pref_recording_type";
     public static final RecordingType DEFAULT_RECORDING_TYPE = RecordingType.OBD_ADAPTER_BASED;
 
@@ -23,185 +23,179 @@ import android.location.Location;
 import com.squareup.otto.Subscribe;
 
 import org.envirocar.algorithm.AbstractMeasurementProvider;
-import org.envirocar.app.handler.algorithm.DataResponseAlgorithm;
+import org.envirocar.algorithm.Aggregation;
+import org.envirocar.algorithm.Interpolation;
+import org.envirocar.algorithm.PropertyAggregations;
+import org.envirocar.algorithm.SampleBuffer;
+import org.envirocar.algorithm.SampleStatistics;
+import org.envirocar.algorithm.SamplingClock;
+import org.envirocar.algorithm.Samples;
+import org.envirocar.app.handler.algorithm.DataResponseAlgorithms;
 import org.envirocar.core.entity.Measurement;
-import org.envirocar.core.entity.MeasurementImpl;
+import org.envirocar.core.entity.PrimitiveMeasurementImpl;
 import org.envirocar.core.events.gps.GpsDOP;
 import org.envirocar.core.events.gps.GpsDOPEvent;
 import org.envirocar.core.events.gps.GpsLocationChangedEvent;
 import org.envirocar.core.logging.Logger;
 import org.envirocar.obd.events.PropertyKeyEvent;
-import org.envirocar.obd.events.Timestamped;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import io.reactivex.Observable;
+import io.reactivex.Scheduler;
+import io.reactivex.schedulers.Schedulers;
 
 
 /**
- * TODO JavaDoc
+ * Measurement provider that collects the values of the OBD and GPS events within a sampling
+ * window and interpolates them to the middle of the window. The events are written into lock
+ * free {@link SampleBuffer}s per property, so the event threads never wait for the sampler.
+ * The windows are driven by a {@link SamplingClock}, a measurement that also covers windows
+ * which were missed carries their length in milliseconds as
+ * {@link Measurement.PropertyKey#SAMPLING_GAP}.
  */
 public class InterpolationMeasurementProvider extends AbstractMeasurementProvider {
     private static final Logger LOG = Logger.getLogger(InterpolationMeasurementProvider.class);
 
-    private Map<Measurement.PropertyKey, List<PropertyKeyEvent>> bufferedResponses = new
-            HashMap<>();
-    private long firstTimestampToBeConsidered;
+    private static final Measurement.PropertyKey[] KEYS = Measurement.PropertyKey.values();
+    private static final int BUFFER_CAPACITY = 256;
+
+    private final Scheduler scheduler;
+    private final SamplingClock.TimeSource timeSource;
+
+    // written by the event threads, created on the first value of a property
+    private final AtomicReferenceArray<SampleBuffer> buffers = new AtomicReferenceArray<>(KEYS.length);
+    private final SampleBuffer positions = new SampleBuffer(2, BUFFER_CAPACITY);
+
+    // only accessed by the sampler
+    private final Samples[] bufferedSamples = new Samples[KEYS.length];
+    private final Samples bufferedPositions = new Samples(2, BUFFER_CAPACITY);
     private long lastTimestampToBeConsidered;
 
+    private final SampleStatistics statistics = new SampleStatistics();
+
+    // functions that reduce the samples of a window to a value, the registry is never changed
+    // once published, the setters replace it with a changed copy
+    private volatile PropertyAggregations aggregations = PropertyAggregations.defaults();
+    private volatile Interpolation positionInterpolation = Interpolation.LINEAR;
+    // derived properties, accumulated over the whole recording
+    private volatile DataResponseAlgorithms algorithms = DataResponseAlgorithms.defaults();
+
+    /**
+     * Constructor. The windows are aligned to the elapsed realtime and sampled on a thread of
+     * their own, so the sampler does not compete with other work for the computation threads.
+     */
+    public InterpolationMeasurementProvider() {
+        this(Schedulers.newThread(), SamplingClock.ELAPSED_REALTIME);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param scheduler  the scheduler the measurements are created on.
+     * @param timeSource the monotonic clock the sampling windows are aligned to.
+     */
+    public InterpolationMeasurementProvider(Scheduler scheduler, SamplingClock.TimeSource timeSource) {
+        this.scheduler = scheduler;
+        this.timeSource = timeSource;
+    }
+
     /*
      * TODO implement listing for GPS DOP Events
      */
     @Override
     public Observable<Measurement> measurements(long samplingRate) {
-        return Observable.create(emitter -> {
-            LOG.info("measurements(): start collecting data");
-            while (!emitter.isDisposed()) {
-                synchronized (InterpolationMeasurementProvider.this) {
-                    /**
-                     * wait the sampling rate
-                     */
-                    try {
-                        InterpolationMeasurementProvider.this.wait(samplingRate);
-                    } catch (InterruptedException e) {
-                        if (!emitter.isDisposed())
-                            emitter.onError(e);
-                    }
-
+        return SamplingClock.ticks(samplingRate, TimeUnit.MILLISECONDS, scheduler, timeSource)
+                .doOnSubscribe(disposable -> LOG.info("measurements(): start collecting data"))
+                .map(tick -> {
                     Measurement m = createMeasurement();
-
-                    if (m != null && m.getLatitude() != null && m.getLongitude() != null &&
-                            (m.hasProperty(Measurement.PropertyKey.SPEED) ||
-                                    m.hasProperty(Measurement.PropertyKey.GPS_SPEED))) {
-                        LOG.info("Emitting next measuremnet");
-                        emitter.onNext(m);
+                    if (tick.getMissedWindows() > 0) {
+                        LOG.warn(String.format("Sampling gap: %s windows of %s ms were missed",
+                                tick.getMissedWindows(), samplingRate));
+                        // the measurement covers the missed windows as well
+                        m.setDouble(Measurement.PropertyKey.SAMPLING_GAP,
+                                tick.getMissedWindows() * samplingRate);
                     }
-                }
-            }
-            LOG.info("measurements(): finished the collection of data.");
-            emitter.onComplete();
-        });
+                    return m;
+                })
+                .filter(m -> m.getLatitude() != null && m.getLongitude() != null &&
+                        (m.hasProperty(Measurement.PropertyKey.SPEED) ||
+                                m.hasProperty(Measurement.PropertyKey.GPS_SPEED)))
+                .doOnNext(m -> LOG.info("Emitting next measuremnet"))
+                .doFinally(() -> LOG.info("measurements(): finished the collection of data."));
     }
 
-    private synchronized Measurement createMeasurement() {
+    private Measurement createMeasurement() {
+        /**
+         * collect the samples of the window and determine its bounds
+         */
+        long firstTimestampToBeConsidered = Long.MAX_VALUE;
+        for (int i = 0; i < KEYS.length; i++) {
+            SampleBuffer buffer = buffers.get(i);
+            if (buffer == null) {
+                continue;
+            }
+            if (bufferedSamples[i] == null) {
+                bufferedSamples[i] = new Samples(1, BUFFER_CAPACITY);
+            }
+            Samples samples = buffer.drain(bufferedSamples[i]);
+            if (!samples.isEmpty()) {
+                firstTimestampToBeConsidered = Math.min(firstTimestampToBeConsidered, samples.getMinTimestamp());
+                lastTimestampToBeConsidered = Math.max(lastTimestampToBeConsidered, samples.getMaxTimestamp());
+            }
+        }
+        positions.drain(bufferedPositions);
+        if (!bufferedPositions.isEmpty()) {
+            firstTimestampToBeConsidered = Math.min(firstTimestampToBeConsidered, bufferedPositions.getMinTimestamp());
+            lastTimestampToBeConsidered = Math.max(lastTimestampToBeConsidered, bufferedPositions.getMaxTimestamp());
+        }
+        if (firstTimestampToBeConsidered == Long.MAX_VALUE) {
+            firstTimestampToBeConsidered = 0;
+        }
+
         /**
          * use the middle of the time window
          */
         long targetTimestamp = firstTimestampToBeConsidered + ((lastTimestampToBeConsidered -
                 firstTimestampToBeConsidered) / 2);
 
-        Measurement m = new MeasurementImpl();
+        Measurement m = new PrimitiveMeasurementImpl();
         m.setTime(targetTimestamp);
 
-        for (Measurement.PropertyKey pk : this.bufferedResponses.keySet()) {
-            appendToMeasurement(pk, this.bufferedResponses.get(pk), m);
-            LOG.info("append key " + pk.toString());
+        // the same configuration for the whole window
+        PropertyAggregations aggregations = this.aggregations;
+        DataResponseAlgorithms algorithms = this.algorithms;
+        for (int i = 0; i < KEYS.length; i++) {
+            if (bufferedSamples[i] != null && !bufferedSamples[i].isEmpty()) {
+                appendToMeasurement(KEYS[i], bufferedSamples[i], m, aggregations, algorithms);
+                LOG.info("append key " + KEYS[i].toString());
+            }
         }
 
-        /**
-         * clear the buffer of DataResponses to be considered
-         */
-        clearBuffer();
-        setPosition(m, getAndClearPositionBuffer());
+        setPosition(m, bufferedPositions);
 
         return m;
     }
 
-    private void setPosition(Measurement m, List<Position> positionBuffer) {
-        if (positionBuffer == null || positionBuffer.isEmpty()) {
+    private void setPosition(Measurement m, Samples positionBuffer) {
+        if (positionBuffer.isEmpty()) {
             return;
         }
 
-        if (positionBuffer.size() == 1) {
-            Position pos = positionBuffer.get(0);
-            m.setLatitude(pos.getLatitude());
-            m.setLongitude(pos.getLongitude());
-        } else {
-            long targetTimestamp = m.getTime();
-
-            /**
-             * find the closest two measurements
-             */
-            int startIndex = findStartIndex(positionBuffer, targetTimestamp);
-            Position start = positionBuffer.get(startIndex);
-            Position end = startIndex + 1 < positionBuffer.size() ? positionBuffer.get(startIndex
-                    + 1) : null;
-
-            double lat = interpolateTwo(start.getLatitude(), end != null ? end.getLatitude() :
-                            null, targetTimestamp, start.getTimestamp(),
-                    end != null ? end.getTimestamp() : 0L);
-            double lon = interpolateTwo(start.getLongitude(), end != null ? end.getLongitude() :
-                            null, targetTimestamp, start.getTimestamp(),
-                    end != null ? end.getTimestamp() : 0L);
-
-            m.setLatitude(lat);
-            m.setLongitude(lon);
-        }
-
+        Interpolation interpolation = positionInterpolation;
+        m.setLatitude(interpolation.interpolate(positionBuffer, 0, m.getTime()));
+        m.setLongitude(interpolation.interpolate(positionBuffer, 1, m.getTime()));
     }
 
-    private void appendToMeasurement(Measurement.PropertyKey pk, List<PropertyKeyEvent>
-            dataResponses, Measurement m) {
-        if (pk == null) {
-            return;
+    private void appendToMeasurement(Measurement.PropertyKey pk, Samples samples, Measurement m,
+                                     PropertyAggregations aggregations,
+                                     DataResponseAlgorithms algorithms) {
+        double value = aggregations.aggregate(pk, samples, m.getTime(), statistics);
+        if (!Double.isNaN(value)) {
+            m.setDouble(pk, value);
         }
-
-        switch (pk) {
-            case FUEL_SYSTEM_STATUS_CODE:
-                m.setProperty(pk, first(dataResponses));
-                break;
-            default:
-                m.setProperty(pk, interpolate(dataResponses, m.getTime()));
-                break;
-        }
-        List<DataResponseAlgorithm> algorithms = DataResponseAlgorithm.fromPropertyType(pk);
-        if(algorithms != null){
-            for(DataResponseAlgorithm a : algorithms) {
-                Double value = a.calculate(dataResponses);
-                m.setProperty(a.getPropertyKey(pk), value);
-                LOG.debug(String.format("Calculated %s from %s %s values: %s",
-                        a.getPropertyKey(pk).name(), dataResponses.size(), pk.name(), value));
-            }
-        }
-    }
-
-    private Double first(List<PropertyKeyEvent> dataResponses) {
-        return dataResponses.isEmpty() ? null : dataResponses.get(0).getValue().doubleValue();
-    }
-
-    protected Double interpolate(List<PropertyKeyEvent> dataResponses, long targetTimestamp) {
-        if (dataResponses.size() <= 1) {
-            return first(dataResponses);
-        }
-
-        /**
-         * find the closest two measurements
-         */
-        int startIndex = findStartIndex(dataResponses, targetTimestamp);
-        PropertyKeyEvent start = dataResponses.get(startIndex);
-        PropertyKeyEvent end = startIndex + 1 < dataResponses.size() ? dataResponses.get
-                (startIndex + 1) : null;
-
-        return interpolateTwo(start.getValue(), end != null ? end.getValue() : null,
-                targetTimestamp, start.getTimestamp(),
-                end != null ? end.getTimestamp() : 0L);
-    }
-
-    private int findStartIndex(List<? extends Timestamped> dataResponses, long targetTimestamp) {
-        int i = 0;
-        while (i + 1 < dataResponses.size()) {
-            if (dataResponses.get(i).getTimestamp() <= targetTimestamp
-                    && dataResponses.get(i + 1).getTimestamp() >= targetTimestamp) {
-                return i;
-            }
-
-            i++;
-        }
-
-        return 0;
+        algorithms.apply(pk, samples, m);
     }
 
     /**
@@ -223,49 +217,90 @@ public class InterpolationMeasurementProvider extends AbstractMeasurementProvide
             return start.doubleValue();
         }
 
-        float duration = (float) (endTimestamp - startTimestamp);
+        return Interpolation.linear(start.doubleValue(), end.doubleValue(), targetTimestamp,
+                startTimestamp, endTimestamp);
+    }
 
-        float endWeight = (targetTimestamp - startTimestamp) / duration;
-        float startWeight = (endTimestamp - targetTimestamp) / duration;
+    /**
+     * Sets the functions that reduce the samples of each property within a window to the value
+     * of the measurement, {@link PropertyAggregations#defaults()} by default. Like the other
+     * setters it may be called while sampling, the change applies from the next window on.
+     *
+     * @param aggregations the aggregations per property, copied.
+     */
+    public synchronized void setAggregations(PropertyAggregations aggregations) {
+        this.aggregations = aggregations.copy();
+    }
 
-        return start.doubleValue() * startWeight + end.doubleValue() * endWeight;
+    /**
+     * Sets the function that reduces the samples of a property within a window.
+     *
+     * @param pk          the key of the property.
+     * @param aggregation the function, {@link Aggregation#INTERPOLATED} for most properties.
+     */
+    public synchronized void setAggregation(Measurement.PropertyKey pk, Aggregation aggregation) {
+        aggregations = aggregations.copy().set(pk, aggregation);
     }
 
-    private void clearBuffer() {
-        for (List<PropertyKeyEvent> drl : this.bufferedResponses.values()) {
-            drl.clear();
-        }
+    /**
+     * Sets the strategy that computes the value of an interpolated property at the middle of
+     * the window.
+     *
+     * @param pk            the key of the property.
+     * @param interpolation the strategy, {@link Interpolation#LINEAR} by default.
+     */
+    public synchronized void setInterpolation(Measurement.PropertyKey pk, Interpolation interpolation) {
+        aggregations = aggregations.copy().set(pk, interpolation);
+    }
 
-        /**
-         * reset the first timestamp
-         */
-        this.firstTimestampToBeConsidered = 0;
+    /**
+     * Sets the algorithms that derive properties from the samples of other properties,
+     * {@link DataResponseAlgorithms#defaults()} by default.
+     *
+     * @param algorithms the algorithms per source property.
+     */
+    public void setAlgorithms(DataResponseAlgorithms algorithms) {
+        this.algorithms = algorithms;
+    }
+
+    /**
+     * Sets the strategy that computes the position at the middle of the window.
+     *
+     * @param interpolation the strategy, {@link Interpolation#LINEAR} by default.
+     */
+    public void setPositionInterpolation(Interpolation interpolation) {
+        positionInterpolation = interpolation;
     }
 
     @Override
     @Subscribe
-    public synchronized void consider(PropertyKeyEvent pke) {
-        updateTimestamps(pke);
-
-        Measurement.PropertyKey pk = pke.getPropertyKey();
-
-        if (pk == null) {
+    public void consider(PropertyKeyEvent pke) {
+        if (pke.getPropertyKey() == null || pke.getValue() == null) {
             return;
         }
+        consider(pke.getPropertyKey(), pke.getValue().doubleValue(), pke.getTimestamp());
+    }
 
-        if (bufferedResponses.containsKey(pk)) {
-            bufferedResponses.get(pk).add(pke);
-        } else {
-            List<PropertyKeyEvent> list = new ArrayList<>();
-            list.add(pke);
-            bufferedResponses.put(pk, list);
+    /**
+     * Adds the value of a property without creating an event, never blocks.
+     *
+     * @param pk        the key of the property.
+     * @param value     the value.
+     * @param timestamp the time of the value in milliseconds.
+     */
+    public void consider(Measurement.PropertyKey pk, double value, long timestamp) {
+        int ordinal = pk.ordinal();
+        SampleBuffer buffer = buffers.get(ordinal);
+        if (buffer == null) {
+            buffers.compareAndSet(ordinal, null, new SampleBuffer(1, BUFFER_CAPACITY));
+            buffer = buffers.get(ordinal);
         }
+        buffer.add(timestamp, value);
     }
 
     @Override
-    public synchronized void newPosition(Position pos) {
-        super.newPosition(pos);
-        updateTimestamps(pos);
+    public void newPosition(Position pos) {
+        positions.add(pos.getTimestamp(), pos.getLatitude(), pos.getLongitude());
     }
 
     @Subscribe
@@ -273,38 +308,22 @@ public class InterpolationMeasurementProvider extends AbstractMeasurementProvide
         Location location = loc.mLocation;
         long now = System.currentTimeMillis();
 
-        newPosition(new Position(now, location.getLatitude(), location.getLongitude()));
+        positions.add(now, location.getLatitude(), location.getLongitude());
 
         if (location.hasAccuracy()) {
-            consider(new PropertyKeyEvent(Measurement.PropertyKey.GPS_ACCURACY, location
-                    .getAccuracy(), now));
+            consider(Measurement.PropertyKey.GPS_ACCURACY, location.getAccuracy(), now);
         }
 
         if (location.hasAltitude()) {
-            consider(new PropertyKeyEvent(Measurement.PropertyKey.GPS_ALTITUDE, location
-                    .getAltitude(), now));
+            consider(Measurement.PropertyKey.GPS_ALTITUDE, location.getAltitude(), now);
         }
 
         if (location.hasBearing()) {
-            consider(new PropertyKeyEvent(Measurement.PropertyKey.GPS_BEARING, location
-                    .getBearing(), now));
+            consider(Measurement.PropertyKey.GPS_BEARING, location.getBearing(), now);
         }
 
         if (location.hasSpeed()) {
-            consider(new PropertyKeyEvent(
-                    Measurement.PropertyKey.GPS_SPEED, location.getSpeed() * 3.6f, now));
-        }
-    }
-
-    private void updateTimestamps(Timestamped dr) {
-        this.lastTimestampToBeConsidered = Math.max(this.lastTimestampToBeConsidered, dr
-                .getTimestamp());
-
-        if (this.firstTimestampToBeConsidered == 0) {
-            this.firstTimestampToBeConsidered = dr.getTimestamp();
-        } else {
-            this.firstTimestampToBeConsidered = Math.min(this.firstTimestampToBeConsidered, dr
-                    .getTimestamp());
+            consider(Measurement.PropertyKey.GPS_SPEED, location.getSpeed() * 3.6f, now);
         }
     }
 
@@ -314,15 +333,15 @@ public class InterpolationMeasurementProvider extends AbstractMeasurementProvide
         long now = System.currentTimeMillis();
 
         if (dop.hasHdop()) {
-            consider(new PropertyKeyEvent(Measurement.PropertyKey.GPS_HDOP, dop.getHdop(), now));
+            consider(Measurement.PropertyKey.GPS_HDOP, dop.getHdop(), now);
         }
 
         if (dop.hasVdop()) {
-            consider(new PropertyKeyEvent(Measurement.PropertyKey.GPS_VDOP, dop.getVdop(), now));
+            consider(Measurement.PropertyKey.GPS_VDOP, dop.getVdop(), now);
         }
 
         if (dop.hasPdop()) {
-            consider(new PropertyKeyEvent(Measurement.PropertyKey.GPS_PDOP, dop.getPdop(), now));
+            consider(Measurement.PropertyKey.GPS_PDOP, dop.getPdop(), now);
         }
     }
 
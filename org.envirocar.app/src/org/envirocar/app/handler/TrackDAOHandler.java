@@ -25,12 +25,20 @@ import org.envirocar.core.entity.Track;
 import org.envirocar.core.exception.*;
 import org.envirocar.core.injection.InjectApplicationScope;
 import org.envirocar.core.logging.Logger;
+import org.envirocar.core.util.FileWithMetadata;
+import org.envirocar.core.util.TrackFileReader;
+import org.envirocar.core.util.TrackFileWriter;
 import org.envirocar.core.util.TrackMetadata;
 import org.envirocar.core.util.Util;
 import org.envirocar.core.EnviroCarDB;
 
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Set;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
@@ -71,7 +79,7 @@ public class TrackDAOHandler {
      */
     public boolean deleteLocalTrack(Track.TrackId trackID) {
         return deleteLocalTrack(
-                enviroCarDB.getTrack(trackID)
+                enviroCarDB.getTrack(trackID, true)
                         .subscribeOn(Schedulers.io())
                         .blockingFirst());
     }
@@ -209,6 +217,80 @@ public class TrackDAOHandler {
                 });
     }
 
+    /**
+     * Writes all stored tracks into a binary track file. The measurements of the tracks are
+     * streamed from the database page by page and never held for more than one track.
+     * <p>
+     * The file is meant for moving tracks between installations, see the backup action in the
+     * others fragment, and for debugging, e.g. by attaching it to a log report.
+     *
+     * @param target the file to write.
+     * @return an observable emitting the written file.
+     */
+    public Observable<FileWithMetadata> backupTracksObservable(File target) {
+        return enviroCarDB.getAllTracks(true)
+                .take(1)
+                .observeOn(Schedulers.io())
+                .map(tracks -> {
+                    try (TrackFileWriter writer = new TrackFileWriter(
+                            new BufferedOutputStream(new FileOutputStream(target)))) {
+                        for (Track track : tracks) {
+                            writer.writeTrack(track, enviroCarDB.getMeasurements(track.getTrackID())
+                                    .blockingIterable());
+                        }
+                    }
+                    LOGGER.info(String.format("backupTracks(): wrote %s tracks with %s bytes",
+                            tracks.size(), target.length()));
+                    return new FileWithMetadata(target, false);
+                });
+    }
+
+    /**
+     * Inserts all tracks of a binary track file as new tracks. Tracks that are already stored,
+     * i.e. uploaded tracks with a known remote id or local tracks with the same name and start
+     * time, are skipped so that restoring the same file twice does not duplicate them. Tracks
+     * that were still ongoing when written are restored as finished.
+     *
+     * @param source the file written by {@link #backupTracksObservable(File)}.
+     * @return an observable emitting the number of restored tracks.
+     */
+    public Observable<Integer> restoreTracksObservable(File source) {
+        return Observable.fromCallable(() -> {
+            Set<String> storedTracks = new HashSet<>();
+            for (Track stored : enviroCarDB.getAllTracks(true).blockingFirst()) {
+                storedTracks.add(getRestoreKey(stored));
+            }
+
+            int count = 0;
+            int skipped = 0;
+            try (TrackFileReader reader = TrackFileReader.open(source)) {
+                while (reader.hasNext()) {
+                    Track track = reader.next().toTrack();
+                    if (!storedTracks.add(getRestoreKey(track))) {
+                        skipped++;
+                        continue;
+                    }
+                    track.setTrackID(null);
+                    if (track.getTrackStatus() == Track.TrackStatus.ONGOING) {
+                        track.setTrackStatus(Track.TrackStatus.FINISHED);
+                    }
+                    enviroCarDB.insertTrack(track);
+                    count++;
+                }
+            }
+            LOGGER.info(String.format("restoreTracks(): restored %s tracks, skipped %s stored ones",
+                    count, skipped));
+            return count;
+        }).subscribeOn(Schedulers.io());
+    }
+
+    private static String getRestoreKey(Track track) {
+        if (track.getRemoteID() != null) {
+            return "remote:" + track.getRemoteID();
+        }
+        return "local:" + track.getName() + ":" + track.getStartTime();
+    }
+
     public Observable<Track> fetchRemoteTrackObservable(Track remoteTrack) {
         return Observable.create(emitter -> {
             try {
@@ -219,6 +219,10 @@ public class TrackUploadHandler {
 
     private Observable<Track> uploadTrack(Track track) {
         return Observable.just(track)
+                // load the measurements of lazily loaded tracks
+                .flatMap(t -> t.isLazyLoadingMeasurements() ?
+                        mEnviroCarDB.fetchTrack(Observable.just(t), false).take(1) :
+                        Observable.just(t))
                 // general validation of the track
                 .map(validateRequirementsForUpload())
                 // assets the car of the track and, in case it is not uploaded, it uploads the
@@ -1,9 +1,41 @@
 package org.envirocar.app.handler.algorithm;
 
-public class AbstractAccelerationAlgorithm {
+/**
+ * Base class of the algorithms that work on the acceleration between two consecutive speed
+ * samples.
+ */
+public abstract class AbstractAccelerationAlgorithm implements DataResponseAlgorithm {
 
     private static final double CONV_FACTOR = 3.6;
 
+    private long previousTimestamp;
+    private double previousSpeed = Double.NaN;
+
+    @Override
+    public void accept(long timestamp, double speed) {
+        if (!Double.isNaN(previousSpeed) && timestamp > previousTimestamp) {
+            acceptAcceleration(previousTimestamp, timestamp,
+                    calculateAcceleration(previousSpeed, speed, previousTimestamp, timestamp));
+        }
+        previousTimestamp = timestamp;
+        previousSpeed = speed;
+    }
+
+    /**
+     * Adds the acceleration between two consecutive samples.
+     *
+     * @param startTime    the time of the first sample.
+     * @param endTime      the time of the second sample, always after the first one.
+     * @param acceleration the acceleration in m/s².
+     */
+    protected abstract void acceptAcceleration(long startTime, long endTime, double acceleration);
+
+    @Override
+    public void reset() {
+        previousSpeed = Double.NaN;
+        nextWindow();
+    }
+
     /**
      * Calculates the acceleration in m/s² from two speed values v1 and v2 at time t1 and t2.
      *
@@ -13,12 +45,8 @@ public class AbstractAccelerationAlgorithm {
      * @param endTime Time t2
      * @return Acceleration in m/s²
      */
-    public Double calculateAcceleration(Number start, Number end, long startTime, long endTime) {
-        if (start == null || end == null) {
-            return null;
-        }
-
-        double dV = (end.doubleValue() - start.doubleValue());
+    public static double calculateAcceleration(double start, double end, long startTime, long endTime) {
+        double dV = (end - start);
         double dT = (endTime -  startTime);
         return ((dV / CONV_FACTOR) / (dT / 1000));
     }
@@ -3,26 +3,57 @@ package org.envirocar.app.handler.algorithm;
 import org.envirocar.core.entity.Measurement;
 import org.envirocar.obd.events.PropertyKeyEvent;
 
-import java.util.Arrays;
 import java.util.List;
 
+/**
+ * Derives a property from the samples of another property, e.g. the maximum acceleration from
+ * the speed. An algorithm is a stateful accumulator: the samples are passed one at a time in
+ * ascending order of their timestamps and the result of a window is read at its end. The last
+ * sample is kept across windows, so pairs of samples spanning two windows are not lost.
+ * Instances are registered once per recording, see {@link DataResponseAlgorithms}.
+ */
 public interface DataResponseAlgorithm {
 
-    Double calculate(List<PropertyKeyEvent> pke);
+    /**
+     * Adds a sample of the source property.
+     *
+     * @param timestamp the time of the sample in milliseconds.
+     * @param value     the value of the sample, never NaN.
+     */
+    void accept(long timestamp, double value);
+
+    /**
+     * @return the result of the current window or NaN if there were not enough samples.
+     */
+    double getResult();
+
+    /**
+     * Starts a new window. The result is cleared, the last sample is kept.
+     */
+    void nextWindow();
+
+    /**
+     * Clears the result and all samples.
+     */
+    void reset();
 
     Measurement.PropertyKey getPropertyKey(Measurement.PropertyKey pk);
 
-    static List<DataResponseAlgorithm> fromPropertyType(Measurement.PropertyKey pk) {
-        switch (pk) {
-            case SPEED:
-            case GPS_SPEED:
-                return Arrays.asList(
-                        new MinAccelerationAlgorithm(),
-                        new MaxAccelerationAlgorithm()
-                );
-
-            default:
-                return null;
+    /**
+     * Computes the result of a single list of events, events without a value are skipped.
+     *
+     * @param pke the events in ascending order of their timestamps.
+     * @return the result or null if there were not enough events.
+     */
+    default Double calculate(List<PropertyKeyEvent> pke) {
+        reset();
+        for (PropertyKeyEvent event : pke) {
+            if (event.getValue() != null) {
+                accept(event.getTimestamp(), event.getValue().doubleValue());
+            }
         }
+        double result = getResult();
+        reset();
+        return Double.isNaN(result) ? null : result;
     }
 }
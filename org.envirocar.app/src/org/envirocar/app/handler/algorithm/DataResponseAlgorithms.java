@@ -0,0 +1,108 @@
+package org.envirocar.app.handler.algorithm;
+
+import org.envirocar.algorithm.Samples;
+import org.envirocar.core.entity.Measurement;
+
+import java.util.Arrays;
+
+/**
+ * The algorithms of a recording per source property. The algorithms keep state across windows,
+ * so every recording needs its own instance and an algorithm instance must not be registered for
+ * more than one property.
+ */
+public final class DataResponseAlgorithms {
+
+    private static final Measurement.PropertyKey[] KEYS = Measurement.PropertyKey.values();
+    private static final DataResponseAlgorithm[] NONE = new DataResponseAlgorithm[0];
+
+    private final DataResponseAlgorithm[][] algorithms = new DataResponseAlgorithm[KEYS.length][];
+
+    /**
+     * @return the acceleration, jerk and idle time algorithms for the OBD speed and the
+     * acceleration and jerk algorithms for the GPS speed.
+     */
+    public static DataResponseAlgorithms defaults() {
+        return new DataResponseAlgorithms()
+                .register(Measurement.PropertyKey.SPEED,
+                        new MinAccelerationAlgorithm(),
+                        new MaxAccelerationAlgorithm(),
+                        new MaxJerkAlgorithm(),
+                        new IdleTimeAlgorithm())
+                .register(Measurement.PropertyKey.GPS_SPEED,
+                        new MinAccelerationAlgorithm(),
+                        new MaxAccelerationAlgorithm(),
+                        new MaxJerkAlgorithm());
+    }
+
+    /**
+     * Adds algorithms that are fed with the samples of a property.
+     *
+     * @param pk         the key of the source property.
+     * @param algorithms the algorithms.
+     * @return this instance.
+     */
+    public DataResponseAlgorithms register(Measurement.PropertyKey pk, DataResponseAlgorithm... algorithms) {
+        DataResponseAlgorithm[] registered = get(pk);
+        DataResponseAlgorithm[] result = Arrays.copyOf(registered, registered.length + algorithms.length);
+        System.arraycopy(algorithms, 0, result, registered.length, algorithms.length);
+        this.algorithms[pk.ordinal()] = result;
+        return this;
+    }
+
+    public DataResponseAlgorithm[] get(Measurement.PropertyKey pk) {
+        DataResponseAlgorithm[] registered = algorithms[pk.ordinal()];
+        return registered != null ? registered : NONE;
+    }
+
+    /**
+     * Passes the samples of a window to the algorithms of the property in a single pass and sets
+     * their results on the measurement. The samples are sorted if necessary, NaN values are
+     * skipped.
+     *
+     * @param pk      the key of the source property.
+     * @param samples the samples of the window.
+     * @param m       the measurement of the window.
+     */
+    public void apply(Measurement.PropertyKey pk, Samples samples, Measurement m) {
+        DataResponseAlgorithm[] registered = algorithms[pk.ordinal()];
+        if (registered == null) {
+            return;
+        }
+        if (!samples.isSorted()) {
+            samples.sort();
+        }
+
+        for (DataResponseAlgorithm a : registered) {
+            a.nextWindow();
+        }
+        for (int i = 0; i < samples.size(); i++) {
+            double value = samples.getValue(i);
+            if (Double.isNaN(value)) {
+                continue;
+            }
+            long timestamp = samples.getTimestamp(i);
+            for (DataResponseAlgorithm a : registered) {
+                a.accept(timestamp, value);
+            }
+        }
+        for (DataResponseAlgorithm a : registered) {
+            double result = a.getResult();
+            if (!Double.isNaN(result)) {
+                m.setDouble(a.getPropertyKey(pk), result);
+            }
+        }
+    }
+
+    /**
+     * Resets all algorithms, e.g. when a new recording starts.
+     */
+    public void reset() {
+        for (DataResponseAlgorithm[] registered : algorithms) {
+            if (registered != null) {
+                for (DataResponseAlgorithm a : registered) {
+                    a.reset();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package org.envirocar.app.handler.algorithm;
+
+import org.envirocar.core.entity.Measurement;
+
+/**
+ * Time in seconds the vehicle stood still with the engine running, i.e. the time between two
+ * consecutive OBD speed samples that are both below a threshold.
+ */
+public class IdleTimeAlgorithm implements DataResponseAlgorithm {
+
+    public static final double DEFAULT_THRESHOLD = 1.0;
+
+    private final double threshold;
+
+    private long previousTimestamp;
+    private double previousSpeed = Double.NaN;
+    private long idleTime;
+    private boolean hasInterval;
+
+    public IdleTimeAlgorithm() {
+        this(DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * @param threshold the speed in km/h below which the vehicle is considered to be idle.
+     */
+    public IdleTimeAlgorithm(double threshold) {
+        this.threshold = threshold;
+    }
+
+    @Override
+    public void accept(long timestamp, double speed) {
+        if (!Double.isNaN(previousSpeed) && timestamp > previousTimestamp) {
+            if (previousSpeed < threshold && speed < threshold) {
+                idleTime += timestamp - previousTimestamp;
+            }
+            hasInterval = true;
+        }
+        previousTimestamp = timestamp;
+        previousSpeed = speed;
+    }
+
+    @Override
+    public double getResult() {
+        return hasInterval ? idleTime / 1000.0 : Double.NaN;
+    }
+
+    @Override
+    public void nextWindow() {
+        idleTime = 0;
+        hasInterval = false;
+    }
+
+    @Override
+    public void reset() {
+        previousSpeed = Double.NaN;
+        nextWindow();
+    }
+
+    @Override
+    public Measurement.PropertyKey getPropertyKey(Measurement.PropertyKey pk) {
+        return Measurement.PropertyKey.IDLE_TIME;
+    }
+}
@@ -1,29 +1,26 @@
 package org.envirocar.app.handler.algorithm;
 
 import org.envirocar.core.entity.Measurement;
-import org.envirocar.obd.events.PropertyKeyEvent;
 
-import java.util.List;
+public class MaxAccelerationAlgorithm extends AbstractAccelerationAlgorithm {
 
-public class MaxAccelerationAlgorithm extends AbstractAccelerationAlgorithm implements DataResponseAlgorithm {
+    private double maxAcc = Double.NEGATIVE_INFINITY;
 
     @Override
-    public Double calculate(List<PropertyKeyEvent> pkes) {
-        if(pkes.size() < 2) {
-            return null;
+    protected void acceptAcceleration(long startTime, long endTime, double acceleration) {
+        if (acceleration > maxAcc) {
+            maxAcc = acceleration;
         }
-        double maxAcc = calculateAcceleration(pkes.get(0).getValue(), pkes.get(1).getValue(),
-                pkes.get(0).getTimestamp(), pkes.get(1).getTimestamp());
+    }
 
-        for(int i = 1; i < pkes.size() - 1; i++) {
-            Double acc = calculateAcceleration(pkes.get(i).getValue(), pkes.get(i + 1).getValue(),
-                    pkes.get(i).getTimestamp(), pkes.get(i + 1).getTimestamp());
-            if(acc != null && acc > maxAcc){
-                maxAcc = acc;
-            }
-        }
+    @Override
+    public double getResult() {
+        return maxAcc == Double.NEGATIVE_INFINITY ? Double.NaN : maxAcc;
+    }
 
-        return maxAcc;
+    @Override
+    public void nextWindow() {
+        maxAcc = Double.NEGATIVE_INFINITY;
     }
 
     @Override
@@ -0,0 +1,54 @@
+package org.envirocar.app.handler.algorithm;
+
+import org.envirocar.core.entity.Measurement;
+
+/**
+ * Maximum absolute jerk in m/s³, i.e. the change of the acceleration over time. Each
+ * acceleration is assigned to the middle of its two speed samples.
+ */
+public class MaxJerkAlgorithm extends AbstractAccelerationAlgorithm {
+
+    private double previousAcceleration = Double.NaN;
+    private double previousMiddle;
+    private double maxJerk = Double.NaN;
+
+    @Override
+    protected void acceptAcceleration(long startTime, long endTime, double acceleration) {
+        double middle = (startTime + endTime) / 2.0;
+        if (!Double.isNaN(previousAcceleration)) {
+            double jerk = Math.abs((acceleration - previousAcceleration) /
+                    ((middle - previousMiddle) / 1000));
+            if (Double.isNaN(maxJerk) || jerk > maxJerk) {
+                maxJerk = jerk;
+            }
+        }
+        previousAcceleration = acceleration;
+        previousMiddle = middle;
+    }
+
+    @Override
+    public double getResult() {
+        return maxJerk;
+    }
+
+    @Override
+    public void nextWindow() {
+        maxJerk = Double.NaN;
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        previousAcceleration = Double.NaN;
+    }
+
+    @Override
+    public Measurement.PropertyKey getPropertyKey(Measurement.PropertyKey pk) {
+        switch (pk) {
+            case GPS_SPEED:
+                return Measurement.PropertyKey.MAX_GPS_JERK;
+            default:
+                return Measurement.PropertyKey.MAX_JERK;
+        }
+    }
+}
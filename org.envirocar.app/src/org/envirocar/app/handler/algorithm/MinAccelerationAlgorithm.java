@@ -1,30 +1,26 @@
 package org.envirocar.app.handler.algorithm;
 
 import org.envirocar.core.entity.Measurement;
-import org.envirocar.obd.events.PropertyKeyEvent;
 
-import java.util.Arrays;
-import java.util.List;
+public class MinAccelerationAlgorithm extends AbstractAccelerationAlgorithm {
 
-public class MinAccelerationAlgorithm extends AbstractAccelerationAlgorithm implements DataResponseAlgorithm{
+    private double minAcc = Double.POSITIVE_INFINITY;
 
     @Override
-    public Double calculate(List<PropertyKeyEvent> pkes) {
-        if(pkes.size() < 2) {
-            return null;
+    protected void acceptAcceleration(long startTime, long endTime, double acceleration) {
+        if (acceleration < minAcc) {
+            minAcc = acceleration;
         }
-        double minAcc = calculateAcceleration(pkes.get(0).getValue(), pkes.get(1).getValue(),
-                pkes.get(0).getTimestamp(), pkes.get(1).getTimestamp());
+    }
 
-        for(int i = 1; i < pkes.size() - 1; i++) {
-            Double acc = calculateAcceleration(pkes.get(i).getValue(), pkes.get(i + 1).getValue(),
-                    pkes.get(i).getTimestamp(), pkes.get(i + 1).getTimestamp());
-            if(acc != null && acc < minAcc){
-                minAcc = acc;
-            }
-        }
+    @Override
+    public double getResult() {
+        return minAcc == Double.POSITIVE_INFINITY ? Double.NaN : minAcc;
+    }
 
-        return minAcc;
+    @Override
+    public void nextWindow() {
+        minAcc = Double.POSITIVE_INFINITY;
     }
 
     @Override
@@ -37,6 +37,7 @@ import org.envirocar.core.util.TrackMetadata;
 import org.envirocar.core.util.Util;
 import org.envirocar.core.utils.LocationUtils;
 import org.envirocar.core.EnviroCarDB;
+import org.envirocar.core.MeasurementWriter;
 
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
@@ -47,16 +48,27 @@ import io.reactivex.ObservableOnSubscribe;
 import io.reactivex.ObservableTransformer;
 
 /**
+ * Stores recorded measurements in the database. Measurements are appended by a
+ * {@link MeasurementWriter} that writes them in one short transaction every {@code flushSize}
+ * measurements or {@code flushInterval} milliseconds, whichever comes first. A flush size of 1
+ * commits every measurement immediately.
+ *
  * @author dewall
  */
 public class TrackDatabaseSink {
     private static final Logger LOG = Logger.getLogger(TrackDatabaseSink.class);
     private static final DateFormat format = SimpleDateFormat.getDateTimeInstance();
 
+    private static final int DEFAULT_FLUSH_SIZE = 200;
+    private static final long DEFAULT_FLUSH_INTERVAL = 1000;
+
     private final Context context;
     private final CarPreferenceHandler carHandler;
     private final EnviroCarDB enviroCarDB;
     private final Bus eventBus;
+    private final int flushSize;
+    private final long flushInterval;
+    private MeasurementWriter measurementWriter;
     private Track track;
 
     /**
@@ -67,10 +79,27 @@ public class TrackDatabaseSink {
      * @param enviroCarDB
      */
     public TrackDatabaseSink(Context context, CarPreferenceHandler carHandler, EnviroCarDB enviroCarDB, Bus eventBus) {
+        this(context, carHandler, enviroCarDB, eventBus, DEFAULT_FLUSH_SIZE, DEFAULT_FLUSH_INTERVAL);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param context
+     * @param carHandler
+     * @param enviroCarDB
+     * @param eventBus
+     * @param flushSize     the number of uncommitted measurements that triggers a commit.
+     * @param flushInterval the maximum time in milliseconds between two commits.
+     */
+    public TrackDatabaseSink(Context context, CarPreferenceHandler carHandler, EnviroCarDB enviroCarDB,
+                             Bus eventBus, int flushSize, long flushInterval) {
         this.context = context;
         this.carHandler = carHandler;
         this.enviroCarDB = enviroCarDB;
         this.eventBus = eventBus;
+        this.flushSize = Math.max(1, flushSize);
+        this.flushInterval = flushInterval;
     }
 
     /**
@@ -99,9 +128,7 @@ public class TrackDatabaseSink {
             }
 
             try {
-                // inserting measurement
                 measurement.setTrackId(track.getTrackID());
-                enviroCarDB.insertMeasurement(measurement);
 
                 // updating track information
                 track.setEndTime(measurement.getTime());
@@ -113,12 +140,11 @@ public class TrackDatabaseSink {
                     double distanceToLast = LocationUtils.getDistance(lastMeasurement, measurement);
                     track.setLength(track.getLength() + distanceToLast);
                 }
-
-                // update track in database
                 track.getMeasurements().add(measurement);
-                enviroCarDB.updateTrack(track);
+
+                // hand the measurement over to the writer, it is committed in the background
+                writeMeasurement(measurement);
                 eventBus.post(new RecordingNewMeasurementEvent(measurement));
-                LOG.info("Measurement stored");
             } catch (MeasurementSerializationException e) {
                 LOG.error(e.getMessage(), e);
                 emitter.onError(e);
@@ -144,14 +170,30 @@ public class TrackDatabaseSink {
         }
 
         enviroCarDB.insertTrack(track);
+        measurementWriter = enviroCarDB.openMeasurementWriter(track, flushSize, flushInterval);
         return track;
     }
 
-    private void finishTrack(Track track) {
+    private synchronized void writeMeasurement(Measurement measurement)
+            throws MeasurementSerializationException {
+        measurementWriter.write(measurement);
+    }
+
+    private synchronized void finishTrack(Track track) {
         if (track == null)
             return;
         LOG.info(String.format("Finishing current track %s", track.getDescription()));
 
+        // close() returns once the writer thread has ended, the track is not written anymore
+        if (measurementWriter != null) {
+            try {
+                measurementWriter.close();
+            } catch (MeasurementSerializationException e) {
+                LOG.error("Unable to store pending measurements", e);
+            }
+            measurementWriter = null;
+        }
+
         if (track.getMeasurements().size() <= 1) {
             LOG.info("Track had not enough measurements. Deleting track.");
             enviroCarDB.deleteTrack(track);
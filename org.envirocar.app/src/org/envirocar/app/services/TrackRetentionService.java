@@ -0,0 +1,110 @@
+/**
+ * Copyright (C) 2013 - 2021 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.app.services;
+
+import android.app.job.JobInfo;
+import android.app.job.JobParameters;
+import android.app.job.JobScheduler;
+import android.app.job.JobService;
+import android.content.ComponentName;
+import android.content.Context;
+
+import org.envirocar.app.BaseApplication;
+import org.envirocar.app.handler.ApplicationSettings;
+import org.envirocar.core.EnviroCarDB;
+import org.envirocar.core.logging.Logger;
+import org.envirocar.core.util.RetentionPolicy;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Inject;
+
+import io.reactivex.disposables.Disposable;
+
+/**
+ * Periodic job that applies the configured retention policy to the uploaded tracks and compacts
+ * the track database. Runs only while the device is idle and charging.
+ */
+public class TrackRetentionService extends JobService {
+    private static final Logger LOG = Logger.getLogger(TrackRetentionService.class);
+    private static final int JOB_ID = 4711;
+
+    @Inject
+    protected EnviroCarDB enviroCarDB;
+
+    private Disposable disposable;
+
+    /**
+     * Schedules the retention job unless it is already pending.
+     *
+     * @param context the context.
+     */
+    public static void schedule(Context context) {
+        JobScheduler jobScheduler = context.getSystemService(JobScheduler.class);
+        if (jobScheduler == null || jobScheduler.getPendingJob(JOB_ID) != null) {
+            return;
+        }
+
+        JobInfo jobInfo = new JobInfo.Builder(JOB_ID, new ComponentName(context, TrackRetentionService.class))
+                .setPeriodic(TimeUnit.DAYS.toMillis(1))
+                .setRequiresDeviceIdle(true)
+                .setRequiresCharging(true)
+                .setPersisted(true)
+                .build();
+        jobScheduler.schedule(jobInfo);
+        LOG.info("Scheduled the track retention job");
+    }
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        BaseApplication.get(this).getBaseApplicationComponent().inject(this);
+    }
+
+    @Override
+    public boolean onStartJob(JobParameters params) {
+        RetentionPolicy policy = ApplicationSettings.getRetentionPolicy(this);
+        LOG.info(String.format("onStartJob(): applying %s", policy));
+
+        disposable = enviroCarDB.applyRetentionPolicy(policy)
+                .subscribe(
+                        result -> {
+                            LOG.info(String.format("Retention finished: %s", result));
+                            if (result.isAutoVacuumConverted()) {
+                                LOG.info("The track database has been converted to incremental auto vacuum");
+                            }
+                            // a skipped run is retried once the recording has finished
+                            jobFinished(params, result.isSkipped());
+                        },
+                        e -> {
+                            LOG.error("Error while applying the retention policy", e);
+                            jobFinished(params, true);
+                        });
+        return true;
+    }
+
+    @Override
+    public boolean onStopJob(JobParameters params) {
+        LOG.info("onStopJob()");
+        if (disposable != null && !disposable.isDisposed()) {
+            disposable.dispose();
+        }
+        return true;
+    }
+}
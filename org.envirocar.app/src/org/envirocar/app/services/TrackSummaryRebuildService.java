@@ -0,0 +1,105 @@
+/**
+ * Copyright (C) 2013 - 2021 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.app.services;
+
+import android.app.job.JobInfo;
+import android.app.job.JobParameters;
+import android.app.job.JobScheduler;
+import android.app.job.JobService;
+import android.content.ComponentName;
+import android.content.Context;
+
+import org.envirocar.app.BaseApplication;
+import org.envirocar.app.handler.ApplicationSettings;
+import org.envirocar.core.EnviroCarDB;
+import org.envirocar.core.logging.Logger;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Inject;
+
+import io.reactivex.disposables.Disposable;
+
+/**
+ * One-shot job that recomputes the track summaries from the measurements. The migration that
+ * introduced the summaries could not compute the property sums in SQL, so the summaries of the
+ * tracks recorded before have to be rebuilt once. The job is rescheduled until it succeeds.
+ */
+public class TrackSummaryRebuildService extends JobService {
+    private static final Logger LOG = Logger.getLogger(TrackSummaryRebuildService.class);
+    private static final int JOB_ID = 4712;
+
+    @Inject
+    protected EnviroCarDB enviroCarDB;
+
+    private Disposable disposable;
+
+    /**
+     * Schedules the rebuild unless it is already pending.
+     *
+     * @param context the context.
+     */
+    public static void schedule(Context context) {
+        JobScheduler jobScheduler = context.getSystemService(JobScheduler.class);
+        if (jobScheduler == null || jobScheduler.getPendingJob(JOB_ID) != null) {
+            return;
+        }
+
+        JobInfo jobInfo = new JobInfo.Builder(JOB_ID, new ComponentName(context, TrackSummaryRebuildService.class))
+                .setMinimumLatency(TimeUnit.SECONDS.toMillis(30))
+                .setOverrideDeadline(TimeUnit.HOURS.toMillis(1))
+                .setPersisted(true)
+                .build();
+        jobScheduler.schedule(jobInfo);
+        LOG.info("Scheduled the track summary rebuild");
+    }
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        BaseApplication.get(this).getBaseApplicationComponent().inject(this);
+    }
+
+    @Override
+    public boolean onStartJob(JobParameters params) {
+        LOG.info("onStartJob(): rebuilding the track summaries");
+
+        disposable = enviroCarDB.rebuildTrackSummaries()
+                .subscribe(
+                        count -> {
+                            LOG.info(String.format("Rebuilt %s track summaries", count));
+                            ApplicationSettings.setTrackSummariesRebuilt(this);
+                            jobFinished(params, false);
+                        },
+                        e -> {
+                            LOG.error("Error while rebuilding the track summaries", e);
+                            jobFinished(params, true);
+                        });
+        return true;
+    }
+
+    @Override
+    public boolean onStopJob(JobParameters params) {
+        LOG.info("onStopJob()");
+        if (disposable != null && !disposable.isDisposed()) {
+            disposable.dispose();
+        }
+        return true;
+    }
+}
@@ -45,9 +45,11 @@ import org.envirocar.app.R;
 import org.envirocar.app.injection.BaseInjectorFragment;
 import org.envirocar.core.entity.Manufacturers;
 import org.envirocar.core.entity.Vehicles;
+import org.envirocar.core.entity.VehiclesFts;
 import org.envirocar.core.logging.Logger;
 import org.envirocar.storage.EnviroCarVehicleDB;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
@@ -63,12 +65,10 @@ import butterknife.BindView;
 import butterknife.ButterKnife;
 import butterknife.OnClick;
 import butterknife.OnTextChanged;
-import io.reactivex.Observable;
 import io.reactivex.Scheduler;
 import io.reactivex.Single;
 import io.reactivex.android.schedulers.AndroidSchedulers;
 import io.reactivex.disposables.CompositeDisposable;
-import io.reactivex.observers.DisposableObserver;
 import io.reactivex.observers.DisposableSingleObserver;
 import io.reactivex.schedulers.Schedulers;
 
@@ -101,6 +101,8 @@ public class CarSelectionAttributesFragment extends BaseInjectorFragment {
     private Scheduler.Worker mainThreadWorker = AndroidSchedulers.mainThread().createWorker();
     private CompositeDisposable disposable = new CompositeDisposable();
     private static final int ERROR_DEBOUNCE_TIME = 750;
+    private static final int TYPE_AHEAD_DEBOUNCE_TIME = 200;
+    private static final int TYPE_AHEAD_LIMIT = 50;
     private List<Manufacturers> manufacturersList;
     private static Drawable error;
 
@@ -118,6 +120,7 @@ public class CarSelectionAttributesFragment extends BaseInjectorFragment {
         fetchManufactures();
         initFocusChangedListener();
         initManufacturerTextChangeListener();
+        initTypeAhead();
         error = getResources().getDrawable(R.drawable.ic_error_red_24dp);
         error.setBounds(-50, 0, 0, error.getIntrinsicHeight());
         manufactureEditText.setOnItemClickListener((parent, view1, position, id) -> requestNextTextFieldFocus(manufactureEditText));
@@ -326,42 +329,58 @@ public class CarSelectionAttributesFragment extends BaseInjectorFragment {
     }
 
     private void fetchVehicles(String manufacturersName) {
-        Observable<List<Vehicles>> getManufacturersVehicles = enviroCarVehicleDB.vehicleDAO().getManufacturerVehicles(manufacturersName);
-        getManufacturersVehicles.subscribeOn(Schedulers.io())
+        if (mCarToModelMap.containsKey(manufacturersName)) {
+            updateModelView(manufacturersName);
+            return;
+        }
+
+        disposable.add(enviroCarVehicleDB.vehicleDAO().getModels(manufacturersName)
+                .subscribeOn(Schedulers.io())
                 .observeOn(AndroidSchedulers.mainThread())
-                .subscribeWith(new DisposableObserver<List<Vehicles>>() {
+                .subscribeWith(new DisposableSingleObserver<List<String>>() {
                     @Override
-                    public void onNext(List<Vehicles> vehiclesList) {
-                        for (Vehicles vehicles : vehiclesList) {
-                            addCarToAutocompleteList(vehicles);
+                    public void onSuccess(List<String> models) {
+                        if (!models.isEmpty()) {
+                            mCarToModelMap.put(manufacturersName, new HashSet<>(models));
                         }
                         updateModelView(manufacturersName);
                     }
 
                     @Override
                     public void onError(Throwable e) {
-                        LOG.info("vehicleFetch():",e.getMessage());
+                        LOG.info("vehicleFetch():", e.getMessage());
                     }
+                }));
+    }
 
-                    @Override
-                    public void onComplete() {
+    private void fetchYears(Pair<String, String> manufactureModel) {
+        if (mManufactureModelToYear.containsKey(manufactureModel)) {
+            updateYearView(manufactureModel);
+            return;
+        }
 
+        disposable.add(enviroCarVehicleDB.vehicleDAO()
+                .getAllotmentYears(manufactureModel.first, manufactureModel.second)
+                .subscribeOn(Schedulers.io())
+                .observeOn(AndroidSchedulers.mainThread())
+                .subscribeWith(new DisposableSingleObserver<List<Integer>>() {
+                    @Override
+                    public void onSuccess(List<Integer> years) {
+                        if (!years.isEmpty()) {
+                            Set<String> yearStrings = new HashSet<>();
+                            for (Integer year : years) {
+                                yearStrings.add(Integer.toString(year));
+                            }
+                            mManufactureModelToYear.put(manufactureModel, yearStrings);
+                        }
+                        updateYearView(manufactureModel);
                     }
-                });
-    }
 
-    private void addCarToAutocompleteList(Vehicles vehicle) {
-        mManufacturerNames.add(vehicle.getManufacturer());
-
-        if (!mCarToModelMap.containsKey(vehicle.getManufacturer()))
-            mCarToModelMap.put(vehicle.getManufacturer(), new HashSet<>());
-        mCarToModelMap.get(vehicle.getManufacturer()).add(vehicle.getCommerical_name());
-        Pair<String, String> manufactureModel = new Pair<>(vehicle.getManufacturer(), vehicle.getCommerical_name());
-        if (!mManufactureModelToYear.containsKey(manufactureModel))
-            mManufactureModelToYear.put(manufactureModel, new HashSet<>());
-        int year = ((CarSelectionActivity) getActivity()).convertDateToInt(vehicle.getAllotment_date());
-        String yearString = Integer.toString(year);
-        mManufactureModelToYear.get(manufactureModel).add(yearString);
+                    @Override
+                    public void onError(Throwable e) {
+                        LOG.info("yearFetch():", e.getMessage());
+                    }
+                }));
     }
 
     private void updateManufacturerView() {
@@ -402,11 +421,66 @@ public class CarSelectionAttributesFragment extends BaseInjectorFragment {
             if (!hasFocus) {
                 String model = modelEditText.getText().toString();
                 String manufacture = manufactureEditText.getText().toString();
-                updateYearView(new Pair<>(manufacture, model));
+                fetchYears(new Pair<>(manufacture, model));
             }
         });
     }
 
+    /**
+     * Replaces the suggestions of the manufacturer and model fields with the results of the
+     * full-text index while typing, so that a model is also found by a later word of its name.
+     * Without a searchable token the fields fall back to the complete lists.
+     */
+    private void initTypeAhead() {
+        disposable.add(RxTextView.textChanges(manufactureEditText)
+                .skipInitialValue()
+                .debounce(TYPE_AHEAD_DEBOUNCE_TIME, TimeUnit.MILLISECONDS)
+                .map(t -> t.toString())
+                .switchMapSingle(text -> {
+                    String query = VehiclesFts.prefixQuery(VehiclesFts.KEY_MANUFACTURER, text);
+                    if (query == null) {
+                        return Single.<List<String>>just(new ArrayList<>(mManufacturerNames));
+                    }
+                    return enviroCarVehicleDB.vehicleDAO()
+                            .searchManufacturers(query, TYPE_AHEAD_LIMIT)
+                            .subscribeOn(Schedulers.io());
+                })
+                .observeOn(AndroidSchedulers.mainThread())
+                .subscribe(names -> showSuggestions(manufactureEditText, names),
+                        e -> LOG.error("Error while searching manufacturers", e)));
+
+        disposable.add(RxTextView.textChanges(modelEditText)
+                .skipInitialValue()
+                .debounce(TYPE_AHEAD_DEBOUNCE_TIME, TimeUnit.MILLISECONDS)
+                .map(t -> t.toString())
+                .switchMapSingle(text -> {
+                    String manufacturer = manufactureEditText.getText().toString();
+                    String query = VehiclesFts.prefixQuery(VehiclesFts.KEY_COMMERCIAL_NAME, text);
+                    if (query == null) {
+                        Set<String> models = mCarToModelMap.get(manufacturer);
+                        return Single.<List<String>>just(models != null
+                                ? new ArrayList<>(models) : new ArrayList<>());
+                    }
+                    return enviroCarVehicleDB.vehicleDAO()
+                            .searchModels(manufacturer, query, TYPE_AHEAD_LIMIT)
+                            .subscribeOn(Schedulers.io());
+                })
+                .observeOn(AndroidSchedulers.mainThread())
+                .subscribe(models -> showSuggestions(modelEditText, models),
+                        e -> LOG.error("Error while searching models", e)));
+    }
+
+    private void showSuggestions(AutoCompleteTextView textView, List<String> suggestions) {
+        if (getActivity() == null || suggestions.isEmpty()) {
+            return;
+        }
+        textView.setAdapter(((CarSelectionActivity) getActivity())
+                .sortedAdapter(getContext(), new HashSet<>(suggestions)));
+        if (textView.hasFocus() && textView.enoughToFilter()) {
+            textView.showDropDown();
+        }
+    }
+
     private void requestNextTextFieldFocus(TextView textField) {
         try {
             TextView nextField = (TextView) textField.focusSearch(View.FOCUS_DOWN);
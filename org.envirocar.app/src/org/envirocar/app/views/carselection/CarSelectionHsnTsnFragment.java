@@ -57,12 +57,10 @@ import butterknife.BindView;
 import butterknife.ButterKnife;
 import butterknife.OnClick;
 import butterknife.OnEditorAction;
-import io.reactivex.Observable;
 import io.reactivex.Scheduler;
 import io.reactivex.Single;
 import io.reactivex.android.schedulers.AndroidSchedulers;
 import io.reactivex.disposables.CompositeDisposable;
-import io.reactivex.observers.DisposableObserver;
 import io.reactivex.observers.DisposableSingleObserver;
 import io.reactivex.schedulers.Schedulers;
 
@@ -210,21 +208,19 @@ public class CarSelectionHsnTsnFragment extends BaseInjectorFragment {
     }
 
     private void updateTsnView(String hsn) {
+        if (mHsnToTsn.containsKey(hsn)) {
+            tsnEditText.setAdapter(((CarSelectionActivity) getActivity()).sortedAdapter(getContext(), mHsnToTsn.get(hsn)));
+            return;
+        }
 
-        Observable<List<Vehicles>> getManufacturersVehicles = enviroCarVehicleDB.vehicleDAO().getManufacturerVehiclesId(hsn);
-
-        getManufacturersVehicles.subscribeOn(Schedulers.io())
+        enviroCarVehicleDB.vehicleDAO().getTsns(hsn)
+                .subscribeOn(Schedulers.io())
                 .observeOn(AndroidSchedulers.mainThread())
-                .subscribeWith(new DisposableObserver<List<Vehicles>>() {
+                .subscribeWith(new DisposableSingleObserver<List<String>>() {
                     @Override
-                    public void onNext(List<Vehicles> vehiclesList) {
-                        for (int i = 0; i < vehiclesList.size(); i++) {
-                            if (!mHsnToTsn.containsKey(vehiclesList.get(i).getManufacturer_id()))
-                                mHsnToTsn.put(vehiclesList.get(i).getManufacturer_id(), new HashSet<>());
-                            mHsnToTsn.get(vehiclesList.get(i).getManufacturer_id()).add(vehiclesList.get(i).getId());
-                        }
-
-                        if (mHsnToTsn.containsKey(hsn)) {
+                    public void onSuccess(List<String> tsns) {
+                        if (!tsns.isEmpty()) {
+                            mHsnToTsn.put(hsn, new HashSet<>(tsns));
                             tsnEditText.setAdapter(((CarSelectionActivity) getActivity()).sortedAdapter(getContext(), mHsnToTsn.get(hsn)));
                         } else {
                             tsnEditText.setAdapter(null);
@@ -235,11 +231,6 @@ public class CarSelectionHsnTsnFragment extends BaseInjectorFragment {
                     public void onError(Throwable e) {
                         Log.i("vehicleFetch():",e.getMessage());
                     }
-
-                    @Override
-                    public void onComplete() {
-
-                    }
                 });
 
     }
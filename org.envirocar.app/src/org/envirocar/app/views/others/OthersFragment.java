@@ -50,8 +50,10 @@ import org.envirocar.app.views.logbook.LogbookActivity;
 import org.envirocar.app.views.settings.SettingsActivity;
 import org.envirocar.core.entity.User;
 import org.envirocar.core.logging.Logger;
+import org.envirocar.core.util.TrackFileFormat;
 import org.envirocar.core.utils.ServiceUtils;
 
+import java.io.File;
 import java.util.concurrent.TimeUnit;
 
 import javax.inject.Inject;
@@ -85,6 +87,8 @@ public class OthersFragment extends BaseInjectorFragment {
 
     private int REQUEST_PERMISSIONS_REQUEST_CODE = 101;
 
+    private static final String BACKUP_FILE_NAME = "enviroCar-tracks";
+
     @Override
     public View onCreateView(LayoutInflater inflater, ViewGroup container,
                              Bundle savedInstanceState) {
@@ -145,6 +149,23 @@ public class OthersFragment extends BaseInjectorFragment {
 //        }
     }
 
+    @OnClick(R.id.othersBackupTracks)
+    protected void onBackupTracksClicked() {
+        File backupFile = new File(getContext().getExternalFilesDir(null),
+                BACKUP_FILE_NAME + TrackFileFormat.FILE_EXTENSION);
+        new MaterialAlertDialogBuilder(getActivity(), R.style.MaterialDialog)
+                .setTitle(R.string.others_backup_tracks)
+                .setMessage(getString(R.string.others_backup_tracks_content,
+                        backupFile.getAbsolutePath()))
+                .setIcon(R.drawable.ic_cloud_upload_black_24dp)
+                .setPositiveButton(R.string.others_backup_tracks_backup,
+                        (dialog, which) -> backupTracks(backupFile))
+                .setNeutralButton(R.string.others_backup_tracks_restore,
+                        (dialog, which) -> restoreTracks(backupFile))
+                .setNegativeButton(R.string.cancel, null)
+                .show();
+    }
+
     @OnClick(R.id.othersRateUs)
     protected void onRateUsClicked() {
         final String appPackageName = "org.envirocar.app"; // getPackageName() from Context or Activity object
@@ -283,6 +304,42 @@ public class OthersFragment extends BaseInjectorFragment {
     }
 
 
+    private void backupTracks(File backupFile) {
+        mTrackDAOHandler.backupTracksObservable(backupFile)
+                .subscribeOn(Schedulers.io())
+                .observeOn(AndroidSchedulers.mainThread())
+                .subscribe(
+                        file -> showBackupMessage(getString(R.string.others_backup_tracks_saved)),
+                        e -> {
+                            LOGGER.error("Error while backing up the tracks", e);
+                            showBackupMessage(getString(R.string.others_backup_tracks_failed));
+                        });
+    }
+
+    private void restoreTracks(File backupFile) {
+        if (!backupFile.exists()) {
+            showBackupMessage(getString(R.string.others_backup_tracks_missing));
+            return;
+        }
+        mTrackDAOHandler.restoreTracksObservable(backupFile)
+                .observeOn(AndroidSchedulers.mainThread())
+                .subscribe(
+                        count -> showBackupMessage(
+                                getString(R.string.others_backup_tracks_restored, count)),
+                        e -> {
+                            LOGGER.error("Error while restoring the tracks", e);
+                            showBackupMessage(getString(R.string.others_backup_tracks_failed));
+                        });
+    }
+
+    private void showBackupMessage(String message) {
+        if (getActivity() == null) {
+            return;
+        }
+        Snackbar.make(getActivity().findViewById(R.id.navigation), message,
+                Snackbar.LENGTH_LONG).show();
+    }
+
     private void shutdownEnviroCar() {
         ServiceUtils.stopService(getActivity(), AutoRecordingService.class);
         ServiceUtils.stopService(getActivity(), RecordingService.class);
@@ -53,6 +53,7 @@ import org.envirocar.core.entity.Car;
 import org.envirocar.core.logging.LocalFileHandler;
 import org.envirocar.core.logging.Logger;
 import org.envirocar.core.util.Util;
+import org.envirocar.storage.DatabaseMonitor;
 
 import java.io.File;
 import java.io.FileFilter;
@@ -109,6 +110,8 @@ public class SendLogFileActivity extends BaseInjectorActivity {
     protected CarPreferenceHandler mCarPrefHandler;
     @Inject
     protected BluetoothHandler mBluetoothHandler;
+    @Inject
+    protected DatabaseMonitor mDatabaseMonitor;
 
     protected List<CheckBoxItem> checkBoxItems;
     protected String extraInfo;
@@ -388,7 +391,14 @@ public class SendLogFileActivity extends BaseInjectorActivity {
         File targetFile = Util.createFileOnStorage(getExternalCacheDir().getAbsolutePath(),
                 PREFIX + format.format(new Date()) + EXTENSION);
 
-        Util.zip(findAllLogFiles(), targetFile.toURI().getPath());
+        List<File> files = new ArrayList<>(findAllLogFiles());
+        try {
+            // database statistics and the slow query log
+            files.addAll(mDatabaseMonitor.createReportFiles(getCacheDir()));
+        } catch (IOException e) {
+            LOG.warn("Unable to create the database report", e);
+        }
+        Util.zip(files, targetFile.toURI().getPath());
 
         return targetFile;
     }
@@ -25,6 +25,7 @@ import android.content.DialogInterface;
 import android.content.Intent;
 import android.graphics.BitmapFactory;
 import android.os.Bundle;
+import android.util.Pair;
 import android.view.Gravity;
 import android.view.View;
 import android.widget.ImageView;
@@ -39,6 +40,7 @@ import androidx.transition.TransitionManager;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
 import com.mapbox.geojson.Feature;
 import com.mapbox.geojson.Point;
+import com.mapbox.mapboxsdk.camera.CameraPosition;
 import com.mapbox.mapboxsdk.camera.CameraUpdateFactory;
 import com.mapbox.mapboxsdk.geometry.LatLngBounds;
 import com.mapbox.mapboxsdk.maps.MapView;
@@ -54,6 +56,7 @@ import org.envirocar.app.injection.BaseInjectorActivity;
 import org.envirocar.app.BaseApplicationComponent;
 import org.envirocar.core.entity.Measurement;
 import org.envirocar.core.entity.Track;
+import org.envirocar.core.entity.TrackPropertyIndex;
 import org.envirocar.core.logging.Logger;
 import org.envirocar.core.EnviroCarDB;
 
@@ -67,7 +70,10 @@ import butterknife.BindView;
 import butterknife.ButterKnife;
 import butterknife.OnClick;
 import butterknife.OnTouch;
-import io.reactivex.schedulers.Schedulers;
+import io.reactivex.Observable;
+import io.reactivex.android.schedulers.AndroidSchedulers;
+import io.reactivex.disposables.CompositeDisposable;
+import io.reactivex.disposables.Disposable;
 
 import static android.view.View.GONE;
 
@@ -106,11 +112,16 @@ public class MapExpandedActivity extends BaseInjectorActivity {
 
     protected MapboxMap mapboxMapExpanded;
     protected TrackMapLayer trackMapOverlay;
-    private Track track;
+    private CompositeDisposable subscriptions = new CompositeDisposable();
+    private Disposable propertyValuesDisposable;
+    private Track.TrackId trackId;
+    private Measurement.PropertyKey propertyValuesKey;
+    private List<Double> propertyValues;
     private Style style;
     private List<Measurement.PropertyKey> options = new ArrayList<>();
     private List<String> spinnerStrings = new ArrayList<>();
     private boolean mIsCentredOnTrack;
+    private int currentChoice = -1;
 
     public static void createInstance(Activity activity, int trackID) {
         Intent intent = new Intent(activity, MapExpandedActivity.class);
@@ -133,21 +144,27 @@ public class MapExpandedActivity extends BaseInjectorActivity {
 
         // Get the track to show.
         int trackID = getIntent().getIntExtra(EXTRA_TRACKID, -1);
-        Track.TrackId trackid = new Track.TrackId(trackID);
-        Track track = enviroCarDB.getTrack(trackid)
-                .subscribeOn(Schedulers.io())
-                .blockingFirst();
-        this.track = track;
-
-        trackMapOverlay = new TrackMapLayer(track);
-
-        options = track.getSupportedProperties();
-        for (Measurement.PropertyKey propertyKey : options) {
-            spinnerStrings.add(getString(propertyKey.getStringResource()));
-        }
-        spinnerStrings.add("None");
+        trackId = new Track.TrackId(trackID);
+
+        // the measurements are never loaded as a whole: the geometry is built in the background
+        // on a cache miss and the supported properties are collected page by page
+        subscriptions.add(Observable.zip(
+                enviroCarDB.getTrackGeometry(trackId),
+                enviroCarDB.getMeasurements(trackId)
+                        .collect(TrackPropertyIndex::new, TrackPropertyIndex::add)
+                        .toObservable(),
+                (levelsOfDetail, propertyIndex) -> new Pair<>(levelsOfDetail, propertyIndex))
+                .observeOn(AndroidSchedulers.mainThread())
+                .subscribe(result -> {
+                    options = result.second.getKeys();
+                    for (Measurement.PropertyKey propertyKey : options) {
+                        spinnerStrings.add(getString(propertyKey.getStringResource()));
+                    }
+                    spinnerStrings.add("None");
 
-        initMapView();
+                    trackMapOverlay = new TrackMapLayer(result.first);
+                    initMapView();
+                }, e -> LOG.error("Unable to load the track.", e)));
 
         mIsCentredOnTrack = true;
         mCentreFab.show();
@@ -166,6 +183,9 @@ public class MapExpandedActivity extends BaseInjectorActivity {
 
     @OnClick(R.id.activity_map_follow_fab)
     protected void onClickFollowFab() {
+        if (trackMapOverlay == null) {
+            return;
+        }
         final LatLngBounds viewBbox = trackMapOverlay.getViewBoundingBox();
         if (!mIsCentredOnTrack) {
             mIsCentredOnTrack = true;
@@ -190,8 +210,16 @@ public class MapExpandedActivity extends BaseInjectorActivity {
     }
 
     private void makeMapChanges(int choice) {
+        makeMapChanges(choice, true);
+    }
+
+    private void makeMapChanges(int choice, boolean moveCamera) {
+        if (trackMapOverlay == null) {
+            return;
+        }
         final LatLngBounds viewBbox = trackMapOverlay.getViewBoundingBox();
-        if (mapboxMapExpanded != null) {
+        currentChoice = choice;
+        if (mapboxMapExpanded != null && choice >= 0) {
             LOG.info("Choice: " + choice);
             if (!spinnerStrings.get(choice).equalsIgnoreCase("None")) {
                 if (legendCard.getVisibility() != View.VISIBLE) {
@@ -201,31 +229,10 @@ public class MapExpandedActivity extends BaseInjectorActivity {
                     TransitionManager.beginDelayedTransition(legendCard, new ChangeBounds());
                 }
 
-                mapboxMapExpanded.getStyle(new Style.OnStyleLoaded() {
-                    @Override
-                    public void onStyleLoaded(@NonNull Style style) {
-                        //Remove current gradient layer
-                        style.removeLayer(TrackMapLayer.GRADIENT_LAYER);
-                        style.removeSource(TrackMapLayer.GRADIENT_SOURCE);
-
-                        //Add new gradient layer based on choice of data
-                        style.addSource(trackMapOverlay.getGradientGeoJSONSource());
-                        style.addLayerBelow(trackMapOverlay.getGradientLineLayer(options.get(choice)), "marker-layer1");
-
-                        //Set legend values
-                        try {
-                            legendStart.setText(DECIMAL_FORMATTER.format(trackMapOverlay.getGradMin()));
-                            legendEnd.setText(DECIMAL_FORMATTER.format(trackMapOverlay.getGradMax()));
-                            Float mid = (trackMapOverlay.getGradMin() + trackMapOverlay.getGradMax()) / 2;
-                            legendMid.setText(DECIMAL_FORMATTER.format(mid));
-                            legendName.setText(options.get(choice).getStringResource());
-                        } catch (Exception e){
-                            LOG.error("Error while formatting legend.", e);
-                        }
-                    }
-                });
+                showGradient(options.get(choice));
             } else {
                 //None gradient chosen. So remove the gradient layers
+                disposePropertyValues();
                 TransitionManager.beginDelayedTransition(legendCard, new androidx.transition.Slide(Gravity.LEFT));
                 legendCard.setVisibility(GONE);
                 mapboxMapExpanded.getStyle(new Style.OnStyleLoaded() {
@@ -236,7 +243,83 @@ public class MapExpandedActivity extends BaseInjectorActivity {
                     }
                 });
             }
-            mapboxMapExpanded.easeCamera(CameraUpdateFactory.newLatLngBounds(viewBbox, 50));
+            if (moveCamera) {
+                mapboxMapExpanded.easeCamera(CameraUpdateFactory.newLatLngBounds(viewBbox, 50));
+            }
+        }
+    }
+
+    /**
+     * Shows the gradient of a property. Only the values of the selected property are read, page
+     * by page, and kept until another property is selected.
+     *
+     * @param propertyKey the key of the property.
+     */
+    private void showGradient(Measurement.PropertyKey propertyKey) {
+        disposePropertyValues();
+        if (propertyKey == propertyValuesKey) {
+            addGradientLayer(propertyKey);
+            return;
+        }
+        propertyValuesDisposable = enviroCarDB.getMeasurements(trackId)
+                .map(measurement -> measurement.getDouble(propertyKey))
+                .toList()
+                .observeOn(AndroidSchedulers.mainThread())
+                .subscribe(values -> {
+                    propertyValuesKey = propertyKey;
+                    propertyValues = values;
+                    addGradientLayer(propertyKey);
+                }, e -> LOG.error("Unable to load the values of " + propertyKey, e));
+    }
+
+    private void disposePropertyValues() {
+        if (propertyValuesDisposable != null) {
+            propertyValuesDisposable.dispose();
+            propertyValuesDisposable = null;
+        }
+    }
+
+    private void addGradientLayer(Measurement.PropertyKey propertyKey) {
+        mapboxMapExpanded.getStyle(new Style.OnStyleLoaded() {
+            @Override
+            public void onStyleLoaded(@NonNull Style style) {
+                //Remove current gradient layer
+                style.removeLayer(TrackMapLayer.GRADIENT_LAYER);
+                style.removeSource(TrackMapLayer.GRADIENT_SOURCE);
+
+                //Add new gradient layer based on choice of data
+                style.addSource(trackMapOverlay.getGradientGeoJSONSource());
+                style.addLayerBelow(trackMapOverlay.getGradientLineLayer(propertyKey, propertyValues), "marker-layer1");
+
+                //Set legend values
+                try {
+                    legendStart.setText(DECIMAL_FORMATTER.format(trackMapOverlay.getGradMin()));
+                    legendEnd.setText(DECIMAL_FORMATTER.format(trackMapOverlay.getGradMax()));
+                    Float mid = (trackMapOverlay.getGradMin() + trackMapOverlay.getGradMax()) / 2;
+                    legendMid.setText(DECIMAL_FORMATTER.format(mid));
+                    legendName.setText(propertyKey.getStringResource());
+                } catch (Exception e){
+                    LOG.error("Error while formatting legend.", e);
+                }
+            }
+        });
+    }
+
+    /**
+     * Switches the path and the gradient to the level of detail that fits the current zoom.
+     */
+    private void updateLevelOfDetail() {
+        CameraPosition position = mapboxMapExpanded.getCameraPosition();
+        if (style == null || position.target == null
+                || !trackMapOverlay.updateLevelOfDetail(position.zoom, position.target.getLatitude())) {
+            return;
+        }
+        GeoJsonSource source = style.getSourceAs(MapLayer.SOURCE_NAME);
+        if (source != null) {
+            source.setGeoJson(trackMapOverlay.getFeatureCollection());
+        }
+        if (currentChoice >= 0 && !spinnerStrings.get(currentChoice).equalsIgnoreCase("None")) {
+            makeMapChanges(currentChoice, false);
         }
     }
 
@@ -271,6 +354,7 @@ public class MapExpandedActivity extends BaseInjectorActivity {
                     }
                 });
                 mapboxMapExpanded = mapboxMap1;
+                mapboxMapExpanded.addOnCameraIdleListener(() -> updateLevelOfDetail());
                 mapboxMapExpanded.setMaxZoomPreference(18);
                 mapboxMapExpanded.setMinZoomPreference(1);
             }
@@ -278,19 +362,16 @@ public class MapExpandedActivity extends BaseInjectorActivity {
     }
 
     private void setUpStartStopIcons(@NonNull Style loadedMapStyle) {
-        int size = track.getMeasurements().size();
-        if (size >= 2) {
+        Point startPoint = trackMapOverlay.getStartPoint();
+        Point endPoint = trackMapOverlay.getEndPoint();
+        if (startPoint != null && trackMapOverlay.getMeasurementCount() >= 2) {
             //Set Source with start and stop marker
-            Double lng = track.getMeasurements().get(0).getLongitude();
-            Double lat = track.getMeasurements().get(0).getLatitude();
             GeoJsonSource geoJsonSource = new GeoJsonSource("marker-source1", Feature.fromGeometry(
-                    Point.fromLngLat(lng, lat)));
+                    startPoint));
             loadedMapStyle.addSource(geoJsonSource);
 
-            lng = track.getMeasurements().get(size - 1).getLongitude();
-            lat = track.getMeasurements().get(size - 1).getLatitude();
             geoJsonSource = new GeoJsonSource("marker-source2", Feature.fromGeometry(
-                    Point.fromLngLat(lng, lat)));
+                    endPoint));
             loadedMapStyle.addSource(geoJsonSource);
 
             //Set symbol layer to set the icons to be displayed at the start and stop
@@ -352,6 +433,8 @@ public class MapExpandedActivity extends BaseInjectorActivity {
     @Override
     protected void onDestroy() {
         super.onDestroy();
+        subscriptions.dispose();
+        disposePropertyValues();
         if (style != null) {
             style.removeLayer(MapLayer.LAYER_NAME);
             style.removeLayer("marker-layer1");
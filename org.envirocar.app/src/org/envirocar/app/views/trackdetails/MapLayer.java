@@ -69,9 +69,16 @@ public class MapLayer {
     }
 
     public void setGeoJsonSource() {
-        this.geoJsonSource = new GeoJsonSource(SOURCE_NAME, FeatureCollection.fromFeatures(new Feature[] {Feature.fromGeometry(
+        this.geoJsonSource = new GeoJsonSource(SOURCE_NAME, getFeatureCollection());
+    }
+
+    /**
+     * @return the current path as feature collection, e.g. to update an existing source.
+     */
+    public FeatureCollection getFeatureCollection() {
+        return FeatureCollection.fromFeatures(new Feature[] {Feature.fromGeometry(
                 LineString.fromLngLats(mPoints)
-        )}));
+        )});
     }
 
     public void setLineLayer() {
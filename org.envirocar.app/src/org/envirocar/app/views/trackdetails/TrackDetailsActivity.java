@@ -25,6 +25,7 @@ import android.graphics.Color;
 import android.os.Build;
 import android.os.Bundle;
 import android.transition.Slide;
+import android.util.Pair;
 import android.view.MenuItem;
 import android.view.View;
 import android.view.Window;
@@ -43,6 +44,7 @@ import com.google.android.material.snackbar.BaseTransientBottomBar;
 import com.google.android.material.snackbar.Snackbar;
 import com.mapbox.geojson.Feature;
 import com.mapbox.geojson.Point;
+import com.mapbox.mapboxsdk.camera.CameraPosition;
 import com.mapbox.mapboxsdk.camera.CameraUpdateFactory;
 import com.mapbox.mapboxsdk.geometry.LatLngBounds;
 import com.mapbox.mapboxsdk.maps.MapView;
@@ -60,11 +62,8 @@ import org.envirocar.core.EnviroCarDB;
 import org.envirocar.core.entity.Car;
 import org.envirocar.core.entity.Measurement;
 import org.envirocar.core.entity.Track;
-import org.envirocar.core.exception.FuelConsumptionException;
-import org.envirocar.core.exception.NoMeasurementsException;
-import org.envirocar.core.exception.UnsupportedFuelTypeException;
+import org.envirocar.core.entity.TrackSummary;
 import org.envirocar.core.logging.Logger;
-import org.envirocar.core.trackprocessing.statistics.TrackStatisticsProvider;
 import org.envirocar.core.utils.CarUtils;
 
 import java.text.DateFormat;
@@ -72,7 +71,6 @@ import java.text.DecimalFormat;
 import java.text.SimpleDateFormat;
 import java.util.Calendar;
 import java.util.Date;
-import java.util.List;
 import java.util.Locale;
 import java.util.TimeZone;
 
@@ -80,7 +78,9 @@ import javax.inject.Inject;
 
 import butterknife.BindView;
 import butterknife.ButterKnife;
-import io.reactivex.schedulers.Schedulers;
+import io.reactivex.Observable;
+import io.reactivex.android.schedulers.AndroidSchedulers;
+import io.reactivex.disposables.CompositeDisposable;
 
 
 /**
@@ -161,8 +161,8 @@ public class TrackDetailsActivity extends BaseInjectorActivity {
     @BindView(R.id.activity_track_details_stoptime_value)
     protected TextView stoptimeValue;
 
-    private Track track;
     TrackMapLayer trackMapOverlay;
+    private CompositeDisposable subscriptions = new CompositeDisposable();
     protected MapboxMap mapboxMap;
     protected Style mapStyle;
 
@@ -187,28 +187,33 @@ public class TrackDetailsActivity extends BaseInjectorActivity {
         getSupportActionBar().setDisplayShowHomeEnabled(true);
         getSupportActionBar().setDisplayHomeAsUpEnabled(true);
 
-        // Get the track to show.
+        // Get the track to show. Its measurements are not loaded, the header and the averages
+        // are taken from the stored summary of the track.
         int mTrackID = getIntent().getIntExtra(EXTRA_TRACKID, -1);
         Track.TrackId trackid = new Track.TrackId(mTrackID);
-        Track track = mEnvirocarDB.getTrack(trackid)
-                .subscribeOn(Schedulers.io())
-                .blockingFirst();
-        this.track = track;
-
-        this.trackMapOverlay = new TrackMapLayer(track);
-
-        String itemTitle = track.getName();
-        CollapsingToolbarLayout collapsingToolbarLayout = findViewById(R.id.collapsing_toolbar);
-        collapsingToolbarLayout.setTitle(itemTitle);
-        collapsingToolbarLayout.setExpandedTitleColor(getResources().getColor(android.R.color.transparent));
-        collapsingToolbarLayout.setStatusBarScrimColor(getResources().getColor(android.R.color.transparent));
-
-        TextView title = findViewById(R.id.title);
-        title.setText(itemTitle);
-
-        // Initialize the mapview and the trackpath
-        initMapView();
-        initViewValues(track);
+        subscriptions.add(Observable.zip(
+                mEnvirocarDB.getTrack(trackid, true),
+                mEnvirocarDB.getTrackSummary(trackid),
+                (track, summary) -> new Pair<>(track, summary))
+                .observeOn(AndroidSchedulers.mainThread())
+                .subscribe(result -> initViewValues(result.first, result.second),
+                        e -> LOG.error("Unable to load the track.", e)));
+
+        // the map only draws the simplified path, which is built in the background on a cache miss
+        subscriptions.add(mEnvirocarDB.getTrackGeometry(trackid)
+                .observeOn(AndroidSchedulers.mainThread())
+                .subscribe(levelsOfDetail -> {
+                    this.trackMapOverlay = new TrackMapLayer(levelsOfDetail);
+                    initMapView();
+                }, e -> LOG.error("Unable to load the geometry of the track.", e)));
+
+        // the stops are the only values that require the single measurements, which are read
+        // page by page
+        subscriptions.add(mEnvirocarDB.getMeasurements(trackid)
+                .collect(StopStatistics::new, StopStatistics::add)
+                .observeOn(AndroidSchedulers.mainThread())
+                .subscribe(this::initStopValues,
+                        e -> LOG.error("Unable to compute the stops of the track.", e)));
 
         updateStatusBarColor();
         mFAB.setOnClickListener(v -> {
@@ -269,26 +274,36 @@ public class TrackDetailsActivity extends BaseInjectorActivity {
                 tep.moveCamera(CameraUpdateFactory.newLatLngBounds(viewBbox, 50));
                 setUpStartStopIcons(style);
             });
+            tep.addOnCameraIdleListener(() -> updateLevelOfDetail(tep));
             mapboxMap = tep;
             mapboxMap.setMaxZoomPreference(trackMapOverlay.getMaxZoom());
             mapboxMap.setMinZoomPreference(trackMapOverlay.getMinZoom());
         });
     }
 
+    private void updateLevelOfDetail(MapboxMap map) {
+        CameraPosition position = map.getCameraPosition();
+        if (mapStyle == null || position.target == null
+                || !trackMapOverlay.updateLevelOfDetail(position.zoom, position.target.getLatitude())) {
+            return;
+        }
+        GeoJsonSource source = mapStyle.getSourceAs(MapLayer.SOURCE_NAME);
+        if (source != null) {
+            source.setGeoJson(trackMapOverlay.getFeatureCollection());
+        }
+    }
+
     private void setUpStartStopIcons(@NonNull Style loadedMapStyle) {
-        int size = track.getMeasurements().size();
-        if (size >= 2) {
+        Point startPoint = trackMapOverlay.getStartPoint();
+        Point endPoint = trackMapOverlay.getEndPoint();
+        if (startPoint != null && trackMapOverlay.getMeasurementCount() >= 2) {
             //Set Source with start and stop marker
-            Double lng = track.getMeasurements().get(0).getLongitude();
-            Double lat = track.getMeasurements().get(0).getLatitude();
             GeoJsonSource geoJsonSource = new GeoJsonSource("marker-source1", Feature.fromGeometry(
-                    Point.fromLngLat(lng, lat)));
+                    startPoint));
             loadedMapStyle.addSource(geoJsonSource);
 
-            lng = track.getMeasurements().get(size - 1).getLongitude();
-            lat = track.getMeasurements().get(size - 1).getLatitude();
             geoJsonSource = new GeoJsonSource("marker-source2", Feature.fromGeometry(
-                    Point.fromLngLat(lng, lat)));
+                    endPoint));
             loadedMapStyle.addSource(geoJsonSource);
 
             //Set symbol layer to set the icons to be displayed at the start and stop
@@ -316,126 +331,84 @@ public class TrackDetailsActivity extends BaseInjectorActivity {
         }
     }
 
-    private void initViewValues(Track track) {
-        try {
-            final String text = UTC_DATE_FORMATTER.format(new Date(track.getDuration()));
-            mDistanceText.setText(String.format("%s km", DECIMAL_FORMATTER_TWO_DIGITS.format(((TrackStatisticsProvider) track).getDistanceOfTrack())));
-            mDurationText.setText(text);
+    private void initViewValues(Track track, TrackSummary summary) {
+        String itemTitle = track.getName();
+        CollapsingToolbarLayout collapsingToolbarLayout = findViewById(R.id.collapsing_toolbar);
+        collapsingToolbarLayout.setTitle(itemTitle);
+        collapsingToolbarLayout.setExpandedTitleColor(getResources().getColor(android.R.color.transparent));
+        collapsingToolbarLayout.setStatusBarScrimColor(getResources().getColor(android.R.color.transparent));
+
+        TextView title = findViewById(R.id.title);
+        title.setText(itemTitle);
 
-            String ee = new SimpleDateFormat("EEEE").format(new Date(track.getStartTime()));
+        final String text = UTC_DATE_FORMATTER.format(new Date(summary.getDuration()));
+        double length = summary.getLength() != null ? summary.getLength() : 0.0;
+        mDistanceText.setText(String.format("%s km", DECIMAL_FORMATTER_TWO_DIGITS.format(length)));
+        mDurationText.setText(text);
 
-            Car car = track.getCar();
+        Car car = track.getCar();
+        mCarText.setText(CarUtils.carToStringWithLinebreak(car, this));
+        if (summary.getStartTime() != null) {
+            String ee = new SimpleDateFormat("EEEE").format(new Date(summary.getStartTime()));
             mDescriptionText.setText(String.format(getString(R.string.track_list_details_subtitle_template), car.getManufacturer(), car.getModel(), ee));
-            mCarText.setText(CarUtils.carToStringWithLinebreak(track.getCar(), this));
-            mBeginText.setText(DATE_FORMAT.format(new Date(track.getStartTime())));
-            mEndText.setText(DATE_FORMAT.format(new Date(track.getEndTime())));
+            mBeginText.setText(DATE_FORMAT.format(new Date(summary.getStartTime())));
+            mEndText.setText(DATE_FORMAT.format(new Date(summary.getEndTime())));
+        }
 
+        // the consumption is only computed while recording with an OBD adapter and if the
+        // measurements have the required parameters
+        double hours = summary.getDuration() / (1000.0 * 60 * 60);
+        if (Double.isNaN(summary.getAverageConsumption())) {
+            descriptionTv.setText(getString(R.string.track_list_details_no_fuel_consumption));
+            mConsumptionContainer.setVisibility(View.GONE);
+            mCo2Container.setVisibility(View.GONE);
+        } else if (car.getFuelType() == Car.FuelType.GASOLINE || ApplicationSettings.isDieselConsumptionEnabled(this)) {
             // show consumption and emission either when the fuel type of the track's car is
             // gasoline or the beta setting has been enabled.
-            if (!track.hasProperty(Measurement.PropertyKey.SPEED)) {
-                mConsumptionKey.setText(mConsumptionKey.getText() + " (GPS)");
-                mEmissionKey.setText(mEmissionKey.getText() + " (GPS)");
-                mConsumptionContainer.setVisibility(View.GONE);
-                mCo2Container.setVisibility(View.GONE);
-            }
-
-            if (track.getCar().getFuelType() == Car.FuelType.GASOLINE || ApplicationSettings.isDieselConsumptionEnabled(this)) {
-                TrackStatisticsProvider statsProvider = (TrackStatisticsProvider) track;
-
-                // set consumption text.
-                String fuelConsumptionText = DECIMAL_FORMATTER_TWO_DIGITS.format(statsProvider.getFuelConsumptionPerHour());
-                String litrePerHundredKmText = DECIMAL_FORMATTER_TWO_DIGITS.format(statsProvider.getLiterPerHundredKm());
-                this.mConsumptionText.setText(String.format("%s l/h\n%s l/100 km", fuelConsumptionText, litrePerHundredKmText));
-
-                // set emissions
-                String emissions = DECIMAL_FORMATTER_TWO_DIGITS.format(statsProvider.getGramsPerKm());
-                this.mEmissionText.setText(String.format("%s g/km", emissions));
-            } else {
-                mEmissionText.setText(R.string.track_list_details_diesel_not_supported);
-                mConsumptionText.setText(R.string.track_list_details_diesel_not_supported);
-                mEmissionText.setTextColor(Color.RED);
-                mConsumptionText.setTextColor(Color.RED);
-            }
-        } catch (NoMeasurementsException | UnsupportedFuelTypeException e) {
-            LOG.error(e);
-        }
-        catch (FuelConsumptionException e) {
-            LOG.error(e);
-            if(e.getMissingProperties() != null){
-                List<Measurement.PropertyKey> missingProperties = e.getMissingProperties();
-                descriptionTv.setText(String.format(getString(R.string.track_list_details_no_fuel_consumption_missing_properties), missingProperties));
-            }
-            else {
-                descriptionTv.setText(getString(R.string.track_list_details_no_fuel_consumption));
-            }
-
+            double consumptionPerHour = summary.getAverageConsumption();
+            String fuelConsumptionText = DECIMAL_FORMATTER_TWO_DIGITS.format(consumptionPerHour);
+            String litrePerHundredKmText = DECIMAL_FORMATTER_TWO_DIGITS.format(consumptionPerHour * hours / length * 100);
+            this.mConsumptionText.setText(String.format("%s l/h\n%s l/100 km", fuelConsumptionText, litrePerHundredKmText));
+
+            // set emissions, the average emission is given in kg/h
+            String emissions = DECIMAL_FORMATTER_TWO_DIGITS.format(summary.getAverageCO2() * hours / length * 1000);
+            this.mEmissionText.setText(String.format("%s g/km", emissions));
+        } else {
             mEmissionText.setText(R.string.track_list_details_diesel_not_supported);
             mConsumptionText.setText(R.string.track_list_details_diesel_not_supported);
             mEmissionText.setTextColor(Color.RED);
             mConsumptionText.setTextColor(Color.RED);
-
         }
 
-        try {
-            Measurement.PropertyKey speedKey = track.hasProperty(Measurement.PropertyKey.SPEED) ? Measurement.PropertyKey.SPEED : Measurement.PropertyKey.GPS_SPEED;
-            if (track.hasProperty(speedKey)) {
-                double totalSpeed = 0;
-                int numMeasurements = 0;
-
-                boolean foundStop = false;
-                int numStops = 0;
-                long lastBeginOfStop = 0;
-                long totalStopTime = 0;
-                for (Measurement m : track.getMeasurements()) {
-                    if (m.hasProperty(speedKey)) {
-                        double speed = m.getProperty(speedKey);
-                        totalSpeed += speed;
-                        numMeasurements++;
-
-                        if (speed == 0.0 && !foundStop) {
-                            foundStop = true;
-                            lastBeginOfStop = m.getTime();
-                            numStops++;
-                        } else if (speed > 0.0 && foundStop) {
-                            foundStop = false;
-                            totalStopTime += m.getTime() - lastBeginOfStop;
-                            lastBeginOfStop = 0;
-                        }
-                    }
-                }
-
-                String avgSpeedText = DECIMAL_FORMATTER_TWO_DIGITS.format(totalSpeed / numMeasurements) + " km/h";
-                this.speedText.setText(avgSpeedText);
-
-                String numStopsText = String.format("%d stops", numStops);
-                this.stopsValue.setText(numStopsText);
-
-                Calendar c = Calendar.getInstance();
-                c.setTimeInMillis(totalStopTime);
-                int minutes = c.get(Calendar.MINUTE);
-                int seconds = c.get(Calendar.SECOND);
-
-                String totalStopTimeText = "";
-                if (minutes == 0) {
-                    totalStopTimeText = String.format("%ds", seconds);
-                } else {
-                    totalStopTimeText = String.format("%dm %ds", minutes, seconds);
-                }
-                this.stoptimeValue.setText(totalStopTimeText);
-            } else {
-                // TODO remove exception, only for vacaction
-                throw new Exception("No speed value available");
-            }
-        } catch (Exception e) {
-            LOG.error(e);
-            // TODO remove exception, only for vacaction
-            // just for the case: hide views completely.
+        if (!Double.isNaN(summary.getAverageSpeed())) {
+            String avgSpeedText = DECIMAL_FORMATTER_TWO_DIGITS.format(summary.getAverageSpeed()) + " km/h";
+            this.speedText.setText(avgSpeedText);
+        } else {
+            // no speed value available, hide views completely.
             this.speedLayout.setVisibility(View.GONE);
             this.stopsLayout.setVisibility(View.GONE);
             this.stoptimeLayout.setVisibility(View.GONE);
         }
     }
 
+    private void initStopValues(StopStatistics stops) {
+        String numStopsText = String.format("%d stops", stops.numStops);
+        this.stopsValue.setText(numStopsText);
+
+        Calendar c = Calendar.getInstance();
+        c.setTimeInMillis(stops.totalStopTime);
+        int minutes = c.get(Calendar.MINUTE);
+        int seconds = c.get(Calendar.SECOND);
+
+        String totalStopTimeText = "";
+        if (minutes == 0) {
+            totalStopTimeText = String.format("%ds", seconds);
+        } else {
+            totalStopTimeText = String.format("%dm %ds", minutes, seconds);
+        }
+        this.stoptimeValue.setText(totalStopTimeText);
+    }
+
     @Override
     public void onStart() {
         super.onStart();
@@ -470,6 +443,7 @@ public class TrackDetailsActivity extends BaseInjectorActivity {
     @Override
     protected void onDestroy() {
         super.onDestroy();
+        subscriptions.dispose();
         if (mapStyle != null) {
             mapStyle.removeLayer(MapLayer.LAYER_NAME);
             mapStyle.removeLayer("marker-layer1");
@@ -489,4 +463,33 @@ public class TrackDetailsActivity extends BaseInjectorActivity {
         super.onSaveInstanceState(outState);
         mMapView.onSaveInstanceState(outState);
     }
+
+    /**
+     * Counts the stops of a track and their total duration while its measurements are read.
+     * The OBD speed of a measurement is preferred over its GPS speed.
+     */
+    private static final class StopStatistics {
+        private boolean foundStop;
+        private int numStops;
+        private long lastBeginOfStop;
+        private long totalStopTime;
+
+        private void add(Measurement m) {
+            Measurement.PropertyKey speedKey = m.hasProperty(Measurement.PropertyKey.SPEED) ?
+                    Measurement.PropertyKey.SPEED : Measurement.PropertyKey.GPS_SPEED;
+            if (!m.hasProperty(speedKey)) {
+                return;
+            }
+            double speed = m.getProperty(speedKey);
+            if (speed == 0.0 && !foundStop) {
+                foundStop = true;
+                lastBeginOfStop = m.getTime();
+                numStops++;
+            } else if (speed > 0.0 && foundStop) {
+                foundStop = false;
+                totalStopTime += m.getTime() - lastBeginOfStop;
+                lastBeginOfStop = 0;
+            }
+        }
+    }
 }
@@ -25,6 +25,7 @@ import com.mapbox.geojson.BoundingBox;
 import com.mapbox.geojson.Feature;
 import com.mapbox.geojson.FeatureCollection;
 import com.mapbox.geojson.LineString;
+import com.mapbox.geojson.Point;
 import com.mapbox.mapboxsdk.geometry.LatLng;
 import com.mapbox.mapboxsdk.geometry.LatLngBounds;
 import com.mapbox.mapboxsdk.style.expressions.Expression;
@@ -36,6 +37,7 @@ import com.mapbox.mapboxsdk.style.sources.GeoJsonSource;
 
 import org.envirocar.core.entity.Measurement;
 import org.envirocar.core.entity.Track;
+import org.envirocar.core.entity.TrackGeometry;
 import org.envirocar.core.logging.Logger;
 
 import java.util.ArrayList;
@@ -64,6 +66,8 @@ public class TrackMapLayer extends MapLayer{
     private Float gradMax, gradMin;
     private final Track mTrack;
     private List<Measurement> measurementList = new ArrayList<>();
+    private List<TrackGeometry> levelsOfDetail;
+    private int currentLevel = -1;
     private Boolean hasNoMeasurements;
     protected LatLngBounds mTrackBoundingBox;
     protected LatLngBounds mViewBoundingBox;
@@ -75,47 +79,71 @@ public class TrackMapLayer extends MapLayer{
      * @param track the track to create a overlay for.
      */
     public TrackMapLayer(Track track) {
+        this(track, null);
+    }
+
+    /**
+     * Constructor for a track whose measurements are not loaded.
+     *
+     * @param levelsOfDetail the stored levels of detail of the track path.
+     */
+    public TrackMapLayer(List<TrackGeometry> levelsOfDetail) {
+        this(null, levelsOfDetail);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param track          the track to create a overlay for.
+     * @param levelsOfDetail the stored levels of detail of the track path. If null, the levels
+     *                       are created from the measurements of the track.
+     */
+    public TrackMapLayer(Track track, List<TrackGeometry> levelsOfDetail) {
         super();
         mTrack = track;
-        if(mTrack.getMeasurements() != null)
-        {
+        if (mTrack != null && mTrack.getMeasurements() != null && !mTrack.isLazyLoadingMeasurements()) {
             measurementList = mTrack.getMeasurements();
-            hasNoMeasurements = false;
         }
-        else
-            hasNoMeasurements = true;
+        this.levelsOfDetail = levelsOfDetail != null ? levelsOfDetail : createLevelsOfDetail();
+        hasNoMeasurements = this.levelsOfDetail.isEmpty();
 
         initPath();
     }
 
     /**
-     * Initializes the track path and the bounding boxes required by the mapviews.
+     * Simplifies the path given by the measurements of the track.
      */
-    private void initPath() {
-        if(!hasNoMeasurements)
-        {
-            // For each measurement value add the longitude and latitude coordinates as a new
-            // mappoint to the point list. In addition, try to find out the maximum and minimum
-            // lon/lat coordinates for the zoom value of the mapview.
-            for (Measurement measurement : measurementList) {
-                double latitude = measurement.getLatitude();
-                double longitude = measurement.getLongitude();
-
-                if(latitude == 0.0 || longitude == 0.0) {
-                    LOG.warn("An coordinate was 0.0");
-                    continue;
-                }
-                addPoint(latitude, longitude);
-            }
-
-            //If there is only one point added, create another dummy point that is close to
-            // the first point. If there are no points, add 2 dummy points
-            if(mPoints.size() == 0){
-                hasNoMeasurements = true;
-                addPoint(7.635147738274369, 51.96057578167202);
-                addPoint(7.635078051137631, 51.96024289279303);
+    private List<TrackGeometry> createLevelsOfDetail() {
+        int size = measurementList.size();
+        double[] latitudes = new double[size];
+        double[] longitudes = new double[size];
+        int[] indices = new int[size];
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            Measurement measurement = measurementList.get(i);
+            double latitude = measurement.getLatitude();
+            double longitude = measurement.getLongitude();
+
+            if (latitude == 0.0 || longitude == 0.0) {
+                LOG.warn("An coordinate was 0.0");
+                continue;
             }
+            latitudes[count] = latitude;
+            longitudes[count] = longitude;
+            indices[count] = i;
+            count++;
+        }
+        long trackId = mTrack.getTrackID() != null ? mTrack.getTrackID().getId() : 0;
+        return TrackGeometry.fromPath(trackId, size, latitudes, longitudes, indices, count);
+    }
 
+    /**
+     * Initializes the track path and the bounding boxes required by the mapviews.
+     */
+    private void initPath() {
+        if (!hasNoMeasurements) {
+            // start with the coarsest level, the mapviews refine it according to their zoom
+            setLevel(levelsOfDetail.size() - 1);
         } else {
             addPoint(7.635147738274369, 51.96057578167202);
             addPoint(7.635078051137631, 51.96024289279303);
@@ -124,6 +152,63 @@ public class TrackMapLayer extends MapLayer{
         setBoundingBoxes();
     }
 
+    private void setLevel(int level) {
+        clearPath();
+        TrackGeometry geometry = levelsOfDetail.get(level);
+        for (int i = 0; i < geometry.getPointCount(); i++) {
+            addPoint(geometry.getLatitude(i), geometry.getLongitude(i));
+        }
+        currentLevel = level;
+    }
+
+    /**
+     * Selects the level of detail of the track path that fits the given zoom level.
+     *
+     * @param zoom     the current zoom level of the map.
+     * @param latitude the latitude the map is centered at.
+     * @return true if the path has changed and the sources of the map have to be updated.
+     */
+    public boolean updateLevelOfDetail(double zoom, double latitude) {
+        int level = TrackGeometry.selectLevel(levelsOfDetail, zoom, latitude);
+        if (level < 0 || level == currentLevel) {
+            return false;
+        }
+        setLevel(level);
+        LOG.info(String.format("updateLevelOfDetail(): level %s with %s points for zoom %s",
+                level, mPoints.size(), zoom));
+        return true;
+    }
+
+    /**
+     * @return the number of measurements the track path has been created from.
+     */
+    public int getMeasurementCount() {
+        return hasNoMeasurements ? measurementList.size() : levelsOfDetail.get(0).getSourceCount();
+    }
+
+    /**
+     * @return the first position of the track, or null if the track has no positions.
+     */
+    public Point getStartPoint() {
+        if (hasNoMeasurements) {
+            return null;
+        }
+        TrackGeometry geometry = levelsOfDetail.get(0);
+        return Point.fromLngLat(geometry.getLongitude(0), geometry.getLatitude(0));
+    }
+
+    /**
+     * @return the last position of the track, or null if the track has no positions.
+     */
+    public Point getEndPoint() {
+        if (hasNoMeasurements) {
+            return null;
+        }
+        TrackGeometry geometry = levelsOfDetail.get(0);
+        int last = geometry.getPointCount() - 1;
+        return Point.fromLngLat(geometry.getLongitude(last), geometry.getLatitude(last));
+    }
+
     protected void setBoundingBoxes(){
         if(mPoints.size() == 1){
             LatLng latLng = latLngs.get(0);
@@ -133,9 +218,9 @@ public class TrackMapLayer extends MapLayer{
                     latLng.getLatitude() - 0.01,
                     latLng.getLongitude() - 0.01);
         } else {
-            mTrackBoundingBox = new LatLngBounds.Builder()
-                    .includes(latLngs)
-                    .build();
+            mTrackBoundingBox = hasNoMeasurements ?
+                    new LatLngBounds.Builder().includes(latLngs).build() :
+                    getBoundingBox(levelsOfDetail.get(0));
 
             double latRatio = Math.max(mTrackBoundingBox.getLatitudeSpan() / 10.0, 0.01);
             double lngRatio = Math.max(mTrackBoundingBox.getLongitudeSpan() / 10.0, 0.01);
@@ -156,6 +241,17 @@ public class TrackMapLayer extends MapLayer{
 
     }
 
+    private static LatLngBounds getBoundingBox(TrackGeometry geometry) {
+        double north = -90, south = 90, east = -180, west = 180;
+        for (int i = 0; i < geometry.getPointCount(); i++) {
+            north = Math.max(north, geometry.getLatitude(i));
+            south = Math.min(south, geometry.getLatitude(i));
+            east = Math.max(east, geometry.getLongitude(i));
+            west = Math.min(west, geometry.getLongitude(i));
+        }
+        return LatLngBounds.from(north, east, south, west);
+    }
+
     /**
      * Gets the {@link BoundingBox} of the track.
      *
@@ -184,17 +280,28 @@ public class TrackMapLayer extends MapLayer{
         return mScrollableLimitBox;
     }
 
-    public LineLayer getGradientLineLayer(Measurement.PropertyKey propertyKey){
+    /**
+     * Creates the line layer that colors the track path according to the values of a property.
+     *
+     * @param propertyKey the key of the property.
+     * @param values      the values of the property for all measurements of the track ordered by
+     *                    time, NaN if a measurement does not have the property.
+     * @return the gradient line layer.
+     */
+    public LineLayer getGradientLineLayer(Measurement.PropertyKey propertyKey, List<Double> values){
 
         if(!hasNoMeasurements)
         {
-            float size = (float)measurementList.size(), i= 0f;
-            if(size>2)
+            // one value for every point of the current level of detail
+            TrackGeometry geometry = levelsOfDetail.get(currentLevel);
+            float size = (float) geometry.getPointCount(), i= 0f;
+            if(size>2 && geometry.getSourceCount() == values.size())
             {
                 List<Double> propertyValues = new ArrayList<>();
-                for(Measurement measurement : measurementList){
-                    if(measurement.hasProperty(propertyKey))
-                        propertyValues.add(measurement.getProperty(propertyKey));
+                for (int index = 0; index < geometry.getPointCount(); index++) {
+                    Double value = values.get(geometry.getMeasurementIndex(index));
+                    if(!value.isNaN())
+                        propertyValues.add(value);
                     else {
                         propertyValues.add((double) 0);
                         LOG.info("Measurement doesnt have " + propertyKey.toString());
@@ -54,6 +54,7 @@ import butterknife.BindView;
 import butterknife.ButterKnife;
 import io.reactivex.Scheduler;
 import io.reactivex.android.schedulers.AndroidSchedulers;
+import io.reactivex.disposables.Disposable;
 
 /**
  * TODO JavaDoc
@@ -217,7 +218,13 @@ public abstract class AbstractTrackListCardAdapter<E extends
     protected void initMapView(TrackCardViewHolder holder, Track track) {
         // First, clear the overlays in the MapView.
         LOG.info("initMapView()");
-        TrackMapLayer trackMapOverlay = new TrackMapLayer(track);
+        initMapView(holder, new TrackMapLayer(track));
+    }
+
+    /**
+     * Initializes the MapView with the given path layer.
+     */
+    protected void initMapView(TrackCardViewHolder holder, TrackMapLayer trackMapOverlay) {
         final LatLngBounds viewBbox = trackMapOverlay.getViewBoundingBox();
         holder.mMapView.addOnDidFailLoadingMapListener(holder.failLoadingMapListener);
         holder.mMapView.getMapAsync(new OnMapReadyCallback() {
@@ -318,6 +325,10 @@ public abstract class AbstractTrackListCardAdapter<E extends
 
         protected MapView.OnDidFailLoadingMapListener failLoadingMapListener;
 
+        // the track currently bound to this holder and the loading of its path
+        protected Track mBoundTrack;
+        protected Disposable mMapDisposable;
+
         /**
          * Constructor.
          *
@@ -251,10 +251,6 @@ public abstract class AbstractTrackListCardFragment<E extends RecyclerView.Adapt
      * @param track the track to delete.
      */
     protected void createDeleteTrackDialog(Track track) {
-        // Get the up to date reference of the current track.
-        // Create a dialog that deletes on click on the positive button the track.
-        final Track upToDateRef = mEnvirocarDB.getTrack(track.getTrackID()).blockingFirst();
-
         View contentView = getActivity().getLayoutInflater().inflate(
                 R.layout.fragment_tracklist_delete_track_dialog, null, false);
         ((TextView) contentView.findViewById(
@@ -268,7 +264,10 @@ public abstract class AbstractTrackListCardFragment<E extends RecyclerView.Adapt
                 .setPositiveButton(R.string.ok,
                         (materialDialog, dialogAction) ->
                                 mBackgroundWorker.schedule(() -> {
-                                    // On a positive button click, then delete the track.
+                                    // On a positive button click, get the up to date reference
+                                    // of the track, without its measurements, and delete it.
+                                    Track upToDateRef = mEnvirocarDB
+                                            .getTrack(track.getTrackID(), true).blockingFirst();
                                     if (upToDateRef.isLocalTrack())
                                         deleteLocalTrack(track);
                                     else
@@ -292,7 +291,7 @@ public abstract class AbstractTrackListCardFragment<E extends RecyclerView.Adapt
     protected void deleteRemoteTrack(Track track) {
         LOG.info("deleteRemoteTrack()");
 
-        mEnvirocarDB.getTrack(track.getTrackID())
+        mEnvirocarDB.getTrack(track.getTrackID(), true)
                 .map(upToDateRef -> {
                     if (upToDateRef.isLocalTrack()) {
                         LOG.info("Track to delete is a local track");
@@ -318,15 +317,15 @@ public abstract class AbstractTrackListCardFragment<E extends RecyclerView.Adapt
      */
     protected void deleteLocalTrack(final Track track) {
         // Get the up to date reference of the current track and delete it
-        Observable.defer(() -> mEnvirocarDB.getTrack(track.getTrackID()))
+        Observable.defer(() -> mEnvirocarDB.getTrack(track.getTrackID(), true))
                 .subscribeOn(Schedulers.io())
-                .observeOn(AndroidSchedulers.mainThread())
                 .map(upToDateRef -> {
                     // If the track is a local track, then delete and return whether it was
                     // successful.
                     return upToDateRef.isLocalTrack() &&
-                            mTrackDAOHandler.deleteLocalTrack(upToDateRef.getTrackID());
+                            mTrackDAOHandler.deleteLocalTrack(upToDateRef);
                 })
+                .observeOn(AndroidSchedulers.mainThread())
                 .subscribe(getDeleteTrackSubscriber(track));
     }
 
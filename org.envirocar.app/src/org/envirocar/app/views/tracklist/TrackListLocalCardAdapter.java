@@ -22,15 +22,21 @@ import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 
+import androidx.annotation.NonNull;
+
 import com.mapbox.mapboxsdk.maps.MapView;
 
 import org.envirocar.app.R;
+import org.envirocar.app.views.trackdetails.TrackMapLayer;
+import org.envirocar.core.EnviroCarDB;
 import org.envirocar.core.entity.Track;
 import org.envirocar.core.logging.Logger;
 
 import java.util.ArrayList;
 import java.util.List;
 
+import io.reactivex.android.schedulers.AndroidSchedulers;
+
 /**
  * @author dewall
  */
@@ -38,14 +44,19 @@ public class TrackListLocalCardAdapter extends AbstractTrackListCardAdapter<
         AbstractTrackListCardAdapter.LocalTrackCardViewHolder> {
     private static final Logger LOGGER = Logger.getLogger(TrackListLocalCardAdapter.class);
 
+    private final EnviroCarDB enviroCarDB;
+
     /**
      * Constructor.
      *
-     * @param tracks   the list of tracks to show cards for.
+     * @param tracks      the list of tracks to show cards for.
+     * @param enviroCarDB the database used to load the paths of the tracks.
      * @param callback
      */
-    public TrackListLocalCardAdapter(List<Track> tracks, OnTrackInteractionCallback callback) {
+    public TrackListLocalCardAdapter(List<Track> tracks, EnviroCarDB enviroCarDB,
+                                     OnTrackInteractionCallback callback) {
         super(tracks, callback);
+        this.enviroCarDB = enviroCarDB;
     }
 
     protected List<MapView> mapViews = new ArrayList<>();
@@ -70,6 +81,38 @@ public class TrackListLocalCardAdapter extends AbstractTrackListCardAdapter<
         bindLocalTrackViewHolder(holder, mTrackDataset.get(position));
     }
 
+    @Override
+    protected void initMapView(TrackCardViewHolder holder, Track track) {
+        disposeMapLoading(holder);
+        holder.mBoundTrack = track;
+
+        // only the stored simplified path of the track is loaded, not its measurements
+        holder.mMapDisposable = enviroCarDB.getTrackGeometry(track.getTrackID())
+                .take(1)
+                .observeOn(AndroidSchedulers.mainThread())
+                .subscribe(levelsOfDetail -> {
+                            // the holder may have been bound to another track in the meantime
+                            if (holder.mBoundTrack == track) {
+                                super.initMapView(holder, new TrackMapLayer(track, levelsOfDetail));
+                            }
+                        },
+                        e -> LOGGER.error(e.getMessage(), e));
+    }
+
+    @Override
+    public void onViewRecycled(@NonNull LocalTrackCardViewHolder holder) {
+        super.onViewRecycled(holder);
+        disposeMapLoading(holder);
+        holder.mBoundTrack = null;
+    }
+
+    private void disposeMapLoading(TrackCardViewHolder holder) {
+        if (holder.mMapDisposable != null) {
+            holder.mMapDisposable.dispose();
+            holder.mMapDisposable = null;
+        }
+    }
+
     public void onLowMemory(){
         for(MapView mapView : mapViews){
             mapView.onLowMemory();
@@ -57,6 +57,7 @@ import java.util.List;
 import javax.inject.Inject;
 
 import butterknife.OnClick;
+import io.reactivex.Observable;
 import io.reactivex.android.schedulers.AndroidSchedulers;
 import io.reactivex.disposables.Disposable;
 import io.reactivex.observers.DisposableObserver;
@@ -133,7 +134,7 @@ public class TrackListLocalCardFragment extends AbstractTrackListCardFragment<Tr
 
     @Override
     public TrackListLocalCardAdapter getRecyclerViewAdapter() {
-        return new TrackListLocalCardAdapter(mTrackList, new OnTrackInteractionCallback() {
+        return new TrackListLocalCardAdapter(mTrackList, mEnvirocarDB, new OnTrackInteractionCallback() {
 
             /**
              * Inits the view transition to a {@link TrackDetailsActivity} showing the
@@ -182,7 +183,16 @@ public class TrackListLocalCardFragment extends AbstractTrackListCardFragment<Tr
                             null));
 
                 }
-                shareTrack(track);
+                if (track.isLazyLoadingMeasurements()) {
+                    mEnvirocarDB.fetchTrack(Observable.just(track), false)
+                            .take(1)
+                            .subscribeOn(Schedulers.io())
+                            .observeOn(AndroidSchedulers.mainThread())
+                            .subscribe(loadedTrack -> shareTrack(loadedTrack),
+                                    e -> LOG.error(e.getMessage(), e));
+                } else {
+                    shareTrack(track);
+                }
             }
 
             @Override
@@ -254,7 +264,8 @@ public class TrackListLocalCardFragment extends AbstractTrackListCardFragment<Tr
                 }
             }
 
-            loadTracksSubscription = mEnvirocarDB.getAllLocalTracks()
+            // load the tracks lazily, the measurements of a card are loaded once it gets bound
+            loadTracksSubscription = mEnvirocarDB.getAllLocalTracks(true)
                     .subscribeOn(Schedulers.io())
                     .observeOn(AndroidSchedulers.mainThread())
                     .subscribeWith(new DisposableObserver<List<Track>>() {
@@ -357,9 +368,14 @@ public class TrackListLocalCardFragment extends AbstractTrackListCardFragment<Tr
             uploadTrackSubscription = null;
         }
 
-        int localTracksCount = mEnvirocarDB.getAllLocalTracksCount().blockingFirst();
-        uploadTrackSubscription = uploadAllTracks.execute(getActivity())
-                .subscribeWith(new UploadTracksDialogObserver(localTracksCount));
+        // count the local tracks off the main thread before starting the upload
+        uploadTrackSubscription = mEnvirocarDB.getAllLocalTracksCount()
+                .take(1)
+                .observeOn(AndroidSchedulers.mainThread())
+                .subscribe(localTracksCount -> uploadTrackSubscription = uploadAllTracks
+                                .execute(getActivity())
+                                .subscribeWith(new UploadTracksDialogObserver(localTracksCount)),
+                        e -> LOG.error(e.getMessage(), e));
     }
 
     /**
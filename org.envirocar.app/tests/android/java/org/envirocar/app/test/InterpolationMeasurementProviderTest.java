@@ -19,6 +19,7 @@
 package org.envirocar.app.test;
 
 import org.envirocar.algorithm.MeasurementProvider;
+import org.envirocar.algorithm.SamplingClock;
 import org.envirocar.app.handler.InterpolationMeasurementProvider;
 import org.envirocar.core.entity.Measurement;
 import org.envirocar.core.entity.MeasurementImpl;
@@ -30,9 +31,11 @@ import org.junit.Test;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import io.reactivex.observers.TestObserver;
-import io.reactivex.schedulers.Schedulers;
+import io.reactivex.schedulers.TestScheduler;
 
 public class InterpolationMeasurementProviderTest {
 
@@ -59,7 +62,9 @@ public class InterpolationMeasurementProviderTest {
 
     @Test
     public void testInterpolation() {
-        InterpolationMeasurementProvider imp = new InterpolationMeasurementProvider();
+        TestScheduler scheduler = new TestScheduler();
+        InterpolationMeasurementProvider imp = new InterpolationMeasurementProvider(scheduler,
+                () -> scheduler.now(TimeUnit.NANOSECONDS));
 
         PropertyKeyEvent m1 = new PropertyKeyEvent(Measurement.PropertyKey.MAF, 16.0, 1000);
         PropertyKeyEvent m2 = new PropertyKeyEvent(Measurement.PropertyKey.MAF, 48.0, 3500); // this should be the result
@@ -80,10 +85,8 @@ public class InterpolationMeasurementProviderTest {
 
         TestObserver<Measurement> ts = new TestObserver<Measurement>();
 
-        imp.measurements(500)
-                .subscribeOn(Schedulers.trampoline())
-                .observeOn(Schedulers.trampoline())
-                .subscribe(ts);
+        imp.measurements(500).subscribe(ts);
+        scheduler.advanceTimeBy(500, TimeUnit.MILLISECONDS);
 
         List<Measurement> events = ts.values();
         Assert.assertThat(events.size(), CoreMatchers.is(1));
@@ -97,6 +100,47 @@ public class InterpolationMeasurementProviderTest {
 
         Assert.assertThat(first.getLatitude(), CoreMatchers.is(52.5));
         Assert.assertThat(first.getLongitude(), CoreMatchers.is(7.25));
+        ts.dispose();
+    }
+
+    @Test
+    public void testSamplingGap() {
+        TestScheduler scheduler = new TestScheduler();
+        AtomicLong skipped = new AtomicLong();
+        InterpolationMeasurementProvider imp = new InterpolationMeasurementProvider(scheduler,
+                () -> scheduler.now(TimeUnit.NANOSECONDS) + skipped.get());
+
+        TestObserver<Measurement> ts = imp.measurements(500).test();
+
+        imp.consider(Measurement.PropertyKey.SPEED, 50, 100);
+        imp.newPosition(new MeasurementProvider.Position(100, 52.0, 7.0));
+        scheduler.advanceTimeBy(500, TimeUnit.MILLISECONDS);
+
+        // the device was busy for two windows
+        skipped.set(TimeUnit.MILLISECONDS.toNanos(1000));
+        imp.consider(Measurement.PropertyKey.SPEED, 60, 1900);
+        imp.newPosition(new MeasurementProvider.Position(1900, 52.1, 7.1));
+        scheduler.advanceTimeBy(500, TimeUnit.MILLISECONDS);
+
+        ts.assertValueCount(2);
+        Assert.assertFalse(ts.values().get(0).hasProperty(Measurement.PropertyKey.SAMPLING_GAP));
+        Assert.assertThat(ts.values().get(1).getProperty(Measurement.PropertyKey.SAMPLING_GAP),
+                CoreMatchers.is(1000.0));
+        ts.dispose();
+    }
+
+    @Test
+    public void testSamplingClock() {
+        TestScheduler scheduler = new TestScheduler();
+        TestObserver<SamplingClock.Tick> ts = SamplingClock.ticks(500, TimeUnit.MILLISECONDS,
+                scheduler, () -> scheduler.now(TimeUnit.NANOSECONDS)).test();
+
+        scheduler.advanceTimeBy(1499, TimeUnit.MILLISECONDS);
+        ts.assertValueCount(2);
+        Assert.assertEquals(2, ts.values().get(1).getWindow());
+        Assert.assertEquals(0, ts.values().get(1).getMissedWindows());
+
+        ts.dispose();
     }
 
 }
@@ -0,0 +1,138 @@
+/**
+ * Copyright (C) 2013 - 2021 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.app.test;
+
+import androidx.test.runner.AndroidJUnit4;
+
+import org.envirocar.core.entity.Car;
+import org.envirocar.core.entity.CarImpl;
+import org.envirocar.core.entity.Measurement;
+import org.envirocar.core.entity.MeasurementImpl;
+import org.envirocar.core.entity.Track;
+import org.envirocar.core.entity.TrackImpl;
+import org.envirocar.core.util.TrackFileReader;
+import org.envirocar.core.util.TrackFileWriter;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+@RunWith(AndroidJUnit4.class)
+public class TrackFileTest {
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        Track track = new TrackImpl();
+        track.setTrackID(new Track.TrackId(42));
+        track.setName("Test track");
+        track.setStartTime(1000L);
+        track.setEndTime(1099L);
+        track.setLength(1.5);
+        track.setTrackStatus(Track.TrackStatus.FINISHED);
+        track.setCar(new CarImpl("car", "VW", "Golf", Car.FuelType.DIESEL, 2010, 1600));
+
+        List<Measurement> measurements = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Measurement measurement = new MeasurementImpl(51.0 + i * 1e-4, 7.0 + i * 1e-4);
+            measurement.setTime(1000 + i);
+            measurement.setProperty(Measurement.PropertyKey.SPEED, (double) i);
+            if (i % 3 == 0) {
+                measurement.setProperty(Measurement.PropertyKey.RPM, i * 10.0);
+            }
+            measurements.add(measurement);
+        }
+        track.setMeasurements(measurements);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (TrackFileWriter writer = new TrackFileWriter(out)) {
+            writer.writeTrack(track);
+            writer.writeTrack(track, new ArrayList<>());
+        }
+
+        TrackFileReader reader = new TrackFileReader(ByteBuffer.wrap(out.toByteArray()));
+        Assert.assertTrue(reader.hasNext());
+        TrackFileReader.Entry entry = reader.next();
+        Assert.assertEquals(100, entry.getMeasurementCount());
+        Assert.assertEquals(1099L, entry.getTimes().get(99));
+        Assert.assertTrue(entry.isPresent(Measurement.PropertyKey.RPM, 3));
+        Assert.assertFalse(entry.isPresent(Measurement.PropertyKey.RPM, 4));
+
+        Track restored = entry.toTrack();
+        Assert.assertEquals("Test track", restored.getName());
+        Assert.assertEquals(42, restored.getTrackID().getId());
+        Assert.assertEquals("Golf", restored.getCar().getModel());
+        Measurement last = restored.getMeasurements().get(99);
+        Assert.assertEquals(51.0099, last.getLatitude(), 1e-9);
+        Assert.assertEquals(99.0, last.getProperty(Measurement.PropertyKey.SPEED), 0.0);
+        Assert.assertTrue(last.hasProperty(Measurement.PropertyKey.RPM));
+
+        Assert.assertTrue(reader.hasNext());
+        Assert.assertEquals(0, reader.next().getMeasurementCount());
+        Assert.assertFalse(reader.hasNext());
+    }
+
+    @Test
+    public void testMissingPosition() throws Exception {
+        Track track = new TrackImpl();
+        List<Measurement> measurements = new ArrayList<>();
+        Measurement measurement = new MeasurementImpl();
+        measurement.setTime(1000);
+        measurement.setProperty(Measurement.PropertyKey.SPEED, 10.0);
+        measurements.add(measurement);
+        track.setMeasurements(measurements);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (TrackFileWriter writer = new TrackFileWriter(out)) {
+            writer.writeTrack(track);
+        }
+
+        Measurement restored = new TrackFileReader(ByteBuffer.wrap(out.toByteArray()))
+                .next().toMeasurements().get(0);
+        Assert.assertNull(restored.getLatitude());
+        Assert.assertNull(restored.getLongitude());
+        Assert.assertEquals(10.0, restored.getProperty(Measurement.PropertyKey.SPEED), 0.0);
+    }
+
+    @Test(expected = IOException.class)
+    public void testTruncatedFile() throws Exception {
+        Track track = new TrackImpl();
+        List<Measurement> measurements = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Measurement measurement = new MeasurementImpl(51.0, 7.0);
+            measurement.setTime(1000 + i);
+            measurement.setProperty(Measurement.PropertyKey.SPEED, (double) i);
+            measurements.add(measurement);
+        }
+        track.setMeasurements(measurements);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (TrackFileWriter writer = new TrackFileWriter(out)) {
+            writer.writeTrack(track);
+        }
+        byte[] bytes = out.toByteArray();
+
+        TrackFileReader reader = new TrackFileReader(ByteBuffer.wrap(bytes, 0, bytes.length - 16));
+        reader.next();
+    }
+}
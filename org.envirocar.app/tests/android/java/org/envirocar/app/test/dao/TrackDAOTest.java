@@ -36,6 +36,7 @@ import org.envirocar.core.entity.TrackTable;
 import org.envirocar.core.exception.MeasurementSerializationException;
 import org.envirocar.core.exception.TrackSerializationException;
 import org.envirocar.core.utils.LocationUtils;
+import org.envirocar.storage.DatabaseExecutors;
 import org.envirocar.storage.EnviroCarDBImpl;
 import org.envirocar.storage.TrackRoomDatabase;
 import org.junit.After;
@@ -70,7 +71,7 @@ public class TrackDAOTest {
                 TrackRoomDatabase.class)
                 .allowMainThreadQueries()
                 .build();
-        this.enviroCarDB = new EnviroCarDBImpl(trackRoomDatabase);
+        this.enviroCarDB = new EnviroCarDBImpl(trackRoomDatabase, new DatabaseExecutors());
     }
 
     @After
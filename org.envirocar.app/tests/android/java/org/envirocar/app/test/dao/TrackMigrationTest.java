@@ -0,0 +1,136 @@
+/**
+ * Copyright (C) 2013 - 2021 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.app.test.dao;
+
+import android.content.Context;
+
+import androidx.room.Room;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.test.InstrumentationRegistry;
+import androidx.test.runner.AndroidJUnit4;
+
+import org.envirocar.core.entity.Measurement;
+import org.envirocar.core.entity.MeasurementTable;
+import org.envirocar.core.entity.Track;
+import org.envirocar.core.entity.TrackImpl;
+import org.envirocar.storage.DatabaseExecutors;
+import org.envirocar.storage.EnviroCarDBImpl;
+import org.envirocar.storage.TrackRoomDatabase;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.List;
+
+/**
+ * Opens a database in the schema of version 12, with the measurement properties stored as JSON,
+ * and migrates it to the current version.
+ */
+@RunWith(AndroidJUnit4.class)
+public class TrackMigrationTest {
+    private static final String DATABASE_NAME = "migration-test.db";
+
+    private Context context;
+    private TrackRoomDatabase trackRoomDatabase;
+    private Long trackId;
+
+    @Before
+    public void createVersion12() throws Exception {
+        context = InstrumentationRegistry.getTargetContext();
+        context.deleteDatabase(DATABASE_NAME);
+
+        // the tracks table did not change since version 12, the other tables are set back
+        TrackRoomDatabase current = Room.databaseBuilder(context, TrackRoomDatabase.class,
+                DATABASE_NAME)
+                .allowMainThreadQueries()
+                .build();
+        Track track = new TrackImpl();
+        track.setName("Migration");
+        track.setLength(0.0);
+        track.setStartTime(0);
+        new EnviroCarDBImpl(current, new DatabaseExecutors()).insertTrack(track);
+        trackId = track.getTrackID().getId();
+
+        SupportSQLiteDatabase db = current.getOpenHelper().getWritableDatabase();
+        db.execSQL("DROP TABLE `track_geometry`");
+        db.execSQL("DROP TABLE `track_summary`");
+        db.execSQL("DROP TABLE `measurements`");
+        db.execSQL("CREATE TABLE `measurements` (" +
+                "`_id` INTEGER NOT NULL, " +
+                "`latitude` REAL, " +
+                "`longitude` REAL, " +
+                "`properties` TEXT, " +
+                "`time` INTEGER, " +
+                "`track` INTEGER, " +
+                "PRIMARY KEY(`_id`))");
+        db.execSQL("CREATE INDEX `index_measurements_track_time` " +
+                "ON `measurements` (`track`, `time`)");
+        db.execSQL("INSERT INTO `measurements` " +
+                "(`_id`, `latitude`, `longitude`, `properties`, `time`, `track`) VALUES " +
+                "(1, 51.0, 7.0, '{\"SPEED\":42.5,\"MAF\":0.1,\"UNKNOWN\":1.0}', 1000, " + trackId + "), " +
+                "(2, 51.1, 7.1, NULL, 2000, " + trackId + ")");
+        db.setVersion(12);
+        current.close();
+
+        trackRoomDatabase = Room.databaseBuilder(context, TrackRoomDatabase.class, DATABASE_NAME)
+                .addMigrations(
+                        TrackRoomDatabase.MIGRATION_12_13,
+                        TrackRoomDatabase.MIGRATION_13_14,
+                        TrackRoomDatabase.MIGRATION_14_15)
+                .allowMainThreadQueries()
+                .build();
+    }
+
+    @After
+    public void deleteDatabase() {
+        trackRoomDatabase.close();
+        context.deleteDatabase(DATABASE_NAME);
+    }
+
+    @Test
+    public void testJsonPropertiesAfterMigration() throws Exception {
+        List<MeasurementTable> rows = trackRoomDatabase.getTrackDAONew().fetchMeasurementSilent(trackId);
+        Assert.assertEquals(2, rows.size());
+        Assert.assertNull(rows.get(0).getKeyPropertiesBinary());
+
+        Measurement first = MeasurementTable.MAPPER.apply(rows.get(0));
+        Assert.assertEquals(42.5, first.getDouble(Measurement.PropertyKey.SPEED), 0.0);
+        Assert.assertEquals(0.1, first.getDouble(Measurement.PropertyKey.MAF), 0.0);
+        Assert.assertEquals(2, first.getAllProperties().size());
+        Assert.assertTrue(MeasurementTable.MAPPER.apply(rows.get(1)).getAllProperties().isEmpty());
+
+        // written again the properties are stored in the binary column only
+        MeasurementTable rewritten = MeasurementTable.measurementToMeasurementTable(first);
+        Assert.assertNull(rewritten.getKeyProperties());
+        rewritten.setKeyTime(3000L);
+        trackRoomDatabase.getTrackDAONew().insertMeasurement(rewritten);
+
+        rows = trackRoomDatabase.getTrackDAONew().fetchMeasurementSilent(trackId);
+        Assert.assertEquals(3, rows.size());
+        MeasurementTable stored = rows.get(2);
+        Assert.assertNull(stored.getKeyProperties());
+        Assert.assertNotNull(stored.getKeyPropertiesBinary());
+
+        Measurement decoded = MeasurementTable.MAPPER.apply(stored);
+        Assert.assertEquals(first.getAllProperties(), decoded.getAllProperties());
+        Assert.assertEquals(trackId.longValue(), decoded.getTrackId().getId());
+    }
+}
@@ -0,0 +1,184 @@
+/**
+ * Copyright (C) 2013 - 2021 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.app.test.dao;
+
+import android.database.Cursor;
+
+import androidx.room.Room;
+import androidx.test.InstrumentationRegistry;
+import androidx.test.runner.AndroidJUnit4;
+
+import org.envirocar.core.EnviroCarDB;
+import org.envirocar.core.entity.Measurement;
+import org.envirocar.core.entity.MeasurementImpl;
+import org.envirocar.core.entity.MeasurementTable;
+import org.envirocar.core.entity.Track;
+import org.envirocar.core.entity.TrackImpl;
+import org.envirocar.storage.DatabaseExecutors;
+import org.envirocar.storage.EnviroCarDBImpl;
+import org.envirocar.storage.TrackRoomDatabase;
+import org.envirocar.storage.dao.LocalTrackDAONew;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Pages the measurements of a track whose timestamps contain duplicates, which is the case the
+ * (time, _id) keyset has to handle.
+ */
+@RunWith(AndroidJUnit4.class)
+public class TrackPagingDAOTest {
+
+    private static final int MEASUREMENTS = 50;
+    // three measurements share each timestamp
+    private static final int DUPLICATES = 3;
+
+    private EnviroCarDB enviroCarDB;
+    private TrackRoomDatabase trackRoomDatabase;
+    private Track track;
+
+    @Before
+    public void initTrackDb() throws Exception {
+        this.trackRoomDatabase = Room.inMemoryDatabaseBuilder(InstrumentationRegistry.getContext(),
+                TrackRoomDatabase.class)
+                .allowMainThreadQueries()
+                .build();
+        this.enviroCarDB = new EnviroCarDBImpl(trackRoomDatabase, new DatabaseExecutors());
+
+        track = new TrackImpl();
+        track.setName("Paging");
+        track.setLength(0.0);
+        track.setStartTime(0);
+        enviroCarDB.insertTrack(track);
+
+        List<Measurement> measurements = new ArrayList<>();
+        for (int i = 0; i < MEASUREMENTS; i++) {
+            Measurement m = new MeasurementImpl(51.0, 7.0 + i * 0.001);
+            m.setTrackId(track.getTrackID());
+            m.setTime(1000L * (i / DUPLICATES));
+            m.setProperty(Measurement.PropertyKey.SPEED, (double) i);
+            measurements.add(m);
+        }
+        enviroCarDB.insertMeasurements(track, measurements);
+    }
+
+    @After
+    public void closeTrackDb() throws Exception {
+        trackRoomDatabase.close();
+    }
+
+    @Test
+    public void testPagesWithDuplicateTimestamps() {
+        // page sizes that split groups of equal timestamps
+        for (int pageSize : new int[]{1, 2, 4, 7, MEASUREMENTS}) {
+            List<Measurement> measurements = enviroCarDB
+                    .getMeasurements(track.getTrackID(), pageSize)
+                    .toList()
+                    .blockingGet();
+            assertAllInOrder(measurements);
+        }
+    }
+
+    @Test
+    public void testPagesWithinRange() {
+        long startTime = 2000;
+        long endTime = 10000;
+        List<Measurement> measurements = enviroCarDB
+                .getMeasurements(track.getTrackID(), startTime, endTime)
+                .toList()
+                .blockingGet();
+
+        Assert.assertEquals((endTime - startTime) / 1000 * DUPLICATES, measurements.size());
+        for (Measurement m : measurements) {
+            Assert.assertTrue(m.getTime() >= startTime && m.getTime() < endTime);
+        }
+    }
+
+    @Test
+    public void testSampledMeasurements() {
+        for (int interval : new int[]{1, 2, 4, MEASUREMENTS, MEASUREMENTS + 1}) {
+            List<Measurement> measurements = enviroCarDB
+                    .getSampledMeasurements(track.getTrackID(), interval)
+                    .toList()
+                    .blockingGet();
+
+            Assert.assertEquals((MEASUREMENTS + interval - 1) / interval, measurements.size());
+            for (int i = 0; i < measurements.size(); i++) {
+                Assert.assertEquals(i * interval,
+                        measurements.get(i).getProperty(Measurement.PropertyKey.SPEED).intValue());
+            }
+        }
+    }
+
+    @Test
+    public void testDaoPages() {
+        LocalTrackDAONew dao = trackRoomDatabase.getTrackDAONew();
+        long trackId = track.getTrackID().getId();
+
+        List<MeasurementTable> all = new ArrayList<>();
+        List<MeasurementTable> page = dao.fetchMeasurementPage(trackId, Long.MIN_VALUE, Long.MAX_VALUE, 2);
+        while (!page.isEmpty()) {
+            all.addAll(page);
+            MeasurementTable last = page.get(page.size() - 1);
+            page = dao.fetchMeasurementPageAfter(trackId, last.getKeyTime(), last.getRowId(),
+                    Long.MAX_VALUE, 2);
+        }
+        Assert.assertEquals(MEASUREMENTS, all.size());
+
+        List<MeasurementTable> positions = new ArrayList<>();
+        page = dao.fetchPositionPage(trackId, 4);
+        while (!page.isEmpty()) {
+            positions.addAll(page);
+            MeasurementTable last = page.get(page.size() - 1);
+            page = dao.fetchPositionPageAfter(trackId, last.getKeyTime(), last.getRowId(), 4);
+        }
+        Assert.assertEquals(MEASUREMENTS, positions.size());
+        for (int i = 0; i < MEASUREMENTS; i++) {
+            Assert.assertEquals(all.get(i).getRowId(), positions.get(i).getRowId());
+        }
+    }
+
+    @Test
+    public void testPageSeeksIndex() {
+        // the lower bound on time lets SQLite search the (track, time) index instead of scanning
+        try (Cursor cursor = trackRoomDatabase.query("EXPLAIN QUERY PLAN SELECT * FROM measurements" +
+                " WHERE track = ? AND time >= ? AND (time > ? OR _id > ?) AND time < ?" +
+                " ORDER BY time ASC, _id ASC LIMIT 10", new Object[]{1, 1000, 1000, 5, 9000})) {
+            StringBuilder plan = new StringBuilder();
+            while (cursor.moveToNext()) {
+                plan.append(cursor.getString(cursor.getColumnCount() - 1)).append('\n');
+            }
+            Assert.assertTrue(plan.toString(), plan.toString().contains("time>?"));
+            Assert.assertFalse(plan.toString(), plan.toString().contains("TEMP B-TREE"));
+        }
+    }
+
+    private static void assertAllInOrder(List<Measurement> measurements) {
+        Assert.assertEquals(MEASUREMENTS, measurements.size());
+        for (int i = 0; i < MEASUREMENTS; i++) {
+            Assert.assertEquals(1000L * (i / DUPLICATES), measurements.get(i).getTime());
+            Assert.assertEquals(i, measurements.get(i).getProperty(Measurement.PropertyKey.SPEED).intValue());
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package org.envirocar.app.handler.algorithm;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class IdleTimeAlgorithmTest {
+
+    private IdleTimeAlgorithm algorithm;
+
+    @Before
+    public void setup(){
+        algorithm = new IdleTimeAlgorithm();
+    }
+
+    @Test
+    public void testSingleValue(){
+        algorithm.accept(1000, 0);
+        Assert.assertTrue(Double.isNaN(algorithm.getResult()));
+    }
+
+    @Test
+    public void test(){
+        algorithm.accept(1000, 0);
+        algorithm.accept(2000, 0);
+        algorithm.accept(2500, 10);
+        algorithm.accept(3000, 0);
+        algorithm.accept(4500, 0);
+        Assert.assertEquals(2.5, algorithm.getResult(), 0.0001);
+
+        algorithm.nextWindow();
+        algorithm.accept(5000, 0);
+        Assert.assertEquals(0.5, algorithm.getResult(), 0.0001);
+
+        algorithm.nextWindow();
+        algorithm.accept(6000, 20);
+        Assert.assertEquals(0., algorithm.getResult(), 0.0001);
+    }
+
+}
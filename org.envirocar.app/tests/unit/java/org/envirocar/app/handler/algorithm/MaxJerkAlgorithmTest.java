@@ -0,0 +1,56 @@
+package org.envirocar.app.handler.algorithm;
+
+import org.envirocar.core.entity.Measurement;
+import org.envirocar.obd.events.PropertyKeyEvent;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class MaxJerkAlgorithmTest {
+
+    private MaxJerkAlgorithm algorithm;
+
+    @Before
+    public void setup(){
+        algorithm = new MaxJerkAlgorithm();
+    }
+
+    @Test
+    public void testCalculateForLessThenThreeValues(){
+        PropertyKeyEvent m1 = new PropertyKeyEvent(Measurement.PropertyKey.SPEED, 16.0, 1000);
+        PropertyKeyEvent m2 = new PropertyKeyEvent(Measurement.PropertyKey.SPEED, 45.0, 1300);
+        List<PropertyKeyEvent> pkes = Arrays.asList(m1, m2);
+
+        Assert.assertNull(algorithm.calculate(pkes));
+    }
+
+    @Test
+    public void test(){
+        PropertyKeyEvent m1 = new PropertyKeyEvent(Measurement.PropertyKey.SPEED, 16.0, 1000);
+        PropertyKeyEvent m2 = new PropertyKeyEvent(Measurement.PropertyKey.SPEED, 45.0, 1300);
+        PropertyKeyEvent m3 = new PropertyKeyEvent(Measurement.PropertyKey.SPEED, 61.2, 1900);
+        PropertyKeyEvent m4 = new PropertyKeyEvent(Measurement.PropertyKey.SPEED, 126.0, 2300);
+        PropertyKeyEvent m5 = new PropertyKeyEvent(Measurement.PropertyKey.SPEED, null, 2900);
+
+        List<PropertyKeyEvent> pkes = Arrays.asList(m1, m2, m3, m4, m5);
+
+        Assert.assertEquals(75., algorithm.calculate(pkes).doubleValue(),0.0001);
+    }
+
+    @Test
+    public void testAcrossWindows(){
+        algorithm.accept(1000, 16.0);
+        algorithm.accept(1300, 45.0);
+        Assert.assertTrue(Double.isNaN(algorithm.getResult()));
+
+        // the samples of the previous window are kept
+        algorithm.nextWindow();
+        algorithm.accept(1900, 61.2);
+        algorithm.accept(2300, 126.0);
+        Assert.assertEquals(75., algorithm.getResult(), 0.0001);
+    }
+
+}
@@ -0,0 +1,64 @@
+/**
+ * Copyright (C) 2013 - 2021 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.app.test;
+
+import org.envirocar.core.entity.Measurement;
+import org.envirocar.core.util.EnumLookup;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+public class EnumLookupTest {
+
+    @Test
+    public void testPropertyKeys() {
+        for (Measurement.PropertyKey key : Measurement.PropertyKey.values()) {
+            Assert.assertSame(key, Measurement.PropertyKey.fromName(key.name()));
+            Assert.assertSame(key, Measurement.PropertyKey.fromPhenomenon(key.toString()));
+            // keys that are not strings
+            Assert.assertSame(key, Measurement.PropertyKey.fromName(new StringBuilder(key.name())));
+        }
+    }
+
+    @Test
+    public void testUnknownKeys() {
+        Assert.assertNull(Measurement.PropertyKey.fromName(null));
+        Assert.assertNull(Measurement.PropertyKey.fromName(""));
+        Assert.assertNull(Measurement.PropertyKey.fromName("speed"));
+        Assert.assertNull(Measurement.PropertyKey.fromName("SPEED "));
+        Assert.assertNull(Measurement.PropertyKey.fromName("NOT_A_KEY"));
+        Assert.assertNull(Measurement.PropertyKey.fromPhenomenon("SPEED"));
+        Assert.assertNull(Measurement.PropertyKey.fromPhenomenon("Not a phenomenon"));
+    }
+
+    @Test
+    public void testOtherEnum() {
+        EnumLookup<TimeUnit> lookup = EnumLookup.of(TimeUnit.values(), unit -> unit.name().toLowerCase());
+        for (TimeUnit unit : TimeUnit.values()) {
+            Assert.assertSame(unit, lookup.get(unit.name().toLowerCase()));
+            Assert.assertNull(lookup.get(unit.name()));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDuplicateKeys() {
+        EnumLookup.of(TimeUnit.values(), unit -> "unit");
+    }
+}
@@ -0,0 +1,189 @@
+/**
+ * Copyright (C) 2013 - 2021 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.app.test;
+
+import org.envirocar.algorithm.Aggregation;
+import org.envirocar.algorithm.Interpolation;
+import org.envirocar.algorithm.SampleStatistics;
+import org.envirocar.algorithm.Samples;
+import org.junit.Assert;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.util.Random;
+
+public class InterpolationTest {
+
+    private static Samples createSamples() {
+        Samples samples = new Samples(1, 4);
+        samples.add(3000, 30.0);
+        samples.add(1000, 10.0);
+        samples.add(2000, 20.0);
+        samples.add(4000, 20.0);
+        return samples;
+    }
+
+    @Test
+    public void testFloorIndex() {
+        Samples samples = createSamples();
+        samples.sort();
+        Assert.assertTrue(samples.isSorted());
+        Assert.assertEquals(-1, Interpolation.floorIndex(samples, 999));
+        Assert.assertEquals(0, Interpolation.floorIndex(samples, 1000));
+        Assert.assertEquals(1, Interpolation.floorIndex(samples, 2999));
+        Assert.assertEquals(3, Interpolation.floorIndex(samples, 5000));
+    }
+
+    @Test
+    public void testStrategies() {
+        Samples samples = createSamples();
+        Assert.assertEquals(25.0, Interpolation.LINEAR.interpolate(samples, 0, 2500), 1e-9);
+        Assert.assertEquals(20.0, Interpolation.NEAREST.interpolate(samples, 0, 2400), 1e-9);
+        Assert.assertEquals(30.0, Interpolation.NEAREST.interpolate(samples, 0, 2600), 1e-9);
+        Assert.assertEquals(20.0, Interpolation.HOLD_LAST.interpolate(samples, 0, 2999), 1e-9);
+        Assert.assertEquals(30.0, Interpolation.CUBIC.interpolate(samples, 0, 3000), 1e-9);
+
+        // targets out of range take the first or last value
+        for (Interpolation interpolation : Interpolation.values()) {
+            Assert.assertEquals(10.0, interpolation.interpolate(samples, 0, 0), 1e-9);
+            Assert.assertEquals(20.0, interpolation.interpolate(samples, 0, 9000), 1e-9);
+        }
+        Assert.assertTrue(Double.isNaN(Interpolation.LINEAR.interpolate(new Samples(1, 1), 0, 0)));
+    }
+
+    @Test
+    public void testCubicIsExactForQuadratics() {
+        Samples samples = new Samples(1, 8);
+        for (int i = 0; i < 8; i++) {
+            samples.add(i * 1000, i * i);
+        }
+        // Catmull-Rom reproduces quadratics apart from the boundary segments
+        Assert.assertEquals(12.25, Interpolation.CUBIC.interpolate(samples, 0, 3500), 1e-9);
+    }
+
+    @Test
+    public void testCursor() {
+        Samples samples = createSamples();
+        Interpolation.Cursor cursor = new Interpolation.Cursor(samples);
+        Assert.assertEquals(15.0, cursor.interpolate(Interpolation.LINEAR, 0, 1500), 1e-9);
+        Assert.assertEquals(25.0, cursor.interpolate(Interpolation.LINEAR, 0, 2500), 1e-9);
+        Assert.assertEquals(25.0, cursor.interpolate(Interpolation.LINEAR, 0, 3500), 1e-9);
+        // a step back falls back to the binary search
+        Assert.assertEquals(15.0, cursor.interpolate(Interpolation.LINEAR, 0, 1500), 1e-9);
+    }
+
+    @Test
+    public void testAggregations() {
+        Samples samples = createSamples();
+        SampleStatistics statistics = new SampleStatistics();
+
+        Assert.assertEquals(10.0, Aggregation.FIRST.aggregate(samples, 0, 2500, Interpolation.LINEAR, statistics), 1e-9);
+        Assert.assertEquals(20.0, Aggregation.LAST.aggregate(samples, 0, 2500, Interpolation.LINEAR, statistics), 1e-9);
+        Assert.assertEquals(10.0, Aggregation.MIN.aggregate(samples, 0, 2500, Interpolation.LINEAR, statistics), 1e-9);
+        Assert.assertEquals(30.0, Aggregation.MAX.aggregate(samples, 0, 2500, Interpolation.LINEAR, statistics), 1e-9);
+        Assert.assertEquals(20.0, Aggregation.MEAN.aggregate(samples, 0, 2500, Interpolation.LINEAR, statistics), 1e-9);
+        Assert.assertEquals(25.0, Aggregation.INTERPOLATED.aggregate(samples, 0, 2500, Interpolation.LINEAR, statistics), 1e-9);
+        // trapezoids of 15, 25 and 25 over one second each
+        Assert.assertEquals(65.0, Aggregation.INTEGRAL.aggregate(samples, 0, 2500, Interpolation.LINEAR, statistics), 1e-9);
+        Assert.assertEquals(65.0 / 3, Aggregation.TIME_WEIGHTED_MEAN.aggregate(samples, 0, 2500, Interpolation.LINEAR, statistics), 1e-9);
+
+        Assert.assertTrue(Double.isNaN(Aggregation.MEAN.aggregate(new Samples(1, 1), 0, 0, Interpolation.LINEAR, statistics)));
+    }
+
+    @Test
+    public void testLookupMatchesLinearScan() {
+        Samples samples = createRandomSamples(512);
+        long[] targets = createTargets(samples, 5000);
+
+        Interpolation.Cursor cursor = new Interpolation.Cursor(samples);
+        for (long target : targets) {
+            Assert.assertEquals(linearScan(samples, target), Interpolation.floorIndex(samples, target));
+            Assert.assertEquals(Interpolation.LINEAR.interpolate(samples, 0, target),
+                    cursor.interpolate(Interpolation.LINEAR, 0, target), 1e-9);
+        }
+    }
+
+    /**
+     * Compares the time of the previous linear scan with the binary search and the cursor, run
+     * manually.
+     */
+    @Ignore("benchmark")
+    @Test
+    public void benchmarkLookup() {
+        Samples samples = createRandomSamples(4096);
+        long[] targets = createTargets(samples, 200000);
+
+        long scan = 0;
+        long search = 0;
+        long cursorTime = 0;
+        for (int run = 0; run < 3; run++) {
+            long start = System.nanoTime();
+            for (long target : targets) {
+                linearScan(samples, target);
+            }
+            scan = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (long target : targets) {
+                Interpolation.floorIndex(samples, target);
+            }
+            search = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            Interpolation.Cursor cursor = new Interpolation.Cursor(samples);
+            for (long target : targets) {
+                cursor.interpolate(Interpolation.LINEAR, 0, target);
+            }
+            cursorTime = System.nanoTime() - start;
+        }
+
+        Assert.assertTrue("binary search slower than the scan", search < scan);
+        Assert.assertTrue("cursor slower than the scan", cursorTime < scan);
+    }
+
+    private static Samples createRandomSamples(int size) {
+        Samples samples = new Samples(1, size);
+        Random random = new Random(42);
+        long time = 0;
+        for (int i = 0; i < size; i++) {
+            time += 1 + random.nextInt(100);
+            samples.add(time, random.nextDouble());
+        }
+        return samples;
+    }
+
+    // evenly spread over the samples including both ends
+    private static long[] createTargets(Samples samples, int count) {
+        long first = samples.getTimestamp(0);
+        long last = samples.getTimestamp(samples.size() - 1);
+        long[] targets = new long[count];
+        for (int i = 0; i < count; i++) {
+            targets[i] = first - 1 + (long) i * (last - first + 2) / (count - 1);
+        }
+        return targets;
+    }
+
+    private static int linearScan(Samples samples, long target) {
+        int i = 0;
+        while (i + 1 < samples.size() && samples.getTimestamp(i + 1) <= target) {
+            i++;
+        }
+        return samples.getTimestamp(0) <= target ? i : -1;
+    }
+}
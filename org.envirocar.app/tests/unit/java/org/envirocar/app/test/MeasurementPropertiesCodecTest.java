@@ -0,0 +1,87 @@
+/**
+ * Copyright (C) 2013 - 2021 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.app.test;
+
+import org.envirocar.core.entity.Measurement;
+import org.envirocar.core.entity.MeasurementPropertiesCodec;
+import org.envirocar.core.entity.PrimitiveMeasurementImpl;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+public class MeasurementPropertiesCodecTest {
+
+    @Test
+    public void testRoundTrip() {
+        Measurement measurement = new PrimitiveMeasurementImpl();
+        // exactly representable as float
+        measurement.setDouble(Measurement.PropertyKey.SPEED, 42.5);
+        // needs a double
+        measurement.setDouble(Measurement.PropertyKey.MAF, 0.1);
+        measurement.setDouble(Measurement.PropertyKey.RPM, Double.MAX_VALUE);
+        // skipped
+        measurement.setDouble(Measurement.PropertyKey.CO2, Double.POSITIVE_INFINITY);
+        measurement.setDouble(Measurement.PropertyKey.CONSUMPTION, Double.NEGATIVE_INFINITY);
+
+        byte[] data = MeasurementPropertiesCodec.encode(measurement);
+        // header, one float and two doubles
+        Assert.assertEquals(17 + 4 + 8 + 8, data.length);
+        Assert.assertEquals(data.length, MeasurementPropertiesCodec.encodedSize(measurement));
+
+        Measurement decoded = new PrimitiveMeasurementImpl();
+        MeasurementPropertiesCodec.decode(data, decoded);
+        Assert.assertEquals(42.5, decoded.getDouble(Measurement.PropertyKey.SPEED), 0.0);
+        Assert.assertEquals(0.1, decoded.getDouble(Measurement.PropertyKey.MAF), 0.0);
+        Assert.assertEquals(Double.MAX_VALUE, decoded.getDouble(Measurement.PropertyKey.RPM), 0.0);
+        Assert.assertFalse(decoded.hasProperty(Measurement.PropertyKey.CO2));
+        Assert.assertFalse(decoded.hasProperty(Measurement.PropertyKey.CONSUMPTION));
+        Assert.assertEquals(3, decoded.getAllProperties().size());
+    }
+
+    @Test
+    public void testEmpty() {
+        byte[] data = MeasurementPropertiesCodec.encode(new PrimitiveMeasurementImpl());
+        Measurement decoded = new PrimitiveMeasurementImpl();
+        MeasurementPropertiesCodec.decode(data, decoded);
+        Assert.assertTrue(decoded.getAllProperties().isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownVersion() {
+        byte[] data = MeasurementPropertiesCodec.encode(new PrimitiveMeasurementImpl());
+        data[0] = MeasurementPropertiesCodec.VERSION_1 + 1;
+        MeasurementPropertiesCodec.decode(data, new PrimitiveMeasurementImpl());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTruncatedHeader() {
+        MeasurementPropertiesCodec.decode(new byte[]{MeasurementPropertiesCodec.VERSION_1},
+                new PrimitiveMeasurementImpl());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTruncatedValues() {
+        Measurement measurement = new PrimitiveMeasurementImpl();
+        measurement.setDouble(Measurement.PropertyKey.MAF, 0.1);
+        byte[] data = MeasurementPropertiesCodec.encode(measurement);
+        MeasurementPropertiesCodec.decode(Arrays.copyOf(data, data.length - 1),
+                new PrimitiveMeasurementImpl());
+    }
+}
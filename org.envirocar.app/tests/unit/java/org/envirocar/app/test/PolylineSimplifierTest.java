@@ -0,0 +1,49 @@
+/**
+ * Copyright (C) 2013 - 2021 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.app.test;
+
+import org.envirocar.core.utils.PolylineSimplifier;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PolylineSimplifierTest {
+
+    @Test
+    public void testStraightLineKeepsEndpoints() {
+        double[] latitudes = {51.0, 51.001, 51.002, 51.003, 51.004};
+        double[] longitudes = {7.0, 7.0, 7.0, 7.0, 7.0};
+
+        double[] significance = PolylineSimplifier.computeSignificance(latitudes, longitudes, 5);
+
+        Assert.assertArrayEquals(new int[]{0, 4}, PolylineSimplifier.simplify(significance, 1.0));
+    }
+
+    @Test
+    public void testSignificanceMatchesTolerance() {
+        // a detour of roughly 111 m east and a small one of roughly 7 m
+        double[] latitudes = {51.0, 51.001, 51.002, 51.003, 51.004};
+        double[] longitudes = {7.0, 7.0016, 7.0, 7.0001, 7.0};
+
+        double[] significance = PolylineSimplifier.computeSignificance(latitudes, longitudes, 5);
+
+        Assert.assertArrayEquals(new int[]{0, 1, 2, 3, 4}, PolylineSimplifier.simplify(significance, 1.0));
+        Assert.assertArrayEquals(new int[]{0, 1, 2, 4}, PolylineSimplifier.simplify(significance, 10.0));
+        Assert.assertArrayEquals(new int[]{0, 4}, PolylineSimplifier.simplify(significance, 200.0));
+    }
+}
@@ -0,0 +1,67 @@
+/**
+ * Copyright (C) 2013 - 2021 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.app.test;
+
+import org.envirocar.core.entity.Measurement;
+import org.envirocar.core.entity.PrimitiveMeasurementImpl;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Map;
+
+public class PrimitiveMeasurementImplTest {
+
+    @Test
+    public void testPrimitiveAccessors() {
+        Measurement measurement = new PrimitiveMeasurementImpl(51.0, 7.0);
+        Assert.assertFalse(measurement.hasProperty(Measurement.PropertyKey.SPEED));
+        Assert.assertTrue(Double.isNaN(measurement.getDouble(Measurement.PropertyKey.SPEED)));
+        Assert.assertNull(measurement.getProperty(Measurement.PropertyKey.SPEED));
+
+        measurement.setDouble(Measurement.PropertyKey.SPEED, 42.0);
+        measurement.setProperty(Measurement.PropertyKey.RPM, null);
+
+        Assert.assertTrue(measurement.hasProperty(Measurement.PropertyKey.SPEED));
+        Assert.assertFalse(measurement.hasProperty(Measurement.PropertyKey.RPM));
+        Assert.assertEquals(42.0, measurement.getDouble(Measurement.PropertyKey.SPEED), 0.0);
+        Assert.assertEquals(Double.valueOf(42.0), measurement.getProperty(Measurement.PropertyKey.SPEED));
+    }
+
+    @Test
+    public void testPropertiesView() {
+        PrimitiveMeasurementImpl measurement = new PrimitiveMeasurementImpl();
+        Map<Measurement.PropertyKey, Double> properties = measurement.getAllProperties();
+        Assert.assertTrue(properties.isEmpty());
+
+        measurement.setDouble(Measurement.PropertyKey.SPEED, 10.0);
+        measurement.setDouble(Measurement.PropertyKey.RPM, 2000.0);
+        Assert.assertEquals(2, properties.size());
+        Assert.assertEquals(Double.valueOf(2000.0), properties.get(Measurement.PropertyKey.RPM));
+
+        properties.remove(Measurement.PropertyKey.SPEED);
+        properties.put(Measurement.PropertyKey.MAF, 3.5);
+        Assert.assertFalse(measurement.hasProperty(Measurement.PropertyKey.SPEED));
+        Assert.assertEquals(3.5, measurement.getDouble(Measurement.PropertyKey.MAF), 0.0);
+
+        Measurement copy = measurement.carbonCopy();
+        properties.clear();
+        Assert.assertEquals(2, copy.getAllProperties().size());
+        Assert.assertEquals(2000.0, copy.getDouble(Measurement.PropertyKey.RPM), 0.0);
+    }
+}
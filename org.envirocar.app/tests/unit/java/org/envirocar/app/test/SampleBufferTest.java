@@ -0,0 +1,150 @@
+/**
+ * Copyright (C) 2013 - 2021 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.app.test;
+
+import org.envirocar.algorithm.SampleBuffer;
+import org.envirocar.algorithm.Samples;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+public class SampleBufferTest {
+
+    @Test
+    public void testDrainReturnsSamplesInOrder() {
+        SampleBuffer buffer = new SampleBuffer(2, 4);
+        buffer.add(1000, 10.0, 1.0);
+        buffer.add(2000, 20.0);
+
+        Samples samples = buffer.drain(new Samples(2, 4));
+        Assert.assertEquals(2, samples.size());
+        Assert.assertEquals(1000, samples.getTimestamp(0));
+        Assert.assertEquals(10.0, samples.getValue(0, 0), 1e-9);
+        Assert.assertEquals(1.0, samples.getValue(1, 0), 1e-9);
+        Assert.assertEquals(2000, samples.getTimestamp(1));
+        Assert.assertTrue(Double.isNaN(samples.getValue(1, 1)));
+
+        Assert.assertTrue(buffer.drain(samples).isEmpty());
+    }
+
+    @Test
+    public void testWraparoundKeepsNewestOldestFirst() {
+        SampleBuffer buffer = new SampleBuffer(1, 4);
+        // 10 samples into 4 slots, claimed % capacity = 2 is the oldest remaining one
+        for (int i = 0; i < 10; i++) {
+            buffer.add(i * 1000, i);
+        }
+
+        Samples samples = buffer.drain(new Samples(1, 4));
+        Assert.assertEquals(4, samples.size());
+        Assert.assertTrue(samples.isSorted());
+        for (int i = 0; i < 4; i++) {
+            Assert.assertEquals((6 + i) * 1000, samples.getTimestamp(i));
+            Assert.assertEquals(6 + i, samples.getValue(i), 1e-9);
+        }
+    }
+
+    @Test
+    public void testWraparoundAtExactMultipleOfCapacity() {
+        SampleBuffer buffer = new SampleBuffer(1, 4);
+        for (int i = 0; i < 8; i++) {
+            buffer.add(i * 1000, i);
+        }
+
+        Samples samples = buffer.drain(new Samples(1, 4));
+        Assert.assertEquals(4, samples.size());
+        for (int i = 0; i < 4; i++) {
+            Assert.assertEquals((4 + i) * 1000, samples.getTimestamp(i));
+        }
+    }
+
+    @Test
+    public void testSpareSegmentIsReusedWithoutStaleSamples() {
+        SampleBuffer buffer = new SampleBuffer(1, 4);
+        Samples samples = new Samples(1, 4);
+
+        // fill and wrap the first segment, it becomes the spare after the drain
+        for (int i = 0; i < 6; i++) {
+            buffer.add(i * 1000, i);
+        }
+        Assert.assertEquals(4, buffer.drain(samples).size());
+
+        // the second segment is retired empty, the first one is active again
+        Assert.assertTrue(buffer.drain(samples).isEmpty());
+
+        // the reused segment starts at its first slot and holds none of the old samples
+        buffer.add(10000, 10.0);
+        buffer.drain(samples);
+        Assert.assertEquals(1, samples.size());
+        Assert.assertEquals(10000, samples.getTimestamp(0));
+        Assert.assertEquals(10.0, samples.getValue(0), 1e-9);
+
+        for (int round = 0; round < 5; round++) {
+            buffer.add(round, round);
+            buffer.add(round + 1, round + 1);
+            buffer.drain(samples);
+            Assert.assertEquals(2, samples.size());
+            Assert.assertEquals(round, samples.getTimestamp(0));
+            Assert.assertEquals(round + 1, samples.getTimestamp(1));
+        }
+    }
+
+    @Test
+    public void testDrainWhileAdding() throws Exception {
+        final int count = 200000;
+        // large enough that nothing is overwritten, every sample has to be drained exactly once
+        SampleBuffer buffer = new SampleBuffer(2, count);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread writer = new Thread(() -> {
+            try {
+                for (int i = 0; i < count; i++) {
+                    buffer.add(i, i, -i);
+                }
+            } catch (Throwable e) {
+                failure.set(e);
+            }
+        });
+
+        Samples samples = new Samples(2, 1024);
+        long expected = 0;
+        int drains = 0;
+        writer.start();
+        while (writer.isAlive() || expected < count) {
+            buffer.drain(samples);
+            drains++;
+            for (int i = 0; i < samples.size(); i++) {
+                // a single writer adds in timestamp order, so the drains continue each other
+                Assert.assertEquals(expected, samples.getTimestamp(i));
+                Assert.assertEquals(expected, samples.getValue(0, i), 1e-9);
+                Assert.assertEquals(-expected, samples.getValue(1, i), 1e-9);
+                expected++;
+            }
+            if (!writer.isAlive() && samples.isEmpty()) {
+                break;
+            }
+        }
+        writer.join();
+
+        Assert.assertNull(failure.get());
+        Assert.assertEquals(count, expected);
+        Assert.assertTrue(buffer.drain(samples).isEmpty());
+        Assert.assertTrue(drains > 1);
+    }
+}
@@ -0,0 +1,73 @@
+/**
+ * Copyright (C) 2013 - 2021 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.app.test;
+
+import org.envirocar.core.entity.ColumnarTrack;
+import org.envirocar.core.entity.Measurement;
+import org.envirocar.core.entity.PrimitiveMeasurementImpl;
+import org.envirocar.core.entity.Track;
+import org.envirocar.core.entity.TrackImpl;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+public class TrackPropertyIndexTest {
+
+    @Test
+    public void testTrackImpl() {
+        testPropertyIndex(new TrackImpl());
+    }
+
+    @Test
+    public void testColumnarTrack() {
+        testPropertyIndex(new ColumnarTrack());
+    }
+
+    private void testPropertyIndex(Track track) {
+        for (int i = 0; i < 10; i++) {
+            Measurement measurement = new PrimitiveMeasurementImpl(51.0, 7.0);
+            measurement.setTime(i);
+            measurement.setDouble(Measurement.PropertyKey.SPEED, i);
+            if (i == 3) {
+                measurement.setDouble(Measurement.PropertyKey.RPM, 900.0);
+            }
+            track.getMeasurements().add(measurement);
+        }
+
+        Assert.assertTrue(track.hasProperty(Measurement.PropertyKey.RPM));
+        Assert.assertFalse(track.hasProperty(Measurement.PropertyKey.MAF));
+        Assert.assertEquals(Arrays.asList(Measurement.PropertyKey.SPEED, Measurement.PropertyKey.RPM),
+                track.getSupportedProperties());
+        Assert.assertEquals(10, track.getPropertyCount(Measurement.PropertyKey.SPEED));
+        Assert.assertEquals(0.0, track.getPropertyMinimum(Measurement.PropertyKey.SPEED), 0.0);
+        Assert.assertEquals(9.0, track.getPropertyMaximum(Measurement.PropertyKey.SPEED), 0.0);
+        Assert.assertTrue(Double.isNaN(track.getPropertyMinimum(Measurement.PropertyKey.MAF)));
+
+        // removed measurements are no longer part of the index
+        track.getMeasurements().remove(9);
+        track.getMeasurements().remove(3);
+        Assert.assertFalse(track.hasProperty(Measurement.PropertyKey.RPM));
+        Assert.assertEquals(8, track.getPropertyCount(Measurement.PropertyKey.SPEED));
+        Assert.assertEquals(8.0, track.getPropertyMaximum(Measurement.PropertyKey.SPEED), 0.0);
+
+        track.getMeasurements().clear();
+        Assert.assertTrue(track.getSupportedProperties().isEmpty());
+    }
+}
@@ -0,0 +1,65 @@
+/**
+ * Copyright (C) 2013 - 2021 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.app.test;
+
+import org.envirocar.core.entity.Measurement;
+import org.envirocar.core.entity.PrimitiveMeasurementImpl;
+import org.envirocar.core.entity.TrackSummary;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TrackSummaryTest {
+
+    @Test
+    public void testAverages() {
+        TrackSummary summary = new TrackSummary(1);
+        for (int i = 0; i < 4; i++) {
+            Measurement measurement = new PrimitiveMeasurementImpl(51.0, 7.0);
+            measurement.setTime(1000 * i);
+            measurement.setDouble(Measurement.PropertyKey.GPS_SPEED, 100.0);
+            if (i % 2 == 0) {
+                // the OBD speed is preferred over the GPS speed
+                measurement.setDouble(Measurement.PropertyKey.SPEED, 10.0 * i);
+                measurement.setDouble(Measurement.PropertyKey.CONSUMPTION, 2.0 + i);
+                measurement.setDouble(Measurement.PropertyKey.CO2, 4.0 + i);
+            }
+            summary.addMeasurement(measurement);
+        }
+
+        Assert.assertEquals(4, summary.getMeasurementCount());
+        Assert.assertEquals(3000, summary.getDuration());
+        Assert.assertEquals((0.0 + 100.0 + 20.0 + 100.0) / 4, summary.getAverageSpeed(), 1e-9);
+        Assert.assertEquals(3.0, summary.getAverageConsumption(), 1e-9);
+        Assert.assertEquals(5.0, summary.getAverageCO2(), 1e-9);
+    }
+
+    @Test
+    public void testAveragesWithoutValues() {
+        TrackSummary summary = new TrackSummary(1);
+        Assert.assertTrue(Double.isNaN(summary.getAverageSpeed()));
+
+        Measurement measurement = new PrimitiveMeasurementImpl(51.0, 7.0);
+        measurement.setDouble(Measurement.PropertyKey.GPS_SPEED, 50.0);
+        summary.addMeasurement(measurement);
+
+        Assert.assertEquals(50.0, summary.getAverageSpeed(), 1e-9);
+        Assert.assertTrue(Double.isNaN(summary.getAverageConsumption()));
+        Assert.assertTrue(Double.isNaN(summary.getAverageCO2()));
+    }
+}
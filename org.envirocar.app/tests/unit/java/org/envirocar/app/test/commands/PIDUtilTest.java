@@ -0,0 +1,78 @@
+/**
+ * Copyright (C) 2013 - 2021 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.app.test.commands;
+
+import org.envirocar.obd.commands.PID;
+import org.envirocar.obd.commands.PIDUtil;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+public class PIDUtilTest {
+
+    @Test
+    public void testFromStringMatchesLinearSearch() {
+        for (int value = 0; value < 256; value++) {
+            String upper = String.format(Locale.ROOT, "%02X", value);
+            String lower = upper.toLowerCase(Locale.ROOT);
+            String mixed = lower.substring(0, 1) + upper.substring(1);
+
+            PID expected = linearSearch(upper);
+            Assert.assertSame(upper, expected, PIDUtil.fromString(upper));
+            Assert.assertSame(lower, expected, PIDUtil.fromString(lower));
+            Assert.assertSame(mixed, expected, PIDUtil.fromString(mixed));
+            Assert.assertSame(upper, expected, PIDUtil.fromByte(value));
+            Assert.assertSame(upper, expected, PIDUtil.fromHex(upper.charAt(0), upper.charAt(1)));
+            Assert.assertSame(lower, expected, PIDUtil.fromHex(lower.getBytes(StandardCharsets.US_ASCII), 0));
+        }
+    }
+
+    @Test
+    public void testAllPIDs() {
+        for (PID pid : PID.values()) {
+            Assert.assertSame(pid, PIDUtil.fromString(pid.getHexadecimalRepresentation()));
+            Assert.assertSame(pid, PIDUtil.fromByte(Integer.parseInt(pid.getHexadecimalRepresentation(), 16)));
+        }
+    }
+
+    @Test
+    public void testInvalid() {
+        Assert.assertNull(PIDUtil.fromString(null));
+        Assert.assertNull(PIDUtil.fromString(""));
+        Assert.assertNull(PIDUtil.fromString("0"));
+        Assert.assertNull(PIDUtil.fromString("0D0"));
+        Assert.assertNull(PIDUtil.fromString("G1"));
+        Assert.assertNull(PIDUtil.fromString(" D"));
+        Assert.assertNull(PIDUtil.fromByte(-1));
+        Assert.assertNull(PIDUtil.fromByte(256));
+        Assert.assertNull(PIDUtil.fromHex('x', '1'));
+    }
+
+    // the lookup before the tables were introduced
+    private static PID linearSearch(String s) {
+        for (PID p : PID.values()) {
+            if (s.equalsIgnoreCase(p.getHexadecimalRepresentation())) {
+                return p;
+            }
+        }
+        return null;
+    }
+}
@@ -20,12 +20,17 @@ package org.envirocar.core;
 
 import org.envirocar.core.entity.Measurement;
 import org.envirocar.core.entity.Track;
+import org.envirocar.core.entity.TrackGeometry;
+import org.envirocar.core.entity.TrackSummary;
 import org.envirocar.core.exception.MeasurementSerializationException;
 import org.envirocar.core.exception.TrackSerializationException;
+import org.envirocar.core.util.RetentionPolicy;
+import org.envirocar.core.util.RetentionResult;
 import org.envirocar.core.util.TrackMetadata;
 
 import java.util.List;
 
+import io.reactivex.Flowable;
 import io.reactivex.Observable;
 
 
@@ -40,6 +45,54 @@ public interface EnviroCarDB {
 
     Observable<Track> getTrack(Track.TrackId trackId, boolean lazy);
 
+    /**
+     * Returns the measurements of a track ordered by time. The measurements are loaded page by
+     * page on demand, so a consumer only holds a bounded number of measurements in memory.
+     *
+     * @param trackId the id of the track.
+     * @return a flowable emitting the measurements of the track.
+     */
+    Flowable<Measurement> getMeasurements(Track.TrackId trackId);
+
+    /**
+     * Returns the measurements of a track ordered by time, loaded in pages of the given size.
+     *
+     * @param trackId  the id of the track.
+     * @param pageSize the number of measurements to load per query.
+     * @return a flowable emitting the measurements of the track.
+     */
+    Flowable<Measurement> getMeasurements(Track.TrackId trackId, int pageSize);
+
+    /**
+     * Returns the measurements of a track within a time range ordered by time. Only the
+     * measurements of the range are read, page by page.
+     *
+     * @param trackId   the id of the track.
+     * @param startTime the start of the range in milliseconds, inclusive.
+     * @param endTime   the end of the range in milliseconds, exclusive.
+     * @return a flowable emitting the measurements within the range.
+     */
+    Flowable<Measurement> getMeasurements(Track.TrackId trackId, long startTime, long endTime);
+
+    /**
+     * Returns the most recent measurements of a track ordered by time.
+     *
+     * @param trackId the id of the track.
+     * @param count   the maximum number of measurements to return.
+     * @return the last measurements of the track.
+     */
+    Observable<List<Measurement>> getLastMeasurements(Track.TrackId trackId, int count);
+
+    /**
+     * Returns every n-th measurement of a track ordered by time, starting with the first one.
+     * Only the selected measurements are read.
+     *
+     * @param trackId  the id of the track.
+     * @param interval the distance between two returned measurements, 1 returns all of them.
+     * @return a flowable emitting the selected measurements.
+     */
+    Flowable<Measurement> getSampledMeasurements(Track.TrackId trackId, int interval);
+
     /**
      * Returns an observable providing all tracks as an {@link List}.
      *
@@ -63,6 +116,48 @@ public interface EnviroCarDB {
 
     Observable<Integer> getAllLocalTracksCount();
 
+    /**
+     * Returns the stored summary (time range, number of measurements, length, bounding box and
+     * property averages) of a track without loading its measurements.
+     *
+     * @param trackId the id of the track.
+     * @return the summary of the track.
+     */
+    Observable<TrackSummary> getTrackSummary(Track.TrackId trackId);
+
+    /**
+     * Returns the stored summaries of all tracks.
+     *
+     * @return the summaries of all tracks.
+     */
+    Observable<List<TrackSummary>> getAllTrackSummaries();
+
+    /**
+     * Returns the stored summaries of all local tracks.
+     *
+     * @return the summaries of all local tracks.
+     */
+    Observable<List<TrackSummary>> getAllLocalTrackSummaries();
+
+    /**
+     * Returns the simplified path of a track in several levels of detail without loading its
+     * measurements. Missing or outdated levels are created from the measurement positions and
+     * stored for subsequent calls.
+     *
+     * @param trackId the id of the track.
+     * @return the levels of detail ordered from the finest to the coarsest level, empty if the
+     * track has no positions.
+     */
+    Observable<List<TrackGeometry>> getTrackGeometry(Track.TrackId trackId);
+
+    /**
+     * Recomputes the stored summaries of all tracks from their measurements. Required for
+     * databases whose summaries were created by a migration or have become inconsistent.
+     *
+     * @return an observable emitting the number of rebuilt summaries.
+     */
+    Observable<Integer> rebuildTrackSummaries();
+
     Observable<List<Track>> getAllRemoteTracks();
 
     Observable<List<Track>> getAllRemoteTracks(boolean lazy);
@@ -87,8 +182,40 @@ public interface EnviroCarDB {
 
     Observable<List<Track.TrackId>> deleteAllRemoteTracks();
 
+    /**
+     * Applies the given retention policy to the uploaded tracks and compacts the database file
+     * afterwards. Local tracks are never removed.
+     *
+     * @param policy the retention policy to apply.
+     * @return an observable emitting the result of the retention run.
+     */
+    Observable<RetentionResult> applyRetentionPolicy(RetentionPolicy policy);
+
     void insertMeasurement(Measurement measurement) throws MeasurementSerializationException;
 
+    /**
+     * Inserts the given measurements and updates the track they belong to within a single
+     * transaction.
+     *
+     * @param track        the track to update.
+     * @param measurements the measurements of the track to insert.
+     * @throws MeasurementSerializationException if the measurements could not be stored.
+     */
+    void insertMeasurements(Track track, List<Measurement> measurements) throws MeasurementSerializationException;
+
+    /**
+     * Opens a writer that appends the measurements of a track being recorded. The writer
+     * collects the measurements and writes them in a single transaction after the given number
+     * of measurements or the given interval, whichever comes first. The database is not locked
+     * between two batches.
+     *
+     * @param track          the track the measurements belong to, it has to be stored already.
+     * @param commitSize     the number of measurements after which the transaction is committed.
+     * @param commitInterval the maximum time in milliseconds a measurement stays uncommitted.
+     * @return the writer, it has to be closed when the recording is finished.
+     */
+    MeasurementWriter openMeasurementWriter(Track track, int commitSize, long commitInterval);
+
     void automaticDeleteMeasurements(long time, Track.TrackId trackId);
 
     Observable<Void> insertMeasurementObservable(Measurement measurement);
@@ -0,0 +1,54 @@
+/**
+ * Copyright (C) 2013 - 2021 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.core;
+
+import org.envirocar.core.entity.Measurement;
+import org.envirocar.core.exception.MeasurementSerializationException;
+
+/**
+ * Appends the measurements of a recorded track to the database. Measurements are collected and
+ * written periodically in short transactions, a writer has to be closed when the recording is
+ * finished.
+ */
+public interface MeasurementWriter {
+
+    /**
+     * Hands a measurement over to the writer. The call does not wait for the measurement to be
+     * stored, it only blocks if the writer falls behind.
+     *
+     * @param measurement the measurement to write.
+     * @throws MeasurementSerializationException if a previous write has failed.
+     */
+    void write(Measurement measurement) throws MeasurementSerializationException;
+
+    /**
+     * Commits all measurements handed over so far and waits for the commit.
+     *
+     * @throws MeasurementSerializationException if the measurements could not be stored.
+     */
+    void flush() throws MeasurementSerializationException;
+
+    /**
+     * Commits all pending measurements and releases the writer. Returns only once nothing is
+     * written anymore, so the track may be updated or deleted afterwards even if this fails.
+     *
+     * @throws MeasurementSerializationException if the measurements could not be stored.
+     */
+    void close() throws MeasurementSerializationException;
+}
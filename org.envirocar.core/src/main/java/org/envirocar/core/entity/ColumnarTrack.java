@@ -0,0 +1,678 @@
+/**
+ * Copyright (C) 2013 - 2021 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.core.entity;
+
+import org.envirocar.core.exception.FuelConsumptionException;
+import org.envirocar.core.exception.NoMeasurementsException;
+import org.envirocar.core.trackprocessing.statistics.TrackStatisticsProcessor;
+
+import java.nio.DoubleBuffer;
+import java.nio.LongBuffer;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link Track} that stores its measurements column by column: the times in a long array, the
+ * coordinates and every property in double arrays. A property column and its validity bitmap are
+ * only allocated once a measurement with the property is added, absent values are stored as NaN.
+ * <p>
+ * {@link #getMeasurements()} returns a list of row views for existing callers. The views read and
+ * write the columns, their track id is the id of the track. Statistics, charts and serializers
+ * should use the bulk accessors, they neither box nor allocate per measurement.
+ */
+public class ColumnarTrack extends TrackImpl {
+    private static final Measurement.PropertyKey[] KEYS = Measurement.PropertyKey.values();
+    private static final int INITIAL_CAPACITY = 64;
+
+    private int size;
+    private long[] times = new long[0];
+    private double[] latitudes = new double[0];
+    private double[] longitudes = new double[0];
+    private final double[][] columns = new double[KEYS.length][];
+    private final long[][] validity = new long[KEYS.length][];
+    private final int[] presentCounts = new int[KEYS.length];
+    private final List<Measurement> rows = new Rows();
+
+    /**
+     * Default constructor with downloaded state.
+     */
+    public ColumnarTrack() {
+        super();
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param downloadState the download state of the track.
+     */
+    public ColumnarTrack(DownloadState downloadState) {
+        super(downloadState);
+    }
+
+    /**
+     * Creates a columnar copy of the given track including its measurements.
+     *
+     * @param track the track to copy.
+     * @return the columnar track.
+     */
+    public static ColumnarTrack of(Track track) {
+        ColumnarTrack result = new ColumnarTrack(track.getDownloadState());
+        result.setTrackID(track.getTrackID());
+        result.setRemoteID(track.getRemoteID());
+        result.setName(track.getName());
+        result.setDescription(track.getDescription());
+        result.setCar(track.getCar());
+        result.setStartTime(track.getStartTime());
+        result.setEndTime(track.getEndTime());
+        result.setMetadata(track.getMetadata());
+        result.setTrackStatus(track.getTrackStatus());
+        result.setLazyMeasurements(track.isLazyLoadingMeasurements());
+        result.setLength(track.getLength());
+        if (track.getLastModified() != null) {
+            result.setLastModified(track.getLastModified());
+        }
+        result.setMeasurements(track.getMeasurements());
+        return result;
+    }
+
+    /**
+     * @return the number of measurements.
+     */
+    public int getMeasurementCount() {
+        return size;
+    }
+
+    /**
+     * Ensures that the given number of measurements fits without growing the columns.
+     *
+     * @param capacity the number of measurements.
+     */
+    public void ensureCapacity(int capacity) {
+        if (capacity <= times.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, Math.max(INITIAL_CAPACITY, times.length + (times.length >> 1)));
+        times = Arrays.copyOf(times, newCapacity);
+        latitudes = Arrays.copyOf(latitudes, newCapacity);
+        longitudes = Arrays.copyOf(longitudes, newCapacity);
+        for (int i = 0; i < KEYS.length; i++) {
+            if (columns[i] != null) {
+                columns[i] = growColumn(columns[i], newCapacity);
+                validity[i] = Arrays.copyOf(validity[i], words(newCapacity));
+            }
+        }
+    }
+
+    /**
+     * Appends a measurement without properties.
+     *
+     * @param time      the time of the measurement.
+     * @param latitude  the latitude or NaN if unknown.
+     * @param longitude the longitude or NaN if unknown.
+     * @return the row index of the measurement.
+     */
+    public int append(long time, double latitude, double longitude) {
+        ensureCapacity(size + 1);
+        int row = size++;
+        times[row] = time;
+        latitudes[row] = latitude;
+        longitudes[row] = longitude;
+        return row;
+    }
+
+    /**
+     * Appends a copy of the given measurement.
+     *
+     * @param measurement the measurement to append.
+     * @return the row index of the measurement.
+     */
+    public int append(Measurement measurement) {
+        int row = append(measurement.getTime(), toPrimitive(measurement.getLatitude()),
+                toPrimitive(measurement.getLongitude()));
+        copyProperties(measurement, row);
+        return row;
+    }
+
+    public long getTime(int row) {
+        checkRow(row);
+        return times[row];
+    }
+
+    public double getLatitude(int row) {
+        checkRow(row);
+        return latitudes[row];
+    }
+
+    public double getLongitude(int row) {
+        checkRow(row);
+        return longitudes[row];
+    }
+
+    /**
+     * @return true if the measurement of the given row has the property.
+     */
+    public boolean isPresent(int row, Measurement.PropertyKey key) {
+        checkRow(row);
+        long[] bits = validity[key.ordinal()];
+        return bits != null && (bits[row >>> 6] & (1L << row)) != 0;
+    }
+
+    /**
+     * @return the value of the property in the given row or NaN if it is not present.
+     */
+    public double getDouble(int row, Measurement.PropertyKey key) {
+        checkRow(row);
+        double[] column = columns[key.ordinal()];
+        return column != null ? column[row] : Double.NaN;
+    }
+
+    /**
+     * Sets the value of a property in the given row.
+     */
+    public void setDouble(int row, Measurement.PropertyKey key, double value) {
+        checkRow(row);
+        int ordinal = key.ordinal();
+        if (columns[ordinal] == null) {
+            columns[ordinal] = growColumn(new double[0], times.length);
+            validity[ordinal] = new long[words(times.length)];
+        }
+        columns[ordinal][row] = value;
+        long[] bits = validity[ordinal];
+        if ((bits[row >>> 6] & (1L << row)) == 0) {
+            bits[row >>> 6] |= 1L << row;
+            presentCounts[ordinal]++;
+            propertyIndex.add(key, value);
+        } else {
+            // the replaced value may have been the minimum or maximum
+            propertyIndex.invalidate();
+        }
+    }
+
+    /**
+     * Removes a property from the given row.
+     */
+    public void removeProperty(int row, Measurement.PropertyKey key) {
+        checkRow(row);
+        int ordinal = key.ordinal();
+        long[] bits = validity[ordinal];
+        if (bits != null && (bits[row >>> 6] & (1L << row)) != 0) {
+            bits[row >>> 6] &= ~(1L << row);
+            columns[ordinal][row] = Double.NaN;
+            presentCounts[ordinal]--;
+            propertyIndex.invalidate();
+        }
+    }
+
+    /**
+     * @return the number of measurements that have the given property.
+     */
+    public int getPresentCount(Measurement.PropertyKey key) {
+        return presentCounts[key.ordinal()];
+    }
+
+    /**
+     * @return a read-only view on the times of all measurements.
+     */
+    public LongBuffer getTimes() {
+        return LongBuffer.wrap(times, 0, size).slice().asReadOnlyBuffer();
+    }
+
+    /**
+     * @return a read-only view on the latitudes of all measurements, NaN if unknown.
+     */
+    public DoubleBuffer getLatitudes() {
+        return DoubleBuffer.wrap(latitudes, 0, size).slice().asReadOnlyBuffer();
+    }
+
+    /**
+     * @return a read-only view on the longitudes of all measurements, NaN if unknown.
+     */
+    public DoubleBuffer getLongitudes() {
+        return DoubleBuffer.wrap(longitudes, 0, size).slice().asReadOnlyBuffer();
+    }
+
+    /**
+     * Returns a read-only view on the values of a property, absent values are NaN, see
+     * {@link #isPresent}.
+     *
+     * @param key the key of the property.
+     * @return the values or null if no measurement has the property.
+     */
+    public DoubleBuffer getValues(Measurement.PropertyKey key) {
+        double[] column = columns[key.ordinal()];
+        return column != null ? DoubleBuffer.wrap(column, 0, size).slice().asReadOnlyBuffer() : null;
+    }
+
+    @Override
+    public Measurement getFirstMeasurement() throws NoMeasurementsException {
+        if (size == 0) {
+            throw new NoMeasurementsException("Track with no measurements!");
+        }
+        return rows.get(0);
+    }
+
+    @Override
+    public Measurement getLastMeasurement() throws NoMeasurementsException {
+        if (size == 0) {
+            throw new NoMeasurementsException("Track with no measurements!");
+        }
+        return rows.get(size - 1);
+    }
+
+    @Override
+    public List<Measurement> getMeasurements() {
+        return rows;
+    }
+
+    @Override
+    public void setMeasurements(List<Measurement> measurements) {
+        if (measurements == rows) {
+            return;
+        }
+        List<Measurement> source = measurements;
+        if (measurements != null) {
+            // rows of this track are views on the columns that are cleared below
+            source = new ArrayList<>(measurements.size());
+            for (Measurement measurement : measurements) {
+                source.add(detach(measurement));
+            }
+        }
+        clearMeasurements();
+        if (source != null) {
+            ensureCapacity(source.size());
+            for (Measurement measurement : source) {
+                append(measurement);
+            }
+        }
+    }
+
+    @Override
+    public double getDistanceOfTrack() {
+        TrackStatisticsProcessor processor = getStatisticsProcessor();
+        if ((distanceOfTrack == null || distanceOfTrack == 0.0) && processor != null) {
+            distanceOfTrack = processor.computeDistanceOfTrack(getLatitudes(), getLongitudes());
+        }
+        return distanceOfTrack;
+    }
+
+    @Override
+    public double getCO2Average() throws FuelConsumptionException {
+        if (co2Average == null) {
+            co2Average = getStatisticsProcessor().getCO2Average(
+                    getValues(Measurement.PropertyKey.CONSUMPTION), size);
+        }
+        return co2Average;
+    }
+
+    @Override
+    public boolean hasProperty(Measurement.PropertyKey propertyKey) {
+        return presentCounts[propertyKey.ordinal()] > 0;
+    }
+
+    @Override
+    public int getPropertyCount(Measurement.PropertyKey propertyKey) {
+        return presentCounts[propertyKey.ordinal()];
+    }
+
+    @Override
+    protected TrackPropertyIndex getPropertyIndex() {
+        if (!propertyIndex.isValid()) {
+            propertyIndex.clear();
+            for (int i = 0; i < KEYS.length; i++) {
+                double[] column = columns[i];
+                if (column == null) {
+                    continue;
+                }
+                long[] bits = validity[i];
+                for (int row = 0; row < size; row++) {
+                    if ((bits[row >>> 6] & (1L << row)) != 0) {
+                        propertyIndex.add(KEYS[i], column[row]);
+                    }
+                }
+            }
+        }
+        return propertyIndex;
+    }
+
+    @Override
+    public Track carbonCopy() {
+        return of(this);
+    }
+
+    private void clearMeasurements() {
+        size = 0;
+        Arrays.fill(columns, null);
+        Arrays.fill(validity, null);
+        Arrays.fill(presentCounts, 0);
+        propertyIndex.clear();
+    }
+
+    private void copyProperties(Measurement measurement, int row) {
+        for (Measurement.PropertyKey key : KEYS) {
+            if (measurement.hasProperty(key)) {
+                setDouble(row, key, measurement.getDouble(key));
+            }
+        }
+    }
+
+    private void insertRow(int row) {
+        ensureCapacity(size + 1);
+        int moved = size - row;
+        System.arraycopy(times, row, times, row + 1, moved);
+        System.arraycopy(latitudes, row, latitudes, row + 1, moved);
+        System.arraycopy(longitudes, row, longitudes, row + 1, moved);
+        size++;
+        for (int i = 0; i < KEYS.length; i++) {
+            if (columns[i] != null) {
+                System.arraycopy(columns[i], row, columns[i], row + 1, moved);
+                columns[i][row] = Double.NaN;
+                shiftBits(validity[i], row, size, true);
+            }
+        }
+    }
+
+    private void removeRow(int row) {
+        for (int i = 0; i < KEYS.length; i++) {
+            if (columns[i] != null) {
+                removeProperty(row, KEYS[i]);
+            }
+        }
+        int moved = size - row - 1;
+        System.arraycopy(times, row + 1, times, row, moved);
+        System.arraycopy(latitudes, row + 1, latitudes, row, moved);
+        System.arraycopy(longitudes, row + 1, longitudes, row, moved);
+        for (int i = 0; i < KEYS.length; i++) {
+            if (columns[i] != null) {
+                System.arraycopy(columns[i], row + 1, columns[i], row, moved);
+                columns[i][size - 1] = Double.NaN;
+                shiftBits(validity[i], row, size, false);
+            }
+        }
+        size--;
+    }
+
+    /**
+     * Moves the bits in [from, to) one position up (insert) or down (remove). The bit at the
+     * insert position is cleared.
+     */
+    private static void shiftBits(long[] bits, int from, int to, boolean up) {
+        if (up) {
+            for (int i = to - 1; i > from; i--) {
+                setBit(bits, i, getBit(bits, i - 1));
+            }
+            setBit(bits, from, false);
+        } else {
+            for (int i = from; i < to - 1; i++) {
+                setBit(bits, i, getBit(bits, i + 1));
+            }
+            setBit(bits, to - 1, false);
+        }
+    }
+
+    private static boolean getBit(long[] bits, int index) {
+        return (bits[index >>> 6] & (1L << index)) != 0;
+    }
+
+    private static void setBit(long[] bits, int index, boolean value) {
+        if (value) {
+            bits[index >>> 6] |= 1L << index;
+        } else {
+            bits[index >>> 6] &= ~(1L << index);
+        }
+    }
+
+    private static double[] growColumn(double[] column, int capacity) {
+        int oldLength = column.length;
+        double[] result = Arrays.copyOf(column, capacity);
+        Arrays.fill(result, oldLength, capacity, Double.NaN);
+        return result;
+    }
+
+    private static int words(int capacity) {
+        return (capacity + 63) >>> 6;
+    }
+
+    private static double toPrimitive(Double value) {
+        return value != null ? value : Double.NaN;
+    }
+
+    /**
+     * Copies a row of this track, the row would change while it is being copied into the columns.
+     */
+    private Measurement detach(Measurement measurement) {
+        if (measurement instanceof Row && ((Row) measurement).getTrack() == this) {
+            return measurement.carbonCopy();
+        }
+        return measurement;
+    }
+
+    private void checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " of " + size);
+        }
+    }
+
+    /**
+     * List of row views, adding or removing rows changes the columns.
+     */
+    private final class Rows extends AbstractList<Measurement> {
+
+        @Override
+        public Measurement get(int index) {
+            checkRow(index);
+            return new Row(index);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public Measurement set(int index, Measurement element) {
+            element = detach(element);
+            Measurement previous = get(index).carbonCopy();
+            times[index] = element.getTime();
+            latitudes[index] = toPrimitive(element.getLatitude());
+            longitudes[index] = toPrimitive(element.getLongitude());
+            for (Measurement.PropertyKey key : KEYS) {
+                removeProperty(index, key);
+            }
+            copyProperties(element, index);
+            return previous;
+        }
+
+        @Override
+        public void add(int index, Measurement element) {
+            if (index < 0 || index > size) {
+                throw new IndexOutOfBoundsException("Row " + index + " of " + size);
+            }
+            element = detach(element);
+            if (index == size) {
+                append(element);
+            } else {
+                insertRow(index);
+                times[index] = element.getTime();
+                latitudes[index] = toPrimitive(element.getLatitude());
+                longitudes[index] = toPrimitive(element.getLongitude());
+                copyProperties(element, index);
+            }
+            modCount++;
+        }
+
+        @Override
+        public Measurement remove(int index) {
+            Measurement previous = get(index).carbonCopy();
+            removeRow(index);
+            modCount++;
+            return previous;
+        }
+
+        @Override
+        public void clear() {
+            clearMeasurements();
+            modCount++;
+        }
+    }
+
+    /**
+     * View on a single row of the columns.
+     */
+    private final class Row implements Measurement {
+        private final int row;
+
+        private Row(int row) {
+            this.row = row;
+        }
+
+        private ColumnarTrack getTrack() {
+            return ColumnarTrack.this;
+        }
+
+        @Override
+        public Track.TrackId getTrackId() {
+            return getTrackID();
+        }
+
+        @Override
+        public void setTrackId(Track.TrackId trackId) {
+            // the rows always belong to this track
+        }
+
+        @Override
+        public Double getLatitude() {
+            double value = ColumnarTrack.this.getLatitude(row);
+            return Double.isNaN(value) ? null : value;
+        }
+
+        @Override
+        public void setLatitude(double latitude) {
+            checkRow(row);
+            latitudes[row] = latitude;
+        }
+
+        @Override
+        public Double getLongitude() {
+            double value = ColumnarTrack.this.getLongitude(row);
+            return Double.isNaN(value) ? null : value;
+        }
+
+        @Override
+        public void setLongitude(double longitude) {
+            checkRow(row);
+            longitudes[row] = longitude;
+        }
+
+        @Override
+        public long getTime() {
+            return ColumnarTrack.this.getTime(row);
+        }
+
+        @Override
+        public void setTime(long time) {
+            checkRow(row);
+            times[row] = time;
+        }
+
+        @Override
+        public Double getProperty(PropertyKey key) {
+            return isPresent(row, key) ? ColumnarTrack.this.getDouble(row, key) : null;
+        }
+
+        @Override
+        public void setProperty(PropertyKey key, Double value) {
+            if (value != null) {
+                ColumnarTrack.this.setDouble(row, key, value);
+            }
+        }
+
+        @Override
+        public boolean hasProperty(PropertyKey key) {
+            return isPresent(row, key);
+        }
+
+        @Override
+        public double getDouble(PropertyKey key) {
+            return ColumnarTrack.this.getDouble(row, key);
+        }
+
+        @Override
+        public void setDouble(PropertyKey key, double value) {
+            ColumnarTrack.this.setDouble(row, key, value);
+        }
+
+        /**
+         * @return an unmodifiable snapshot of the properties of the row.
+         */
+        @Override
+        public Map<PropertyKey, Double> getAllProperties() {
+            Map<PropertyKey, Double> result = new EnumMap<>(PropertyKey.class);
+            for (PropertyKey key : KEYS) {
+                if (isPresent(row, key)) {
+                    result.put(key, ColumnarTrack.this.getDouble(row, key));
+                }
+            }
+            return Collections.unmodifiableMap(result);
+        }
+
+        @Override
+        public void setAllProperties(Map<PropertyKey, Double> properties) {
+            for (PropertyKey key : KEYS) {
+                removeProperty(row, key);
+            }
+            for (Map.Entry<PropertyKey, Double> entry : properties.entrySet()) {
+                setProperty(entry.getKey(), entry.getValue());
+            }
+        }
+
+        @Override
+        public Measurement carbonCopy() {
+            PrimitiveMeasurementImpl result = new PrimitiveMeasurementImpl();
+            result.setTime(getTime());
+            if (!Double.isNaN(latitudes[row])) {
+                result.setLatitude(latitudes[row]);
+            }
+            if (!Double.isNaN(longitudes[row])) {
+                result.setLongitude(longitudes[row]);
+            }
+            result.setTrackId(getTrackID());
+            for (PropertyKey key : KEYS) {
+                if (isPresent(row, key)) {
+                    result.setDouble(key, ColumnarTrack.this.getDouble(row, key));
+                }
+            }
+            return result;
+        }
+
+        @Override
+        public void reset() {
+            checkRow(row);
+            latitudes[row] = Double.NaN;
+            longitudes[row] = Double.NaN;
+            for (PropertyKey key : KEYS) {
+                removeProperty(row, key);
+            }
+        }
+    }
+}
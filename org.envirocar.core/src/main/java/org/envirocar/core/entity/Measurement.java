@@ -19,6 +19,7 @@
 package org.envirocar.core.entity;
 
 import org.envirocar.core.R;
+import org.envirocar.core.util.EnumLookup;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -379,8 +380,77 @@ public interface Measurement extends BaseEntity<Measurement> {
             public String toString() {
                 return "Maximum GPS Acceleration";
             }
+        },
+        MAX_JERK {
+            @Override
+            public int getStringResource() {
+                return R.string.property_key_max_jerk;
+            }
+
+            @Override
+            public String toString() {
+                return "Maximum Jerk";
+            }
+        },
+        MAX_GPS_JERK {
+            @Override
+            public int getStringResource() {
+                return R.string.property_key_max_gps_jerk;
+            }
+
+            @Override
+            public String toString() {
+                return "Maximum GPS Jerk";
+            }
+        },
+        IDLE_TIME {
+            @Override
+            public int getStringResource() {
+                return R.string.property_key_idle_time;
+            }
+
+            @Override
+            public String toString() {
+                return "Idle Time";
+            }
+        },
+        SAMPLING_GAP {
+            @Override
+            public int getStringResource() {
+                return R.string.property_key_sampling_gap;
+            }
+
+            @Override
+            public String toString() {
+                return "Sampling Gap";
+            }
         };
 
+        private static final EnumLookup<PropertyKey> BY_NAME =
+                EnumLookup.of(values(), PropertyKey::name);
+        private static final EnumLookup<PropertyKey> BY_PHENOMENON =
+                EnumLookup.of(values(), PropertyKey::toString);
+
+        /**
+         * Returns the key with the given name as stored in the database, without throwing
+         * like {@link #valueOf(String)}.
+         *
+         * @param name the name of the key.
+         * @return the key or null if there is no key with this name.
+         */
+        public static PropertyKey fromName(CharSequence name) {
+            return BY_NAME.get(name);
+        }
+
+        /**
+         * Returns the key of a phenomenon as named by the server, e.g. "Speed".
+         *
+         * @param phenomenon the name of the phenomenon.
+         * @return the key or null if the phenomenon is unknown.
+         */
+        public static PropertyKey fromPhenomenon(CharSequence phenomenon) {
+            return BY_PHENOMENON.get(phenomenon);
+        }
 
         @Override
         public int getUnitResource() {
@@ -388,6 +458,10 @@ public interface Measurement extends BaseEntity<Measurement> {
         }
     }
 
+    /**
+     * @deprecated use {@link PropertyKey#fromPhenomenon(CharSequence)}.
+     */
+    @Deprecated
     Map<String, PropertyKey> PropertyKeyValues = new HashMap<String,
             PropertyKey>() {
         {
@@ -419,6 +493,27 @@ public interface Measurement extends BaseEntity<Measurement> {
 
     boolean hasProperty(PropertyKey key);
 
+    /**
+     * Returns the value of a property without boxing it, if the implementation supports it.
+     *
+     * @param key the key of the property.
+     * @return the value of the property or {@link Double#NaN} if it is not present.
+     */
+    default double getDouble(PropertyKey key) {
+        Double value = getProperty(key);
+        return value != null ? value : Double.NaN;
+    }
+
+    /**
+     * Sets the value of a property without boxing it, if the implementation supports it.
+     *
+     * @param key   the key of the property.
+     * @param value the value of the property.
+     */
+    default void setDouble(PropertyKey key, double value) {
+        setProperty(key, value);
+    }
+
     Map<PropertyKey, Double> getAllProperties();
 
     void setAllProperties(Map<PropertyKey, Double> properties);
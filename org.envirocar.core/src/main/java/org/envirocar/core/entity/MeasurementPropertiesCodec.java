@@ -0,0 +1,185 @@
+/**
+ * Copyright (C) 2013 - 2021 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.core.entity;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Compact binary encoding of the property map of a {@link Measurement}.
+ * <p>
+ * Layout (little endian):
+ * <pre>
+ *   byte    version
+ *   long    presence mask, bit i set if PropertyKey with ordinal i is present
+ *   long    float mask, bit i set if the value of ordinal i is stored as float
+ *   ...     values in ordinal order, 4 bytes for float entries, 8 bytes otherwise
+ * </pre>
+ * Values are keyed by {@link Measurement.PropertyKey#ordinal()}, therefore new property keys
+ * must only be appended to the end of the enum.
+ */
+public final class MeasurementPropertiesCodec {
+
+    public static final byte VERSION_1 = 1;
+
+    private static final int HEADER_SIZE = 1 + 8 + 8;
+    private static final Measurement.PropertyKey[] KEYS = Measurement.PropertyKey.values();
+
+    /**
+     * Upper bound of the size of encoded properties.
+     */
+    public static final int MAX_ENCODED_SIZE = HEADER_SIZE + 8 * KEYS.length;
+
+    static {
+        if (KEYS.length > Long.SIZE) {
+            throw new IllegalStateException("Too many property keys for the presence mask");
+        }
+    }
+
+    private MeasurementPropertiesCodec() {
+        // private constructor
+    }
+
+    /**
+     * Encodes the properties of the given measurement. Non-finite values are skipped, in the
+     * same way the JSON serialization did.
+     *
+     * @param measurement the measurement to encode.
+     * @return the encoded properties.
+     */
+    public static byte[] encode(Measurement measurement) {
+        byte[] data = new byte[encodedSize(measurement)];
+        encode(measurement, data);
+        return data;
+    }
+
+    /**
+     * Returns the number of bytes required to encode the properties of the given measurement.
+     *
+     * @param measurement the measurement to encode.
+     * @return the size of the encoded properties.
+     */
+    public static int encodedSize(Measurement measurement) {
+        int size = HEADER_SIZE;
+        for (Measurement.PropertyKey key : KEYS) {
+            if (measurement.hasProperty(key)) {
+                double value = measurement.getDouble(key);
+                if (isEncodable(value)) {
+                    size += isFloat(value) ? 4 : 8;
+                }
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Encodes the properties of the given measurement into an existing array without allocating,
+     * used by writers that reuse their buffers.
+     *
+     * @param measurement the measurement to encode.
+     * @param target      the array to encode into, at least {@link #encodedSize} bytes long.
+     * @return the number of bytes written.
+     */
+    public static int encode(Measurement measurement, byte[] target) {
+        long presence = 0L;
+        long floats = 0L;
+        int offset = HEADER_SIZE;
+        for (Measurement.PropertyKey key : KEYS) {
+            if (!measurement.hasProperty(key)) {
+                continue;
+            }
+            double value = measurement.getDouble(key);
+            if (!isEncodable(value)) {
+                continue;
+            }
+
+            long bit = 1L << key.ordinal();
+            presence |= bit;
+            if (isFloat(value)) {
+                floats |= bit;
+                putInt(target, offset, Float.floatToRawIntBits((float) value));
+                offset += 4;
+            } else {
+                putLong(target, offset, Double.doubleToRawLongBits(value));
+                offset += 8;
+            }
+        }
+
+        target[0] = VERSION_1;
+        putLong(target, 1, presence);
+        putLong(target, 9, floats);
+        return offset;
+    }
+
+    private static boolean isEncodable(double value) {
+        return !Double.isNaN(value) && !Double.isInfinite(value);
+    }
+
+    private static boolean isFloat(double value) {
+        return (double) (float) value == value;
+    }
+
+    private static void putInt(byte[] target, int offset, int value) {
+        target[offset] = (byte) value;
+        target[offset + 1] = (byte) (value >>> 8);
+        target[offset + 2] = (byte) (value >>> 16);
+        target[offset + 3] = (byte) (value >>> 24);
+    }
+
+    private static void putLong(byte[] target, int offset, long value) {
+        putInt(target, offset, (int) value);
+        putInt(target, offset + 4, (int) (value >>> 32));
+    }
+
+    /**
+     * Decodes the given encoded properties into the measurement.
+     *
+     * @param data        the encoded properties.
+     * @param measurement the measurement to set the properties on.
+     * @throws IllegalArgumentException if the data has an unknown version or is malformed.
+     */
+    public static void decode(byte[] data, Measurement measurement) {
+        if (data.length < HEADER_SIZE) {
+            throw new IllegalArgumentException("Encoded properties too short: " + data.length);
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+        byte version = buffer.get();
+        if (version != VERSION_1) {
+            throw new IllegalArgumentException("Unsupported properties version: " + version);
+        }
+
+        long presence = buffer.getLong();
+        long floats = buffer.getLong();
+        while (presence != 0) {
+            int ordinal = Long.numberOfTrailingZeros(presence);
+            presence &= presence - 1;
+            if (ordinal >= KEYS.length) {
+                throw new IllegalArgumentException("Unknown property ordinal: " + ordinal);
+            }
+
+            boolean isFloat = (floats & (1L << ordinal)) != 0;
+            if (buffer.remaining() < (isFloat ? 4 : 8)) {
+                throw new IllegalArgumentException("Encoded properties truncated: " + data.length);
+            }
+            double value = isFloat ? buffer.getFloat() : buffer.getDouble();
+            measurement.setDouble(KEYS[ordinal], value);
+        }
+    }
+}
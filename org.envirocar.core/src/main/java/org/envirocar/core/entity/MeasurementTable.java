@@ -23,6 +23,7 @@ import android.database.Cursor;
 import androidx.annotation.NonNull;
 import androidx.room.ColumnInfo;
 import androidx.room.Entity;
+import androidx.room.Index;
 import androidx.room.PrimaryKey;
 
 import org.envirocar.core.logging.Logger;
@@ -33,11 +34,11 @@ import org.json.JSONObject;
 import java.sql.Blob;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 
 import io.reactivex.functions.Function;
 
-@Entity(tableName = "measurements")
+@Entity(tableName = "measurements",
+        indices = {@Index(value = {MeasurementTable.KEY_TRACK, MeasurementTable.KEY_TIME})})
 public class MeasurementTable {
 
     public static final String KEY_TIME = "time";
@@ -45,6 +46,7 @@ public class MeasurementTable {
     public static final String KEY_LATITUDE = "latitude";
     public static final String KEY_ROWID = "_id";
     public static final String KEY_PROPERTIES = "properties";
+    public static final String KEY_PROPERTIES_BINARY = "properties_bin";
     public static final String KEY_TRACK = "track";
 
     @PrimaryKey
@@ -53,16 +55,19 @@ public class MeasurementTable {
     Long rowId;
 
     @ColumnInfo(name = KEY_LATITUDE)
-    String keyLatitude;
+    Double keyLatitude;
 
     @ColumnInfo(name = KEY_LONGITUDE)
-    String keyLongitude;
+    Double keyLongitude;
 
     @ColumnInfo(name = KEY_PROPERTIES)
     String keyProperties;
 
+    @ColumnInfo(name = KEY_PROPERTIES_BINARY, typeAffinity = ColumnInfo.BLOB)
+    byte[] keyPropertiesBinary;
+
     @ColumnInfo(name = KEY_TIME)
-    String keyTime;
+    Long keyTime;
 
     @ColumnInfo(name = KEY_TRACK)
     Long keyTrack;
@@ -75,19 +80,19 @@ public class MeasurementTable {
         this.rowId = rowId;
     }
 
-    public String getKeyLatitude() {
+    public Double getKeyLatitude() {
         return keyLatitude;
     }
 
-    public void setKeyLatitude(String keyLatitude) {
+    public void setKeyLatitude(Double keyLatitude) {
         this.keyLatitude = keyLatitude;
     }
 
-    public String getKeyLongitude() {
+    public Double getKeyLongitude() {
         return keyLongitude;
     }
 
-    public void setKeyLongitude(String keyLongitude) {
+    public void setKeyLongitude(Double keyLongitude) {
         this.keyLongitude = keyLongitude;
     }
 
@@ -99,11 +104,19 @@ public class MeasurementTable {
         this.keyProperties = keyProperties;
     }
 
-    public String getKeyTime() {
+    public byte[] getKeyPropertiesBinary() {
+        return keyPropertiesBinary;
+    }
+
+    public void setKeyPropertiesBinary(byte[] keyPropertiesBinary) {
+        this.keyPropertiesBinary = keyPropertiesBinary;
+    }
+
+    public Long getKeyTime() {
         return keyTime;
     }
 
-    public void setKeyTime(String keyTime) {
+    public void setKeyTime(Long keyTime) {
         this.keyTime = keyTime;
     }
 
@@ -121,12 +134,23 @@ public class MeasurementTable {
             measurementTableToMeasurement(measurementTable);
 
     private static Measurement measurementTableToMeasurement(MeasurementTable measurementTable) {
-        Measurement measurement = new MeasurementImpl();
-        measurement.setLatitude(Double.parseDouble(measurementTable.getKeyLatitude()));
-        measurement.setLongitude(Double.parseDouble(measurementTable.getKeyLongitude()));
-        measurement.setTime(Long.parseLong(measurementTable.getKeyTime()));
+        Measurement measurement = new PrimitiveMeasurementImpl();
+        measurement.setLatitude(measurementTable.getKeyLatitude());
+        measurement.setLongitude(measurementTable.getKeyLongitude());
+        measurement.setTime(measurementTable.getKeyTime());
         measurement.setTrackId(new Track.TrackId(measurementTable.getKeyTrack()));
 
+        byte[] binaryData = measurementTable.getKeyPropertiesBinary();
+        if (binaryData != null) {
+            try {
+                MeasurementPropertiesCodec.decode(binaryData, measurement);
+            } catch (RuntimeException e) {
+                LOG.severe("could not decode properties", e);
+            }
+            return measurement;
+        }
+
+        // legacy rows store the properties as JSON string
         String rawData = measurementTable.getKeyProperties();
         if (rawData != null) {
             try {
@@ -134,9 +158,11 @@ public class MeasurementTable {
                 JSONArray names = json.names();
                 if (names != null) {
                     for (int j = 0; j < names.length(); j++) {
-                        String key = names.getString(j);
-                        measurement.setProperty(Measurement.PropertyKey.valueOf(key), json
-                                .getDouble(key));
+                        String name = names.getString(j);
+                        Measurement.PropertyKey key = Measurement.PropertyKey.fromName(name);
+                        if (key != null) {
+                            measurement.setDouble(key, json.getDouble(name));
+                        }
                     }
                 }
             } catch (JSONException e) {
@@ -148,25 +174,14 @@ public class MeasurementTable {
 
     public static MeasurementTable measurementToMeasurementTable(Measurement measurement) {
         MeasurementTable measurementTable = new MeasurementTable();
-        measurementTable.setKeyLatitude(measurement.getLatitude().toString());
-        measurementTable.setKeyLongitude(measurement.getLongitude().toString());
-        measurementTable.setKeyTime("" + measurement.getTime());
-        measurementTable.setKeyTrack(measurement.getTrackId().getId());
-        measurementTable.setKeyProperties(createPropertiesString(measurement));
-        return measurementTable;
-    }
-
-    private static String createPropertiesString(Measurement measurement) {
-        JSONObject result = new JSONObject();
-        Map<Measurement.PropertyKey, Double> properties = measurement.getAllProperties();
-        for (Measurement.PropertyKey key : properties.keySet()) {
-            try {
-                result.put(key.name(), properties.get(key));
-            } catch (JSONException e) {
-                LOG.warn("Error while parsing measurement property " + key.name() + "=" + properties.get(key) + "; " + e.getMessage());
-            }
+        measurementTable.setKeyLatitude(measurement.getLatitude());
+        measurementTable.setKeyLongitude(measurement.getLongitude());
+        measurementTable.setKeyTime(measurement.getTime());
+        if (measurement.getTrackId() != null) {
+            measurementTable.setKeyTrack(measurement.getTrackId().getId());
         }
-        return result.toString();
+        measurementTable.setKeyPropertiesBinary(MeasurementPropertiesCodec.encode(measurement));
+        return measurementTable;
     }
 
     public static List<Measurement> fromMeasurementTableListToMeasurement(List<MeasurementTable> measurementTableList) {
@@ -0,0 +1,288 @@
+/**
+ * Copyright (C) 2013 - 2021 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.core.entity;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * {@link Measurement} that keeps its properties in a double array indexed by
+ * {@link Measurement.PropertyKey#ordinal()} together with a presence bitset. The primitive
+ * accessors {@link #getDouble} and {@link #setDouble} neither box nor hash, the map returned by
+ * {@link #getAllProperties()} is a view on the arrays that is created on first access.
+ */
+public class PrimitiveMeasurementImpl implements Measurement {
+    private static final PropertyKey[] KEYS = PropertyKey.values();
+
+    static {
+        if (KEYS.length > Long.SIZE) {
+            throw new IllegalStateException("Too many property keys for the presence bitset");
+        }
+    }
+
+    protected Track.TrackId trackId;
+    protected Double latitude;
+    protected Double longitude;
+    protected long time;
+    protected final double[] values = new double[KEYS.length];
+    protected long presence;
+    private Map<PropertyKey, Double> propertiesView;
+
+    /**
+     * Constructor.
+     */
+    public PrimitiveMeasurementImpl() {
+
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param latitude  the latitude value
+     * @param longitude the longitude value
+     */
+    public PrimitiveMeasurementImpl(double latitude, double longitude) {
+        this.latitude = latitude;
+        this.longitude = longitude;
+    }
+
+    @Override
+    public Track.TrackId getTrackId() {
+        return trackId;
+    }
+
+    @Override
+    public void setTrackId(Track.TrackId trackId) {
+        this.trackId = trackId;
+    }
+
+    @Override
+    public Double getLatitude() {
+        return latitude;
+    }
+
+    @Override
+    public void setLatitude(double latitude) {
+        this.latitude = latitude;
+    }
+
+    @Override
+    public Double getLongitude() {
+        return longitude;
+    }
+
+    @Override
+    public void setLongitude(double longitude) {
+        this.longitude = longitude;
+    }
+
+    @Override
+    public long getTime() {
+        return time;
+    }
+
+    @Override
+    public void setTime(long time) {
+        this.time = time;
+    }
+
+    @Override
+    public Double getProperty(PropertyKey key) {
+        return hasProperty(key) ? values[key.ordinal()] : null;
+    }
+
+    @Override
+    public void setProperty(PropertyKey key, Double value) {
+        if (value != null) {
+            setDouble(key, value);
+        }
+    }
+
+    @Override
+    public boolean hasProperty(PropertyKey key) {
+        return (presence & (1L << key.ordinal())) != 0;
+    }
+
+    @Override
+    public double getDouble(PropertyKey key) {
+        return hasProperty(key) ? values[key.ordinal()] : Double.NaN;
+    }
+
+    @Override
+    public void setDouble(PropertyKey key, double value) {
+        int ordinal = key.ordinal();
+        values[ordinal] = value;
+        presence |= 1L << ordinal;
+    }
+
+    /**
+     * Removes a property.
+     *
+     * @param key the key of the property to remove.
+     */
+    public void removeProperty(PropertyKey key) {
+        presence &= ~(1L << key.ordinal());
+    }
+
+    @Override
+    public Map<PropertyKey, Double> getAllProperties() {
+        if (propertiesView == null) {
+            propertiesView = new PropertiesView();
+        }
+        return propertiesView;
+    }
+
+    @Override
+    public void setAllProperties(Map<PropertyKey, Double> properties) {
+        presence = 0L;
+        for (Map.Entry<PropertyKey, Double> entry : properties.entrySet()) {
+            setProperty(entry.getKey(), entry.getValue());
+        }
+    }
+
+    @Override
+    public Measurement carbonCopy() {
+        PrimitiveMeasurementImpl res = new PrimitiveMeasurementImpl();
+        res.latitude = latitude;
+        res.longitude = longitude;
+        System.arraycopy(values, 0, res.values, 0, values.length);
+        res.presence = presence;
+        res.trackId = trackId;
+        res.time = time;
+        return res;
+    }
+
+    @Override
+    public void reset() {
+        latitude = null;
+        longitude = null;
+
+        synchronized (this) {
+            presence = 0L;
+        }
+    }
+
+    /**
+     * Live map view on the property arrays.
+     */
+    private final class PropertiesView extends AbstractMap<PropertyKey, Double> {
+
+        @Override
+        public int size() {
+            return Long.bitCount(presence);
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return presence == 0L;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof PropertyKey && hasProperty((PropertyKey) key);
+        }
+
+        @Override
+        public Double get(Object key) {
+            return key instanceof PropertyKey ? getProperty((PropertyKey) key) : null;
+        }
+
+        @Override
+        public Double put(PropertyKey key, Double value) {
+            Double previous = getProperty(key);
+            if (value == null) {
+                removeProperty(key);
+            } else {
+                setDouble(key, value);
+            }
+            return previous;
+        }
+
+        @Override
+        public Double remove(Object key) {
+            if (!(key instanceof PropertyKey)) {
+                return null;
+            }
+            Double previous = getProperty((PropertyKey) key);
+            removeProperty((PropertyKey) key);
+            return previous;
+        }
+
+        @Override
+        public void clear() {
+            presence = 0L;
+        }
+
+        @Override
+        public Set<Entry<PropertyKey, Double>> entrySet() {
+            return new AbstractSet<Entry<PropertyKey, Double>>() {
+                @Override
+                public Iterator<Entry<PropertyKey, Double>> iterator() {
+                    return new PropertiesIterator();
+                }
+
+                @Override
+                public int size() {
+                    return Long.bitCount(presence);
+                }
+            };
+        }
+    }
+
+    private final class PropertiesIterator implements Iterator<Map.Entry<PropertyKey, Double>> {
+        private long remaining = presence;
+        private PropertyKey current;
+
+        @Override
+        public boolean hasNext() {
+            return remaining != 0L;
+        }
+
+        @Override
+        public Map.Entry<PropertyKey, Double> next() {
+            if (remaining == 0L) {
+                throw new NoSuchElementException();
+            }
+            int ordinal = Long.numberOfTrailingZeros(remaining);
+            remaining &= remaining - 1;
+            current = KEYS[ordinal];
+            final PropertyKey key = current;
+            return new AbstractMap.SimpleEntry<PropertyKey, Double>(key, values[ordinal]) {
+                @Override
+                public Double setValue(Double value) {
+                    super.setValue(value);
+                    return getAllProperties().put(key, value);
+                }
+            };
+        }
+
+        @Override
+        public void remove() {
+            if (current == null) {
+                throw new IllegalStateException();
+            }
+            removeProperty(current);
+            current = null;
+        }
+    }
+}
@@ -139,6 +139,24 @@ public interface Track extends BaseEntity<Track>, Comparable<Track> {
 
     List<Measurement.PropertyKey> getSupportedProperties();
 
+    /**
+     * @param propertyKey the key of the property.
+     * @return the number of measurements that have the given property.
+     */
+    int getPropertyCount(Measurement.PropertyKey propertyKey);
+
+    /**
+     * @param propertyKey the key of the property.
+     * @return the smallest value of the given property or NaN if no measurement has it.
+     */
+    double getPropertyMinimum(Measurement.PropertyKey propertyKey);
+
+    /**
+     * @param propertyKey the key of the property.
+     * @return the largest value of the given property or NaN if no measurement has it.
+     */
+    double getPropertyMaximum(Measurement.PropertyKey propertyKey);
+
     String getRemoteID();
 
     void setRemoteID(String remoteID);
@@ -0,0 +1,270 @@
+/**
+ * Copyright (C) 2013 - 2021 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.core.entity;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Ignore;
+
+import org.envirocar.core.utils.PolylineSimplifier;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One level of detail of the simplified path of a track. Every track has up to
+ * {@link #LEVEL_TOLERANCES}.length levels, each simplified with Douglas-Peucker for a tolerance
+ * given in meters, so that map views can draw a track without loading its measurements.
+ * <p>
+ * The points are stored as a BLOB of (latitude * 1e7, longitude * 1e7, measurement index) int
+ * triples, the measurement index refers to the position of the point in the time ordered
+ * measurements of the track.
+ */
+@Entity(tableName = "track_geometry", primaryKeys = {TrackGeometry.KEY_TRACK_ID, TrackGeometry.KEY_LEVEL})
+public class TrackGeometry {
+
+    public static final String KEY_TRACK_ID = "trackId";
+    public static final String KEY_LEVEL = "level";
+    public static final String KEY_TOLERANCE = "tolerance";
+    public static final String KEY_SOURCE_COUNT = "sourceCount";
+    public static final String KEY_POINT_COUNT = "pointCount";
+    public static final String KEY_POINTS = "points";
+
+    /**
+     * Tolerances in meters of the levels of detail, from the finest to the coarsest level.
+     */
+    public static final double[] LEVEL_TOLERANCES = {1, 4, 16, 64, 256};
+
+    private static final int BYTES_PER_POINT = 3 * Integer.BYTES;
+    private static final double COORDINATE_SCALE = 1e7;
+    // meters per pixel at zoom level 0 at the equator for 512 pixel tiles
+    private static final double METERS_PER_PIXEL_ZOOM_0 = 78271.517;
+
+    @ColumnInfo(name = KEY_TRACK_ID)
+    long trackId;
+
+    @ColumnInfo(name = KEY_LEVEL)
+    int level;
+
+    @ColumnInfo(name = KEY_TOLERANCE)
+    double tolerance;
+
+    @ColumnInfo(name = KEY_SOURCE_COUNT)
+    int sourceCount;
+
+    @ColumnInfo(name = KEY_POINT_COUNT)
+    int pointCount;
+
+    @NonNull
+    @ColumnInfo(name = KEY_POINTS, typeAffinity = ColumnInfo.BLOB)
+    byte[] points = new byte[0];
+
+    @Ignore
+    private double[] latitudes;
+    @Ignore
+    private double[] longitudes;
+    @Ignore
+    private int[] measurementIndices;
+
+    public TrackGeometry() {
+    }
+
+    @Ignore
+    public TrackGeometry(long trackId, int level, double tolerance, int sourceCount,
+                         double[] latitudes, double[] longitudes, int[] measurementIndices) {
+        this.trackId = trackId;
+        this.level = level;
+        this.tolerance = tolerance;
+        this.sourceCount = sourceCount;
+        this.pointCount = latitudes.length;
+        this.latitudes = latitudes;
+        this.longitudes = longitudes;
+        this.measurementIndices = measurementIndices;
+
+        ByteBuffer buffer = ByteBuffer.allocate(pointCount * BYTES_PER_POINT);
+        for (int i = 0; i < pointCount; i++) {
+            buffer.putInt((int) Math.round(latitudes[i] * COORDINATE_SCALE));
+            buffer.putInt((int) Math.round(longitudes[i] * COORDINATE_SCALE));
+            buffer.putInt(measurementIndices[i]);
+        }
+        this.points = buffer.array();
+    }
+
+    /**
+     * Simplifies the given path for all levels of detail.
+     *
+     * @param trackId            the id of the track.
+     * @param sourceCount        the number of measurements the path has been created from.
+     * @param latitudes          the latitudes of the path.
+     * @param longitudes         the longitudes of the path.
+     * @param measurementIndices the measurement index of every point of the path.
+     * @param count              the number of points of the path.
+     * @return the levels of detail ordered from the finest to the coarsest level, or an empty
+     * list if the path has no points.
+     */
+    public static List<TrackGeometry> fromPath(long trackId, int sourceCount, double[] latitudes,
+                                               double[] longitudes, int[] measurementIndices, int count) {
+        List<TrackGeometry> levels = new ArrayList<>(LEVEL_TOLERANCES.length);
+        if (count == 0) {
+            return levels;
+        }
+
+        double[] significance = PolylineSimplifier.computeSignificance(latitudes, longitudes, count);
+        for (int level = 0; level < LEVEL_TOLERANCES.length; level++) {
+            int[] kept = PolylineSimplifier.simplify(significance, LEVEL_TOLERANCES[level]);
+            double[] levelLatitudes = new double[kept.length];
+            double[] levelLongitudes = new double[kept.length];
+            int[] levelIndices = new int[kept.length];
+            for (int i = 0; i < kept.length; i++) {
+                levelLatitudes[i] = latitudes[kept[i]];
+                levelLongitudes[i] = longitudes[kept[i]];
+                levelIndices[i] = measurementIndices[kept[i]];
+            }
+            levels.add(new TrackGeometry(trackId, level, LEVEL_TOLERANCES[level], sourceCount,
+                    levelLatitudes, levelLongitudes, levelIndices));
+        }
+        return levels;
+    }
+
+    /**
+     * Returns the meters a single pixel covers at the given zoom level and latitude.
+     *
+     * @param zoom     the zoom level of the map.
+     * @param latitude the latitude.
+     * @return the meters per pixel.
+     */
+    public static double getMetersPerPixel(double zoom, double latitude) {
+        return METERS_PER_PIXEL_ZOOM_0 * Math.cos(Math.toRadians(latitude)) / Math.pow(2, zoom);
+    }
+
+    /**
+     * Selects the coarsest level of detail whose tolerance is still below a single pixel at the
+     * given zoom level.
+     *
+     * @param levels   the levels of detail ordered from the finest to the coarsest level.
+     * @param zoom     the zoom level of the map.
+     * @param latitude the latitude the map is centered at.
+     * @return the index of the selected level within the list, or -1 if the list is empty.
+     */
+    public static int selectLevel(List<TrackGeometry> levels, double zoom, double latitude) {
+        if (levels.isEmpty()) {
+            return -1;
+        }
+        double metersPerPixel = getMetersPerPixel(zoom, latitude);
+        int selected = 0;
+        for (int i = 1; i < levels.size(); i++) {
+            if (levels.get(i).getTolerance() <= metersPerPixel) {
+                selected = i;
+            }
+        }
+        return selected;
+    }
+
+    public long getTrackId() {
+        return trackId;
+    }
+
+    public void setTrackId(long trackId) {
+        this.trackId = trackId;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public void setLevel(int level) {
+        this.level = level;
+    }
+
+    public double getTolerance() {
+        return tolerance;
+    }
+
+    public void setTolerance(double tolerance) {
+        this.tolerance = tolerance;
+    }
+
+    /**
+     * @return the number of measurements of the track when the geometry was created. The geometry
+     * is outdated if the track has a different number of measurements by now.
+     */
+    public int getSourceCount() {
+        return sourceCount;
+    }
+
+    public void setSourceCount(int sourceCount) {
+        this.sourceCount = sourceCount;
+    }
+
+    public int getPointCount() {
+        return pointCount;
+    }
+
+    public void setPointCount(int pointCount) {
+        this.pointCount = pointCount;
+    }
+
+    @NonNull
+    public byte[] getPoints() {
+        return points;
+    }
+
+    public void setPoints(@NonNull byte[] points) {
+        this.points = points;
+        this.latitudes = null;
+        this.longitudes = null;
+        this.measurementIndices = null;
+    }
+
+    public double getLatitude(int index) {
+        decodePoints();
+        return latitudes[index];
+    }
+
+    public double getLongitude(int index) {
+        decodePoints();
+        return longitudes[index];
+    }
+
+    public int getMeasurementIndex(int index) {
+        decodePoints();
+        return measurementIndices[index];
+    }
+
+    private void decodePoints() {
+        if (latitudes != null) {
+            return;
+        }
+        int count = points.length / BYTES_PER_POINT;
+        double[] decodedLatitudes = new double[count];
+        double[] decodedLongitudes = new double[count];
+        int[] decodedIndices = new int[count];
+        ByteBuffer buffer = ByteBuffer.wrap(points);
+        for (int i = 0; i < count; i++) {
+            decodedLatitudes[i] = buffer.getInt() / COORDINATE_SCALE;
+            decodedLongitudes[i] = buffer.getInt() / COORDINATE_SCALE;
+            decodedIndices[i] = buffer.getInt();
+        }
+        this.longitudes = decodedLongitudes;
+        this.measurementIndices = decodedIndices;
+        this.latitudes = decodedLatitudes;
+    }
+}
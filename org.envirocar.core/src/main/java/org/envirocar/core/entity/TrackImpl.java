@@ -26,6 +26,7 @@ import org.envirocar.core.trackprocessing.statistics.TrackStatisticsProcessor;
 import org.envirocar.core.trackprocessing.statistics.TrackStatisticsProvider;
 import org.envirocar.core.util.TrackMetadata;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -48,9 +49,13 @@ public class TrackImpl implements Track, TrackStatisticsProvider {
     protected Double length;
     protected TrackMetadata metadata;
     protected Track.TrackStatus trackStatus = Track.TrackStatus.ONGOING;
-    protected List<Measurement> measurements = new ArrayList<Measurement>();
+    protected List<Measurement> measurements = new MeasurementList(new ArrayList<>());
     protected DownloadState downloadState;
 
+    // presence, count and range of the properties, updated lazily when it is queried
+    protected final TrackPropertyIndex propertyIndex = new TrackPropertyIndex();
+    private int indexedMeasurements;
+
     protected boolean isLazyLoadingMeasurements = false;
 
     protected Double distanceOfTrack;
@@ -97,7 +102,7 @@ public class TrackImpl implements Track, TrackStatisticsProvider {
 
     @Override
     public boolean isLazyLoadingMeasurements() {
-        return false;
+        return isLazyLoadingMeasurements;
     }
 
     @Override
@@ -296,28 +301,56 @@ public class TrackImpl implements Track, TrackStatisticsProvider {
         //        Preconditions.checkState(measurements != null && measurements.size() > 0, "A
         // track is not" +
         //                " allowed to have empty measuremnts");
-        this.measurements = measurements;
+        this.measurements = measurements != null ? new MeasurementList(measurements) : null;
+        this.propertyIndex.invalidate();
     }
 
     @Override
     public boolean hasProperty(Measurement.PropertyKey propertyKey) {
-        for (Measurement m : measurements) {
-            if (m.hasProperty(propertyKey)) {
-                return true;
-            }
-        }
-        return false;
+        return getPropertyIndex().contains(propertyKey);
     }
 
     @Override
     public List<Measurement.PropertyKey> getSupportedProperties() {
-        List<Measurement.PropertyKey> result = new ArrayList<>();
-        for (Measurement.PropertyKey key : Measurement.PropertyKey.values()) {
-            if (hasProperty(key)) {
-                result.add(key);
+        return getPropertyIndex().getKeys();
+    }
+
+    @Override
+    public int getPropertyCount(Measurement.PropertyKey propertyKey) {
+        return getPropertyIndex().getCount(propertyKey);
+    }
+
+    @Override
+    public double getPropertyMinimum(Measurement.PropertyKey propertyKey) {
+        return getPropertyIndex().getMinimum(propertyKey);
+    }
+
+    @Override
+    public double getPropertyMaximum(Measurement.PropertyKey propertyKey) {
+        return getPropertyIndex().getMaximum(propertyKey);
+    }
+
+    /**
+     * Returns the property index after adding the measurements that have been appended since
+     * the last call. The index is rebuilt if measurements have been removed or replaced.
+     * Measurements are expected to be complete when they are added to the track, later changes
+     * of their properties are not reflected.
+     *
+     * @return the up-to-date property index.
+     */
+    protected TrackPropertyIndex getPropertyIndex() {
+        int size = measurements != null ? measurements.size() : 0;
+        if (!propertyIndex.isValid() || indexedMeasurements > size) {
+            propertyIndex.clear();
+            indexedMeasurements = 0;
+        }
+        if (indexedMeasurements < size) {
+            for (Measurement measurement : measurements.subList(indexedMeasurements, size)) {
+                propertyIndex.add(measurement);
             }
+            indexedMeasurements = size;
         }
-        return result;
+        return propertyIndex;
     }
 
     @Override
@@ -405,6 +438,10 @@ public class TrackImpl implements Track, TrackStatisticsProvider {
     }
 
 
+    protected TrackStatisticsProcessor getStatisticsProcessor() {
+        return STATISTICS_PROCESSOR;
+    }
+
     @Override
     public double getDistanceOfTrack() {
         if ((distanceOfTrack == null || distanceOfTrack == 0.0) && STATISTICS_PROCESSOR != null) {
@@ -448,4 +485,54 @@ public class TrackImpl implements Track, TrackStatisticsProvider {
         return gramsPerKm;
     }
 
+    /**
+     * List of the measurements that invalidates the property index whenever a measurement is
+     * removed or replaced. Appended measurements are picked up by {@link #getPropertyIndex()}.
+     */
+    private class MeasurementList extends AbstractList<Measurement> {
+        private final List<Measurement> delegate;
+
+        MeasurementList(List<Measurement> delegate) {
+            this.delegate = delegate instanceof MeasurementList
+                    ? ((MeasurementList) delegate).delegate : delegate;
+        }
+
+        @Override
+        public Measurement get(int index) {
+            return delegate.get(index);
+        }
+
+        @Override
+        public int size() {
+            return delegate.size();
+        }
+
+        @Override
+        public Measurement set(int index, Measurement element) {
+            Measurement previous = delegate.set(index, element);
+            propertyIndex.invalidate();
+            return previous;
+        }
+
+        @Override
+        public void add(int index, Measurement element) {
+            delegate.add(index, element);
+            if (index < delegate.size() - 1) {
+                propertyIndex.invalidate();
+            }
+        }
+
+        @Override
+        public Measurement remove(int index) {
+            Measurement removed = delegate.remove(index);
+            propertyIndex.invalidate();
+            return removed;
+        }
+
+        @Override
+        public void clear() {
+            delegate.clear();
+            propertyIndex.invalidate();
+        }
+    }
 }
@@ -0,0 +1,152 @@
+/**
+ * Copyright (C) 2013 - 2021 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.core.entity;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Keeps track of the properties that occur in the measurements of a track: a presence bitset
+ * indexed by {@link Measurement.PropertyKey#ordinal()} together with the number of values and
+ * their minimum and maximum per property. Values are only ever added, a removed or replaced
+ * measurement requires the owner to {@link #invalidate()} the index and add all remaining
+ * measurements again.
+ */
+public final class TrackPropertyIndex {
+    private static final Measurement.PropertyKey[] KEYS = Measurement.PropertyKey.values();
+
+    static {
+        if (KEYS.length > Long.SIZE) {
+            throw new IllegalStateException("Too many property keys for the presence bitset");
+        }
+    }
+
+    private long presence;
+    private final int[] counts = new int[KEYS.length];
+    private final double[] minimums = new double[KEYS.length];
+    private final double[] maximums = new double[KEYS.length];
+    private boolean valid = true;
+
+    /**
+     * Constructor.
+     */
+    public TrackPropertyIndex() {
+        clear();
+    }
+
+    /**
+     * Adds all properties of a measurement.
+     *
+     * @param measurement the measurement to add.
+     */
+    public void add(Measurement measurement) {
+        for (Measurement.PropertyKey key : KEYS) {
+            if (measurement.hasProperty(key)) {
+                add(key, measurement.getDouble(key));
+            }
+        }
+    }
+
+    /**
+     * Adds a single property value. NaN values count as present but do not change the range.
+     *
+     * @param key   the key of the property.
+     * @param value the value of the property.
+     */
+    public void add(Measurement.PropertyKey key, double value) {
+        int ordinal = key.ordinal();
+        presence |= 1L << ordinal;
+        counts[ordinal]++;
+        if (value < minimums[ordinal]) {
+            minimums[ordinal] = value;
+        }
+        if (value > maximums[ordinal]) {
+            maximums[ordinal] = value;
+        }
+    }
+
+    /**
+     * Removes all values and marks the index as valid again.
+     */
+    public void clear() {
+        presence = 0;
+        Arrays.fill(counts, 0);
+        Arrays.fill(minimums, Double.POSITIVE_INFINITY);
+        Arrays.fill(maximums, Double.NEGATIVE_INFINITY);
+        valid = true;
+    }
+
+    /**
+     * Marks the index as outdated, e.g. after a measurement has been removed.
+     */
+    public void invalidate() {
+        valid = false;
+    }
+
+    /**
+     * @return false if the index has to be cleared and rebuilt before it can be queried.
+     */
+    public boolean isValid() {
+        return valid;
+    }
+
+    /**
+     * @return true if at least one measurement has the given property.
+     */
+    public boolean contains(Measurement.PropertyKey key) {
+        return (presence & (1L << key.ordinal())) != 0;
+    }
+
+    /**
+     * @return the keys of all properties that occur at least once, in declaration order.
+     */
+    public List<Measurement.PropertyKey> getKeys() {
+        List<Measurement.PropertyKey> result = new ArrayList<>(Long.bitCount(presence));
+        long remaining = presence;
+        while (remaining != 0) {
+            result.add(KEYS[Long.numberOfTrailingZeros(remaining)]);
+            remaining &= remaining - 1;
+        }
+        return result;
+    }
+
+    /**
+     * @return the number of measurements that have the given property.
+     */
+    public int getCount(Measurement.PropertyKey key) {
+        return counts[key.ordinal()];
+    }
+
+    /**
+     * @return the smallest value of the given property or NaN if there is none.
+     */
+    public double getMinimum(Measurement.PropertyKey key) {
+        int ordinal = key.ordinal();
+        return minimums[ordinal] <= maximums[ordinal] ? minimums[ordinal] : Double.NaN;
+    }
+
+    /**
+     * @return the largest value of the given property or NaN if there is none.
+     */
+    public double getMaximum(Measurement.PropertyKey key) {
+        int ordinal = key.ordinal();
+        return minimums[ordinal] <= maximums[ordinal] ? maximums[ordinal] : Double.NaN;
+    }
+}
@@ -0,0 +1,360 @@
+/**
+ * Copyright (C) 2013 - 2021 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.core.entity;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Ignore;
+import androidx.room.PrimaryKey;
+
+import org.envirocar.core.utils.LocationUtils;
+
+/**
+ * Aggregated information about a track and its measurements. The summary is stored in its own
+ * table and updated incrementally whenever measurements of the track are written, so that it can
+ * be read without loading the measurements themselves.
+ */
+@Entity(tableName = "track_summary")
+public class TrackSummary {
+
+    public static final String KEY_TRACK_ID = "trackId";
+    public static final String KEY_START_TIME = "startTime";
+    public static final String KEY_END_TIME = "endTime";
+    public static final String KEY_MEASUREMENT_COUNT = "measurementCount";
+    public static final String KEY_LENGTH = "length";
+    public static final String KEY_MIN_LATITUDE = "minLatitude";
+    public static final String KEY_MAX_LATITUDE = "maxLatitude";
+    public static final String KEY_MIN_LONGITUDE = "minLongitude";
+    public static final String KEY_MAX_LONGITUDE = "maxLongitude";
+    public static final String KEY_LAST_LATITUDE = "lastLatitude";
+    public static final String KEY_LAST_LONGITUDE = "lastLongitude";
+    public static final String KEY_SPEED_SUM = "speedSum";
+    public static final String KEY_SPEED_COUNT = "speedCount";
+    public static final String KEY_CONSUMPTION_SUM = "consumptionSum";
+    public static final String KEY_CONSUMPTION_COUNT = "consumptionCount";
+    public static final String KEY_CO2_SUM = "co2Sum";
+    public static final String KEY_CO2_COUNT = "co2Count";
+
+    @PrimaryKey
+    @ColumnInfo(name = KEY_TRACK_ID)
+    long trackId;
+
+    @ColumnInfo(name = KEY_START_TIME)
+    Long startTime;
+
+    @ColumnInfo(name = KEY_END_TIME)
+    Long endTime;
+
+    @ColumnInfo(name = KEY_MEASUREMENT_COUNT)
+    int measurementCount;
+
+    @ColumnInfo(name = KEY_LENGTH)
+    Double length;
+
+    @ColumnInfo(name = KEY_MIN_LATITUDE)
+    Double minLatitude;
+
+    @ColumnInfo(name = KEY_MAX_LATITUDE)
+    Double maxLatitude;
+
+    @ColumnInfo(name = KEY_MIN_LONGITUDE)
+    Double minLongitude;
+
+    @ColumnInfo(name = KEY_MAX_LONGITUDE)
+    Double maxLongitude;
+
+    @ColumnInfo(name = KEY_LAST_LATITUDE)
+    Double lastLatitude;
+
+    @ColumnInfo(name = KEY_LAST_LONGITUDE)
+    Double lastLongitude;
+
+    @ColumnInfo(name = KEY_SPEED_SUM)
+    double speedSum;
+
+    @ColumnInfo(name = KEY_SPEED_COUNT)
+    int speedCount;
+
+    @ColumnInfo(name = KEY_CONSUMPTION_SUM)
+    double consumptionSum;
+
+    @ColumnInfo(name = KEY_CONSUMPTION_COUNT)
+    int consumptionCount;
+
+    @ColumnInfo(name = KEY_CO2_SUM)
+    double co2Sum;
+
+    @ColumnInfo(name = KEY_CO2_COUNT)
+    int co2Count;
+
+    /**
+     * Constructor.
+     */
+    public TrackSummary() {
+    }
+
+    /**
+     * Constructor for an empty summary of the given track.
+     *
+     * @param trackId the id of the track.
+     */
+    @Ignore
+    public TrackSummary(long trackId) {
+        this.trackId = trackId;
+        this.length = 0.0;
+    }
+
+    public long getTrackId() {
+        return trackId;
+    }
+
+    public void setTrackId(long trackId) {
+        this.trackId = trackId;
+    }
+
+    public Long getStartTime() {
+        return startTime;
+    }
+
+    public void setStartTime(Long startTime) {
+        this.startTime = startTime;
+    }
+
+    public Long getEndTime() {
+        return endTime;
+    }
+
+    public void setEndTime(Long endTime) {
+        this.endTime = endTime;
+    }
+
+    public int getMeasurementCount() {
+        return measurementCount;
+    }
+
+    public void setMeasurementCount(int measurementCount) {
+        this.measurementCount = measurementCount;
+    }
+
+    public Double getLength() {
+        return length;
+    }
+
+    public void setLength(Double length) {
+        this.length = length;
+    }
+
+    public Double getMinLatitude() {
+        return minLatitude;
+    }
+
+    public void setMinLatitude(Double minLatitude) {
+        this.minLatitude = minLatitude;
+    }
+
+    public Double getMaxLatitude() {
+        return maxLatitude;
+    }
+
+    public void setMaxLatitude(Double maxLatitude) {
+        this.maxLatitude = maxLatitude;
+    }
+
+    public Double getMinLongitude() {
+        return minLongitude;
+    }
+
+    public void setMinLongitude(Double minLongitude) {
+        this.minLongitude = minLongitude;
+    }
+
+    public Double getMaxLongitude() {
+        return maxLongitude;
+    }
+
+    public void setMaxLongitude(Double maxLongitude) {
+        this.maxLongitude = maxLongitude;
+    }
+
+    public Double getLastLatitude() {
+        return lastLatitude;
+    }
+
+    public void setLastLatitude(Double lastLatitude) {
+        this.lastLatitude = lastLatitude;
+    }
+
+    public Double getLastLongitude() {
+        return lastLongitude;
+    }
+
+    public void setLastLongitude(Double lastLongitude) {
+        this.lastLongitude = lastLongitude;
+    }
+
+    public double getSpeedSum() {
+        return speedSum;
+    }
+
+    public void setSpeedSum(double speedSum) {
+        this.speedSum = speedSum;
+    }
+
+    public int getSpeedCount() {
+        return speedCount;
+    }
+
+    public void setSpeedCount(int speedCount) {
+        this.speedCount = speedCount;
+    }
+
+    public double getConsumptionSum() {
+        return consumptionSum;
+    }
+
+    public void setConsumptionSum(double consumptionSum) {
+        this.consumptionSum = consumptionSum;
+    }
+
+    public int getConsumptionCount() {
+        return consumptionCount;
+    }
+
+    public void setConsumptionCount(int consumptionCount) {
+        this.consumptionCount = consumptionCount;
+    }
+
+    public double getCo2Sum() {
+        return co2Sum;
+    }
+
+    public void setCo2Sum(double co2Sum) {
+        this.co2Sum = co2Sum;
+    }
+
+    public int getCo2Count() {
+        return co2Count;
+    }
+
+    public void setCo2Count(int co2Count) {
+        this.co2Count = co2Count;
+    }
+
+    /**
+     * Adds a measurement, which has to be newer than all measurements added before, to this
+     * summary.
+     *
+     * @param measurement the measurement to add.
+     */
+    public void addMeasurement(Measurement measurement) {
+        long time = measurement.getTime();
+        if (startTime == null || time < startTime) {
+            startTime = time;
+        }
+        if (endTime == null || time > endTime) {
+            endTime = time;
+        }
+        measurementCount++;
+
+        Double latitude = measurement.getLatitude();
+        Double longitude = measurement.getLongitude();
+        if (latitude != null && longitude != null) {
+            if (lastLatitude != null && lastLongitude != null) {
+                double distance = LocationUtils.getDistance(
+                        lastLatitude, lastLongitude, latitude, longitude);
+                length = (length != null ? length : 0.0) + distance;
+            }
+            lastLatitude = latitude;
+            lastLongitude = longitude;
+
+            minLatitude = minLatitude == null ? latitude : Math.min(minLatitude, latitude);
+            maxLatitude = maxLatitude == null ? latitude : Math.max(maxLatitude, latitude);
+            minLongitude = minLongitude == null ? longitude : Math.min(minLongitude, longitude);
+            maxLongitude = maxLongitude == null ? longitude : Math.max(maxLongitude, longitude);
+        }
+
+        double speed = measurement.hasProperty(Measurement.PropertyKey.SPEED)
+                ? measurement.getDouble(Measurement.PropertyKey.SPEED)
+                : measurement.getDouble(Measurement.PropertyKey.GPS_SPEED);
+        if (!Double.isNaN(speed)) {
+            speedSum += speed;
+            speedCount++;
+        }
+
+        double consumption = measurement.getDouble(Measurement.PropertyKey.CONSUMPTION);
+        if (!Double.isNaN(consumption)) {
+            consumptionSum += consumption;
+            consumptionCount++;
+        }
+
+        double co2 = measurement.getDouble(Measurement.PropertyKey.CO2);
+        if (!Double.isNaN(co2)) {
+            co2Sum += co2;
+            co2Count++;
+        }
+    }
+
+    /**
+     * @return the duration of the track in milliseconds or 0 if the track has no measurements.
+     */
+    public long getDuration() {
+        if (startTime == null || endTime == null) {
+            return 0;
+        }
+        return endTime - startTime;
+    }
+
+    /**
+     * @return the average speed in km/h, where the OBD speed of a measurement is preferred over
+     * its GPS speed, or NaN if no measurement has a speed.
+     */
+    public double getAverageSpeed() {
+        return speedCount > 0 ? speedSum / speedCount : Double.NaN;
+    }
+
+    /**
+     * @return the average fuel consumption in l/h or NaN if no measurement has a consumption.
+     */
+    public double getAverageConsumption() {
+        return consumptionCount > 0 ? consumptionSum / consumptionCount : Double.NaN;
+    }
+
+    /**
+     * @return the average CO2 emission in kg/h or NaN if no measurement has an emission.
+     */
+    public double getAverageCO2() {
+        return co2Count > 0 ? co2Sum / co2Count : Double.NaN;
+    }
+
+    /**
+     * Sets the start and end time of the given track according to this summary.
+     *
+     * @param track the track to update.
+     * @return the track.
+     */
+    public Track applyTo(Track track) {
+        if (startTime != null) {
+            track.setStartTime(startTime);
+        }
+        if (endTime != null) {
+            track.setEndTime(endTime);
+        }
+        return track;
+    }
+}
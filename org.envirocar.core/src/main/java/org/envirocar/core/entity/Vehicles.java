@@ -22,11 +22,15 @@ import androidx.annotation.NonNull;
 import androidx.room.ColumnInfo;
 import androidx.room.Entity;
 import androidx.room.ForeignKey;
+import androidx.room.Index;
 import androidx.room.PrimaryKey;
 
 
 @Entity(tableName = "vehicles",
-        primaryKeys = {"manufacturer_id", "id"}
+        primaryKeys = {"manufacturer_id", "id"},
+        indices = {
+                @Index(value = {"manufacturer", "commerical_name", "allotment_year"})
+        }
 )
 public class Vehicles {
 
@@ -51,6 +55,9 @@ public class Vehicles {
     @ColumnInfo(name = "allotment_date")
     String allotment_date;
 
+    @ColumnInfo(name = "allotment_year")
+    Integer allotment_year;
+
     @ColumnInfo(name = "category")
     String category;
 
@@ -144,6 +151,15 @@ public class Vehicles {
 
     public void setAllotment_date(String allotment_date) {
         this.allotment_date = allotment_date;
+        this.allotment_year = parseAllotmentYear(allotment_date);
+    }
+
+    public Integer getAllotment_year() {
+        return allotment_year;
+    }
+
+    public void setAllotment_year(Integer allotment_year) {
+        this.allotment_year = allotment_year;
     }
 
     public String getCategory() {
@@ -217,4 +233,21 @@ public class Vehicles {
     public void setMaximum_mass(String maximum_mass) {
         this.maximum_mass = maximum_mass;
     }
+
+    /**
+     * Parses the year of an allotment date in the format dd.MM.yyyy.
+     *
+     * @param allotmentDate the allotment date.
+     * @return the year or null if the date has not the expected format.
+     */
+    public static Integer parseAllotmentYear(String allotmentDate) {
+        if (allotmentDate == null || allotmentDate.length() < 10) {
+            return null;
+        }
+        try {
+            return Integer.parseInt(allotmentDate.substring(6, 10));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
 }
@@ -0,0 +1,88 @@
+/**
+ * Copyright (C) 2013 - 2021 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.core.entity;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Fts4;
+
+/**
+ * Full-text index over the manufacturer and commercial names of the {@link Vehicles} table. The
+ * index uses the vehicles table as external content, it is kept in sync by Room's triggers.
+ */
+@Fts4(contentEntity = Vehicles.class)
+@Entity(tableName = "vehicles_fts")
+public class VehiclesFts {
+
+    public static final String KEY_MANUFACTURER = "manufacturer";
+    public static final String KEY_COMMERCIAL_NAME = "commerical_name";
+
+    @ColumnInfo(name = KEY_MANUFACTURER)
+    String manufacturer;
+
+    @ColumnInfo(name = KEY_COMMERCIAL_NAME)
+    String commerical_name;
+
+    public String getManufacturer() {
+        return manufacturer;
+    }
+
+    public void setManufacturer(String manufacturer) {
+        this.manufacturer = manufacturer;
+    }
+
+    public String getCommerical_name() {
+        return commerical_name;
+    }
+
+    public void setCommerical_name(String commerical_name) {
+        this.commerical_name = commerical_name;
+    }
+
+    /**
+     * Creates a prefix MATCH expression for type-ahead searches, e.g. "golf va" becomes
+     * "golf* va*". Characters with a special meaning in FTS queries are dropped.
+     *
+     * @param column the column to search in, {@link #KEY_MANUFACTURER},
+     *               {@link #KEY_COMMERCIAL_NAME} or null for both.
+     * @param text   the text typed by the user.
+     * @return the MATCH expression or null if the text contains no searchable token.
+     */
+    public static String prefixQuery(String column, String text) {
+        if (text == null) {
+            return null;
+        }
+
+        StringBuilder query = new StringBuilder();
+        for (String token : text.trim().split("\\s+")) {
+            String cleaned = token.replaceAll("[^\\p{L}\\p{N}]", "");
+            if (cleaned.isEmpty()) {
+                continue;
+            }
+            if (query.length() > 0) {
+                query.append(' ');
+            }
+            if (column != null) {
+                query.append(column).append(':');
+            }
+            query.append(cleaned).append('*');
+        }
+        return query.length() > 0 ? query.toString() : null;
+    }
+}
@@ -82,7 +82,7 @@ public class DieselConsumptionAlgorithm implements ConsumptionAlgorithm {
         /**
          * we assume a consumption of zero if the lambda voltage exceeds 1.1
          */
-        Double lambdaV = measurement.getProperty(LAMBDA_VOLTAGE);
+        double lambdaV = measurement.getDouble(LAMBDA_VOLTAGE);
 
         if (lambdaV > 1.1) {
             //TODO check with TU-BS - seems to happen very often
@@ -90,7 +90,7 @@ public class DieselConsumptionAlgorithm implements ConsumptionAlgorithm {
             return 0.0;
         }
 
-        double lambdaER = calculateLambdaVoltageER(measurement.getProperty(LAMBDA_VOLTAGE_ER), lambdaV);
+        double lambdaER = calculateLambdaVoltageER(measurement.getDouble(LAMBDA_VOLTAGE_ER), lambdaV);
 
         //mass air flow in kilogram
         double mafKG = resolveMassAirFlow(measurement) / 1000;
@@ -108,10 +108,10 @@ public class DieselConsumptionAlgorithm implements ConsumptionAlgorithm {
 
     private double resolveMassAirFlow(Measurement measurement) throws FuelConsumptionException {
         if (measurement.hasProperty(MAF)) {
-            return measurement.getProperty(MAF);
+            return measurement.getDouble(MAF);
         }
         else if (measurement.hasProperty(CALCULATED_MAF)) {
-            return measurement.getProperty(CALCULATED_MAF);
+            return measurement.getDouble(CALCULATED_MAF);
         }
 
         throw new FuelConsumptionException("No MAF value available");
@@ -30,8 +30,9 @@ import org.envirocar.core.exception.UnsupportedFuelTypeException;
 import org.envirocar.core.logging.Logger;
 import org.envirocar.core.trackprocessing.consumption.ConsumptionAlgorithm;
 
+import java.nio.DoubleBuffer;
 import java.util.Arrays;
-import java.util.List;
+import java.util.Iterator;
 
 /**
  * TODO JavaDoc
@@ -53,20 +54,25 @@ public class TrackStatisticsProcessor {
         this.consumptionAlgorithm = ConsumptionAlgorithm.fromFuelType(fuelType);
     }
 
-    public double computeDistanceOfTrack(List<Measurement> measurements) {
+    public double computeDistanceOfTrack(Iterable<Measurement> measurements) {
         double distance = 0.0;
 
-        // Return a distance of one if only one measurement exists.
-        if (measurements == null || measurements.size() <= 1) {
+        // Return a distance of zero if no measurements exist.
+        if (measurements == null) {
             return distance;
         }
 
-        Measurement m1 = measurements.get(0);
+        Iterator<Measurement> iterator = measurements.iterator();
+        if (!iterator.hasNext()) {
+            return distance;
+        }
+
+        Measurement m1 = iterator.next();
         Measurement m2;
         float[] distanceArray = new float[1];
 
-        for (int i = 1; i < measurements.size(); i++) {
-            m2 = measurements.get(i);
+        while (iterator.hasNext()) {
+            m2 = iterator.next();
             Location.distanceBetween(m1.getLatitude(), m1.getLongitude(), m2
                     .getLatitude(), m2.getLongitude(), distanceArray);
             distance += distanceArray[0];
@@ -78,32 +84,86 @@ public class TrackStatisticsProcessor {
         return distance / 1000.0d;
     }
 
-    public Double getCO2Average(List<Measurement> measurements) throws FuelConsumptionException {
+    /**
+     * Computes the distance of a track from its coordinate columns, rows without a position are
+     * skipped.
+     *
+     * @param latitudes  the latitudes, NaN if unknown.
+     * @param longitudes the longitudes, NaN if unknown.
+     * @return the distance in km.
+     */
+    public double computeDistanceOfTrack(DoubleBuffer latitudes, DoubleBuffer longitudes) {
+        double distance = 0.0;
+        float[] distanceArray = new float[1];
+        int previous = -1;
+        for (int i = 0; i < latitudes.limit(); i++) {
+            if (Double.isNaN(latitudes.get(i)) || Double.isNaN(longitudes.get(i))) {
+                continue;
+            }
+            if (previous >= 0) {
+                Location.distanceBetween(latitudes.get(previous), longitudes.get(previous),
+                        latitudes.get(i), longitudes.get(i), distanceArray);
+                distance += distanceArray[0];
+            }
+            previous = i;
+        }
+        return distance / 1000.0d;
+    }
+
+    public Double getCO2Average(Iterable<Measurement> measurements) throws FuelConsumptionException {
         double co2Avg = 0.0;
         if (consumptionAlgorithm == null) {
             return null;
         }
 
+        int count = 0;
         for (Measurement measurement : measurements) {
-            Double property = measurement.getProperty(Measurement.PropertyKey.CONSUMPTION);
+            double property = measurement.getDouble(Measurement.PropertyKey.CONSUMPTION);
 
-            if (property != null) {
+            if (!Double.isNaN(property)) {
                 co2Avg += consumptionAlgorithm.calculateCO2FromConsumption(property);
             }
-
+            count++;
         }
-        co2Avg /= measurements.size();
+        co2Avg /= count;
 
         return co2Avg;
     }
 
-    public Double getFuelConsumptionPerHour(List<Measurement> measurements) throws FuelConsumptionException {
+    /**
+     * Computes the average CO2 emission from the consumption column of a track, measurements
+     * without a consumption count as zero like in {@link #getCO2Average(Iterable)}.
+     *
+     * @param consumptions the consumption values, NaN if absent, or null if no measurement has
+     *                     a consumption.
+     * @param count        the number of measurements.
+     * @return the average or null if the fuel type is not supported.
+     */
+    public Double getCO2Average(DoubleBuffer consumptions, int count) throws FuelConsumptionException {
+        if (consumptionAlgorithm == null) {
+            return null;
+        }
+
+        double co2Avg = 0.0;
+        if (consumptions != null) {
+            for (int i = 0; i < consumptions.limit(); i++) {
+                double property = consumptions.get(i);
+                if (!Double.isNaN(property)) {
+                    co2Avg += consumptionAlgorithm.calculateCO2FromConsumption(property);
+                }
+            }
+        }
+        return co2Avg / count;
+    }
+
+    public Double getFuelConsumptionPerHour(Iterable<Measurement> measurements) throws FuelConsumptionException {
         double consumption = 0.0;
         if (consumptionAlgorithm == null) {
             return null;
         }
 
         int consideredCount = 0;
+        int count = 0;
         for (Measurement measurement : measurements) {
             try {
                 consumption += consumptionAlgorithm.calculateConsumption(measurement);
@@ -111,10 +171,11 @@ public class TrackStatisticsProcessor {
             } catch (UnsupportedFuelTypeException | FuelConsumptionException e) {
                 LOG.debug(e.getMessage());
             }
+            count++;
         }
 
         LOG.info(String.format("%s of %s measurements used for consumption/hour calculation",
-                consideredCount, measurements.size()));
+                consideredCount, count));
 
         if (consideredCount <= 0) {
             throw new FuelConsumptionException("No fuel consumption computation possible. No values with required parameters", Arrays.asList(LAMBDA_VOLTAGE, LAMBDA_VOLTAGE_ER));
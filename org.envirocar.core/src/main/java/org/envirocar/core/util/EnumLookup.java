@@ -0,0 +1,125 @@
+/**
+ * Copyright (C) 2013 - 2021 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.core.util;
+
+import java.util.Arrays;
+import java.util.function.Function;
+
+/**
+ * Immutable lookup table from string keys to enum constants. The table is a perfect hash: the
+ * multiplier is chosen when the table is created so that no two keys share a slot, a lookup
+ * therefore hashes the key once and compares it with a single candidate. Lookups neither
+ * allocate nor box, the tables are meant to be created once and shared.
+ *
+ * @param <E> the type of the enum.
+ */
+public final class EnumLookup<E extends Enum<E>> {
+    private static final int MAX_ATTEMPTS = 1024;
+
+    private final String[] keys;
+    private final E[] constants;
+    private final int multiplier;
+    private final int shift;
+
+    private EnumLookup(String[] keys, E[] constants, int multiplier, int shift) {
+        this.keys = keys;
+        this.constants = constants;
+        this.multiplier = multiplier;
+        this.shift = shift;
+    }
+
+    /**
+     * Creates a lookup table for the given constants.
+     *
+     * @param constants   the constants to look up, usually the result of values().
+     * @param keyFunction the function returning the key of a constant.
+     * @param <E>         the type of the enum.
+     * @return the lookup table.
+     * @throws IllegalArgumentException if two constants have the same key.
+     */
+    public static <E extends Enum<E>> EnumLookup<E> of(E[] constants, Function<? super E, String> keyFunction) {
+        String[] keys = new String[constants.length];
+        for (int i = 0; i < constants.length; i++) {
+            keys[i] = keyFunction.apply(constants[i]);
+            for (int j = 0; j < i; j++) {
+                if (keys[i].equals(keys[j])) {
+                    throw new IllegalArgumentException("Duplicate key " + keys[i]);
+                }
+            }
+        }
+
+        // start with a load factor of at most 0.5 and double the table until a multiplier
+        // without collisions is found
+        int bits = Math.max(1, 32 - Integer.numberOfLeadingZeros(Math.max(1, constants.length * 2 - 1)));
+        for (; bits < 31; bits++) {
+            int multiplier = 0x9E3779B9;
+            for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++, multiplier += 2) {
+                EnumLookup<E> lookup = tryCreate(keys, constants, multiplier, bits);
+                if (lookup != null) {
+                    return lookup;
+                }
+            }
+        }
+        throw new IllegalStateException("No perfect hash found for " + constants.length + " keys");
+    }
+
+    private static <E extends Enum<E>> EnumLookup<E> tryCreate(String[] keys, E[] constants,
+                                                               int multiplier, int bits) {
+        String[] table = new String[1 << bits];
+        E[] values = Arrays.copyOf(constants, table.length);
+        Arrays.fill(values, null);
+        int shift = 32 - bits;
+        for (int i = 0; i < keys.length; i++) {
+            int slot = (keys[i].hashCode() * multiplier) >>> shift;
+            if (table[slot] != null) {
+                return null;
+            }
+            table[slot] = keys[i];
+            values[slot] = constants[i];
+        }
+        return new EnumLookup<>(table, values, multiplier, shift);
+    }
+
+    /**
+     * @param key the key to look up, may be null.
+     * @return the constant with the given key or null if there is none.
+     */
+    public E get(CharSequence key) {
+        if (key == null) {
+            return null;
+        }
+        int slot = (hash(key) * multiplier) >>> shift;
+        String candidate = keys[slot];
+        return candidate != null && candidate.contentEquals(key) ? constants[slot] : null;
+    }
+
+    /**
+     * Same hash as {@link String#hashCode()}, which is cached by strings.
+     */
+    private static int hash(CharSequence key) {
+        if (key instanceof String) {
+            return key.hashCode();
+        }
+        int hash = 0;
+        for (int i = 0, length = key.length(); i < length; i++) {
+            hash = 31 * hash + key.charAt(i);
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,80 @@
+/**
+ * Copyright (C) 2013 - 2021 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.core.util;
+
+/**
+ * Configuration of the retention of tracks in the local database. Only tracks that have been
+ * uploaded are affected, local tracks are never removed by a retention policy.
+ */
+public class RetentionPolicy {
+
+    /**
+     * Policy that keeps everything and only compacts the database.
+     */
+    public static final RetentionPolicy KEEP_ALL = new RetentionPolicy(0, 0, false);
+
+    private final int keepDays;
+    private final long maxDatabaseSize;
+    private final boolean summaryOnlyUploaded;
+
+    /**
+     * Constructor.
+     *
+     * @param keepDays            uploaded tracks that ended more than this number of days ago
+     *                            are deleted, 0 disables the limit.
+     * @param maxDatabaseSize     the oldest uploaded tracks are deleted until the database is
+     *                            smaller than this number of bytes, 0 disables the limit.
+     * @param summaryOnlyUploaded whether the measurements of uploaded tracks are dropped so that
+     *                            only the track and its summary remain.
+     */
+    public RetentionPolicy(int keepDays, long maxDatabaseSize, boolean summaryOnlyUploaded) {
+        this.keepDays = Math.max(0, keepDays);
+        this.maxDatabaseSize = Math.max(0, maxDatabaseSize);
+        this.summaryOnlyUploaded = summaryOnlyUploaded;
+    }
+
+    public int getKeepDays() {
+        return keepDays;
+    }
+
+    public boolean hasKeepDays() {
+        return keepDays > 0;
+    }
+
+    public long getMaxDatabaseSize() {
+        return maxDatabaseSize;
+    }
+
+    public boolean hasMaxDatabaseSize() {
+        return maxDatabaseSize > 0;
+    }
+
+    public boolean isSummaryOnlyUploaded() {
+        return summaryOnlyUploaded;
+    }
+
+    @Override
+    public String toString() {
+        return "RetentionPolicy{" +
+                "keepDays=" + keepDays +
+                ", maxDatabaseSize=" + maxDatabaseSize +
+                ", summaryOnlyUploaded=" + summaryOnlyUploaded +
+                '}';
+    }
+}
@@ -0,0 +1,126 @@
+/**
+ * Copyright (C) 2013 - 2021 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.core.util;
+
+/**
+ * Outcome of applying a {@link RetentionPolicy} to the local database.
+ */
+public class RetentionResult {
+
+    private final int deletedTracks;
+    private final int compactedTracks;
+    private final int deletedMeasurements;
+    private final long sizeBefore;
+    private final long sizeAfter;
+    private final boolean skipped;
+    private final boolean autoVacuumConverted;
+
+    /**
+     * Constructor.
+     *
+     * @param deletedTracks       the number of tracks that have been deleted.
+     * @param compactedTracks     the number of tracks reduced to their summary.
+     * @param deletedMeasurements the number of measurements that have been deleted.
+     * @param sizeBefore          the size of the database file in bytes before.
+     * @param sizeAfter           the size of the database file in bytes afterwards.
+     * @param autoVacuumConverted true if the database has been converted to incremental auto
+     *                            vacuum by a full vacuum during this run.
+     */
+    public RetentionResult(int deletedTracks, int compactedTracks, int deletedMeasurements,
+                           long sizeBefore, long sizeAfter, boolean autoVacuumConverted) {
+        this(deletedTracks, compactedTracks, deletedMeasurements, sizeBefore, sizeAfter, false,
+                autoVacuumConverted);
+    }
+
+    private RetentionResult(int deletedTracks, int compactedTracks, int deletedMeasurements,
+                            long sizeBefore, long sizeAfter, boolean skipped,
+                            boolean autoVacuumConverted) {
+        this.deletedTracks = deletedTracks;
+        this.compactedTracks = compactedTracks;
+        this.deletedMeasurements = deletedMeasurements;
+        this.sizeBefore = sizeBefore;
+        this.sizeAfter = sizeAfter;
+        this.skipped = skipped;
+        this.autoVacuumConverted = autoVacuumConverted;
+    }
+
+    /**
+     * Creates the result of a run that has been skipped, e.g. because a track is being recorded.
+     *
+     * @param size the size of the database file in bytes.
+     * @return the result.
+     */
+    public static RetentionResult skipped(long size) {
+        return new RetentionResult(0, 0, 0, size, size, true, false);
+    }
+
+    public int getDeletedTracks() {
+        return deletedTracks;
+    }
+
+    public int getCompactedTracks() {
+        return compactedTracks;
+    }
+
+    public int getDeletedMeasurements() {
+        return deletedMeasurements;
+    }
+
+    public long getSizeBefore() {
+        return sizeBefore;
+    }
+
+    public long getSizeAfter() {
+        return sizeAfter;
+    }
+
+    /**
+     * @return true if nothing has been done because the retention could not run.
+     */
+    public boolean isSkipped() {
+        return skipped;
+    }
+
+    /**
+     * @return true if the database has been converted to incremental auto vacuum. The one-time
+     * conversion rewrites the whole file, the reclaimed bytes include the space it freed.
+     */
+    public boolean isAutoVacuumConverted() {
+        return autoVacuumConverted;
+    }
+
+    /**
+     * @return the number of bytes the database file has shrunk.
+     */
+    public long getBytesReclaimed() {
+        return Math.max(0, sizeBefore - sizeAfter);
+    }
+
+    @Override
+    public String toString() {
+        return "RetentionResult{" +
+                "skipped=" + skipped +
+                ", deletedTracks=" + deletedTracks +
+                ", compactedTracks=" + compactedTracks +
+                ", deletedMeasurements=" + deletedMeasurements +
+                ", bytesReclaimed=" + getBytesReclaimed() +
+                ", autoVacuumConverted=" + autoVacuumConverted +
+                '}';
+    }
+}
@@ -0,0 +1,89 @@
+/**
+ * Copyright (C) 2013 - 2021 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.core.util;
+
+import java.nio.ByteOrder;
+
+/**
+ * Constants of the binary track file format written by {@link TrackFileWriter} and read by
+ * {@link TrackFileReader}.
+ * <p>
+ * All values are little endian and every block starts at an 8 byte boundary, so that the columns
+ * of a memory mapped file can be accessed through {@link java.nio.LongBuffer} and
+ * {@link java.nio.DoubleBuffer} views without copying.
+ * <pre>
+ *   file    := magic (int) version (short) reserved (short) created (long) block*
+ *   block   := type (int) reserved (int) length (long) payload padding
+ *   TRACK   := block*                                  child blocks of a single track
+ *   HEADER  := trackId (long) startTime (long) endTime (long) length (double)
+ *              measurementCount (int) name description remoteId status metadata (string)
+ *   CAR     := constructionYear engineDisplacement weight (int) id manufacturer model fuelType
+ *              vehicleType (string)
+ *   TIME    := long[measurementCount]
+ *   LATITUDE, LONGITUDE := double[measurementCount]
+ *   PROPERTY := ordinal (int) reserved (int) presence (long[(measurementCount + 63) / 64])
+ *               double[measurementCount]
+ *   string  := length (int, -1 for null) UTF-8 bytes
+ * </pre>
+ * Properties are keyed by {@link org.envirocar.core.entity.Measurement.PropertyKey#ordinal()},
+ * the same as in {@link org.envirocar.core.entity.MeasurementPropertiesCodec}. Readers skip blocks
+ * of unknown types. Null longs are written as {@link Long#MIN_VALUE}, null doubles as NaN.
+ */
+public final class TrackFileFormat {
+
+    public static final String FILE_EXTENSION = ".ectrack";
+
+    public static final int MAGIC = 0x46544345; // "ECTF"
+    public static final short VERSION_1 = 1;
+    public static final ByteOrder BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    public static final int FILE_HEADER_SIZE = 16;
+    public static final int BLOCK_HEADER_SIZE = 16;
+    public static final int ALIGNMENT = 8;
+
+    public static final int BLOCK_TRACK = 1;
+    public static final int BLOCK_HEADER = 2;
+    public static final int BLOCK_CAR = 3;
+    public static final int BLOCK_TIME = 4;
+    public static final int BLOCK_LATITUDE = 5;
+    public static final int BLOCK_LONGITUDE = 6;
+    public static final int BLOCK_PROPERTY = 7;
+
+    public static final long NULL_LONG = Long.MIN_VALUE;
+
+    private TrackFileFormat() {
+        // private constructor
+    }
+
+    /**
+     * @param length a length in bytes.
+     * @return the length rounded up to the next block boundary.
+     */
+    public static long align(long length) {
+        return (length + ALIGNMENT - 1) & ~(long) (ALIGNMENT - 1);
+    }
+
+    /**
+     * @param measurementCount the number of measurements.
+     * @return the number of longs of a presence bitmap.
+     */
+    public static int presenceWords(int measurementCount) {
+        return (measurementCount + Long.SIZE - 1) / Long.SIZE;
+    }
+}
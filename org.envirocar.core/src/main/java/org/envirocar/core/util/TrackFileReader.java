@@ -0,0 +1,405 @@
+/**
+ * Copyright (C) 2013 - 2021 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.core.util;
+
+import org.envirocar.core.entity.Car;
+import org.envirocar.core.entity.CarImpl;
+import org.envirocar.core.entity.Measurement;
+import org.envirocar.core.entity.PrimitiveMeasurementImpl;
+import org.envirocar.core.entity.Track;
+import org.envirocar.core.entity.TrackImpl;
+import org.envirocar.core.logging.Logger;
+import org.json.JSONException;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Reader of the binary track file format, see {@link TrackFileFormat}. Files are memory mapped
+ * and the measurement columns are exposed as buffer views on the mapped file, nothing is copied
+ * until {@link Entry#toTrack()} is called.
+ */
+public class TrackFileReader implements Closeable {
+    private static final Logger LOG = Logger.getLogger(TrackFileReader.class);
+
+    private static final Measurement.PropertyKey[] KEYS = Measurement.PropertyKey.values();
+
+    private final ByteBuffer buffer;
+
+    /**
+     * Memory maps the given file.
+     *
+     * @param file the file to read.
+     * @return the reader.
+     * @throws IOException if the file cannot be mapped or has an invalid header.
+     */
+    public static TrackFileReader open(File file) throws IOException {
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r")) {
+            FileChannel channel = randomAccessFile.getChannel();
+            // the mapping stays valid after the channel has been closed
+            return new TrackFileReader(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param buffer the content of a track file.
+     * @throws IOException if the buffer has an invalid header.
+     */
+    public TrackFileReader(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer.duplicate().order(TrackFileFormat.BYTE_ORDER);
+
+        if (this.buffer.remaining() < TrackFileFormat.FILE_HEADER_SIZE
+                || this.buffer.getInt() != TrackFileFormat.MAGIC) {
+            throw new IOException("Not a track file");
+        }
+        short version = this.buffer.getShort();
+        if (version != TrackFileFormat.VERSION_1) {
+            throw new IOException(String.format("Unsupported track file version %s", version));
+        }
+        this.buffer.position(TrackFileFormat.FILE_HEADER_SIZE);
+    }
+
+    /**
+     * @return true if there is another track to read.
+     */
+    public boolean hasNext() {
+        return seekBlock(buffer, buffer.limit(), TrackFileFormat.BLOCK_TRACK);
+    }
+
+    /**
+     * Reads the next track of the file.
+     *
+     * @return the next track.
+     * @throws IOException if the track is malformed.
+     */
+    public Entry next() throws IOException {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        int start = buffer.position();
+        buffer.getInt();
+        long length = readBlockLength(buffer);
+        int end = checkedEnd(buffer, length);
+        Entry entry = new Entry(slice(buffer, buffer.position(), end));
+        buffer.position(end);
+        LOG.debug(String.format("next(): read track at offset %s", start));
+        return entry;
+    }
+
+    @Override
+    public void close() throws IOException {
+        // nothing to release, the mapping is unmapped once it is garbage collected
+    }
+
+    /**
+     * A single track of a track file.
+     */
+    public static final class Entry {
+        private Track track;
+        private int measurementCount;
+        private LongBuffer times;
+        private DoubleBuffer latitudes;
+        private DoubleBuffer longitudes;
+        private final Map<Measurement.PropertyKey, LongBuffer> presence =
+                new EnumMap<>(Measurement.PropertyKey.class);
+        private final Map<Measurement.PropertyKey, DoubleBuffer> values =
+                new EnumMap<>(Measurement.PropertyKey.class);
+
+        private Entry(ByteBuffer content) throws IOException {
+            try {
+                readBlocks(content);
+            } catch (BufferUnderflowException e) {
+                throw new IOException("Truncated track in track file", e);
+            }
+
+            if (track == null || times == null || latitudes == null || longitudes == null
+                    || times.remaining() != measurementCount
+                    || latitudes.remaining() != measurementCount
+                    || longitudes.remaining() != measurementCount) {
+                throw new IOException("Incomplete track in track file");
+            }
+            int words = TrackFileFormat.presenceWords(measurementCount);
+            for (Measurement.PropertyKey key : values.keySet()) {
+                if (presence.get(key).remaining() != words
+                        || values.get(key).remaining() != measurementCount) {
+                    throw new IOException(String.format("Incomplete property %s in track file", key));
+                }
+            }
+        }
+
+        private void readBlocks(ByteBuffer content) throws IOException {
+            while (content.remaining() >= TrackFileFormat.BLOCK_HEADER_SIZE) {
+                int type = content.getInt();
+                long length = readBlockLength(content);
+                int end = checkedEnd(content, length);
+                ByteBuffer block = slice(content, content.position(), end);
+                switch (type) {
+                    case TrackFileFormat.BLOCK_HEADER:
+                        readHeader(block);
+                        break;
+                    case TrackFileFormat.BLOCK_CAR:
+                        track.setCar(readCar(block));
+                        break;
+                    case TrackFileFormat.BLOCK_TIME:
+                        times = block.asLongBuffer();
+                        break;
+                    case TrackFileFormat.BLOCK_LATITUDE:
+                        latitudes = block.asDoubleBuffer();
+                        break;
+                    case TrackFileFormat.BLOCK_LONGITUDE:
+                        longitudes = block.asDoubleBuffer();
+                        break;
+                    case TrackFileFormat.BLOCK_PROPERTY:
+                        readProperty(block);
+                        break;
+                    default:
+                        // written by a newer version
+                        break;
+                }
+                content.position((int) Math.min(content.limit(), TrackFileFormat.align(end)));
+            }
+        }
+
+        /**
+         * @return the track without measurements.
+         */
+        public Track getTrack() {
+            return track;
+        }
+
+        public int getMeasurementCount() {
+            return measurementCount;
+        }
+
+        public LongBuffer getTimes() {
+            return times.duplicate();
+        }
+
+        public DoubleBuffer getLatitudes() {
+            return latitudes.duplicate();
+        }
+
+        public DoubleBuffer getLongitudes() {
+            return longitudes.duplicate();
+        }
+
+        public Set<Measurement.PropertyKey> getPropertyKeys() {
+            return values.keySet();
+        }
+
+        /**
+         * @param key the property key.
+         * @return the values of the property, absent values are 0, see {@link #isPresent}.
+         */
+        public DoubleBuffer getValues(Measurement.PropertyKey key) {
+            DoubleBuffer column = values.get(key);
+            return column != null ? column.duplicate() : null;
+        }
+
+        public boolean isPresent(Measurement.PropertyKey key, int index) {
+            LongBuffer bits = presence.get(key);
+            return bits != null && (bits.get(index >>> 6) & (1L << (index & 63))) != 0;
+        }
+
+        /**
+         * Creates the measurements of the track.
+         *
+         * @return the measurements in time order.
+         */
+        public List<Measurement> toMeasurements() {
+            List<Measurement> measurements = new ArrayList<>(measurementCount);
+            for (int i = 0; i < measurementCount; i++) {
+                Measurement measurement = new PrimitiveMeasurementImpl();
+                // unknown positions are written as NaN
+                double latitude = latitudes.get(i);
+                double longitude = longitudes.get(i);
+                if (!Double.isNaN(latitude)) {
+                    measurement.setLatitude(latitude);
+                }
+                if (!Double.isNaN(longitude)) {
+                    measurement.setLongitude(longitude);
+                }
+                measurement.setTime(times.get(i));
+                measurement.setTrackId(track.getTrackID());
+                for (Map.Entry<Measurement.PropertyKey, DoubleBuffer> column : values.entrySet()) {
+                    if (isPresent(column.getKey(), i)) {
+                        measurement.setDouble(column.getKey(), column.getValue().get(i));
+                    }
+                }
+                measurements.add(measurement);
+            }
+            return measurements;
+        }
+
+        /**
+         * @return the track together with its measurements.
+         */
+        public Track toTrack() {
+            track.setMeasurements(toMeasurements());
+            return track;
+        }
+
+        private void readHeader(ByteBuffer block) throws IOException {
+            long trackId = block.getLong();
+            long startTime = block.getLong();
+            long endTime = block.getLong();
+            double length = block.getDouble();
+            measurementCount = block.getInt();
+            String name = readString(block);
+            String description = readString(block);
+            String remoteId = readString(block);
+            String status = readString(block);
+            String metadata = readString(block);
+
+            track = new TrackImpl();
+            if (trackId != TrackFileFormat.NULL_LONG) {
+                track.setTrackID(new Track.TrackId(trackId));
+            }
+            track.setName(name);
+            track.setDescription(description);
+            track.setRemoteID(remoteId);
+            if (startTime != TrackFileFormat.NULL_LONG) {
+                track.setStartTime(startTime);
+            }
+            if (endTime != TrackFileFormat.NULL_LONG) {
+                track.setEndTime(endTime);
+            }
+            if (!Double.isNaN(length)) {
+                track.setLength(length);
+            }
+            if (status != null) {
+                track.setTrackStatus(Track.TrackStatus.valueOf(status));
+            }
+            if (metadata != null) {
+                try {
+                    track.setMetadata(TrackMetadata.fromJson(metadata));
+                } catch (JSONException e) {
+                    throw new IOException("Invalid track metadata", e);
+                }
+            }
+        }
+
+        private static Car readCar(ByteBuffer block) throws IOException {
+            int constructionYear = block.getInt();
+            int engineDisplacement = block.getInt();
+            int weight = block.getInt();
+            String id = readString(block);
+            String manufacturer = readString(block);
+            String model = readString(block);
+            String fuelType = readString(block);
+            String vehicleType = readString(block);
+
+            CarImpl car = new CarImpl(id, manufacturer, model,
+                    fuelType != null ? Car.FuelType.valueOf(fuelType) : null,
+                    constructionYear, engineDisplacement);
+            car.setWeight(weight);
+            if (vehicleType != null) {
+                car.setVehicleType(Car.VehicleType.valueOf(vehicleType));
+            }
+            return car;
+        }
+
+        private void readProperty(ByteBuffer block) throws IOException {
+            int ordinal = block.getInt();
+            block.getInt();
+            if (ordinal < 0 || ordinal >= KEYS.length) {
+                // written by a newer version
+                return;
+            }
+            int words = TrackFileFormat.presenceWords(measurementCount);
+            int valuesStart = block.position() + words * 8;
+            if (valuesStart > block.limit()) {
+                throw new IOException("Truncated property in track file");
+            }
+            presence.put(KEYS[ordinal], slice(block, block.position(), valuesStart).asLongBuffer());
+            values.put(KEYS[ordinal], slice(block, valuesStart, block.limit()).asDoubleBuffer());
+        }
+    }
+
+    /**
+     * Moves the buffer to the next block of the given type, skipping blocks of other types.
+     */
+    private static boolean seekBlock(ByteBuffer buffer, int limit, int type) {
+        while (limit - buffer.position() >= TrackFileFormat.BLOCK_HEADER_SIZE) {
+            int position = buffer.position();
+            if (buffer.getInt(position) == type) {
+                return true;
+            }
+            long length = buffer.getLong(position + 8);
+            long next = position + TrackFileFormat.BLOCK_HEADER_SIZE + TrackFileFormat.align(length);
+            if (length < 0 || next > limit) {
+                return false;
+            }
+            buffer.position((int) next);
+        }
+        return false;
+    }
+
+    /**
+     * Reads the remainder of a block header after its type, i.e. the reserved field and length.
+     */
+    private static long readBlockLength(ByteBuffer buffer) {
+        buffer.getInt();
+        return buffer.getLong();
+    }
+
+    private static int checkedEnd(ByteBuffer buffer, long length) throws IOException {
+        long end = buffer.position() + length;
+        if (length < 0 || end > buffer.limit()) {
+            throw new IOException("Truncated block in track file");
+        }
+        return (int) end;
+    }
+
+    private static ByteBuffer slice(ByteBuffer buffer, int start, int end) {
+        ByteBuffer duplicate = buffer.duplicate();
+        duplicate.limit(end);
+        duplicate.position(start);
+        return duplicate.slice().order(TrackFileFormat.BYTE_ORDER);
+    }
+
+    private static String readString(ByteBuffer buffer) throws IOException {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > buffer.remaining()) {
+            throw new IOException("Truncated string in track file");
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,330 @@
+/**
+ * Copyright (C) 2013 - 2021 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.core.util;
+
+import org.envirocar.core.entity.Car;
+import org.envirocar.core.entity.Measurement;
+import org.envirocar.core.entity.Track;
+import org.envirocar.core.logging.Logger;
+import org.json.JSONException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Streaming writer of the binary track file format, see {@link TrackFileFormat}. Tracks are
+ * written one after another, only the columns of the track currently written are kept in memory.
+ */
+public class TrackFileWriter implements Closeable {
+    private static final Logger LOG = Logger.getLogger(TrackFileWriter.class);
+
+    private static final Measurement.PropertyKey[] KEYS = Measurement.PropertyKey.values();
+    private static final int INITIAL_CAPACITY = 256;
+
+    private final WritableByteChannel channel;
+    private ByteBuffer buffer = allocate(4096);
+
+    // columns of the track that is currently written
+    private int count;
+    private long[] times = new long[INITIAL_CAPACITY];
+    private double[] latitudes = new double[INITIAL_CAPACITY];
+    private double[] longitudes = new double[INITIAL_CAPACITY];
+    private final double[][] values = new double[KEYS.length][];
+    private final long[][] presence = new long[KEYS.length][];
+
+    /**
+     * Constructor. Writes the file header.
+     *
+     * @param outputStream the stream to write to, it is closed together with the writer.
+     * @throws IOException if the header cannot be written.
+     */
+    public TrackFileWriter(OutputStream outputStream) throws IOException {
+        this.channel = Channels.newChannel(outputStream);
+
+        buffer.clear();
+        buffer.putInt(TrackFileFormat.MAGIC);
+        buffer.putShort(TrackFileFormat.VERSION_1);
+        buffer.putShort((short) 0);
+        buffer.putLong(System.currentTimeMillis());
+        flip();
+    }
+
+    /**
+     * Writes a track together with its measurements.
+     *
+     * @param track the track to write.
+     * @throws IOException if the track cannot be written.
+     */
+    public void writeTrack(Track track) throws IOException {
+        writeTrack(track, track.getMeasurements());
+    }
+
+    /**
+     * Writes a track with the given measurements, e.g. measurements that are streamed from the
+     * database instead of being held by the track.
+     *
+     * @param track        the track to write, its measurements are ignored.
+     * @param measurements the measurements of the track in time order.
+     * @throws IOException if the track cannot be written.
+     */
+    public void writeTrack(Track track, Iterable<Measurement> measurements) throws IOException {
+        collectColumns(measurements);
+
+        byte[] header = encodeHeader(track);
+        byte[] car = track.getCar() != null ? encodeCar(track.getCar()) : null;
+
+        long length = blockLength(header.length)
+                + (car != null ? blockLength(car.length) : 0)
+                + blockLength(count * 8L) * 3;
+        for (int ordinal = 0; ordinal < KEYS.length; ordinal++) {
+            if (values[ordinal] != null) {
+                length += blockLength(propertyLength());
+            }
+        }
+
+        writeBlockHeader(TrackFileFormat.BLOCK_TRACK, length);
+        writeBlock(TrackFileFormat.BLOCK_HEADER, header);
+        if (car != null) {
+            writeBlock(TrackFileFormat.BLOCK_CAR, car);
+        }
+
+        writeBlockHeader(TrackFileFormat.BLOCK_TIME, count * 8L);
+        ensureCapacity(count * 8);
+        buffer.clear();
+        buffer.asLongBuffer().put(times, 0, count);
+        buffer.position(count * 8);
+        flip();
+        writeDoubleBlock(TrackFileFormat.BLOCK_LATITUDE, latitudes);
+        writeDoubleBlock(TrackFileFormat.BLOCK_LONGITUDE, longitudes);
+
+        for (int ordinal = 0; ordinal < KEYS.length; ordinal++) {
+            if (values[ordinal] == null) {
+                continue;
+            }
+            writeBlockHeader(TrackFileFormat.BLOCK_PROPERTY, propertyLength());
+            int words = TrackFileFormat.presenceWords(count);
+            ensureCapacity((int) propertyLength());
+            buffer.clear();
+            buffer.putInt(ordinal);
+            buffer.putInt(0);
+            buffer.asLongBuffer().put(presence[ordinal], 0, words);
+            buffer.position(buffer.position() + words * 8);
+            buffer.asDoubleBuffer().put(values[ordinal], 0, count);
+            buffer.position(buffer.position() + count * 8);
+            flip();
+        }
+        LOG.debug(String.format("writeTrack(): wrote track %s with %s measurements",
+                track.getTrackID(), count));
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void collectColumns(Iterable<Measurement> measurements) {
+        count = 0;
+        Arrays.fill(values, null);
+        Arrays.fill(presence, null);
+        if (measurements == null) {
+            return;
+        }
+
+        for (Measurement measurement : measurements) {
+            if (count == times.length) {
+                int capacity = count * 2;
+                times = Arrays.copyOf(times, capacity);
+                latitudes = Arrays.copyOf(latitudes, capacity);
+                longitudes = Arrays.copyOf(longitudes, capacity);
+                for (int ordinal = 0; ordinal < KEYS.length; ordinal++) {
+                    if (values[ordinal] != null) {
+                        values[ordinal] = Arrays.copyOf(values[ordinal], capacity);
+                        presence[ordinal] = Arrays.copyOf(presence[ordinal],
+                                TrackFileFormat.presenceWords(capacity));
+                    }
+                }
+            }
+
+            times[count] = measurement.getTime();
+            latitudes[count] = toDouble(measurement.getLatitude());
+            longitudes[count] = toDouble(measurement.getLongitude());
+            for (Map.Entry<Measurement.PropertyKey, Double> entry : measurement.getAllProperties().entrySet()) {
+                if (entry.getValue() == null) {
+                    continue;
+                }
+                int ordinal = entry.getKey().ordinal();
+                if (values[ordinal] == null) {
+                    values[ordinal] = new double[times.length];
+                    presence[ordinal] = new long[TrackFileFormat.presenceWords(times.length)];
+                }
+                values[ordinal][count] = entry.getValue();
+                presence[ordinal][count >>> 6] |= 1L << (count & 63);
+            }
+            count++;
+        }
+    }
+
+    private long propertyLength() {
+        return 8 + TrackFileFormat.presenceWords(count) * 8L + count * 8L;
+    }
+
+    private byte[] encodeHeader(Track track) throws IOException {
+        String metadata = null;
+        if (track.getMetadata() != null) {
+            try {
+                metadata = track.getMetadata().toJsonString();
+            } catch (JSONException e) {
+                throw new IOException("Unable to encode the track metadata", e);
+            }
+        }
+
+        byte[][] strings = {
+                encode(track.getName()),
+                encode(track.getDescription()),
+                encode(track.getRemoteID()),
+                encode(track.getTrackStatus() != null ? track.getTrackStatus().name() : null),
+                encode(metadata)
+        };
+        ByteBuffer header = allocate(8 * 4 + 4 + stringsLength(strings));
+        header.putLong(track.getTrackID() != null ? track.getTrackID().getId() : TrackFileFormat.NULL_LONG);
+        header.putLong(toLong(track.getStartTime()));
+        header.putLong(toLong(track.getEndTime()));
+        header.putDouble(toDouble(track.getLength()));
+        header.putInt(count);
+        putStrings(header, strings);
+        return header.array();
+    }
+
+    private byte[] encodeCar(Car car) {
+        byte[][] strings = {
+                encode(car.getId()),
+                encode(car.getManufacturer()),
+                encode(car.getModel()),
+                encode(car.getFuelType() != null ? car.getFuelType().name() : null),
+                encode(car.getVehicleType() != null ? car.getVehicleType().name() : null)
+        };
+        ByteBuffer block = allocate(4 * 3 + stringsLength(strings));
+        block.putInt(car.getConstructionYear());
+        block.putInt(car.getEngineDisplacement());
+        block.putInt(car.getWeight());
+        putStrings(block, strings);
+        return block.array();
+    }
+
+    private void writeDoubleBlock(int type, double[] column) throws IOException {
+        writeBlockHeader(type, count * 8L);
+        ensureCapacity(count * 8);
+        buffer.clear();
+        buffer.asDoubleBuffer().put(column, 0, count);
+        buffer.position(count * 8);
+        flip();
+    }
+
+    private void writeBlock(int type, byte[] payload) throws IOException {
+        writeBlockHeader(type, payload.length);
+        ensureCapacity(payload.length);
+        buffer.clear();
+        buffer.put(payload);
+        flip();
+    }
+
+    private void writeBlockHeader(int type, long length) throws IOException {
+        buffer.clear();
+        buffer.putInt(type);
+        buffer.putInt(0);
+        buffer.putLong(length);
+        flip();
+    }
+
+    /**
+     * Writes the buffer up to its position, padded to the next block boundary.
+     */
+    private void flip() throws IOException {
+        int padding = (int) (TrackFileFormat.align(buffer.position()) - buffer.position());
+        ensureCapacityKeepingContent(buffer.position() + padding);
+        for (int i = 0; i < padding; i++) {
+            buffer.put((byte) 0);
+        }
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (buffer.capacity() < capacity + TrackFileFormat.ALIGNMENT) {
+            buffer = allocate(capacity + TrackFileFormat.ALIGNMENT);
+        }
+    }
+
+    private void ensureCapacityKeepingContent(int capacity) {
+        if (buffer.capacity() < capacity) {
+            ByteBuffer larger = allocate(capacity);
+            buffer.flip();
+            larger.put(buffer);
+            buffer = larger;
+        }
+    }
+
+    private static long blockLength(long payloadLength) {
+        return TrackFileFormat.BLOCK_HEADER_SIZE + TrackFileFormat.align(payloadLength);
+    }
+
+    private static int stringsLength(byte[][] strings) {
+        int length = 0;
+        for (byte[] string : strings) {
+            length += 4 + (string != null ? string.length : 0);
+        }
+        return length;
+    }
+
+    private static void putStrings(ByteBuffer target, byte[][] strings) {
+        for (byte[] string : strings) {
+            if (string == null) {
+                target.putInt(-1);
+            } else {
+                target.putInt(string.length);
+                target.put(string);
+            }
+        }
+    }
+
+    private static byte[] encode(String string) {
+        return string != null ? string.getBytes(StandardCharsets.UTF_8) : null;
+    }
+
+    private static long toLong(Long value) {
+        return value != null ? value : TrackFileFormat.NULL_LONG;
+    }
+
+    private static double toDouble(Double value) {
+        return value != null ? value : Double.NaN;
+    }
+
+    private static ByteBuffer allocate(int capacity) {
+        return ByteBuffer.allocate(capacity).order(TrackFileFormat.BYTE_ORDER);
+    }
+}
@@ -0,0 +1,141 @@
+/**
+ * Copyright (C) 2013 - 2021 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.core.utils;
+
+/**
+ * Douglas-Peucker simplification of polylines given in WGS84 coordinates.
+ * <p>
+ * Instead of simplifying once per tolerance, {@link #computeSignificance} runs the algorithm a
+ * single time and assigns every point the largest tolerance for which it is still kept. Any level
+ * of detail is then a linear scan by {@link #simplify}.
+ */
+public final class PolylineSimplifier {
+
+    private static final double EARTH_RADIUS = 6371008.8;
+
+    private PolylineSimplifier() {
+    }
+
+    /**
+     * Computes the significance of every point, i.e. the largest tolerance in meters for which
+     * the Douglas-Peucker algorithm keeps the point. The first and last point are always kept.
+     *
+     * @param latitudes  the latitudes of the polyline.
+     * @param longitudes the longitudes of the polyline.
+     * @param count      the number of points to consider.
+     * @return the significance of every point in meters.
+     */
+    public static double[] computeSignificance(double[] latitudes, double[] longitudes, int count) {
+        double[] significance = new double[count];
+        if (count == 0) {
+            return significance;
+        }
+        significance[0] = Double.POSITIVE_INFINITY;
+        significance[count - 1] = Double.POSITIVE_INFINITY;
+        if (count < 3) {
+            return significance;
+        }
+
+        // equirectangular projection to meters, sufficient for the extent of a track
+        double cosLatitude = Math.cos(Math.toRadians(latitudes[0]));
+        double[] x = new double[count];
+        double[] y = new double[count];
+        for (int i = 0; i < count; i++) {
+            x[i] = Math.toRadians(longitudes[i]) * cosLatitude * EARTH_RADIUS;
+            y[i] = Math.toRadians(latitudes[i]) * EARTH_RADIUS;
+        }
+
+        // explicit stack of (first, last, significance of the parent split)
+        int[] segments = new int[2 * count];
+        double[] parents = new double[count];
+        int top = 0;
+        segments[0] = 0;
+        segments[1] = count - 1;
+        parents[0] = Double.POSITIVE_INFINITY;
+        top++;
+
+        while (top > 0) {
+            top--;
+            int first = segments[2 * top];
+            int last = segments[2 * top + 1];
+            double parent = parents[top];
+            if (last - first < 2) {
+                continue;
+            }
+
+            int index = first;
+            double maxDistance = -1;
+            for (int i = first + 1; i < last; i++) {
+                double distance = segmentDistance(x[i], y[i], x[first], y[first], x[last], y[last]);
+                if (distance > maxDistance) {
+                    maxDistance = distance;
+                    index = i;
+                }
+            }
+
+            // a point can never be more significant than the split that made it a candidate
+            double value = Math.min(maxDistance, parent);
+            significance[index] = value;
+
+            segments[2 * top] = first;
+            segments[2 * top + 1] = index;
+            parents[top++] = value;
+            segments[2 * top] = index;
+            segments[2 * top + 1] = last;
+            parents[top++] = value;
+        }
+        return significance;
+    }
+
+    /**
+     * Returns the indices of the points that are kept for the given tolerance.
+     *
+     * @param significance the significance as computed by {@link #computeSignificance}.
+     * @param tolerance    the tolerance in meters.
+     * @return the indices of the kept points in ascending order.
+     */
+    public static int[] simplify(double[] significance, double tolerance) {
+        int size = 0;
+        for (double value : significance) {
+            if (value > tolerance) {
+                size++;
+            }
+        }
+
+        int[] indices = new int[size];
+        int next = 0;
+        for (int i = 0; i < significance.length; i++) {
+            if (significance[i] > tolerance) {
+                indices[next++] = i;
+            }
+        }
+        return indices;
+    }
+
+    private static double segmentDistance(double px, double py, double ax, double ay, double bx, double by) {
+        double dx = bx - ax;
+        double dy = by - ay;
+        double lengthSquared = dx * dx + dy * dy;
+        if (lengthSquared == 0) {
+            return Math.hypot(px - ax, py - ay);
+        }
+        double t = Math.max(0, Math.min(1, ((px - ax) * dx + (py - ay) * dy) / lengthSquared));
+        return Math.hypot(px - (ax + t * dx), py - (ay + t * dy));
+    }
+}
@@ -109,17 +109,10 @@ public class PIDSupported implements BasicCommand {
             }
 
             Set<PID> list = new HashSet<>();
-            /**
-             * conver to hex string so the PIDUtil can parse it
-             */
             for (Integer pidInt : pids) {
                 LOG.info("Supported RAW PIDs: " + pidInt);
 
-                String hex = Integer.toHexString(pidInt);
-                if (hex.length() == 1) {
-                    hex = "0".concat(hex);
-                }
-                PID tmp = PIDUtil.fromString(hex);
+                PID tmp = PIDUtil.fromByte(pidInt);
                 if (tmp != null) {
                     list.add(tmp);
                 }
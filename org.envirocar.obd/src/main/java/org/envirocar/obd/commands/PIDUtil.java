@@ -24,18 +24,55 @@ import org.envirocar.obd.commands.request.PIDCommand;
 
 public class PIDUtil {
 
+	// PIDs indexed by their byte value
+	private static final PID[] BY_BYTE = new PID[256];
+
+	static {
+		for (PID p : PID.values()) {
+			BY_BYTE[Integer.parseInt(p.getHexadecimalRepresentation(), 16)] = p;
+		}
+	}
+
 	public static PID fromString(String s) {
-		if (s == null || s.isEmpty()) {
+		if (s == null || s.length() != 2) {
 			return null;
 		}
-		
-		for (PID p : PID.values()) {
-			if (s.equalsIgnoreCase(p.getHexadecimalRepresentation())) {
-				return p;
-			}
+		return fromHex(s.charAt(0), s.charAt(1));
+	}
+
+	/**
+	 * @param value the byte value of the PID, 0 to 255.
+	 * @return the PID or null if the value is not a known PID.
+	 */
+	public static PID fromByte(int value) {
+		return value >= 0 && value < BY_BYTE.length ? BY_BYTE[value] : null;
+	}
+
+	/**
+	 * Parses the hexadecimal representation of a PID, ignoring the case.
+	 *
+	 * @param high the first hex digit.
+	 * @param low  the second hex digit.
+	 * @return the PID or null if the digits are invalid or not a known PID.
+	 */
+	public static PID fromHex(int high, int low) {
+		int h = Character.digit(high, 16);
+		int l = Character.digit(low, 16);
+		if (h < 0 || l < 0) {
+			return null;
 		}
-		
-		return null;
+		return BY_BYTE[(h << 4) | l];
+	}
+
+	/**
+	 * Parses the hexadecimal representation of a PID from two ASCII characters of a response.
+	 *
+	 * @param data   the raw response.
+	 * @param offset the offset of the first hex digit.
+	 * @return the PID or null if the digits are invalid or not a known PID.
+	 */
+	public static PID fromHex(byte[] data, int offset) {
+		return fromHex(data[offset], data[offset + 1]);
 	}
 
 	
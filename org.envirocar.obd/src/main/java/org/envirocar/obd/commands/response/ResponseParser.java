@@ -81,32 +81,34 @@ public class ResponseParser {
 
         PID pid = null;
         while (index + length <= data.length) {
-            String tmp = new String(data, index, length);
-
             // this is the status
             if (index == 0) {
-                if (!tmp.equals(STATUS_OK)) {
+                if (data[0] != STATUS_OK.charAt(0) || data[1] != STATUS_OK.charAt(1)) {
                     error = true;
                 }
             }
             // this is the ID byte
             else if (index == 2) {
-                pid = PIDUtil.fromString(tmp);
+                pid = PIDUtil.fromHex(data, index);
                 if (error || pid == null) {
-                    throw new InvalidCommandResponseException(pid == null ? tmp : pid.toString());
+                    throw new InvalidCommandResponseException(pid == null ?
+                            new String(data, index, length) : pid.toString());
                 }
             } else {
                 if (error || pid == null){
-                    throw new InvalidCommandResponseException(pid == null ? tmp : pid.toString());
+                    throw new InvalidCommandResponseException(pid == null ?
+                            new String(data, index, length) : pid.toString());
                 }
 
                 /*
                  * this is a hex number
                  */
-                buffer[index / 2] = Integer.parseInt(tmp, 16);
-                if (buffer[index / 2] < 0) {
+                int high = Character.digit(data[index], 16);
+                int low = Character.digit(data[index + 1], 16);
+                if (high < 0 || low < 0) {
                     throw new InvalidCommandResponseException(pid.toString());
                 }
+                buffer[index / 2] = (high << 4) | low;
             }
 
             index += length;
@@ -27,8 +27,9 @@ import com.google.gson.JsonParseException;
 import com.google.gson.JsonSerializationContext;
 import com.google.gson.JsonSerializer;
 
+import org.envirocar.core.entity.ColumnarTrack;
 import org.envirocar.core.entity.Measurement;
-import org.envirocar.core.entity.MeasurementImpl;
+import org.envirocar.core.entity.PrimitiveMeasurementImpl;
 import org.envirocar.core.entity.Track;
 import org.envirocar.core.logging.Logger;
 import org.envirocar.core.util.Util;
@@ -57,35 +58,76 @@ public class MeasurementSerde implements JsonSerializer<Measurement>,
         JsonObject jsonObject = json.getAsJsonObject();
 
         // Get the coordinates of the measurement
-        JsonArray coords = jsonObject.getAsJsonObject()
-                .get(Track.KEY_TRACK_FEATURES_GEOMETRY).getAsJsonObject()
-                .get(Track.KEY_TRACK_FEATURES_GEOMETRY_COORDINATES).getAsJsonArray();
-
-        Measurement result = new MeasurementImpl();
+        JsonArray coords = getCoordinates(jsonObject);
+        Measurement result = new PrimitiveMeasurementImpl();
         result.setLatitude(coords.get(1).getAsFloat());
         result.setLongitude(coords.get(0).getAsFloat());
 
         // Get the properties of the measurement
         JsonObject propertiesObject = jsonObject.getAsJsonObject(
                 Track.KEY_TRACK_FEATURES_PROPERTIES);
-        try {
-            // Parse the time.
-            result.setTime(Util.isoDateToLong(propertiesObject.get(
-                    Track.KEY_TRACK_FEATURES_PROPERTIES_TIME).getAsString()));
-        } catch (ParseException e) {
-            new JsonParseException(e);
-        }
+        result.setTime(parseTime(propertiesObject));
 
         // Get all the phenomenons and its measured values.
-        JsonObject phenomenonsObject = propertiesObject.get(Track
-                .KEY_TRACK_FEATURES_PROPERTIES_PHENOMENONS).getAsJsonObject();
-        Set<Map.Entry<String, JsonElement>> entries = phenomenonsObject.entrySet();
-        for (Map.Entry<String, JsonElement> entry : entries) {
-            Double value = entry.getValue().getAsJsonObject().get(Track
-                    .KEY_TRACK_FEATURES_PROPERTIES_PHENOMENONS_VALUE).getAsDouble();
-            result.setProperty(Measurement.PropertyKeyValues.get(entry.getKey()), value);
+        for (Map.Entry<String, JsonElement> entry : getPhenomenons(propertiesObject)) {
+            Measurement.PropertyKey key = Measurement.PropertyKey.fromPhenomenon(entry.getKey());
+            if (key == null) {
+                // phenomenon unknown to this version of the app
+                continue;
+            }
+            result.setDouble(key, parseValue(entry.getValue()));
         }
 
         return result;
     }
+
+    /**
+     * Parses a measurement feature directly into a new row of the given track without creating
+     * a measurement object.
+     *
+     * @param track   the track to append to.
+     * @param feature the json object of the measurement.
+     * @return the row of the measurement.
+     */
+    static int appendTo(ColumnarTrack track, JsonObject feature) throws JsonParseException {
+        JsonArray coords = getCoordinates(feature);
+        JsonObject propertiesObject = feature.getAsJsonObject(Track.KEY_TRACK_FEATURES_PROPERTIES);
+        int row = track.append(parseTime(propertiesObject), coords.get(1).getAsFloat(),
+                coords.get(0).getAsFloat());
+
+        for (Map.Entry<String, JsonElement> entry : getPhenomenons(propertiesObject)) {
+            Measurement.PropertyKey key = Measurement.PropertyKey.fromPhenomenon(entry.getKey());
+            if (key == null) {
+                // phenomenon unknown to this version of the app
+                continue;
+            }
+            track.setDouble(row, key, parseValue(entry.getValue()));
+        }
+        return row;
+    }
+
+    private static JsonArray getCoordinates(JsonObject feature) {
+        return feature.get(Track.KEY_TRACK_FEATURES_GEOMETRY).getAsJsonObject()
+                .get(Track.KEY_TRACK_FEATURES_GEOMETRY_COORDINATES).getAsJsonArray();
+    }
+
+    private static long parseTime(JsonObject propertiesObject) {
+        try {
+            return Util.isoDateToLong(propertiesObject.get(
+                    Track.KEY_TRACK_FEATURES_PROPERTIES_TIME).getAsString());
+        } catch (ParseException e) {
+            LOG.warn("Unable to parse the time of a measurement", e);
+            return 0;
+        }
+    }
+
+    private static Set<Map.Entry<String, JsonElement>> getPhenomenons(JsonObject propertiesObject) {
+        return propertiesObject.get(Track.KEY_TRACK_FEATURES_PROPERTIES_PHENOMENONS)
+                .getAsJsonObject().entrySet();
+    }
+
+    private static double parseValue(JsonElement phenomenon) {
+        return phenomenon.getAsJsonObject()
+                .get(Track.KEY_TRACK_FEATURES_PROPERTIES_PHENOMENONS_VALUE).getAsDouble();
+    }
 }
@@ -33,9 +33,9 @@ import com.google.gson.JsonSerializer;
 import com.google.gson.stream.JsonWriter;
 
 import org.envirocar.core.entity.Car;
+import org.envirocar.core.entity.ColumnarTrack;
 import org.envirocar.core.entity.Measurement;
 import org.envirocar.core.entity.Track;
-import org.envirocar.core.entity.TrackImpl;
 import org.envirocar.core.logging.Logger;
 import org.envirocar.core.util.FileWithMetadata;
 import org.envirocar.core.util.Util;
@@ -48,10 +48,8 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.lang.reflect.Type;
-import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 
 import static org.envirocar.core.entity.Measurement.PropertyKey.CALCULATED_MAF;
@@ -239,17 +237,16 @@ public class TrackSerde extends AbstractJsonSerde implements JsonSerializer<Trac
         JsonObject carObject = p.get(Track.KEY_TRACK_SENSOR).getAsJsonObject();
         Car car = context.deserialize(carObject, Car.class);
 
-        // Parse the measurements
+        // Create the track
+        ColumnarTrack track = new ColumnarTrack(Track.DownloadState.DOWNLOADED);
+
+        // Parse the measurements straight into the columns of the track
         JsonArray measurementsJsonArray = json.getAsJsonObject().get(Track.KEY_TRACK_FEATURES).getAsJsonArray();
-        List<Measurement> measurements = new ArrayList<>();
+        track.ensureCapacity(measurementsJsonArray.size());
         for (int i = 0; i < measurementsJsonArray.size(); i++) {
-            JsonObject measurementObject = measurementsJsonArray.get(i).getAsJsonObject();
-            measurements.add(context.deserialize(
-                    measurementObject, Measurement.class));
+            MeasurementSerde.appendTo(track, measurementsJsonArray.get(i).getAsJsonObject());
         }
 
-        // Create the track
-        Track track = new TrackImpl(Track.DownloadState.DOWNLOADED);
         track.setTrackStatus(Track.TrackStatus.FINISHED);
         track.setRemoteID(id);
         track.setName(name);
@@ -259,7 +256,6 @@ public class TrackSerde extends AbstractJsonSerde implements JsonSerializer<Trac
 
         track.setLength(length);
         track.setCar(car);
-        track.setMeasurements(measurements); // Storing happens here...
 
         return track;
     }
@@ -271,13 +267,12 @@ public class TrackSerde extends AbstractJsonSerde implements JsonSerializer<Trac
         }
 
         JsonObject result = new JsonObject();
-        Map<Measurement.PropertyKey, Double> props = measurement.getAllProperties();
-        for (Measurement.PropertyKey key : props.keySet()) {
-            if (supportedPhenomenons.contains(key)) {
+        for (Measurement.PropertyKey key : supportedPhenomenons) {
+            if (measurement.hasProperty(key)) {
                 if (isDiesel && (key == Measurement.PropertyKey.CO2 || key == Measurement.PropertyKey.CONSUMPTION)) {
                     // DO NOTHING TODO delete when necessary
                 } else {
-                    result.add(key.toString(), createValue(props.get(key)));
+                    result.add(key.toString(), createValue(measurement.getDouble(key)));
                 }
             }
         }
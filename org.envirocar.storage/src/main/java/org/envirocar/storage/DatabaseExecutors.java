@@ -0,0 +1,130 @@
+/**
+ * Copyright (C) 2013 - 2021 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.storage;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.reactivex.Scheduler;
+import io.reactivex.schedulers.Schedulers;
+
+/**
+ * Executors used for all accesses to the Room databases: a bounded pool for queries and a single
+ * thread that serializes all write transactions.
+ */
+public final class DatabaseExecutors {
+
+    private static final int QUERY_THREADS = 3;
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    private final ExecutorService queryExecutor;
+    private final ExecutorService writeExecutor;
+    private final Scheduler queryScheduler;
+    private final Scheduler writeScheduler;
+    private volatile Thread writeThread;
+
+    /**
+     * Constructor.
+     */
+    public DatabaseExecutors() {
+        ThreadPoolExecutor queryPool = new ThreadPoolExecutor(QUERY_THREADS, QUERY_THREADS,
+                KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                new NamedThreadFactory("envirocar-db-query"));
+        queryPool.allowCoreThreadTimeOut(true);
+        this.queryExecutor = queryPool;
+
+        // the pool has at most one thread at a time, the current one is remembered
+        NamedThreadFactory writeThreadFactory = new NamedThreadFactory("envirocar-db-write");
+        ThreadPoolExecutor writePool = new ThreadPoolExecutor(1, 1,
+                KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                runnable -> writeThread = writeThreadFactory.newThread(runnable));
+        writePool.allowCoreThreadTimeOut(true);
+        this.writeExecutor = writePool;
+
+        this.queryScheduler = Schedulers.from(queryExecutor);
+        this.writeScheduler = Schedulers.from(writeExecutor);
+    }
+
+    public ExecutorService getQueryExecutor() {
+        return queryExecutor;
+    }
+
+    public ExecutorService getWriteExecutor() {
+        return writeExecutor;
+    }
+
+    /**
+     * @return the scheduler for read-only database operations.
+     */
+    public Scheduler getQueryScheduler() {
+        return queryScheduler;
+    }
+
+    /**
+     * @return the scheduler for database operations that write, all of them run serialized.
+     */
+    public Scheduler getWriteScheduler() {
+        return writeScheduler;
+    }
+
+    /**
+     * Runs a write operation on the write thread and waits for its result, so that synchronous
+     * writes are serialized with all other writes. Runs the operation directly if called on the
+     * write thread itself.
+     *
+     * @param operation the write operation.
+     * @return the result of the operation.
+     * @throws Exception the exception thrown by the operation, or an InterruptedException if
+     *                   the caller has been interrupted while waiting.
+     */
+    public <T> T write(Callable<T> operation) throws Exception {
+        if (Thread.currentThread() == writeThread) {
+            return operation.call();
+        }
+        try {
+            return writeExecutor.submit(operation).get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw (Error) cause;
+        }
+    }
+
+    static final class NamedThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+        private final String prefix;
+
+        NamedThreadFactory(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            return new Thread(runnable, prefix + "-" + count.incrementAndGet());
+        }
+    }
+}
@@ -19,13 +19,12 @@
 package org.envirocar.storage;
 
 import android.content.Context;
+import android.content.pm.ApplicationInfo;
 
 import androidx.room.Room;
 import androidx.room.RoomDatabase;
-import androidx.annotation.NonNull;
 import androidx.room.Room;
 import androidx.room.RoomDatabase;
-import androidx.sqlite.db.SupportSQLiteDatabase;
 import androidx.sqlite.db.SupportSQLiteOpenHelper;
 import androidx.sqlite.db.framework.*;
 
@@ -33,15 +32,10 @@ import com.squareup.sqlbrite3.BriteDatabase;
 import com.squareup.sqlbrite3.SqlBrite;
 
 import org.envirocar.core.EnviroCarDB;
-import org.envirocar.core.entity.PowerSource;
-import org.envirocar.core.entity.Vehicles;
 import org.envirocar.core.injection.InjectApplicationScope;
 import org.envirocar.core.logging.Logger;
-import org.envirocar.core.utils.DataGenerator;
 
-import java.util.List;
-import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
+import java.io.File;
 
 import javax.inject.Singleton;
 
@@ -61,43 +55,80 @@ public final class DatabaseModule {
     // configs
     private static final String DATABASE_NAME = "envirocar";
     private static final String VECHILE_DATABASE_NAME = "envirocarvehicle";
-    private static final int DATABASE_VERSION = 11;
-    EnviroCarVehicleDB enviroCarVehicleDB;
+    private static final String VEHICLE_DATABASE_ASSET = "database/envirocarvehicle.db";
+    private static final int DATABASE_VERSION = 15;
+    private static final String SLOW_QUERY_LOG = "enviroCar-db-slow-queries.log";
 
     @Provides
     @Singleton
-    EnviroCarDB provideEnvirocarDB(TrackRoomDatabase trackRoomDatabase) {
-        return new EnviroCarDBImpl(trackRoomDatabase);
+    DatabaseExecutors provideDatabaseExecutors() {
+        return new DatabaseExecutors();
     }
 
     @Provides
     @Singleton
-    TrackRoomDatabase provideRoomTrackDatabase(@InjectApplicationScope Context context) {
-        return Room.databaseBuilder(context, TrackRoomDatabase.class, DATABASE_NAME)
-                .allowMainThreadQueries()
-                .build();
+    DatabaseMonitor provideDatabaseMonitor(@InjectApplicationScope Context context) {
+        return new DatabaseMonitor(new File(context.getFilesDir(), SLOW_QUERY_LOG),
+                DatabaseMonitor.DEFAULT_SLOW_QUERY_THRESHOLD);
     }
 
     @Provides
     @Singleton
-    EnviroCarVehicleDB provideRoomDatabase(@InjectApplicationScope Context context) {
-        enviroCarVehicleDB = Room.databaseBuilder(context, EnviroCarVehicleDB.class, VECHILE_DATABASE_NAME)
-                .addCallback(new RoomDatabase.Callback() {
-                    @Override
-                    public void onCreate(@NonNull SupportSQLiteDatabase db) {
-                        super.onCreate(db);
-                        Executor executor = Executors.newSingleThreadExecutor();
-                        executor.execute(() -> {
-                            List<Vehicles> vehiclesList = DataGenerator.getVehicleData(context, "vehicles");
-                            List<PowerSource> powerSourceList = DataGenerator.getPowerSources(context, "power_sources");
-                            enviroCarVehicleDB.vehicleDAO().insert(vehiclesList);
-                            enviroCarVehicleDB.powerSourcesDAO().insert(powerSourceList);
-                            enviroCarVehicleDB.manufacturersDAO().inserManufacturer();
-                        });
-                    }
-                })
-                .build();
-    return enviroCarVehicleDB;
+    EnviroCarDB provideEnvirocarDB(TrackRoomDatabase trackRoomDatabase, DatabaseExecutors databaseExecutors) {
+        return new EnviroCarDBImpl(trackRoomDatabase, databaseExecutors);
+    }
+
+    @Provides
+    @Singleton
+    TrackRoomDatabase provideRoomTrackDatabase(@InjectApplicationScope Context context,
+                                               DatabaseExecutors databaseExecutors,
+                                               DatabaseMonitor databaseMonitor) {
+        RoomDatabase.Builder<TrackRoomDatabase> builder = Room.databaseBuilder(
+                context, TrackRoomDatabase.class, DATABASE_NAME)
+                .openHelperFactory(new InstrumentedOpenHelperFactory(
+                        new FrameworkSQLiteOpenHelperFactory(),
+                        databaseMonitor.getStatistics(DATABASE_NAME)))
+                .setQueryExecutor(databaseExecutors.getQueryExecutor())
+                .setTransactionExecutor(databaseExecutors.getWriteExecutor())
+                .addMigrations(
+                        TrackRoomDatabase.MIGRATION_11_12,
+                        TrackRoomDatabase.MIGRATION_12_13,
+                        TrackRoomDatabase.MIGRATION_13_14,
+                        TrackRoomDatabase.MIGRATION_14_15);
+        return applyMainThreadPolicy(context, builder).build();
+    }
+
+    @Provides
+    @Singleton
+    EnviroCarVehicleDB provideRoomDatabase(@InjectApplicationScope Context context,
+                                           DatabaseExecutors databaseExecutors,
+                                           DatabaseMonitor databaseMonitor) {
+        // the asset is generated from the vehicle CSV files at build time, see
+        // vehicle-database.gradle in the app module
+        RoomDatabase.Builder<EnviroCarVehicleDB> builder = Room.databaseBuilder(
+                context, EnviroCarVehicleDB.class, VECHILE_DATABASE_NAME)
+                .openHelperFactory(new InstrumentedOpenHelperFactory(
+                        new FrameworkSQLiteOpenHelperFactory(),
+                        databaseMonitor.getStatistics(VECHILE_DATABASE_NAME)))
+                .setQueryExecutor(databaseExecutors.getQueryExecutor())
+                .setTransactionExecutor(databaseExecutors.getWriteExecutor())
+                .createFromAsset(VEHICLE_DATABASE_ASSET)
+                .addMigrations(EnviroCarVehicleDB.MIGRATION_1_2);
+        return applyMainThreadPolicy(context, builder).build();
+    }
+
+    /**
+     * Strict mode: debuggable builds let Room throw on any access from the main thread, release
+     * builds still tolerate it until all callers have been moved to the database executors.
+     */
+    private static <T extends RoomDatabase> RoomDatabase.Builder<T> applyMainThreadPolicy(
+            Context context, RoomDatabase.Builder<T> builder) {
+        boolean debuggable = (context.getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0;
+        if (debuggable) {
+            LOG.info("Database strict mode enabled: main thread queries are not allowed");
+            return builder;
+        }
+        return builder.allowMainThreadQueries();
     }
 
 }
@@ -0,0 +1,200 @@
+/**
+ * Copyright (C) 2013 - 2021 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.storage;
+
+import org.envirocar.core.logging.Logger;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Collects the {@link DatabaseStatistics} of all databases and writes statements and waits for
+ * the transaction lock that take longer than a threshold to a slow query log on a background
+ * thread. The statistics and the log are attached to the log reports of the app.
+ */
+public final class DatabaseMonitor {
+    private static final Logger LOG = Logger.getLogger(DatabaseMonitor.class);
+
+    public static final long DEFAULT_SLOW_QUERY_THRESHOLD = 100;
+
+    private static final long MAX_SLOW_QUERY_LOG_SIZE = 256 * 1024;
+    private static final String STATISTICS_FILE = "enviroCar-db-statistics.txt";
+    private static final int MAX_QUEUED_LINES = 256;
+    private static final long KEEP_ALIVE_SECONDS = 30;
+    private static final long FLUSH_TIMEOUT = 1000;
+
+    private final File slowQueryLog;
+    private final File rotatedSlowQueryLog;
+    private final long slowQueryThresholdNanos;
+    private final Map<String, DatabaseStatistics> statistics = new TreeMap<>();
+    // writes the slow query log
+    private final ExecutorService logger;
+    // only used by the logger thread
+    private final DateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS", Locale.ROOT);
+
+    /**
+     * Constructor.
+     *
+     * @param slowQueryLog       the file of the slow query log, the previous content is kept in
+     *                           a second file with the suffix ".1" once the log gets too large.
+     * @param slowQueryThreshold the duration in milliseconds above which a statement is logged.
+     */
+    public DatabaseMonitor(File slowQueryLog, long slowQueryThreshold) {
+        this.slowQueryLog = slowQueryLog;
+        this.rotatedSlowQueryLog = new File(slowQueryLog.getPath() + ".1");
+        this.slowQueryThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowQueryThreshold);
+
+        // lines that do not fit into the queue are dropped, the database threads never wait
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, KEEP_ALIVE_SECONDS,
+                TimeUnit.SECONDS, new LinkedBlockingQueue<>(MAX_QUEUED_LINES),
+                new DatabaseExecutors.NamedThreadFactory("envirocar-db-slowlog"),
+                new ThreadPoolExecutor.DiscardPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        this.logger = executor;
+    }
+
+    /**
+     * Returns the statistics of the given database, creates them on first access.
+     *
+     * @param databaseName the name of the database.
+     * @return the statistics of the database.
+     */
+    public synchronized DatabaseStatistics getStatistics(String databaseName) {
+        DatabaseStatistics result = statistics.get(databaseName);
+        if (result == null) {
+            result = new DatabaseStatistics(databaseName, this);
+            statistics.put(databaseName, result);
+        }
+        return result;
+    }
+
+    /**
+     * @return a human readable report of the statistics of all databases.
+     */
+    public synchronized String createReport() {
+        StringBuilder report = new StringBuilder();
+        report.append("Slow query threshold: ")
+                .append(TimeUnit.NANOSECONDS.toMillis(slowQueryThresholdNanos)).append(" ms\n\n");
+        for (DatabaseStatistics databaseStatistics : statistics.values()) {
+            databaseStatistics.appendReport(report);
+        }
+        return report.toString();
+    }
+
+    /**
+     * Writes the report of the statistics into the given directory and returns it together with
+     * the slow query logs.
+     *
+     * @param directory the directory to write the report to.
+     * @return the files to attach to a log report.
+     * @throws IOException if the report could not be written.
+     */
+    public List<File> createReportFiles(File directory) throws IOException {
+        File report = new File(directory, STATISTICS_FILE);
+        try (Writer writer = new FileWriter(report)) {
+            writer.write(createReport());
+        }
+
+        flushSlowQueries();
+        List<File> result = new ArrayList<>();
+        result.add(report);
+        synchronized (this) {
+            if (rotatedSlowQueryLog.exists()) {
+                result.add(rotatedSlowQueryLog);
+            }
+            if (slowQueryLog.exists()) {
+                result.add(slowQueryLog);
+            }
+        }
+        return result;
+    }
+
+    void onStatement(String databaseName, String sql, long nanos, long rowsRead, long rowsWritten) {
+        if (nanos >= slowQueryThresholdNanos) {
+            logSlowQuery(databaseName, sql, nanos, rowsRead, rowsWritten);
+        }
+    }
+
+    // the duration of a transaction is not logged, it mostly depends on the work of the caller
+    // between the statements, the time others had to wait for the lock is what slows them down
+    void onLockWait(String databaseName, long nanos) {
+        if (nanos >= slowQueryThresholdNanos) {
+            logSlowQuery(databaseName, DatabaseStatistics.LOCK_WAIT, nanos, 0, 0);
+        }
+    }
+
+    // called on the database threads, the line is written by the logger thread
+    private void logSlowQuery(String databaseName, String sql, long nanos,
+                              long rowsRead, long rowsWritten) {
+        long time = System.currentTimeMillis();
+        String thread = Thread.currentThread().getName();
+        logger.execute(() -> {
+            String line = String.format(Locale.ROOT, "%s %s %.1f ms read=%d written=%d thread=%s %s%n",
+                    dateFormat.format(new Date(time)), databaseName, nanos / 1e6, rowsRead,
+                    rowsWritten, thread, sql);
+            writeSlowQuery(line);
+        });
+    }
+
+    private synchronized void writeSlowQuery(String line) {
+        if (slowQueryLog.length() > MAX_SLOW_QUERY_LOG_SIZE) {
+            if (rotatedSlowQueryLog.exists() && !rotatedSlowQueryLog.delete()) {
+                LOG.warn("Unable to delete the rotated slow query log");
+            }
+            if (!slowQueryLog.renameTo(rotatedSlowQueryLog)) {
+                LOG.warn("Unable to rotate the slow query log");
+            }
+        }
+
+        try (Writer writer = new FileWriter(slowQueryLog, true)) {
+            writer.write(line);
+        } catch (IOException e) {
+            LOG.warn("Unable to write the slow query log", e);
+        }
+    }
+
+    // waits until the lines queued so far are written
+    private void flushSlowQueries() {
+        try {
+            logger.submit(() -> {
+            }).get(FLUSH_TIMEOUT, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException | RejectedExecutionException e) {
+            LOG.warn("Unable to flush the slow query log", e);
+        }
+    }
+}
@@ -0,0 +1,208 @@
+/**
+ * Copyright (C) 2013 - 2021 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.storage;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Latency histograms and row counts of the statements executed on one database, collected by
+ * {@link InstrumentedOpenHelperFactory}. Statements are grouped by their SQL, runs of bind
+ * parameters in IN clauses are collapsed so that chunked queries end up in the same group.
+ */
+public final class DatabaseStatistics {
+
+    // bucket i holds latencies in [2^i, 2^(i+1)) microseconds, the last one everything above
+    private static final int BUCKETS = 24;
+
+    static final String LOCK_WAIT = "BEGIN TRANSACTION (lock wait)";
+
+    private final String databaseName;
+    private final DatabaseMonitor monitor;
+    private final ConcurrentHashMap<String, Timer> timers = new ConcurrentHashMap<>();
+    private final Timer transactions = new Timer("TRANSACTION");
+    private final Timer lockWaits = new Timer(LOCK_WAIT);
+
+    DatabaseStatistics(String databaseName, DatabaseMonitor monitor) {
+        this.databaseName = databaseName;
+        this.monitor = monitor;
+    }
+
+    public String getDatabaseName() {
+        return databaseName;
+    }
+
+    /**
+     * Returns the timer for the given statement, statements that only differ in the number of
+     * bind parameters share a timer.
+     */
+    Timer getTimer(String sql) {
+        Timer timer = timers.get(sql);
+        if (timer != null) {
+            return timer;
+        }
+        String normalized = normalize(sql);
+        timer = timers.get(normalized);
+        if (timer == null) {
+            Timer created = new Timer(normalized);
+            timer = timers.putIfAbsent(normalized, created);
+            if (timer == null) {
+                timer = created;
+            }
+        }
+        return timer;
+    }
+
+    void record(Timer timer, long nanos, long rowsRead, long rowsWritten) {
+        timer.record(nanos, rowsRead, rowsWritten);
+        monitor.onStatement(databaseName, timer.sql, nanos, rowsRead, rowsWritten);
+    }
+
+    void recordTransaction(long nanos) {
+        transactions.record(nanos, 0, 0);
+    }
+
+    void recordLockWait(long nanos) {
+        lockWaits.record(nanos, 0, 0);
+        monitor.onLockWait(databaseName, nanos);
+    }
+
+    /**
+     * Appends a human readable report of all timers, ordered by the total time spent.
+     */
+    void appendReport(StringBuilder report) {
+        report.append("Database ").append(databaseName).append('\n');
+        transactions.appendTo(report);
+        lockWaits.appendTo(report);
+
+        List<Timer> sorted = new ArrayList<>(timers.values());
+        Collections.sort(sorted, (a, b) -> Long.compare(b.totalNanos.get(), a.totalNanos.get()));
+        for (Timer timer : sorted) {
+            timer.appendTo(report);
+        }
+        report.append('\n');
+    }
+
+    static String normalize(String sql) {
+        if (sql.indexOf("?,") < 0) {
+            return sql;
+        }
+        StringBuilder builder = new StringBuilder(sql.length());
+        int i = 0;
+        while (i < sql.length()) {
+            char c = sql.charAt(i);
+            builder.append(c);
+            i++;
+            if (c == '?') {
+                // skip ",?" repetitions including blanks in between
+                int j = i;
+                boolean skipped = false;
+                while (true) {
+                    int k = j;
+                    while (k < sql.length() && sql.charAt(k) == ' ') k++;
+                    if (k >= sql.length() || sql.charAt(k) != ',') break;
+                    k++;
+                    while (k < sql.length() && sql.charAt(k) == ' ') k++;
+                    if (k >= sql.length() || sql.charAt(k) != '?') break;
+                    j = k + 1;
+                    skipped = true;
+                }
+                if (skipped) {
+                    builder.append(",...");
+                }
+                i = j;
+            }
+        }
+        return builder.toString();
+    }
+
+    static final class Timer {
+        private final String sql;
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong totalNanos = new AtomicLong();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private final AtomicLong rowsRead = new AtomicLong();
+        private final AtomicLong rowsWritten = new AtomicLong();
+        private final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+
+        private Timer(String sql) {
+            this.sql = sql;
+        }
+
+        private void record(long nanos, long read, long written) {
+            count.incrementAndGet();
+            totalNanos.addAndGet(nanos);
+            long max;
+            while (nanos > (max = maxNanos.get()) && !maxNanos.compareAndSet(max, nanos)) {
+                // retry
+            }
+            if (read > 0) {
+                rowsRead.addAndGet(read);
+            }
+            if (written > 0) {
+                rowsWritten.addAndGet(written);
+            }
+            long micros = Math.max(1, nanos / 1000);
+            int bucket = Math.min(BUCKETS - 1, 63 - Long.numberOfLeadingZeros(micros));
+            histogram.incrementAndGet(bucket);
+        }
+
+        /**
+         * @return the upper bound in milliseconds of the bucket that holds the given percentile,
+         * limited by the maximum.
+         */
+        private double percentile(double percentile) {
+            double max = TimeUnit.NANOSECONDS.toMicros(maxNanos.get()) / 1000.0;
+            long threshold = (long) Math.ceil(count.get() * percentile);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS - 1; i++) {
+                seen += histogram.get(i);
+                if (seen >= threshold) {
+                    return Math.min((1L << (i + 1)) / 1000.0, max);
+                }
+            }
+            return max;
+        }
+
+        private void appendTo(StringBuilder report) {
+            long total = count.get();
+            if (total == 0) {
+                return;
+            }
+            report.append(String.format(Locale.ROOT,
+                    "%8d x  total %9.1f ms  mean %7.2f ms  p50 <%7.2f ms  p95 <%7.2f ms  " +
+                            "max %8.1f ms  read %8d  written %8d  %s%n",
+                    total,
+                    totalNanos.get() / 1e6,
+                    totalNanos.get() / 1e6 / total,
+                    percentile(0.5),
+                    percentile(0.95),
+                    maxNanos.get() / 1e6,
+                    rowsRead.get(),
+                    rowsWritten.get(),
+                    sql));
+        }
+    }
+}
@@ -18,45 +18,67 @@
  */
 package org.envirocar.storage;
 
-import android.annotation.SuppressLint;
-import android.database.Cursor;
 import org.envirocar.core.EnviroCarDB;
+import org.envirocar.core.MeasurementWriter;
 import org.envirocar.core.entity.Measurement;
 import org.envirocar.core.entity.MeasurementTable;
 import org.envirocar.core.entity.Track;
+import org.envirocar.core.entity.TrackGeometry;
+import org.envirocar.core.entity.TrackSummary;
 import org.envirocar.core.entity.TrackTable;
 import org.envirocar.core.exception.MeasurementSerializationException;
 import org.envirocar.core.exception.TrackSerializationException;
 import org.envirocar.core.logging.Logger;
+import org.envirocar.core.util.RetentionPolicy;
+import org.envirocar.core.util.RetentionResult;
 import org.envirocar.core.util.TrackMetadata;
 import org.json.JSONException;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
 import java.util.concurrent.TimeUnit;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
+import io.reactivex.Flowable;
 import io.reactivex.Observable;
 import io.reactivex.ObservableTransformer;
+import io.reactivex.Scheduler;
 import io.reactivex.functions.Function;
 
 
 @Singleton
 public class EnviroCarDBImpl implements EnviroCarDB {
     private static final Logger LOG = Logger.getLogger(EnviroCarDBImpl.class);
+    private static final int DEFAULT_MEASUREMENT_PAGE_SIZE = 500;
+    private static final int MAX_QUERY_PARAMETERS = 500;
 
     protected TrackRoomDatabase trackRoomDatabase;
+    protected final Scheduler queryScheduler;
+    protected final Scheduler writeScheduler;
+    private final DatabaseExecutors databaseExecutors;
+    private final TrackGeometryCache trackGeometryCache;
+    private final TrackRetention trackRetention;
 
     /**
      * Constructor.
      *
      * @param trackRoomDatabase the Database instance.
+     * @param databaseExecutors the executors all database accesses are scheduled on.
      */
     @Inject
-    public EnviroCarDBImpl(TrackRoomDatabase trackRoomDatabase) {
+    public EnviroCarDBImpl(TrackRoomDatabase trackRoomDatabase, DatabaseExecutors databaseExecutors) {
         this.trackRoomDatabase = trackRoomDatabase;
+        this.queryScheduler = databaseExecutors.getQueryScheduler();
+        this.writeScheduler = databaseExecutors.getWriteScheduler();
+        this.databaseExecutors = databaseExecutors;
+        this.trackGeometryCache = new TrackGeometryCache(trackRoomDatabase);
+        this.trackRetention = new TrackRetention(trackRoomDatabase, trackGeometryCache);
     }
 
     @Override
@@ -69,6 +91,65 @@ public class EnviroCarDBImpl implements EnviroCarDB {
         return fetchTrackObservable(trackId, lazy);
     }
 
+    @Override
+    public Flowable<Measurement> getMeasurements(Track.TrackId trackId) {
+        return getMeasurements(trackId, DEFAULT_MEASUREMENT_PAGE_SIZE);
+    }
+
+    @Override
+    public Flowable<Measurement> getMeasurements(Track.TrackId trackId, int pageSize) {
+        return Flowable.generate(
+                () -> new MeasurementPageCursor(trackId.getId(), pageSize),
+                (cursor, emitter) -> {
+                    MeasurementTable next = cursor.next();
+                    if (next == null) {
+                        emitter.onComplete();
+                    } else {
+                        emitter.onNext(MeasurementTable.MAPPER.apply(next));
+                    }
+                })
+                .subscribeOn(queryScheduler);
+    }
+
+    @Override
+    public Flowable<Measurement> getMeasurements(Track.TrackId trackId, long startTime, long endTime) {
+        return Flowable.generate(
+                () -> new MeasurementPageCursor(trackId.getId(), startTime, endTime,
+                        DEFAULT_MEASUREMENT_PAGE_SIZE),
+                (cursor, emitter) -> {
+                    MeasurementTable next = cursor.next();
+                    if (next == null) {
+                        emitter.onComplete();
+                    } else {
+                        emitter.onNext(MeasurementTable.MAPPER.apply(next));
+                    }
+                })
+                .subscribeOn(queryScheduler);
+    }
+
+    @Override
+    public Observable<List<Measurement>> getLastMeasurements(Track.TrackId trackId, int count) {
+        return Observable.fromCallable(() -> trackRoomDatabase.getTrackDAONew()
+                .fetchLastMeasurements(trackId.getId(), Math.max(0, count)))
+                .map(MeasurementTable::fromMeasurementTableListToMeasurement)
+                .subscribeOn(queryScheduler);
+    }
+
+    @Override
+    public Flowable<Measurement> getSampledMeasurements(Track.TrackId trackId, int interval) {
+        return Flowable.generate(
+                () -> new SampledMeasurementCursor(trackId.getId(), interval),
+                (cursor, emitter) -> {
+                    MeasurementTable next = cursor.next();
+                    if (next == null) {
+                        emitter.onComplete();
+                    } else {
+                        emitter.onNext(MeasurementTable.MAPPER.apply(next));
+                    }
+                })
+                .subscribeOn(queryScheduler);
+    }
+
     @Override
     public Observable<List<Track>> getAllTracks() {
         return getAllTracks(false);
@@ -96,7 +177,52 @@ public class EnviroCarDBImpl implements EnviroCarDB {
 
     @Override
     public Observable<Integer> getAllLocalTracksCount() {
-        return trackRoomDatabase.getTrackDAONew().getAllLocalTracksCount();
+        return trackRoomDatabase.getTrackDAONew().getAllLocalTracksCount()
+                .subscribeOn(queryScheduler);
+    }
+
+    @Override
+    public Observable<TrackSummary> getTrackSummary(Track.TrackId trackId) {
+        return Observable.fromCallable(() -> {
+            TrackSummary summary = trackRoomDatabase.getTrackDAONew().fetchTrackSummary(trackId.getId());
+            return summary != null ? summary : new TrackSummary(trackId.getId());
+        }).subscribeOn(queryScheduler);
+    }
+
+    @Override
+    public Observable<List<TrackSummary>> getAllTrackSummaries() {
+        return trackRoomDatabase.getTrackDAONew().fetchAllTrackSummaries()
+                .subscribeOn(queryScheduler);
+    }
+
+    @Override
+    public Observable<List<TrackSummary>> getAllLocalTrackSummaries() {
+        return trackRoomDatabase.getTrackDAONew().fetchAllLocalTrackSummaries()
+                .subscribeOn(queryScheduler);
+    }
+
+    @Override
+    public Observable<List<TrackGeometry>> getTrackGeometry(Track.TrackId trackId) {
+        return Observable.fromCallable(() -> {
+            List<TrackGeometry> geometry = trackGeometryCache.fetch(trackId.getId());
+            return geometry != null ? geometry : Collections.<TrackGeometry>emptyList();
+        })
+                .subscribeOn(queryScheduler)
+                .flatMap(geometry -> !geometry.isEmpty() ? Observable.just(geometry) :
+                        Observable.fromCallable(() -> trackGeometryCache.build(trackId.getId()))
+                                .subscribeOn(writeScheduler));
+    }
+
+    @Override
+    public Observable<Integer> rebuildTrackSummaries() {
+        return Observable.fromCallable(() -> {
+            List<Long> trackIds = trackRoomDatabase.getTrackDAONew().getSummarizableTrackIds();
+            for (Long trackId : trackIds) {
+                rebuildTrackSummary(trackId);
+            }
+            LOG.info(String.format("rebuildTrackSummaries(): rebuilt %s summaries", trackIds.size()));
+            return trackIds.size();
+        }).subscribeOn(writeScheduler);
     }
 
     @Override
@@ -118,22 +244,30 @@ public class EnviroCarDBImpl implements EnviroCarDB {
     public void insertTrack(final Track track) throws TrackSerializationException {
         LOG.info("insertTrack(): trying to insert a new track");
         try {
-            long result = trackRoomDatabase.getTrackDAONew().insertTrack(TrackTable.trackToTrackTable(track));
+            List<Measurement> measurements = track.getMeasurements();
+            List<MeasurementTable> measurementTables = new ArrayList<>(measurements.size());
+            for (Measurement measurement : measurements) {
+                measurementTables.add(MeasurementTable.measurementToMeasurementTable(measurement));
+            }
+
+            TrackSummary summary = new TrackSummary(0);
+            for (Measurement measurement : measurements) {
+                summary.addMeasurement(measurement);
+            }
+
+            long result = write(() -> trackRoomDatabase.getTrackDAONew().insertTrackWithMeasurements(
+                    TrackTable.trackToTrackTable(track), measurementTables, summary));
             Track.TrackId trackId = new Track.TrackId(result);
             track.setTrackID(trackId);
-            LOG.info(String.format("insertTrack(): " +
-                    "track has been successfully inserted ->[id = %s]", "" + result));
-
-            if (track.getMeasurements().size() > 0) {
-                for (Measurement measurement : track.getMeasurements()) {
-                    measurement.setTrackId(trackId);
-                    trackRoomDatabase.getTrackDAONew().insertMeasurement(MeasurementTable.measurementToMeasurementTable(measurement));
-                    insertMeasurement(measurement);
-                }
+            for (Measurement measurement : measurements) {
+                measurement.setTrackId(trackId);
             }
-        } catch (Exception e) {
             LOG.info(String.format("insertTrack(): " +
-                    "insertion fail ->[id = %s]", "" + e.fillInStackTrace()));
+                    "track has been successfully inserted ->[id = %s, measurements = %s]",
+                    "" + result, "" + measurementTables.size()));
+        } catch (Exception e) {
+            LOG.error("insertTrack(): insertion failed", e);
+            throw new TrackSerializationException(e);
         }
     }
 
@@ -147,14 +281,14 @@ public class EnviroCarDBImpl implements EnviroCarDB {
                 emitter.onError(e);
             }
             emitter.onComplete();
-        });
+        }).subscribeOn(writeScheduler);
     }
 
     @Override
     public boolean updateTrack(Track track) {
         LOG.info(String.format("updateTrack(%s)", track.getTrackID()));
         TrackTable trackTable =TrackTable.trackToTrackTable(track);
-        int update = trackRoomDatabase.getTrackDAONew().updateTrack(trackTable);
+        int update = write(() -> trackRoomDatabase.getTrackDAONew().updateTrack(trackTable));
         return update != -1;
     }
 
@@ -166,20 +300,26 @@ public class EnviroCarDBImpl implements EnviroCarDB {
                         LOG.info("Track [%s] has been successfully updated.", track1.getDescription());
                     }
                     return track1;
-                });
+                })
+                .subscribeOn(writeScheduler);
     }
 
     @Override
     public boolean updateCarIdOfTracks(String currentId, String newId) {
-        trackRoomDatabase.getTrackDAONew().updateCarId(newId, currentId);
+        write(() -> {
+            trackRoomDatabase.getTrackDAONew().updateCarId(newId, currentId);
+            return null;
+        });
         return true;
     }
 
     @Override
     public void deleteTrack(Track.TrackId trackId) {
         if(trackId != null){
-            trackRoomDatabase.getTrackDAONew().deleteTrack(Long.parseLong(trackId.toString()));
-            deleteMeasurementsOfTrack(trackId);
+            write(() -> {
+                trackRoomDatabase.getTrackDAONew().deleteTrackWithMeasurements(trackId.getId());
+                return null;
+            });
         }
     }
 
@@ -194,25 +334,74 @@ public class EnviroCarDBImpl implements EnviroCarDB {
             deleteTrack(track);
             emitter.onNext(track);
             emitter.onComplete();
-        });
+        }).subscribeOn(writeScheduler);
     }
 
     @Override
     public Observable<List<Track.TrackId>> deleteAllRemoteTracks() {
         return trackRoomDatabase.getTrackDAONew().getAllRemoteTracksId()
                 .map(TrackTable.TO_TRACK_ID_LIST_MAPPER)
+                .take(1)
+                // Room emits on its query executor, the deletion belongs to the writer
+                .observeOn(writeScheduler)
                 .map(trackIds -> {
+                    List<Long> ids = new ArrayList<>(trackIds.size());
                     for (Track.TrackId trackId : trackIds)
-                        deleteTrack(trackId);
+                        ids.add(trackId.getId());
+                    trackRetention.deleteTracks(ids);
                     return trackIds;
-                });
+                })
+                .subscribeOn(writeScheduler);
+    }
+
+    @Override
+    public Observable<RetentionResult> applyRetentionPolicy(RetentionPolicy policy) {
+        return Observable.fromCallable(() -> trackRetention.apply(policy))
+                .subscribeOn(writeScheduler);
     }
 
     @Override
     public void insertMeasurement(final Measurement measurement) throws
             MeasurementSerializationException {
         LOG.info("inserted measurement into track " + measurement.getTrackId());
-        trackRoomDatabase.getTrackDAONew().insertMeasurement(MeasurementTable.measurementToMeasurementTable(measurement));
+        write(() -> {
+            trackRoomDatabase.runInTransaction(() -> {
+                trackRoomDatabase.getTrackDAONew().insertMeasurement(MeasurementTable.measurementToMeasurementTable(measurement));
+                updateTrackSummary(measurement.getTrackId(), Collections.singletonList(measurement));
+            });
+            return null;
+        });
+    }
+
+    @Override
+    public void insertMeasurements(final Track track, final List<Measurement> measurements) throws
+            MeasurementSerializationException {
+        List<MeasurementTable> measurementTables = new ArrayList<>(measurements.size());
+        for (Measurement measurement : measurements) {
+            measurementTables.add(MeasurementTable.measurementToMeasurementTable(measurement));
+        }
+        try {
+            databaseExecutors.write(() -> {
+                trackRoomDatabase.runInTransaction(() -> {
+                    trackRoomDatabase.getTrackDAONew().insertMeasurementsAndUpdateTrack(
+                            measurementTables, TrackTable.trackToTrackTable(track));
+                    updateTrackSummary(track.getTrackID(), measurements);
+                });
+                return null;
+            });
+        } catch (Exception e) {
+            throw new MeasurementSerializationException(e);
+        }
+        LOG.info(String.format("inserted %s measurements into track %s",
+                "" + measurementTables.size(), track.getTrackID()));
+    }
+
+    @Override
+    public MeasurementWriter openMeasurementWriter(Track track, int commitSize, long commitInterval) {
+        RawMeasurementWriter writer = new RawMeasurementWriter(trackRoomDatabase,
+                track.getTrackID().getId(), commitSize, commitInterval);
+        writer.start();
+        return writer;
     }
 
     @Override
@@ -226,12 +415,15 @@ public class EnviroCarDBImpl implements EnviroCarDB {
             } finally {
                 emitter.onComplete();
             }
-        });
+        }).subscribeOn(writeScheduler);
     }
 
     @Override
     public void updateTrackRemoteID(final Track track, final String remoteID) {
-        trackRoomDatabase.getTrackDAONew().updateTrackRemoteId(remoteID, Long.parseLong(track.getTrackID().toString()));
+        write(() -> {
+            trackRoomDatabase.getTrackDAONew().updateTrackRemoteId(remoteID, Long.parseLong(track.getTrackID().toString()));
+            return null;
+        });
     }
 
     @Override
@@ -240,14 +432,18 @@ public class EnviroCarDBImpl implements EnviroCarDB {
         return Observable.create(emitter -> {
             updateTrackRemoteID(track, remoteID);
             emitter.onComplete();
-        });
+        }).subscribeOn(writeScheduler);
     }
 
     public void updateTrackMetadata(final Track track, final TrackMetadata trackMetadata) throws
             TrackSerializationException {
                 LOG.debug("Updating track metadata");
         try {
-            trackRoomDatabase.getTrackDAONew().updateTrackMetadata(trackMetadata.toJsonString(), Long.parseLong(track.getTrackID().toString()));
+            String metadata = trackMetadata.toJsonString();
+            write(() -> {
+                trackRoomDatabase.getTrackDAONew().updateTrackMetadata(metadata, Long.parseLong(track.getTrackID().toString()));
+                return null;
+            });
             LOG.debug("Track Metadata stored: " + trackRoomDatabase.getTrackDAONew().fetchTrackMetadata(Long.parseLong(track.getTrackID().toString())));
         } catch (JSONException e) {
             LOG.error(e.getMessage(), e);
@@ -266,7 +462,7 @@ public class EnviroCarDBImpl implements EnviroCarDB {
             } finally {
                 emitter.onComplete();
             }
-        });
+        }).subscribeOn(writeScheduler);
     }
 
     @Override
@@ -286,19 +482,31 @@ public class EnviroCarDBImpl implements EnviroCarDB {
         return fetchActiveTrackObservable(lazy);
     }
 
-    private void deleteMeasurementsOfTrack(Track.TrackId trackId) {
+    @Override
+    public void automaticDeleteMeasurements(long time, Track.TrackId trackId) {
         try {
-            trackRoomDatabase.getTrackDAONew().deleteMeasuremnt(Long.parseLong(trackId.toString()));
+            write(() -> {
+                trackRoomDatabase.getTrackDAONew().automaticDeleteMeasurement(time, Long.parseLong(trackId.toString()));
+                rebuildTrackSummary(trackId.getId());
+                return null;
+            });
         } catch (Exception e) {
         }
     }
 
-    @Override
-    public void automaticDeleteMeasurements(long time, Track.TrackId trackId) {
+    /**
+     * Runs a synchronous write on the write thread, where all other writes run as well.
+     */
+    private <T> T write(Callable<T> operation) {
         try {
-            trackRoomDatabase.getTrackDAONew().automaticDeleteMeasurement(String.valueOf(time), Long.parseLong(trackId.toString()));
-
+            return databaseExecutors.write(operation);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
         } catch (Exception e) {
+            throw new IllegalStateException(e);
         }
     }
 
@@ -309,7 +517,8 @@ public class EnviroCarDBImpl implements EnviroCarDB {
                     track.setMeasurements(measurements);
                     track.setLazyMeasurements(false);
                     return track;
-                });
+                })
+                .subscribeOn(queryScheduler);
     }
 
     private Observable<Track> fetchStartTime(final Track track) {
@@ -319,7 +528,8 @@ public class EnviroCarDBImpl implements EnviroCarDB {
                     track.setStartTime(measurement.getTime());
                     track.setLazyMeasurements(true);
                     return track;
-                });
+                })
+                .subscribeOn(queryScheduler);
     }
 
     private Observable<Track> fetchTrackObservable(Track.TrackId trackId, boolean lazy) {
@@ -327,7 +537,8 @@ public class EnviroCarDBImpl implements EnviroCarDB {
                 .map(TrackTable.MAPPER)
                 .take(1)
                 .timeout(100, TimeUnit.MILLISECONDS)
-                .compose(fetchTrackObservable(lazy));
+                .compose(fetchTrackObservable(lazy))
+                .subscribeOn(queryScheduler);
     }
 
     private Observable<Track> fetchActiveTrackObservable(boolean lazy) {
@@ -335,7 +546,8 @@ public class EnviroCarDBImpl implements EnviroCarDB {
                 .map(org.envirocar.core.entity.TrackTable.MAPPER)
                 .take(1)
                 .timeout(100, TimeUnit.MILLISECONDS)
-                .compose(fetchTrackObservable(lazy));
+                .compose(fetchTrackObservable(lazy))
+                .subscribeOn(queryScheduler);
     }
 
     private ObservableTransformer<Track, Track> fetchTrackObservable(final boolean lazy) {
@@ -360,7 +572,8 @@ public class EnviroCarDBImpl implements EnviroCarDB {
             emitter.onNext(tracks);
             emitter.onComplete();
         });
-        return listObservable.compose(fetchTracks(lazy));
+        return listObservable.compose(fetchTracks(lazy))
+                .subscribeOn(queryScheduler);
     }
 
     private Observable<List<Track>> fetchTracksCarObservable(String carId, boolean lazy) {
@@ -376,7 +589,8 @@ public class EnviroCarDBImpl implements EnviroCarDB {
             emitter.onNext(tracks);
             emitter.onComplete();
         });
-        return listObservable.compose(fetchTracks(lazy));
+        return listObservable.compose(fetchTracks(lazy))
+                .subscribeOn(queryScheduler);
     }
 
     private Observable<List<Track>> fetchTracksLocalObservable(boolean lazy) {
@@ -392,7 +606,8 @@ public class EnviroCarDBImpl implements EnviroCarDB {
             emitter.onNext(tracks);
             emitter.onComplete();
         });
-        return listObservable.compose(fetchTracks(lazy));
+        return listObservable.compose(fetchTracks(lazy))
+                .subscribeOn(queryScheduler);
     }
 
     private Observable<List<Track>> fetchTracksRemoteObservable(boolean lazy) {
@@ -408,15 +623,16 @@ public class EnviroCarDBImpl implements EnviroCarDB {
             emitter.onNext(tracks);
             emitter.onComplete();
         });
-        return listObservable.compose(fetchTracks(lazy));
+        return listObservable.compose(fetchTracks(lazy))
+                .subscribeOn(queryScheduler);
     }
 
     private ObservableTransformer<List<Track>, List<Track>> fetchTracks(boolean lazy) {
         return trackObservable -> trackObservable.map(tracks -> {
-            for (Track track : tracks) {
-                if (lazy) {
-                    fetchStartEndTimeSilent(track);
-                } else {
+            if (lazy) {
+                fetchStartEndTimesSilent(tracks);
+            } else {
+                for (Track track : tracks) {
                     fetchMeasurementsSilent(track);
                 }
             }
@@ -432,25 +648,125 @@ public class EnviroCarDBImpl implements EnviroCarDB {
         return track;
     }
 
-    @SuppressLint("Range")
     private Track fetchStartEndTimeSilent(final Track track) {
-        Cursor startTime = trackRoomDatabase.getTrackDAONew().fetchStartTimeSilent(Long.parseLong(track.getTrackID().toString()));
+        TrackSummary summary = trackRoomDatabase.getTrackDAONew()
+                .fetchTrackSummary(track.getTrackID().getId());
+        if (summary != null) {
+            summary.applyTo(track);
+        }
+        track.setLazyMeasurements(true);
+        return track;
+    }
+
+    private void fetchStartEndTimesSilent(final List<Track> tracks) {
+        if (tracks.isEmpty())
+            return;
 
-        if (startTime.moveToFirst()) {
-            track.setStartTime(
-                    startTime.getLong(
-                            startTime.getColumnIndex(MeasurementTable.KEY_TIME)));
+        Map<Long, Track> trackMap = new HashMap<>(tracks.size());
+        for (Track track : tracks) {
+            trackMap.put(track.getTrackID().getId(), track);
         }
 
-        Cursor endTime = trackRoomDatabase.getTrackDAONew().fetchEndTimeSilent(Long.parseLong(track.getTrackID().toString()));
+        // query in chunks to stay below the SQLite limit of host parameters
+        List<Long> trackIds = new ArrayList<>(trackMap.keySet());
+        for (int i = 0; i < trackIds.size(); i += MAX_QUERY_PARAMETERS) {
+            List<TrackSummary> summaries = trackRoomDatabase.getTrackDAONew().fetchTrackSummaries(
+                    trackIds.subList(i, Math.min(i + MAX_QUERY_PARAMETERS, trackIds.size())));
+            for (TrackSummary summary : summaries) {
+                summary.applyTo(trackMap.get(summary.getTrackId()));
+            }
+        }
+        for (Track track : tracks) {
+            track.setLazyMeasurements(true);
+        }
+    }
 
-        if (endTime.moveToFirst()) {
-            track.setEndTime(
-                    endTime.getLong(
-                            startTime.getColumnIndex(MeasurementTable.KEY_TIME)));
+    private void updateTrackSummary(Track.TrackId trackId, List<Measurement> measurements) {
+        TrackSummary summary = trackRoomDatabase.getTrackDAONew().fetchTrackSummary(trackId.getId());
+        if (summary == null) {
+            summary = new TrackSummary(trackId.getId());
         }
+        for (Measurement measurement : measurements) {
+            summary.addMeasurement(measurement);
+        }
+        trackRoomDatabase.getTrackDAONew().insertTrackSummary(summary);
+    }
 
-        return track;
+    private void rebuildTrackSummary(long trackId) {
+        TrackSummary summary = new TrackSummary(trackId);
+        MeasurementPageCursor cursor = new MeasurementPageCursor(trackId, DEFAULT_MEASUREMENT_PAGE_SIZE);
+        try {
+            for (MeasurementTable next = cursor.next(); next != null; next = cursor.next()) {
+                summary.addMeasurement(MeasurementTable.MAPPER.apply(next));
+            }
+        } catch (Exception e) {
+            LOG.error(String.format("Unable to rebuild summary of track %s", trackId), e);
+            return;
+        }
+        trackRoomDatabase.getTrackDAONew().insertTrackSummary(summary);
+    }
+
+    /**
+     * Iterates over the measurements of a track using keyset pagination over (time, _id), which
+     * is served by the (track, time) index. The iteration can be restricted to a time range.
+     */
+    private final class MeasurementPageCursor {
+        private final long trackId;
+        private final long startTime;
+        private final long endTime;
+        private final int pageSize;
+        private List<MeasurementTable> page;
+        private int index;
+
+        private MeasurementPageCursor(long trackId, int pageSize) {
+            this(trackId, Long.MIN_VALUE, Long.MAX_VALUE, pageSize);
+        }
+
+        private MeasurementPageCursor(long trackId, long startTime, long endTime, int pageSize) {
+            this.trackId = trackId;
+            this.startTime = startTime;
+            this.endTime = endTime;
+            this.pageSize = Math.max(1, pageSize);
+        }
+
+        private MeasurementTable next() {
+            if (page == null) {
+                page = trackRoomDatabase.getTrackDAONew().fetchMeasurementPage(
+                        trackId, startTime, endTime, pageSize);
+            } else if (index >= page.size() && page.size() == pageSize) {
+                MeasurementTable last = page.get(page.size() - 1);
+                page = trackRoomDatabase.getTrackDAONew().fetchMeasurementPageAfter(
+                        trackId, last.getKeyTime(), last.getRowId(), endTime, pageSize);
+                index = 0;
+            }
+            return index < page.size() ? page.get(index++) : null;
+        }
     }
 
+    /**
+     * Iterates over every n-th measurement of a track. Each step seeks to the last returned
+     * (time, _id) position and skips n - 1 entries of the (track, time) index, so only the
+     * selected measurement rows are read.
+     */
+    private final class SampledMeasurementCursor {
+        private final long trackId;
+        private final int interval;
+        private MeasurementTable last;
+
+        private SampledMeasurementCursor(long trackId, int interval) {
+            this.trackId = trackId;
+            this.interval = Math.max(1, interval);
+        }
+
+        private MeasurementTable next() {
+            if (last == null) {
+                last = trackRoomDatabase.getTrackDAONew().fetchMeasurementAfter(
+                        trackId, Long.MIN_VALUE, Long.MIN_VALUE, 0);
+            } else {
+                last = trackRoomDatabase.getTrackDAONew().fetchMeasurementAfter(
+                        trackId, last.getKeyTime(), last.getRowId(), interval - 1);
+            }
+            return last;
+        }
+    }
 }
@@ -24,12 +24,13 @@ import androidx.annotation.NonNull;
 import androidx.room.Database;
 import androidx.room.Room;
 import androidx.room.RoomDatabase;
+import androidx.room.migration.Migration;
 import androidx.sqlite.db.SupportSQLiteDatabase;
 
 import org.envirocar.core.entity.Manufacturers;
 import org.envirocar.core.entity.PowerSource;
 import org.envirocar.core.entity.Vehicles;
-import org.envirocar.core.utils.DataGenerator;
+import org.envirocar.core.entity.VehiclesFts;
 import org.envirocar.storage.dao.LocalManufacturersDAO;
 import org.envirocar.storage.dao.LocalPowerSourcesDAO;
 import org.envirocar.storage.dao.LocalVehicleDAO;
@@ -38,9 +39,43 @@ import java.util.List;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
 
-@Database(entities = {Manufacturers.class, Vehicles.class, PowerSource.class}, version = 1)
+@Database(entities = {Manufacturers.class, Vehicles.class, VehiclesFts.class, PowerSource.class}, version = 2)
 public abstract class EnviroCarVehicleDB extends RoomDatabase {
 
+    /**
+     * Adds the allotment year column, the index used by the car selection and the full-text
+     * index over manufacturer and model names.
+     */
+    public static final Migration MIGRATION_1_2 = new Migration(1, 2) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("ALTER TABLE `vehicles` ADD COLUMN `allotment_year` INTEGER");
+            database.execSQL("UPDATE `vehicles` SET `allotment_year` = " +
+                    "CAST(substr(`allotment_date`, 7, 4) AS INTEGER) " +
+                    "WHERE length(`allotment_date`) >= 10");
+            database.execSQL("CREATE INDEX IF NOT EXISTS " +
+                    "`index_vehicles_manufacturer_commerical_name_allotment_year` " +
+                    "ON `vehicles` (`manufacturer`, `commerical_name`, `allotment_year`)");
+
+            database.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS `vehicles_fts` USING FTS4(" +
+                    "`manufacturer` TEXT, `commerical_name` TEXT, content=`vehicles`)");
+            for (String when : new String[]{"BEFORE_UPDATE", "BEFORE_DELETE"}) {
+                database.execSQL("CREATE TRIGGER IF NOT EXISTS " +
+                        "room_fts_content_sync_vehicles_fts_" + when + " " +
+                        when.replace('_', ' ') + " ON `vehicles` BEGIN " +
+                        "DELETE FROM `vehicles_fts` WHERE `docid`=OLD.`rowid`; END");
+            }
+            for (String when : new String[]{"AFTER_UPDATE", "AFTER_INSERT"}) {
+                database.execSQL("CREATE TRIGGER IF NOT EXISTS " +
+                        "room_fts_content_sync_vehicles_fts_" + when + " " +
+                        when.replace('_', ' ') + " ON `vehicles` BEGIN " +
+                        "INSERT INTO `vehicles_fts`(`docid`, `manufacturer`, `commerical_name`) " +
+                        "VALUES (NEW.`rowid`, NEW.`manufacturer`, NEW.`commerical_name`); END");
+            }
+            database.execSQL("INSERT INTO `vehicles_fts`(`vehicles_fts`) VALUES ('rebuild')");
+        }
+    };
+
     //DAO car selection
     public abstract LocalManufacturersDAO manufacturersDAO();
 
@@ -0,0 +1,530 @@
+/**
+ * Copyright (C) 2013 - 2021 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.storage;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.CursorWrapper;
+import android.database.SQLException;
+import android.database.sqlite.SQLiteTransactionListener;
+import android.os.CancellationSignal;
+import android.util.Pair;
+
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteOpenHelper;
+import androidx.sqlite.db.SupportSQLiteQuery;
+import androidx.sqlite.db.SupportSQLiteStatement;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * {@link SupportSQLiteOpenHelper.Factory} that wraps the databases of another factory and records
+ * the latency and the rows read or written of every statement as well as the duration of the
+ * transactions and the time spent waiting for the lock at their begin in
+ * {@link DatabaseStatistics}. The latency of a query covers the time until its
+ * cursor is closed, which includes reading the rows.
+ * <p>
+ * Statements executed by the open helper callbacks, i.e. schema creation and migrations, are not
+ * recorded.
+ */
+public final class InstrumentedOpenHelperFactory implements SupportSQLiteOpenHelper.Factory {
+
+    private final SupportSQLiteOpenHelper.Factory delegate;
+    private final DatabaseStatistics statistics;
+
+    /**
+     * Constructor.
+     *
+     * @param delegate   the factory creating the actual open helper.
+     * @param statistics the statistics to record into.
+     */
+    public InstrumentedOpenHelperFactory(SupportSQLiteOpenHelper.Factory delegate,
+                                         DatabaseStatistics statistics) {
+        this.delegate = delegate;
+        this.statistics = statistics;
+    }
+
+    @Override
+    public SupportSQLiteOpenHelper create(SupportSQLiteOpenHelper.Configuration configuration) {
+        return new InstrumentedOpenHelper(delegate.create(configuration), statistics);
+    }
+
+    private static final class InstrumentedOpenHelper implements SupportSQLiteOpenHelper {
+        private final SupportSQLiteOpenHelper delegate;
+        private final DatabaseStatistics statistics;
+        private SupportSQLiteDatabase database;
+        private InstrumentedDatabase instrumentedDatabase;
+
+        private InstrumentedOpenHelper(SupportSQLiteOpenHelper delegate, DatabaseStatistics statistics) {
+            this.delegate = delegate;
+            this.statistics = statistics;
+        }
+
+        @Override
+        public String getDatabaseName() {
+            return delegate.getDatabaseName();
+        }
+
+        @Override
+        public void setWriteAheadLoggingEnabled(boolean enabled) {
+            delegate.setWriteAheadLoggingEnabled(enabled);
+        }
+
+        @Override
+        public SupportSQLiteDatabase getWritableDatabase() {
+            return wrap(delegate.getWritableDatabase());
+        }
+
+        @Override
+        public SupportSQLiteDatabase getReadableDatabase() {
+            return wrap(delegate.getReadableDatabase());
+        }
+
+        @Override
+        public void close() {
+            delegate.close();
+        }
+
+        // Room asks for the database on every access, the wrapper is reused as long as the
+        // delegate returns the same instance
+        private synchronized SupportSQLiteDatabase wrap(SupportSQLiteDatabase db) {
+            if (db != database) {
+                database = db;
+                instrumentedDatabase = new InstrumentedDatabase(db, statistics);
+            }
+            return instrumentedDatabase;
+        }
+    }
+
+    private static final class InstrumentedDatabase implements SupportSQLiteDatabase {
+        private final SupportSQLiteDatabase delegate;
+        private final DatabaseStatistics statistics;
+        // nesting depth and start time of the transaction of the current thread
+        private final ThreadLocal<long[]> transaction = new ThreadLocal<long[]>() {
+            @Override
+            protected long[] initialValue() {
+                return new long[2];
+            }
+        };
+
+        private InstrumentedDatabase(SupportSQLiteDatabase delegate, DatabaseStatistics statistics) {
+            this.delegate = delegate;
+            this.statistics = statistics;
+        }
+
+        // the time until the outermost transaction began is the time spent waiting for the lock
+        private void onBeginTransaction(long start) {
+            long[] state = transaction.get();
+            if (state[0]++ == 0) {
+                state[1] = System.nanoTime();
+                statistics.recordLockWait(state[1] - start);
+            }
+        }
+
+        private void onEndTransaction() {
+            long[] state = transaction.get();
+            if (state[0] > 0 && --state[0] == 0) {
+                statistics.recordTransaction(System.nanoTime() - state[1]);
+            }
+        }
+
+        private Cursor instrument(Cursor cursor, String sql, long start) {
+            return new InstrumentedCursor(cursor, statistics, statistics.getTimer(sql), start);
+        }
+
+        @Override
+        public SupportSQLiteStatement compileStatement(String sql) {
+            return new InstrumentedStatement(delegate.compileStatement(sql), statistics,
+                    statistics.getTimer(sql));
+        }
+
+        @Override
+        public void beginTransaction() {
+            long start = System.nanoTime();
+            delegate.beginTransaction();
+            onBeginTransaction(start);
+        }
+
+        @Override
+        public void beginTransactionNonExclusive() {
+            long start = System.nanoTime();
+            delegate.beginTransactionNonExclusive();
+            onBeginTransaction(start);
+        }
+
+        @Override
+        public void beginTransactionWithListener(SQLiteTransactionListener transactionListener) {
+            long start = System.nanoTime();
+            delegate.beginTransactionWithListener(transactionListener);
+            onBeginTransaction(start);
+        }
+
+        @Override
+        public void beginTransactionWithListenerNonExclusive(SQLiteTransactionListener transactionListener) {
+            long start = System.nanoTime();
+            delegate.beginTransactionWithListenerNonExclusive(transactionListener);
+            onBeginTransaction(start);
+        }
+
+        @Override
+        public void endTransaction() {
+            try {
+                delegate.endTransaction();
+            } finally {
+                onEndTransaction();
+            }
+        }
+
+        @Override
+        public void setTransactionSuccessful() {
+            delegate.setTransactionSuccessful();
+        }
+
+        @Override
+        public boolean inTransaction() {
+            return delegate.inTransaction();
+        }
+
+        @Override
+        public boolean isDbLockedByCurrentThread() {
+            return delegate.isDbLockedByCurrentThread();
+        }
+
+        @Override
+        public boolean yieldIfContendedSafely() {
+            return delegate.yieldIfContendedSafely();
+        }
+
+        @Override
+        public boolean yieldIfContendedSafely(long sleepAfterYieldDelay) {
+            return delegate.yieldIfContendedSafely(sleepAfterYieldDelay);
+        }
+
+        @Override
+        public int getVersion() {
+            return delegate.getVersion();
+        }
+
+        @Override
+        public void setVersion(int version) {
+            delegate.setVersion(version);
+        }
+
+        @Override
+        public long getMaximumSize() {
+            return delegate.getMaximumSize();
+        }
+
+        @Override
+        public long setMaximumSize(long numBytes) {
+            return delegate.setMaximumSize(numBytes);
+        }
+
+        @Override
+        public long getPageSize() {
+            return delegate.getPageSize();
+        }
+
+        @Override
+        public void setPageSize(long numBytes) {
+            delegate.setPageSize(numBytes);
+        }
+
+        @Override
+        public Cursor query(String query) {
+            long start = System.nanoTime();
+            return instrument(delegate.query(query), query, start);
+        }
+
+        @Override
+        public Cursor query(String query, Object[] bindArgs) {
+            long start = System.nanoTime();
+            return instrument(delegate.query(query, bindArgs), query, start);
+        }
+
+        @Override
+        public Cursor query(SupportSQLiteQuery query) {
+            long start = System.nanoTime();
+            return instrument(delegate.query(query), query.getSql(), start);
+        }
+
+        @Override
+        public Cursor query(SupportSQLiteQuery query, CancellationSignal cancellationSignal) {
+            long start = System.nanoTime();
+            return instrument(delegate.query(query, cancellationSignal), query.getSql(), start);
+        }
+
+        @Override
+        public long insert(String table, int conflictAlgorithm, ContentValues values) throws SQLException {
+            long start = System.nanoTime();
+            long rowId = delegate.insert(table, conflictAlgorithm, values);
+            statistics.record(statistics.getTimer("INSERT INTO " + table),
+                    System.nanoTime() - start, 0, rowId != -1 ? 1 : 0);
+            return rowId;
+        }
+
+        @Override
+        public int delete(String table, String whereClause, Object[] whereArgs) {
+            long start = System.nanoTime();
+            int rows = delegate.delete(table, whereClause, whereArgs);
+            statistics.record(statistics.getTimer("DELETE FROM " + table + " WHERE " + whereClause),
+                    System.nanoTime() - start, 0, rows);
+            return rows;
+        }
+
+        @Override
+        public int update(String table, int conflictAlgorithm, ContentValues values,
+                          String whereClause, Object[] whereArgs) {
+            long start = System.nanoTime();
+            int rows = delegate.update(table, conflictAlgorithm, values, whereClause, whereArgs);
+            statistics.record(statistics.getTimer("UPDATE " + table + " WHERE " + whereClause),
+                    System.nanoTime() - start, 0, rows);
+            return rows;
+        }
+
+        @Override
+        public void execSQL(String sql) throws SQLException {
+            long start = System.nanoTime();
+            delegate.execSQL(sql);
+            statistics.record(statistics.getTimer(sql), System.nanoTime() - start, 0, 0);
+        }
+
+        @Override
+        public void execSQL(String sql, Object[] bindArgs) throws SQLException {
+            long start = System.nanoTime();
+            delegate.execSQL(sql, bindArgs);
+            statistics.record(statistics.getTimer(sql), System.nanoTime() - start, 0, 0);
+        }
+
+        @Override
+        public boolean isReadOnly() {
+            return delegate.isReadOnly();
+        }
+
+        @Override
+        public boolean isOpen() {
+            return delegate.isOpen();
+        }
+
+        @Override
+        public boolean needUpgrade(int newVersion) {
+            return delegate.needUpgrade(newVersion);
+        }
+
+        @Override
+        public String getPath() {
+            return delegate.getPath();
+        }
+
+        @Override
+        public void setLocale(Locale locale) {
+            delegate.setLocale(locale);
+        }
+
+        @Override
+        public void setMaxSqlCacheSize(int cacheSize) {
+            delegate.setMaxSqlCacheSize(cacheSize);
+        }
+
+        @Override
+        public void setForeignKeyConstraintsEnabled(boolean enable) {
+            delegate.setForeignKeyConstraintsEnabled(enable);
+        }
+
+        @Override
+        public boolean enableWriteAheadLogging() {
+            return delegate.enableWriteAheadLogging();
+        }
+
+        @Override
+        public void disableWriteAheadLogging() {
+            delegate.disableWriteAheadLogging();
+        }
+
+        @Override
+        public boolean isWriteAheadLoggingEnabled() {
+            return delegate.isWriteAheadLoggingEnabled();
+        }
+
+        @Override
+        public List<Pair<String, String>> getAttachedDbs() {
+            return delegate.getAttachedDbs();
+        }
+
+        @Override
+        public boolean isDatabaseIntegrityOk() {
+            return delegate.isDatabaseIntegrityOk();
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+    }
+
+    private static final class InstrumentedStatement implements SupportSQLiteStatement {
+        private final SupportSQLiteStatement delegate;
+        private final DatabaseStatistics statistics;
+        private final DatabaseStatistics.Timer timer;
+
+        private InstrumentedStatement(SupportSQLiteStatement delegate, DatabaseStatistics statistics,
+                                      DatabaseStatistics.Timer timer) {
+            this.delegate = delegate;
+            this.statistics = statistics;
+            this.timer = timer;
+        }
+
+        @Override
+        public void execute() {
+            long start = System.nanoTime();
+            delegate.execute();
+            statistics.record(timer, System.nanoTime() - start, 0, 0);
+        }
+
+        @Override
+        public int executeUpdateDelete() {
+            long start = System.nanoTime();
+            int rows = delegate.executeUpdateDelete();
+            statistics.record(timer, System.nanoTime() - start, 0, rows);
+            return rows;
+        }
+
+        @Override
+        public long executeInsert() {
+            long start = System.nanoTime();
+            long rowId = delegate.executeInsert();
+            statistics.record(timer, System.nanoTime() - start, 0, rowId != -1 ? 1 : 0);
+            return rowId;
+        }
+
+        @Override
+        public long simpleQueryForLong() {
+            long start = System.nanoTime();
+            long result = delegate.simpleQueryForLong();
+            statistics.record(timer, System.nanoTime() - start, 1, 0);
+            return result;
+        }
+
+        @Override
+        public String simpleQueryForString() {
+            long start = System.nanoTime();
+            String result = delegate.simpleQueryForString();
+            statistics.record(timer, System.nanoTime() - start, 1, 0);
+            return result;
+        }
+
+        @Override
+        public void bindNull(int index) {
+            delegate.bindNull(index);
+        }
+
+        @Override
+        public void bindLong(int index, long value) {
+            delegate.bindLong(index, value);
+        }
+
+        @Override
+        public void bindDouble(int index, double value) {
+            delegate.bindDouble(index, value);
+        }
+
+        @Override
+        public void bindString(int index, String value) {
+            delegate.bindString(index, value);
+        }
+
+        @Override
+        public void bindBlob(int index, byte[] value) {
+            delegate.bindBlob(index, value);
+        }
+
+        @Override
+        public void clearBindings() {
+            delegate.clearBindings();
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+    }
+
+    /**
+     * Records the query when the cursor is closed, the number of rows read is the highest
+     * position the cursor has been moved to.
+     */
+    private static final class InstrumentedCursor extends CursorWrapper {
+        private final DatabaseStatistics statistics;
+        private final DatabaseStatistics.Timer timer;
+        private final long start;
+        private int rowsRead;
+        private boolean recorded;
+
+        private InstrumentedCursor(Cursor cursor, DatabaseStatistics statistics,
+                                   DatabaseStatistics.Timer timer, long start) {
+            super(cursor);
+            this.statistics = statistics;
+            this.timer = timer;
+            this.start = start;
+        }
+
+        private boolean onMove(boolean moved) {
+            if (moved) {
+                rowsRead = Math.max(rowsRead, getPosition() + 1);
+            }
+            return moved;
+        }
+
+        @Override
+        public boolean moveToNext() {
+            return onMove(super.moveToNext());
+        }
+
+        @Override
+        public boolean moveToFirst() {
+            return onMove(super.moveToFirst());
+        }
+
+        @Override
+        public boolean moveToLast() {
+            return onMove(super.moveToLast());
+        }
+
+        @Override
+        public boolean moveToPosition(int position) {
+            return onMove(super.moveToPosition(position));
+        }
+
+        @Override
+        public boolean move(int offset) {
+            return onMove(super.move(offset));
+        }
+
+        @Override
+        public void close() {
+            super.close();
+            if (!recorded) {
+                recorded = true;
+                statistics.record(timer, System.nanoTime() - start, rowsRead, 0);
+            }
+        }
+    }
+}
@@ -0,0 +1,338 @@
+/**
+ * Copyright (C) 2013 - 2021 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.storage;
+
+import androidx.sqlite.db.SupportSQLiteStatement;
+
+import org.envirocar.core.MeasurementWriter;
+import org.envirocar.core.entity.Measurement;
+import org.envirocar.core.entity.MeasurementPropertiesCodec;
+import org.envirocar.core.entity.MeasurementTable;
+import org.envirocar.core.entity.TrackSummary;
+import org.envirocar.core.exception.MeasurementSerializationException;
+import org.envirocar.core.logging.Logger;
+import org.envirocar.storage.dao.LocalTrackDAONew;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * {@link MeasurementWriter} that bypasses the Room entity mapping. A compiled insert statement is
+ * bound directly from the measurement and the properties are encoded into reused buffers.
+ * <p>
+ * A dedicated thread owns the SQLite transaction, because a transaction is bound to the thread
+ * that began it and the recording pipeline does not guarantee a single thread. The recording
+ * thread only puts the measurement into a preallocated ring buffer, so that handing over a
+ * measurement does not allocate. The writer thread collects the measurements of a batch and
+ * inserts them in one short transaction, so the write lock of the database is only held while a
+ * batch is written and not in between.
+ */
+final class RawMeasurementWriter implements MeasurementWriter {
+    private static final Logger LOG = Logger.getLogger(RawMeasurementWriter.class);
+
+    private static final String INSERT_MEASUREMENT = "INSERT INTO measurements (" +
+            MeasurementTable.KEY_LATITUDE + ", " +
+            MeasurementTable.KEY_LONGITUDE + ", " +
+            MeasurementTable.KEY_TIME + ", " +
+            MeasurementTable.KEY_TRACK + ", " +
+            MeasurementTable.KEY_PROPERTIES_BINARY + ") VALUES (?, ?, ?, ?, ?)";
+
+    private static final int BUFFER_CAPACITY = 1000;
+    private static final long CLOSE_WARNING_TIMEOUT = 2000;
+
+    private final TrackRoomDatabase trackRoomDatabase;
+    private final LocalTrackDAONew trackDAO;
+    private final long trackId;
+    private final int commitSize;
+    private final long commitIntervalNanos;
+    private final Thread thread;
+
+    // shared with the recording thread, guarded by the lock
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private final Condition committed = lock.newCondition();
+    private final Measurement[] buffer = new Measurement[BUFFER_CAPACITY];
+    private int head;
+    private int count;
+    private long handedOver;
+    private long committedCount;
+    private long flushRequest;
+    private boolean closed;
+    private Throwable failure;
+
+    // owned by the writer thread, one buffer per encoded size as bindBlob takes whole arrays
+    private final byte[][] blobs = new byte[MeasurementPropertiesCodec.MAX_ENCODED_SIZE + 1][];
+    private SupportSQLiteStatement insertStatement;
+    private TrackSummary summary;
+    private final Measurement[] batch;
+    private int batchSize;
+    private long taken;
+    private long commitDeadline;
+
+    /**
+     * Constructor.
+     *
+     * @param trackRoomDatabase the database to write to.
+     * @param trackId           the id of the track the measurements belong to.
+     * @param commitSize        the number of measurements after which the transaction is committed.
+     * @param commitInterval    the maximum time in milliseconds a measurement stays uncommitted.
+     */
+    RawMeasurementWriter(TrackRoomDatabase trackRoomDatabase, long trackId, int commitSize,
+                         long commitInterval) {
+        this.trackRoomDatabase = trackRoomDatabase;
+        this.trackDAO = trackRoomDatabase.getTrackDAONew();
+        this.trackId = trackId;
+        this.commitSize = Math.min(Math.max(1, commitSize), BUFFER_CAPACITY);
+        this.batch = new Measurement[this.commitSize];
+        this.commitIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, commitInterval));
+        this.thread = new Thread(this::run, "envirocar-db-recording-" + trackId);
+    }
+
+    void start() {
+        thread.start();
+    }
+
+    @Override
+    public void write(Measurement measurement) throws MeasurementSerializationException {
+        lock.lock();
+        try {
+            checkState();
+            while (count == buffer.length) {
+                notFull.await();
+                checkState();
+            }
+            buffer[(head + count) % buffer.length] = measurement;
+            count++;
+            handedOver++;
+            notEmpty.signal();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MeasurementSerializationException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void flush() throws MeasurementSerializationException {
+        lock.lock();
+        try {
+            long target = handedOver;
+            flushRequest = target;
+            notEmpty.signal();
+            while (committedCount < target && failure == null && thread.isAlive()) {
+                committed.await();
+            }
+            if (failure != null) {
+                throw new MeasurementSerializationException(failure);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MeasurementSerializationException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws MeasurementSerializationException {
+        lock.lock();
+        try {
+            closed = true;
+            notEmpty.signal();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+
+        // the last batch is written in a single short transaction. The caller updates or
+        // deletes the track afterwards, so this never returns while the thread may still write,
+        // even if the database is locked by someone else or the caller is interrupted
+        boolean interrupted = false;
+        long timeout = CLOSE_WARNING_TIMEOUT;
+        while (thread.isAlive()) {
+            try {
+                thread.join(timeout);
+            } catch (InterruptedException e) {
+                interrupted = true;
+                continue;
+            }
+            if (thread.isAlive() && timeout > 0) {
+                LOG.warn(String.format("Measurements of track %s are still being written after " +
+                        "%s ms, waiting", trackId, CLOSE_WARNING_TIMEOUT));
+                timeout = 0;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+
+        lock.lock();
+        try {
+            if (failure != null) {
+                throw new MeasurementSerializationException(failure);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void checkState() throws MeasurementSerializationException {
+        if (failure != null) {
+            throw new MeasurementSerializationException(failure);
+        }
+        if (closed) {
+            throw new MeasurementSerializationException(
+                    new IllegalStateException("Measurement writer has been closed"));
+        }
+    }
+
+    private void run() {
+        try {
+            insertStatement = trackRoomDatabase.compileStatement(INSERT_MEASUREMENT);
+            summary = trackDAO.fetchTrackSummary(trackId);
+            if (summary == null) {
+                summary = new TrackSummary(trackId);
+            }
+
+            boolean stop = false;
+            while (!stop) {
+                boolean commit = false;
+
+                lock.lock();
+                try {
+                    while (count == 0) {
+                        if (closed || flushRequest > committedCount) {
+                            commit = true;
+                            stop = closed;
+                            break;
+                        }
+                        if (batchSize == 0) {
+                            notEmpty.await();
+                        } else {
+                            long wait = commitDeadline - System.nanoTime();
+                            if (wait <= 0) {
+                                commit = true;
+                                break;
+                            }
+                            notEmpty.awaitNanos(wait);
+                        }
+                    }
+                    while (count > 0 && batchSize < batch.length) {
+                        if (batchSize == 0) {
+                            commitDeadline = System.nanoTime() + commitIntervalNanos;
+                        }
+                        batch[batchSize++] = buffer[head];
+                        buffer[head] = null;
+                        head = (head + 1) % buffer.length;
+                        count--;
+                        taken++;
+                    }
+                    notFull.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+
+                commit |= batchSize >= batch.length
+                        || (batchSize > 0 && System.nanoTime() - commitDeadline >= 0);
+                if (commit) {
+                    commit();
+                }
+            }
+        } catch (Throwable e) {
+            LOG.error(String.format("Unable to write measurements of track %s", trackId), e);
+            lock.lock();
+            try {
+                failure = e;
+                notFull.signalAll();
+                committed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        } finally {
+            if (insertStatement != null) {
+                try {
+                    insertStatement.close();
+                } catch (Exception e) {
+                    LOG.warn("Unable to close the insert statement", e);
+                }
+            }
+        }
+    }
+
+    private void insert(Measurement measurement) {
+        bindNullable(1, measurement.getLatitude());
+        bindNullable(2, measurement.getLongitude());
+        insertStatement.bindLong(3, measurement.getTime());
+        insertStatement.bindLong(4, trackId);
+
+        int size = MeasurementPropertiesCodec.encodedSize(measurement);
+        byte[] blob = blobs[size];
+        if (blob == null) {
+            blob = blobs[size] = new byte[size];
+        }
+        MeasurementPropertiesCodec.encode(measurement, blob);
+        insertStatement.bindBlob(5, blob);
+
+        insertStatement.executeInsert();
+        summary.addMeasurement(measurement);
+    }
+
+    private void bindNullable(int index, Double value) {
+        if (value == null) {
+            insertStatement.bindNull(index);
+        } else {
+            insertStatement.bindDouble(index, value);
+        }
+    }
+
+    private void commit() {
+        if (batchSize > 0) {
+            trackRoomDatabase.beginTransaction();
+            try {
+                for (int i = 0; i < batchSize; i++) {
+                    insert(batch[i]);
+                }
+                trackDAO.insertTrackSummary(summary);
+                if (summary.getEndTime() != null && summary.getLength() != null) {
+                    trackDAO.updateTrackEndTimeAndLength(trackId,
+                            String.valueOf(summary.getEndTime()), String.valueOf(summary.getLength()));
+                }
+                trackRoomDatabase.setTransactionSuccessful();
+            } finally {
+                trackRoomDatabase.endTransaction();
+            }
+            LOG.info(String.format("committed %s measurements of track %s", batchSize, trackId));
+            for (int i = 0; i < batchSize; i++) {
+                batch[i] = null;
+            }
+            batchSize = 0;
+        }
+
+        lock.lock();
+        try {
+            committedCount = taken;
+            committed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
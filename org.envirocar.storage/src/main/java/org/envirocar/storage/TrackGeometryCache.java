@@ -0,0 +1,111 @@
+/**
+ * Copyright (C) 2013 - 2021 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.storage;
+
+import org.envirocar.core.entity.MeasurementTable;
+import org.envirocar.core.entity.TrackGeometry;
+import org.envirocar.core.entity.TrackSummary;
+import org.envirocar.core.logging.Logger;
+import org.envirocar.storage.dao.LocalTrackDAONew;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Creates and reads the levels of detail of the track paths stored in the track_geometry table.
+ * A stored geometry is outdated as soon as the measurement count of the track summary differs
+ * from the count the geometry has been created from.
+ */
+final class TrackGeometryCache {
+    private static final Logger LOG = Logger.getLogger(TrackGeometryCache.class);
+    private static final int PAGE_SIZE = 1000;
+
+    private final LocalTrackDAONew trackDAO;
+
+    TrackGeometryCache(TrackRoomDatabase trackRoomDatabase) {
+        this.trackDAO = trackRoomDatabase.getTrackDAONew();
+    }
+
+    /**
+     * @param trackId the id of the track.
+     * @return the stored levels of detail, or null if there are none or they are outdated.
+     */
+    List<TrackGeometry> fetch(long trackId) {
+        List<TrackGeometry> geometry = trackDAO.fetchTrackGeometry(trackId);
+        if (geometry.isEmpty()) {
+            return null;
+        }
+        TrackSummary summary = trackDAO.fetchTrackSummary(trackId);
+        if (summary != null && summary.getMeasurementCount() != geometry.get(0).getSourceCount()) {
+            return null;
+        }
+        return geometry;
+    }
+
+    /**
+     * Creates the levels of detail from the positions of the measurements and stores them. Has to
+     * be called on the write executor.
+     *
+     * @param trackId the id of the track.
+     * @return the levels of detail ordered from the finest to the coarsest level.
+     */
+    List<TrackGeometry> build(long trackId) {
+        double[] latitudes = new double[PAGE_SIZE];
+        double[] longitudes = new double[PAGE_SIZE];
+        int[] indices = new int[PAGE_SIZE];
+        int count = 0;
+        int measurementCount = 0;
+
+        List<MeasurementTable> page = trackDAO.fetchPositionPage(trackId, PAGE_SIZE);
+        while (!page.isEmpty()) {
+            for (MeasurementTable measurement : page) {
+                Double latitude = measurement.getKeyLatitude();
+                Double longitude = measurement.getKeyLongitude();
+                // same filter as the map layers, 0.0 marks a missing position
+                if (latitude != null && longitude != null && latitude != 0.0 && longitude != 0.0) {
+                    if (count == latitudes.length) {
+                        latitudes = Arrays.copyOf(latitudes, count * 2);
+                        longitudes = Arrays.copyOf(longitudes, count * 2);
+                        indices = Arrays.copyOf(indices, count * 2);
+                    }
+                    latitudes[count] = latitude;
+                    longitudes[count] = longitude;
+                    indices[count] = measurementCount;
+                    count++;
+                }
+                measurementCount++;
+            }
+
+            if (page.size() < PAGE_SIZE) {
+                break;
+            }
+            MeasurementTable last = page.get(page.size() - 1);
+            page = trackDAO.fetchPositionPageAfter(trackId, last.getKeyTime(), last.getRowId(), PAGE_SIZE);
+        }
+
+        List<TrackGeometry> geometry = TrackGeometry.fromPath(
+                trackId, measurementCount, latitudes, longitudes, indices, count);
+        if (!geometry.isEmpty()) {
+            trackDAO.replaceTrackGeometry(trackId, geometry);
+            LOG.info(String.format("build(): track %s simplified from %s points to %s",
+                    trackId, count, geometry.get(geometry.size() - 1).getPointCount()));
+        }
+        return geometry;
+    }
+}
@@ -0,0 +1,191 @@
+/**
+ * Copyright (C) 2013 - 2021 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.storage;
+
+import android.database.Cursor;
+
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+import org.envirocar.core.logging.Logger;
+import org.envirocar.core.util.RetentionPolicy;
+import org.envirocar.core.util.RetentionResult;
+import org.envirocar.storage.dao.LocalTrackDAONew;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Applies a {@link RetentionPolicy} to the track database. Tracks are deleted in chunks, each
+ * chunk in its own transaction, so that the writer is never blocked for long. Afterwards the freed
+ * pages are handed back to the file system by an incremental vacuum. Nothing is done while a
+ * track is being recorded.
+ */
+final class TrackRetention {
+    private static final Logger LOG = Logger.getLogger(TrackRetention.class);
+
+    // stays below the SQLite limit of host parameters
+    static final int CHUNK_SIZE = 500;
+
+    private static final int AUTO_VACUUM_INCREMENTAL = 2;
+
+    // a full VACUUM writes a copy of the database and a journal of the same size
+    private static final int VACUUM_SPACE_FACTOR = 2;
+
+    private final TrackRoomDatabase trackRoomDatabase;
+    private final LocalTrackDAONew trackDAO;
+    private final TrackGeometryCache trackGeometryCache;
+
+    TrackRetention(TrackRoomDatabase trackRoomDatabase, TrackGeometryCache trackGeometryCache) {
+        this.trackRoomDatabase = trackRoomDatabase;
+        this.trackDAO = trackRoomDatabase.getTrackDAONew();
+        this.trackGeometryCache = trackGeometryCache;
+    }
+
+    /**
+     * Runs the retention. Has to be called on the write executor.
+     *
+     * @param policy the policy to apply.
+     * @return the result of the run.
+     */
+    RetentionResult apply(RetentionPolicy policy) {
+        long sizeBefore = getFileSize();
+        if (trackDAO.countOngoingTracks() > 0) {
+            LOG.info(String.format("applyRetention(%s): skipped, a track is being recorded", policy));
+            return RetentionResult.skipped(sizeBefore);
+        }
+
+        int deletedTracks = 0;
+        int compactedTracks = 0;
+        int deletedMeasurements = 0;
+
+        // 1. uploaded tracks that are older than the configured number of days
+        if (policy.hasKeepDays()) {
+            long endedBefore = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(policy.getKeepDays());
+            List<Long> trackIds;
+            while (!(trackIds = trackDAO.fetchUploadedTrackIdsEndedBefore(endedBefore, CHUNK_SIZE)).isEmpty()) {
+                deletedMeasurements += trackDAO.deleteTracksWithMeasurements(trackIds);
+                deletedTracks += trackIds.size();
+            }
+        }
+
+        // 2. measurements of uploaded tracks, only the summary remains for the track list
+        if (policy.isSummaryOnlyUploaded()) {
+            List<Long> trackIds;
+            while (!(trackIds = trackDAO.fetchUploadedTrackIdsWithMeasurements(CHUNK_SIZE)).isEmpty()) {
+                // keep the path of the track for the map views
+                for (Long trackId : trackIds) {
+                    if (trackGeometryCache.fetch(trackId) == null) {
+                        trackGeometryCache.build(trackId);
+                    }
+                }
+                deletedMeasurements += trackDAO.deleteMeasurementsOfTracks(trackIds);
+                compactedTracks += trackIds.size();
+            }
+        }
+
+        // 3. oldest uploaded tracks until the used size fits into the configured maximum
+        if (policy.hasMaxDatabaseSize()) {
+            while (getUsedSize() > policy.getMaxDatabaseSize()) {
+                List<Long> trackIds = trackDAO.fetchOldestUploadedTrackIds(CHUNK_SIZE / 10);
+                if (trackIds.isEmpty()) {
+                    LOG.info("applyRetention(): size limit exceeded, but only local tracks are left");
+                    break;
+                }
+                deletedMeasurements += trackDAO.deleteTracksWithMeasurements(trackIds);
+                deletedTracks += trackIds.size();
+            }
+        }
+
+        boolean converted = compact();
+
+        RetentionResult result = new RetentionResult(deletedTracks, compactedTracks,
+                deletedMeasurements, sizeBefore, getFileSize(), converted);
+        LOG.info(String.format("applyRetention(%s): %s", policy, result));
+        return result;
+    }
+
+    /**
+     * Deletes the given tracks in chunks.
+     *
+     * @param trackIds the ids of the tracks to delete.
+     */
+    void deleteTracks(List<Long> trackIds) {
+        for (int i = 0; i < trackIds.size(); i += CHUNK_SIZE) {
+            trackDAO.deleteTracksWithMeasurements(
+                    trackIds.subList(i, Math.min(i + CHUNK_SIZE, trackIds.size())));
+        }
+    }
+
+    /**
+     * Releases the free pages of the database file. Databases created before the retention was
+     * introduced use no auto vacuum, those are converted once by a full VACUUM if there is enough
+     * free space for it.
+     *
+     * @return true if the database has been converted to incremental auto vacuum.
+     */
+    private boolean compact() {
+        SupportSQLiteDatabase db = trackRoomDatabase.getOpenHelper().getWritableDatabase();
+        boolean converted = false;
+        if (queryLong(db, "PRAGMA auto_vacuum") != AUTO_VACUUM_INCREMENTAL) {
+            long fileSize = getFileSize();
+            File directory = new File(db.getPath()).getParentFile();
+            long usableSpace = directory != null ? directory.getUsableSpace() : 0;
+            if (usableSpace < VACUUM_SPACE_FACTOR * fileSize) {
+                LOG.warn(String.format("compact(): not converting to incremental auto vacuum, " +
+                        "%s bytes free for a database of %s bytes", usableSpace, fileSize));
+            } else {
+                db.execSQL("PRAGMA auto_vacuum = INCREMENTAL");
+                db.execSQL("VACUUM");
+                converted = true;
+                LOG.info(String.format("compact(): converted to incremental auto vacuum, " +
+                        "size %s -> %s bytes", fileSize, getFileSize()));
+            }
+        }
+
+        // the pragma frees one page per returned row
+        try (Cursor cursor = db.query("PRAGMA incremental_vacuum")) {
+            while (cursor.moveToNext()) {
+                // consume
+            }
+        }
+
+        try (Cursor cursor = db.query("PRAGMA wal_checkpoint(TRUNCATE)")) {
+            cursor.moveToFirst();
+        }
+        return converted;
+    }
+
+    private long getFileSize() {
+        SupportSQLiteDatabase db = trackRoomDatabase.getOpenHelper().getReadableDatabase();
+        return queryLong(db, "PRAGMA page_count") * queryLong(db, "PRAGMA page_size");
+    }
+
+    private long getUsedSize() {
+        SupportSQLiteDatabase db = trackRoomDatabase.getOpenHelper().getReadableDatabase();
+        long usedPages = queryLong(db, "PRAGMA page_count") - queryLong(db, "PRAGMA freelist_count");
+        return usedPages * queryLong(db, "PRAGMA page_size");
+    }
+
+    private static long queryLong(SupportSQLiteDatabase db, String query) {
+        try (Cursor cursor = db.query(query)) {
+            return cursor.moveToFirst() ? cursor.getLong(0) : 0;
+        }
+    }
+}
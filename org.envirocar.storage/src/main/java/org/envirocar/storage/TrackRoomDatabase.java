@@ -18,15 +18,115 @@
  */
 package org.envirocar.storage;
 
+import androidx.annotation.NonNull;
 import androidx.room.Database;
 import androidx.room.RoomDatabase;
+import androidx.room.migration.Migration;
+import androidx.sqlite.db.SupportSQLiteDatabase;
 
 import org.envirocar.core.entity.MeasurementTable;
+import org.envirocar.core.entity.TrackGeometry;
+import org.envirocar.core.entity.TrackSummary;
 import org.envirocar.core.entity.TrackTable;
 import org.envirocar.storage.dao.LocalTrackDAONew;
 
-@Database(entities = {TrackTable.class, MeasurementTable.class}, version = 11)
+@Database(entities = {TrackTable.class, MeasurementTable.class, TrackSummary.class,
+        TrackGeometry.class}, version = 15)
 public abstract class TrackRoomDatabase extends RoomDatabase {
 
+    /**
+     * Converts the measurement table from TEXT time and coordinates to INTEGER/REAL columns and
+     * adds the composite (track, time) index used by all per-track measurement queries.
+     */
+    public static final Migration MIGRATION_11_12 = new Migration(11, 12) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TABLE IF NOT EXISTS `measurements_new` (" +
+                    "`_id` INTEGER NOT NULL, " +
+                    "`latitude` REAL, " +
+                    "`longitude` REAL, " +
+                    "`properties` TEXT, " +
+                    "`time` INTEGER, " +
+                    "`track` INTEGER, " +
+                    "PRIMARY KEY(`_id`))");
+            database.execSQL("INSERT INTO `measurements_new` " +
+                    "(`_id`, `latitude`, `longitude`, `properties`, `time`, `track`) " +
+                    "SELECT `_id`, CAST(`latitude` AS REAL), CAST(`longitude` AS REAL), " +
+                    "`properties`, CAST(`time` AS INTEGER), `track` FROM `measurements`");
+            database.execSQL("DROP TABLE `measurements`");
+            database.execSQL("ALTER TABLE `measurements_new` RENAME TO `measurements`");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_measurements_track_time` " +
+                    "ON `measurements` (`track`, `time`)");
+        }
+    };
+
+    /**
+     * Adds the BLOB column holding the binary encoded measurement properties. Existing rows keep
+     * their JSON properties and are still readable.
+     */
+    public static final Migration MIGRATION_12_13 = new Migration(12, 13) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("ALTER TABLE `measurements` ADD COLUMN `properties_bin` BLOB");
+        }
+    };
+
+    /**
+     * Adds the track_summary table and fills it from the existing measurements. Property based
+     * aggregates are not available in SQL, they are filled by a rebuild of the summaries.
+     */
+    public static final Migration MIGRATION_13_14 = new Migration(13, 14) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TABLE IF NOT EXISTS `track_summary` (" +
+                    "`trackId` INTEGER NOT NULL, " +
+                    "`startTime` INTEGER, " +
+                    "`endTime` INTEGER, " +
+                    "`measurementCount` INTEGER NOT NULL, " +
+                    "`length` REAL, " +
+                    "`minLatitude` REAL, " +
+                    "`maxLatitude` REAL, " +
+                    "`minLongitude` REAL, " +
+                    "`maxLongitude` REAL, " +
+                    "`lastLatitude` REAL, " +
+                    "`lastLongitude` REAL, " +
+                    "`speedSum` REAL NOT NULL, " +
+                    "`speedCount` INTEGER NOT NULL, " +
+                    "`consumptionSum` REAL NOT NULL, " +
+                    "`consumptionCount` INTEGER NOT NULL, " +
+                    "`co2Sum` REAL NOT NULL, " +
+                    "`co2Count` INTEGER NOT NULL, " +
+                    "PRIMARY KEY(`trackId`))");
+            database.execSQL("INSERT INTO `track_summary` " +
+                    "SELECT t.`_id`, MIN(m.`time`), MAX(m.`time`), COUNT(m.`_id`), " +
+                    "CAST(t.`length` AS REAL), " +
+                    "MIN(m.`latitude`), MAX(m.`latitude`), MIN(m.`longitude`), MAX(m.`longitude`), " +
+                    "(SELECT `latitude` FROM `measurements` WHERE `track` = t.`_id` " +
+                    "ORDER BY `time` DESC LIMIT 1), " +
+                    "(SELECT `longitude` FROM `measurements` WHERE `track` = t.`_id` " +
+                    "ORDER BY `time` DESC LIMIT 1), " +
+                    "0, 0, 0, 0, 0, 0 " +
+                    "FROM `tracks` t LEFT JOIN `measurements` m ON m.`track` = t.`_id` " +
+                    "GROUP BY t.`_id`");
+        }
+    };
+
+    /**
+     * Adds the track_geometry table. The levels of detail are created on first access.
+     */
+    public static final Migration MIGRATION_14_15 = new Migration(14, 15) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TABLE IF NOT EXISTS `track_geometry` (" +
+                    "`trackId` INTEGER NOT NULL, " +
+                    "`level` INTEGER NOT NULL, " +
+                    "`tolerance` REAL NOT NULL, " +
+                    "`sourceCount` INTEGER NOT NULL, " +
+                    "`pointCount` INTEGER NOT NULL, " +
+                    "`points` BLOB NOT NULL, " +
+                    "PRIMARY KEY(`trackId`, `level`))");
+        }
+    };
+
     public abstract LocalTrackDAONew getTrackDAONew();
 }
@@ -18,15 +18,17 @@
  */
 package org.envirocar.storage.dao;
 
-import android.database.Cursor;
-
 import androidx.room.Dao;
 import androidx.room.Insert;
 import androidx.room.OnConflictStrategy;
 import androidx.room.Query;
+import androidx.room.RoomWarnings;
+import androidx.room.Transaction;
 import androidx.room.Update;
 
 import org.envirocar.core.entity.MeasurementTable;
+import org.envirocar.core.entity.TrackGeometry;
+import org.envirocar.core.entity.TrackSummary;
 import org.envirocar.core.entity.TrackTable;
 
 import java.util.List;
@@ -64,9 +66,52 @@ public interface LocalTrackDAONew {
     @Insert(onConflict = OnConflictStrategy.FAIL)
     void insertMeasurement(MeasurementTable measurementTable);
 
+    @Insert(onConflict = OnConflictStrategy.FAIL)
+    void insertMeasurements(List<MeasurementTable> measurementTables);
+
+    /**
+     * Inserts a track together with all of its measurements in a single transaction.
+     *
+     * @param trackTable        the track to insert.
+     * @param measurementTables the measurements of the track. Their track reference is set to
+     *                          the id of the newly inserted track.
+     * @param trackSummary      the summary of the track and its measurements.
+     * @return the row id of the inserted track.
+     */
+    @Transaction
+    default long insertTrackWithMeasurements(TrackTable trackTable,
+                                             List<MeasurementTable> measurementTables,
+                                             TrackSummary trackSummary) {
+        long trackId = insertTrack(trackTable);
+        for (MeasurementTable measurementTable : measurementTables) {
+            measurementTable.setKeyTrack(trackId);
+        }
+        insertMeasurements(measurementTables);
+        trackSummary.setTrackId(trackId);
+        insertTrackSummary(trackSummary);
+        return trackId;
+    }
+
     @Update(onConflict = OnConflictStrategy.FAIL)
     int updateTrack(TrackTable trackTable);
 
+    /**
+     * Inserts a batch of measurements and updates the track they belong to in a single
+     * transaction.
+     *
+     * @param measurementTables the measurements to insert.
+     * @param trackTable        the track to update.
+     */
+    @Transaction
+    default void insertMeasurementsAndUpdateTrack(List<MeasurementTable> measurementTables,
+                                                  TrackTable trackTable) {
+        insertMeasurements(measurementTables);
+        updateTrack(trackTable);
+    }
+
+    @Query("UPDATE tracks SET end_time = :endTime, length = :length WHERE _id = :trackId")
+    void updateTrackEndTimeAndLength(Long trackId, String endTime, String length);
+
     @Query("UPDATE TRACKS SET carId = :newCarId WHERE carId  = :currentId")
     void updateCarId(String newCarId, String currentId);
 
@@ -85,7 +130,7 @@ public interface LocalTrackDAONew {
     Observable<TrackTable> getActiveTrack();
 
     @Query("DELETE FROM MEASUREMENTS WHERE track=:trackId AND time>=:time")
-    void automaticDeleteMeasurement(String time, Long trackId);
+    void automaticDeleteMeasurement(long time, Long trackId);
 
     @Query("SELECT * FROM measurements" +
             " WHERE track = :trackId " +
@@ -97,18 +142,178 @@ public interface LocalTrackDAONew {
             " ORDER BY time ASC")
     List<MeasurementTable> fetchMeasurementSilent(Long trackId);
 
+    /**
+     * Returns the first page of the measurements of a track with startTime <= time < endTime.
+     */
+    @Query("SELECT * FROM measurements" +
+            " WHERE track = :trackId AND time >= :startTime AND time < :endTime" +
+            " ORDER BY time ASC, _id ASC LIMIT :limit")
+    List<MeasurementTable> fetchMeasurementPage(Long trackId, long startTime, long endTime, int limit);
+
+    /**
+     * Returns the page of the measurements of a track that follows the given (time, _id) position
+     * and lies before endTime. The "time >= :lastTime" term gives SQLite a lower bound on the
+     * (track, time) index, so each page seeks to its position instead of scanning from the start.
+     */
+    @Query("SELECT * FROM measurements" +
+            " WHERE track = :trackId" +
+            " AND time >= :lastTime AND (time > :lastTime OR _id > :lastRowId)" +
+            " AND time < :endTime" +
+            " ORDER BY time ASC, _id ASC LIMIT :limit")
+    List<MeasurementTable> fetchMeasurementPageAfter(Long trackId, long lastTime, long lastRowId,
+                                                     long endTime, int limit);
+
+    /**
+     * Returns the most recent measurements of a track, ordered by time.
+     */
+    @Query("SELECT * FROM (SELECT * FROM measurements" +
+            " WHERE track = :trackId" +
+            " ORDER BY time DESC, _id DESC LIMIT :limit)" +
+            " ORDER BY time ASC, _id ASC")
+    List<MeasurementTable> fetchLastMeasurements(Long trackId, int limit);
+
+    /**
+     * Returns the measurement that follows the given (time, _id) position after skipping offset
+     * measurements. The skipped measurements are only stepped over in the (track, time) index.
+     */
+    @Query("SELECT * FROM measurements" +
+            " WHERE track = :trackId" +
+            " AND time >= :lastTime AND (time > :lastTime OR _id > :lastRowId)" +
+            " ORDER BY time ASC, _id ASC LIMIT 1 OFFSET :offset")
+    MeasurementTable fetchMeasurementAfter(Long trackId, long lastTime, long lastRowId, int offset);
+
+    /**
+     * Same as {@link #fetchMeasurementPage} but only reads the columns required for the path of a
+     * track, the properties are left null.
+     */
+    @SuppressWarnings(RoomWarnings.CURSOR_MISMATCH)
+    @Query("SELECT _id, latitude, longitude, time, track FROM measurements" +
+            " WHERE track = :trackId" +
+            " ORDER BY time ASC, _id ASC LIMIT :limit")
+    List<MeasurementTable> fetchPositionPage(Long trackId, int limit);
+
+    @SuppressWarnings(RoomWarnings.CURSOR_MISMATCH)
+    @Query("SELECT _id, latitude, longitude, time, track FROM measurements" +
+            " WHERE track = :trackId" +
+            " AND time >= :lastTime AND (time > :lastTime OR _id > :lastRowId)" +
+            " ORDER BY time ASC, _id ASC LIMIT :limit")
+    List<MeasurementTable> fetchPositionPageAfter(Long trackId, long lastTime, long lastRowId, int limit);
+
+    @Query("SELECT * FROM track_geometry WHERE trackId = :trackId ORDER BY level ASC")
+    List<TrackGeometry> fetchTrackGeometry(Long trackId);
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insertTrackGeometry(List<TrackGeometry> trackGeometry);
+
+    @Query("DELETE FROM track_geometry WHERE trackId = :trackId")
+    void deleteTrackGeometry(Long trackId);
+
+    @Query("DELETE FROM track_geometry WHERE trackId IN (:trackIds)")
+    int deleteTrackGeometries(List<Long> trackIds);
+
+    /**
+     * Replaces all levels of detail of a track.
+     */
+    @Transaction
+    default void replaceTrackGeometry(Long trackId, List<TrackGeometry> trackGeometry) {
+        deleteTrackGeometry(trackId);
+        insertTrackGeometry(trackGeometry);
+    }
+
     @Query("SELECT * FROM measurements WHERE track=:trackId ORDER BY time ASC LIMIT 1")
     Observable<MeasurementTable> fetchStartTime(Long trackId);
 
-    @Query("SELECT time FROM MEASUREMENTS" +
-            " WHERE track = :trackId " +
-            " ORDER BY time ASC LIMIT 1")
-    Cursor fetchStartTimeSilent(Long trackId);
+    @Query("SELECT * FROM track_summary WHERE trackId = :trackId")
+    TrackSummary fetchTrackSummary(Long trackId);
 
-    @Query("SELECT time FROM MEASUREMENTS" +
-            " WHERE track = :trackId " +
-            " ORDER BY time DESC LIMIT 1")
-    Cursor fetchEndTimeSilent(Long trackId);
+    @Query("SELECT * FROM track_summary WHERE trackId IN (:trackIds)")
+    List<TrackSummary> fetchTrackSummaries(List<Long> trackIds);
+
+    @Query("SELECT * FROM track_summary")
+    Observable<List<TrackSummary>> fetchAllTrackSummaries();
+
+    @Query("SELECT s.* FROM track_summary s" +
+            " INNER JOIN tracks t ON t._id = s.trackId" +
+            " WHERE t.remoteId IS NULL")
+    Observable<List<TrackSummary>> fetchAllLocalTrackSummaries();
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insertTrackSummary(TrackSummary trackSummary);
+
+    @Query("DELETE FROM track_summary WHERE trackId = :trackId")
+    void deleteTrackSummary(Long trackId);
+
+    @Query("SELECT _id FROM tracks")
+    List<Long> getAllTrackIds();
+
+    /**
+     * Returns the tracks that can be summarized from their measurements, i.e. all tracks except
+     * uploaded tracks that have been reduced to their summary by the retention.
+     */
+    @Query("SELECT _id FROM tracks t" +
+            " WHERE t.remoteId IS NULL" +
+            " OR EXISTS (SELECT 1 FROM measurements m WHERE m.track = t._id)")
+    List<Long> getSummarizableTrackIds();
+
+    @Query("SELECT COUNT(*) FROM tracks WHERE state='ONGOING'")
+    int countOngoingTracks();
+
+    @Query("SELECT t._id FROM tracks t" +
+            " LEFT JOIN track_summary s ON s.trackId = t._id" +
+            " WHERE t.remoteId IS NOT NULL AND IFNULL(s.endTime, 0) < :endedBefore" +
+            " LIMIT :limit")
+    List<Long> fetchUploadedTrackIdsEndedBefore(long endedBefore, int limit);
+
+    @Query("SELECT t._id FROM tracks t" +
+            " LEFT JOIN track_summary s ON s.trackId = t._id" +
+            " WHERE t.remoteId IS NOT NULL" +
+            " ORDER BY IFNULL(s.endTime, 0) ASC LIMIT :limit")
+    List<Long> fetchOldestUploadedTrackIds(int limit);
+
+    @Query("SELECT t._id FROM tracks t" +
+            " WHERE t.remoteId IS NOT NULL" +
+            " AND EXISTS (SELECT 1 FROM measurements m WHERE m.track = t._id)" +
+            " LIMIT :limit")
+    List<Long> fetchUploadedTrackIdsWithMeasurements(int limit);
+
+    @Query("DELETE FROM measurements WHERE track IN (:trackIds)")
+    int deleteMeasurementsOfTracks(List<Long> trackIds);
+
+    @Query("DELETE FROM track_summary WHERE trackId IN (:trackIds)")
+    int deleteTrackSummaries(List<Long> trackIds);
+
+    @Query("DELETE FROM tracks WHERE _id IN (:trackIds)")
+    int deleteTracks(List<Long> trackIds);
+
+    /**
+     * Deletes the given tracks together with their measurements and summaries in a single
+     * transaction.
+     *
+     * @param trackIds the ids of the tracks to delete.
+     * @return the number of deleted measurements.
+     */
+    @Transaction
+    default int deleteTracksWithMeasurements(List<Long> trackIds) {
+        int deletedMeasurements = deleteMeasurementsOfTracks(trackIds);
+        deleteTrackSummaries(trackIds);
+        deleteTrackGeometries(trackIds);
+        deleteTracks(trackIds);
+        return deletedMeasurements;
+    }
+
+    /**
+     * Deletes a track together with its measurements, summary and geometry in a single
+     * transaction.
+     *
+     * @param trackId the id of the track to delete.
+     */
+    @Transaction
+    default void deleteTrackWithMeasurements(Long trackId) {
+        deleteMeasuremnt(trackId);
+        deleteTrackSummary(trackId);
+        deleteTrackGeometry(trackId);
+        deleteTrack(trackId);
+    }
 
     @Query("UPDATE TRACKS SET trackMetadata = :metaData WHERE _id = :trackId")
     void updateTrackMetadata(String metaData, Long trackId);
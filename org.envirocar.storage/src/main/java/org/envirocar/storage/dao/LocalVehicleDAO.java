@@ -22,10 +22,10 @@ import androidx.room.Dao;
 import androidx.room.Query;
 
 import org.envirocar.core.entity.Vehicles;
+import org.envirocar.core.entity.VehiclesFts;
 
 import java.util.List;
 
-import io.reactivex.Observable;
 import io.reactivex.Single;
 
 @Dao
@@ -34,16 +34,38 @@ public interface LocalVehicleDAO extends BaseLocalCarDAO<Vehicles> {
     @Query("SELECT * FROM vehicles")
     Single<List<Vehicles>> getManufacturerVehiclesList();
 
-    @Query("SELECT * FROM vehicles WHERE manufacturer_id = :manuId")
-    Observable<List<Vehicles>> getManufacturerVehiclesId(String manuId);
-
-    @Query("SELECT * FROM vehicles WHERE manufacturer = :manuName")
-    Observable<List<Vehicles>> getManufacturerVehicles(String manuName);
-
     @Query("SELECT * FROM vehicles where manufacturer_id = :manuId AND id = :vehicleId")
     Single<Vehicles> getHsnTsnVehicle(String manuId, String vehicleId);
 
-    @Query("SELECT * FROM vehicles where manufacturer=:manuName AND commerical_name =:model AND allotment_date LIKE '%' || :year || '%'")
+    @Query("SELECT * FROM vehicles where manufacturer=:manuName AND commerical_name =:model AND allotment_year = :year")
     Single<List<Vehicles>> getVehicleAttributeType(String manuName, String model, String year);
 
+    @Query("SELECT DISTINCT commerical_name FROM vehicles WHERE manufacturer = :manuName ORDER BY commerical_name")
+    Single<List<String>> getModels(String manuName);
+
+    @Query("SELECT DISTINCT allotment_year FROM vehicles WHERE manufacturer = :manuName AND commerical_name = :model AND allotment_year IS NOT NULL ORDER BY allotment_year")
+    Single<List<Integer>> getAllotmentYears(String manuName, String model);
+
+    @Query("SELECT id FROM vehicles WHERE manufacturer_id = :manuId ORDER BY id")
+    Single<List<String>> getTsns(String manuId);
+
+    /**
+     * Type-ahead search for manufacturer names.
+     *
+     * @param query a MATCH expression, see {@link VehiclesFts#prefixQuery(String, String)}.
+     * @param limit the maximum number of results.
+     */
+    @Query("SELECT DISTINCT vehicles.manufacturer FROM vehicles JOIN vehicles_fts ON vehicles.rowid = vehicles_fts.docid WHERE vehicles_fts MATCH :query ORDER BY vehicles.manufacturer LIMIT :limit")
+    Single<List<String>> searchManufacturers(String query, int limit);
+
+    /**
+     * Type-ahead search for the model names of a manufacturer.
+     *
+     * @param manuName the name of the manufacturer.
+     * @param query    a MATCH expression, see {@link VehiclesFts#prefixQuery(String, String)}.
+     * @param limit    the maximum number of results.
+     */
+    @Query("SELECT DISTINCT vehicles.commerical_name FROM vehicles JOIN vehicles_fts ON vehicles.rowid = vehicles_fts.docid WHERE vehicles_fts MATCH :query AND vehicles.manufacturer = :manuName ORDER BY vehicles.commerical_name LIMIT :limit")
+    Single<List<String>> searchModels(String manuName, String query, int limit);
+
 }